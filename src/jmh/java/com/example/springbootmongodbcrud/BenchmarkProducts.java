@@ -0,0 +1,32 @@
+package com.example.springbootmongodbcrud;
+
+import com.example.springbootmongodbcrud.model.Product;
+import com.example.springbootmongodbcrud.repository.InMemoryProductRepository;
+
+import java.math.BigDecimal;
+
+/**
+ * Generated products shared by the benchmarks, and an {@link InMemoryProductRepository} preloaded with them so
+ * service measurements exclude network and database time.
+ */
+final class BenchmarkProducts {
+
+    static final String[] CATEGORIES = {"Electronics", "Books", "Garden", "Toys", "Kitchen"};
+
+    private BenchmarkProducts() {
+    }
+
+    // A repository holding count generated products named "Item 0" .. "Item <count - 1>"
+    static InMemoryProductRepository repositoryWith(int count) {
+        InMemoryProductRepository repository = new InMemoryProductRepository();
+        for (int i = 0; i < count; i++) {
+            repository.save(product(i));
+        }
+        return repository;
+    }
+
+    static Product product(int i) {
+        return new Product("Item " + i, "Benchmark product " + i, new BigDecimal(5 + i % 500 + ".99"),
+                CATEGORIES[i % CATEGORIES.length], i % 100);
+    }
+}
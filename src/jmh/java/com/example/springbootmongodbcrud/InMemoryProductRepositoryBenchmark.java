@@ -0,0 +1,81 @@
+package com.example.springbootmongodbcrud;
+
+import com.example.springbootmongodbcrud.model.Product;
+import com.example.springbootmongodbcrud.model.ProductFilter;
+import com.example.springbootmongodbcrud.model.ProductSort;
+import com.example.springbootmongodbcrud.repository.InMemoryProductRepository;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Lookup and page latency of {@link InMemoryProductRepository} on its own: point reads through the id and
+ * name maps, and first pages served by walking the category, price and stock indexes.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class InMemoryProductRepositoryBenchmark {
+
+    private static final ProductFilter PRICE_RANGE =
+            ProductFilter.byPriceRange(new BigDecimal("10"), new BigDecimal("60"));
+
+    private static final ProductFilter CATEGORY_AND_PRICE =
+            ProductFilter.byCategoryAndPriceRange("Books", new BigDecimal("10"), new BigDecimal("60"));
+
+    @Param({"10000", "100000"})
+    private int products;
+
+    private InMemoryProductRepository repository;
+
+    private String id;
+
+    private String name;
+
+    @Setup
+    public void setUp() {
+        repository = BenchmarkProducts.repositoryWith(products);
+        Product sample = repository.findByName("Item " + products / 2).orElseThrow();
+        id = sample.getId();
+        name = sample.getName();
+    }
+
+    @Benchmark
+    public Product findById() {
+        return repository.findById(id).orElseThrow();
+    }
+
+    @Benchmark
+    public Product findByName() {
+        return repository.findByName(name).orElseThrow();
+    }
+
+    @Benchmark
+    public List<Product> firstPageByCategory() {
+        return repository.findPage(ProductFilter.byCategory("Books"), ProductSort.parse("id"), null, 50);
+    }
+
+    @Benchmark
+    public List<Product> firstPageByPriceRange() {
+        return repository.findPage(PRICE_RANGE, ProductSort.parse("price"), null, 50);
+    }
+
+    @Benchmark
+    public List<Product> firstPageByCategoryAndPriceRange() {
+        return repository.findPage(CATEGORY_AND_PRICE, ProductSort.parse("-price"), null, 50);
+    }
+
+    @Benchmark
+    public List<Product> firstPageWithLowStock() {
+        return repository.findPage(ProductFilter.stockBelow(5), ProductSort.parse("id"), null, 50);
+    }
+}
@@ -0,0 +1,60 @@
+package com.example.springbootmongodbcrud;
+
+import com.example.springbootmongodbcrud.exception.ProductNotFoundException;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of signalling "not found" from below a request's stack: a plain {@code RuntimeException}, which fills
+ * in a stack trace of the whole call chain, against the stackless {@link ProductNotFoundException}. A servlet
+ * request reaches the service some 100 frames deep. Run with {@code -prof gc} to see the allocation per throw.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class ProductExceptionBenchmark {
+
+    @Param({"20", "100"})
+    private int depth;
+
+    private String id = "64f1c2a9e4b0a1b2c3d4e5f6";
+
+    @Benchmark
+    public String runtimeException() {
+        try {
+            return throwRuntimeAt(depth);
+        } catch (RuntimeException ex) {
+            return ex.getMessage();
+        }
+    }
+
+    @Benchmark
+    public String productNotFoundException() {
+        try {
+            return throwNotFoundAt(depth);
+        } catch (ProductNotFoundException ex) {
+            return ex.getMessage();
+        }
+    }
+
+    private String throwRuntimeAt(int remaining) {
+        if (remaining == 0) {
+            throw new RuntimeException("Product not found with id: " + id);
+        }
+        return throwRuntimeAt(remaining - 1);
+    }
+
+    private String throwNotFoundAt(int remaining) {
+        if (remaining == 0) {
+            throw new ProductNotFoundException(id);
+        }
+        return throwNotFoundAt(remaining - 1);
+    }
+}
@@ -0,0 +1,79 @@
+package com.example.springbootmongodbcrud;
+
+import com.example.springbootmongodbcrud.model.Product;
+import com.example.springbootmongodbcrud.model.ProductPage;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Jackson serialization and deserialization of products, with a mapper configured like the application's
+ * ({@code spring.jackson.*} in application.properties).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class ProductJsonBenchmark {
+
+    private ObjectWriter productWriter;
+
+    private ObjectReader productReader;
+
+    private ObjectWriter pageWriter;
+
+    private Product product;
+
+    private byte[] productJson;
+
+    private ProductPage page;
+
+    @Setup
+    public void setUp() throws Exception {
+        ObjectMapper mapper = Jackson2ObjectMapperBuilder.json()
+                .serializationInclusion(JsonInclude.Include.NON_NULL)
+                .featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+                .build();
+        productWriter = mapper.writerFor(Product.class);
+        productReader = mapper.readerFor(Product.class);
+        pageWriter = mapper.writerFor(ProductPage.class);
+        product = BenchmarkProducts.product(42);
+        product.setId("65a1f0c2e4b0a1b2c3d4e5f6");
+        productJson = productWriter.writeValueAsBytes(product);
+        List<Product> items = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            Product item = BenchmarkProducts.product(i);
+            item.setId(String.format("65a1f0c2e4b0a1b2c3d4%04x", i));
+            items.add(item);
+        }
+        page = new ProductPage(items, "cursor", 50);
+    }
+
+    @Benchmark
+    public byte[] serializeProduct() throws Exception {
+        return productWriter.writeValueAsBytes(product);
+    }
+
+    @Benchmark
+    public Product deserializeProduct() throws Exception {
+        return productReader.readValue(productJson);
+    }
+
+    @Benchmark
+    public byte[] serializePageOf50() throws Exception {
+        return pageWriter.writeValueAsBytes(page);
+    }
+}
@@ -0,0 +1,214 @@
+package com.example.springbootmongodbcrud;
+
+import com.example.springbootmongodbcrud.exception.ProductNotFoundException;
+import com.example.springbootmongodbcrud.model.BulkCreateResult;
+import com.example.springbootmongodbcrud.model.KeysetPageRequest;
+import com.example.springbootmongodbcrud.model.Product;
+import com.example.springbootmongodbcrud.model.ProductPage;
+import com.example.springbootmongodbcrud.repository.ProductRepository;
+import com.example.springbootmongodbcrud.service.ProductCache;
+import com.example.springbootmongodbcrud.service.HotKeyTracker;
+import com.example.springbootmongodbcrud.service.LowStockTracker;
+import com.example.springbootmongodbcrud.service.ProductEventLog;
+import com.example.springbootmongodbcrud.service.ProductFacetsCache;
+import com.example.springbootmongodbcrud.service.ProductService;
+import com.example.springbootmongodbcrud.service.ReadCoalescer;
+import com.example.springbootmongodbcrud.service.StockWriteBehind;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.validation.Validation;
+import jakarta.validation.ValidatorFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Every {@link ProductService} operation against the in-memory repository, so the numbers cover the
+ * service, cache, paging and validation code but no database time. Writes that would grow the catalog
+ * remove what they created in the same invocation to keep the data set stable.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ProductServiceBenchmark {
+
+    private static final BigDecimal MIN_PRICE = new BigDecimal("10");
+
+    private static final BigDecimal MAX_PRICE = new BigDecimal("60");
+
+    @Param({"10000"})
+    private int products;
+
+    private ValidatorFactory validatorFactory;
+
+    private ProductRepository repository;
+
+    private ProductService service;
+
+    // Same repository, but a cache that keeps nothing, so every lookup reaches the repository
+    private ProductService uncachedService;
+
+    private String id;
+
+    private String name;
+
+    private String secondPageCursor;
+
+    private long sequence;
+
+    @Setup
+    public void setUp() {
+        validatorFactory = Validation.buildDefaultValidatorFactory();
+        repository = BenchmarkProducts.repositoryWith(products);
+        // Disabled: stock updates go straight to the repository
+        StockWriteBehind writeBehind = new StockWriteBehind(repository, new ProductCache(1, 1, Duration.ZERO),
+                new SimpleMeterRegistry(), false, "", true, 1000, Duration.ofMillis(200));
+        service = new ProductService(repository, validatorFactory.getValidator(),
+                new ProductCache(64L << 20, 200_000, Duration.ofMinutes(5)),
+                new ProductFacetsCache(10_000, Duration.ofSeconds(10)), new LowStockTracker(repository, 10, 1024),
+                new ProductEventLog(4096, 1024, false), writeBehind,
+                new ReadCoalescer(new SimpleMeterRegistry(), true),
+                new HotKeyTracker(true, Duration.ofMinutes(1), 6, 2048, 4, 256));
+        uncachedService = new ProductService(repository, validatorFactory.getValidator(),
+                new ProductCache(64L << 20, 200_000, Duration.ZERO),
+                new ProductFacetsCache(10_000, Duration.ofSeconds(10)), new LowStockTracker(repository, 10, 1024),
+                new ProductEventLog(4096, 1024, false), writeBehind,
+                new ReadCoalescer(new SimpleMeterRegistry(), true),
+                new HotKeyTracker(true, Duration.ofMinutes(1), 6, 2048, 4, 256));
+        Product sample = service.getProductByName("Item " + products / 2).orElseThrow();
+        id = sample.getId();
+        name = sample.getName();
+        service.updateStockQuantity(id, 100);
+        secondPageCursor = service.getAllProducts(KeysetPageRequest.first()).getNextCursor();
+    }
+
+    @TearDown
+    public void tearDown() {
+        validatorFactory.close();
+    }
+
+    @Benchmark
+    public Product createAndDeleteProduct() {
+        Product created = service.createProduct(newProduct());
+        service.deleteProduct(created.getId());
+        return created;
+    }
+
+    @Benchmark
+    public BulkCreateResult createProductsBatchOf100() {
+        List<Product> batch = new ArrayList<>(100);
+        for (int i = 0; i < 100; i++) {
+            batch.add(newProduct());
+        }
+        BulkCreateResult result = service.createProducts(batch);
+        repository.deleteAll(batch);
+        return result;
+    }
+
+    @Benchmark
+    public ProductPage getAllProductsFirstPage() {
+        return service.getAllProducts(KeysetPageRequest.first());
+    }
+
+    @Benchmark
+    public ProductPage getAllProductsSecondPage() {
+        return service.getAllProducts(KeysetPageRequest.of(null, secondPageCursor, null));
+    }
+
+    @Benchmark
+    public ProductPage getAllProductsByPriceDescending() {
+        return service.getAllProducts(KeysetPageRequest.of("-price", null, null));
+    }
+
+    @Benchmark
+    public void streamAllProducts(Blackhole blackhole) {
+        try (Stream<Product> all = service.streamAllProducts()) {
+            all.forEach(blackhole::consume);
+        }
+    }
+
+    @Benchmark
+    public Product getProductByIdCached() {
+        return service.getProductById(id).orElseThrow();
+    }
+
+    @Benchmark
+    public Product getProductByIdUncached() {
+        return uncachedService.getProductById(id).orElseThrow();
+    }
+
+    @Benchmark
+    public Product getProductByNameCached() {
+        return service.getProductByName(name).orElseThrow();
+    }
+
+    @Benchmark
+    public Product updateProduct() {
+        Product details = BenchmarkProducts.product(products / 2);
+        details.setPrice((sequence++ & 1) == 0 ? new BigDecimal("19.99") : new BigDecimal("29.99"));
+        return service.updateProduct(id, details);
+    }
+
+    @Benchmark
+    public ProductPage getProductsByCategory() {
+        return service.getProductsByCategory("Books", KeysetPageRequest.first());
+    }
+
+    @Benchmark
+    public ProductPage getProductsByPriceRange() {
+        return service.getProductsByPriceRange(MIN_PRICE, MAX_PRICE, KeysetPageRequest.first());
+    }
+
+    @Benchmark
+    public ProductPage getProductsWithLowStock() {
+        return service.getProductsWithLowStock(5, KeysetPageRequest.first());
+    }
+
+    @Benchmark
+    public ProductPage searchProductsByName() {
+        return service.searchProductsByName("item 12", KeysetPageRequest.first());
+    }
+
+    @Benchmark
+    public ProductPage getProductsByCategoryAndPriceRange() {
+        return service.getProductsByCategoryAndPriceRange("Books", MIN_PRICE, MAX_PRICE, KeysetPageRequest.first());
+    }
+
+    @Benchmark
+    public Product updateStockQuantity() {
+        return service.updateStockQuantity(id, 100);
+    }
+
+    @Benchmark
+    public Product reserveAndRestock() {
+        service.reserveStock(id, 1);
+        return service.adjustStockQuantity(id, 1);
+    }
+
+    // A 404 probe: the service throws and the caller catches, as the exception handler would
+    @Benchmark
+    public String updateStockQuantityOfMissingProduct() {
+        try {
+            return service.updateStockQuantity("missing", 100).getId();
+        } catch (ProductNotFoundException ex) {
+            return ex.getMessage();
+        }
+    }
+
+    private Product newProduct() {
+        return new Product("Bench " + sequence++, "Created by the benchmark", new BigDecimal("9.99"), "Books", 10);
+    }
+}
@@ -0,0 +1,319 @@
+package com.example.springbootmongodbcrud;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jdk.jfr.consumer.RecordedFrame;
+import jdk.jfr.consumer.RecordingStream;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.testcontainers.containers.MongoDBContainer;
+
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.IntFunction;
+
+/**
+ * Load benchmark comparing Tomcat request handling on its platform thread pool with handling on virtual
+ * threads ({@code spring.threads.virtual.enabled}), against the same MongoDB and the existing endpoints.
+ *
+ * <p>Each mode starts the full application, then {@code benchmark.concurrency} closed-loop clients call one
+ * endpoint at a time for a warm-up and a measured period. The product cache is disabled so every request
+ * reaches Mongo. While virtual threads are in use, JFR {@code jdk.VirtualThreadPinned} events are counted
+ * and grouped by the first non-JDK frame, so any driver or application code that pins a carrier shows up.
+ *
+ * <p>Run with {@code ./gradlew threadModeBenchmark}. Without {@code benchmark.mongodb.uri} a MongoDB
+ * container is started through Testcontainers.
+ */
+public final class ThreadModeBenchmark {
+
+    private static final int CONCURRENCY = Integer.getInteger("benchmark.concurrency", 1000);
+
+    private static final Duration WARMUP = Duration.ofSeconds(Integer.getInteger("benchmark.warmup-seconds", 10));
+
+    private static final Duration DURATION = Duration.ofSeconds(Integer.getInteger("benchmark.duration-seconds", 30));
+
+    private static final int PRODUCTS = Integer.getInteger("benchmark.products", 10_000);
+
+    private static final String[] CATEGORIES = {"Electronics", "Books", "Garden", "Toys", "Kitchen"};
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private ThreadModeBenchmark() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        if (Runtime.version().feature() < 21) {
+            System.err.println("Virtual threads need Java 21; both runs will use platform threads on "
+                    + Runtime.version());
+        }
+        String mongoUri = System.getProperty("benchmark.mongodb.uri");
+        MongoDBContainer mongo = null;
+        if (mongoUri == null) {
+            mongo = new MongoDBContainer("mongo:7.0");
+            mongo.start();
+            mongoUri = mongo.getReplicaSetUrl("benchmark");
+        }
+        try {
+            List<Result> results = new ArrayList<>();
+            results.addAll(run(mongoUri, false));
+            results.addAll(run(mongoUri, true));
+            print(results);
+        } finally {
+            if (mongo != null) {
+                mongo.stop();
+            }
+        }
+    }
+
+    private static List<Result> run(String mongoUri, boolean virtualThreads) throws Exception {
+        String mode = virtualThreads ? "virtual" : "platform";
+        try (ConfigurableApplicationContext app = start(mongoUri, virtualThreads);
+             PinnedThreadMonitor pins = new PinnedThreadMonitor()) {
+            int port = ((WebServerApplicationContext) app).getWebServer().getPort();
+            String base = "http://localhost:" + port + "/api/products";
+            HttpClient client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+            List<String> ids = seed(client, base);
+
+            List<Result> results = new ArrayList<>();
+            results.add(measure(mode, "GET /{id}", client, pins,
+                    i -> base + "/" + ids.get(i % ids.size())));
+            results.add(measure(mode, "GET ?limit=50", client, pins,
+                    i -> base + "?limit=50"));
+            results.add(measure(mode, "GET /search", client, pins,
+                    i -> base + "/search?limit=20&name=" + URLEncoder.encode("item " + (i % 100), StandardCharsets.UTF_8)));
+            results.add(measure(mode, "GET /category/../price-range", client, pins,
+                    i -> base + "/category/" + CATEGORIES[i % CATEGORIES.length] + "/price-range?minPrice=10&maxPrice=200"));
+            pins.report();
+            return results;
+        }
+    }
+
+    private static ConfigurableApplicationContext start(String mongoUri, boolean virtualThreads) {
+        return new SpringApplicationBuilder(SpringBootMongoDbCrudApplication.class)
+                .properties(Map.of(
+                        "server.port", "0",
+                        "spring.data.mongodb.uri", mongoUri,
+                        "spring.threads.virtual.enabled", String.valueOf(virtualThreads),
+                        "app.cache.products.max-weight-bytes", "0",
+                        "logging.level.com.example.springbootmongodbcrud", "INFO",
+                        "logging.level.org.springframework.data.mongodb.core.MongoTemplate", "INFO"))
+                .run();
+    }
+
+    // Insert the catalog once (bulk conflicts on later runs are fine) and return a sample of ids
+    private static List<String> seed(HttpClient client, String base) throws Exception {
+        for (int offset = 0; offset < PRODUCTS; offset += 1000) {
+            StringBuilder body = new StringBuilder("[");
+            for (int i = offset; i < Math.min(offset + 1000, PRODUCTS); i++) {
+                if (i > offset) {
+                    body.append(',');
+                }
+                body.append("{\"name\":\"Item ").append(i)
+                        .append("\",\"description\":\"Benchmark product\",\"price\":")
+                        .append(5 + i % 500).append(".99,\"category\":\"").append(CATEGORIES[i % CATEGORIES.length])
+                        .append("\",\"stockQuantity\":").append(i % 100).append('}');
+            }
+            client.send(HttpRequest.newBuilder(URI.create(base + "/bulk"))
+                    .header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofString(body.append(']').toString()))
+                    .build(), HttpResponse.BodyHandlers.discarding());
+        }
+        HttpResponse<String> page = client.send(HttpRequest.newBuilder(URI.create(base + "?limit=500")).build(),
+                HttpResponse.BodyHandlers.ofString());
+        List<String> ids = new ArrayList<>();
+        for (JsonNode item : MAPPER.readTree(page.body()).path("items")) {
+            ids.add(item.path("id").asText());
+        }
+        return ids;
+    }
+
+    private static Result measure(String mode, String scenario, HttpClient client, PinnedThreadMonitor pins,
+                                  IntFunction<String> uris) throws InterruptedException {
+        drive(client, uris, WARMUP);
+        pins.reset();
+        Recorder[] recorders = drive(client, uris, DURATION);
+        return Result.of(mode, scenario, recorders, DURATION, pins.count());
+    }
+
+    // Run CONCURRENCY closed-loop clients until the deadline; each sends its next request as soon as one completes
+    private static Recorder[] drive(HttpClient client, IntFunction<String> uris, Duration duration)
+            throws InterruptedException {
+        long deadline = System.nanoTime() + duration.toNanos();
+        Recorder[] recorders = new Recorder[CONCURRENCY];
+        Thread[] workers = new Thread[CONCURRENCY];
+        for (int w = 0; w < CONCURRENCY; w++) {
+            Recorder recorder = new Recorder();
+            recorders[w] = recorder;
+            workers[w] = new Thread(() -> {
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                while (System.nanoTime() < deadline) {
+                    HttpRequest request = HttpRequest.newBuilder(URI.create(uris.apply(random.nextInt(1 << 20)))).build();
+                    long started = System.nanoTime();
+                    try {
+                        HttpResponse<Void> response = client.send(request, HttpResponse.BodyHandlers.discarding());
+                        recorder.record(System.nanoTime() - started, response.statusCode() < 400);
+                    } catch (Exception e) {
+                        recorder.record(System.nanoTime() - started, false);
+                    }
+                }
+            }, "load-" + w);
+            workers[w].start();
+        }
+        for (Thread worker : workers) {
+            worker.join();
+        }
+        return recorders;
+    }
+
+    private static void print(List<Result> results) {
+        System.out.printf("%nconcurrency=%d duration=%ss java=%s%n", CONCURRENCY, DURATION.toSeconds(), Runtime.version());
+        System.out.printf("%-9s %-30s %12s %10s %10s %10s %8s %8s%n",
+                "mode", "scenario", "requests/s", "p50 ms", "p99 ms", "max ms", "errors", "pinned");
+        for (Result r : results) {
+            System.out.printf("%-9s %-30s %12.0f %10.2f %10.2f %10.2f %8d %8d%n",
+                    r.mode, r.scenario, r.throughput, r.p50Millis, r.p99Millis, r.maxMillis, r.errors, r.pinned);
+        }
+    }
+
+    // Latencies recorded by one client thread; read only after the thread has been joined
+    private static final class Recorder {
+
+        private long[] latencies = new long[1024];
+
+        private int size;
+
+        private int errors;
+
+        void record(long nanos, boolean ok) {
+            if (!ok) {
+                errors++;
+                return;
+            }
+            if (size == latencies.length) {
+                latencies = Arrays.copyOf(latencies, size * 2);
+            }
+            latencies[size++] = nanos;
+        }
+    }
+
+    private static final class Result {
+
+        final String mode;
+
+        final String scenario;
+
+        final double throughput;
+
+        final double p50Millis;
+
+        final double p99Millis;
+
+        final double maxMillis;
+
+        final long errors;
+
+        final long pinned;
+
+        private Result(String mode, String scenario, double throughput, double p50Millis, double p99Millis,
+                       double maxMillis, long errors, long pinned) {
+            this.mode = mode;
+            this.scenario = scenario;
+            this.throughput = throughput;
+            this.p50Millis = p50Millis;
+            this.p99Millis = p99Millis;
+            this.maxMillis = maxMillis;
+            this.errors = errors;
+            this.pinned = pinned;
+        }
+
+        static Result of(String mode, String scenario, Recorder[] recorders, Duration duration, long pinned) {
+            int total = 0;
+            long errors = 0;
+            for (Recorder recorder : recorders) {
+                total += recorder.size;
+                errors += recorder.errors;
+            }
+            long[] all = new long[total];
+            int at = 0;
+            for (Recorder recorder : recorders) {
+                System.arraycopy(recorder.latencies, 0, all, at, recorder.size);
+                at += recorder.size;
+            }
+            Arrays.sort(all);
+            return new Result(mode, scenario,
+                    total / (duration.toNanos() / 1e9),
+                    percentile(all, 0.50), percentile(all, 0.99), total == 0 ? 0 : all[total - 1] / 1e6,
+                    errors, pinned);
+        }
+
+        private static double percentile(long[] sorted, double quantile) {
+            if (sorted.length == 0) {
+                return 0;
+            }
+            return sorted[Math.min(sorted.length - 1, (int) Math.ceil(quantile * sorted.length) - 1)] / 1e6;
+        }
+    }
+
+    // Counts jdk.VirtualThreadPinned events (JDK 21+) and where they come from
+    private static final class PinnedThreadMonitor implements AutoCloseable {
+
+        private final RecordingStream stream = new RecordingStream();
+
+        private final LongAdder count = new LongAdder();
+
+        private final Map<String, LongAdder> sites = new ConcurrentHashMap<>();
+
+        PinnedThreadMonitor() {
+            stream.enable("jdk.VirtualThreadPinned").withThreshold(Duration.ZERO).withStackTrace();
+            stream.onEvent("jdk.VirtualThreadPinned", event -> {
+                count.increment();
+                sites.computeIfAbsent(site(event.getStackTrace() == null ? List.of() : event.getStackTrace().getFrames()),
+                        key -> new LongAdder()).increment();
+            });
+            stream.startAsync();
+        }
+
+        long count() {
+            return count.sum();
+        }
+
+        void reset() {
+            count.reset();
+        }
+
+        void report() {
+            sites.entrySet().stream()
+                    .sorted((a, b) -> Long.compare(b.getValue().sum(), a.getValue().sum()))
+                    .limit(10)
+                    .forEach(site -> System.out.printf("pinned %6d x %s%n", site.getValue().sum(), site.getKey()));
+        }
+
+        private static String site(List<RecordedFrame> frames) {
+            for (RecordedFrame frame : frames) {
+                String type = frame.getMethod().getType().getName();
+                if (!type.startsWith("java.") && !type.startsWith("jdk.") && !type.startsWith("sun.")) {
+                    return type + "." + frame.getMethod().getName() + ":" + frame.getLineNumber();
+                }
+            }
+            return "<jdk>";
+        }
+
+        @Override
+        public void close() {
+            stream.close();
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package com.example.springbootmongodbcrud.config;
+
+import com.example.springbootmongodbcrud.model.Product;
+import com.example.springbootmongodbcrud.model.ProductPage;
+import com.fasterxml.jackson.annotation.JsonFormat;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.dataformat.protobuf.ProtobufFactory;
+import com.fasterxml.jackson.dataformat.protobuf.schema.NativeProtobufSchema;
+import com.fasterxml.jackson.dataformat.protobuf.schema.ProtobufSchema;
+import com.fasterxml.jackson.dataformat.protobuf.schema.ProtobufSchemaLoader;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.util.Map;
+
+/**
+ * The Protobuf schema of the product API ({@code proto/product.proto}) and the Jackson mapper that reads and
+ * writes it. Only the types the schema has a message for can be exchanged as Protobuf.
+ */
+final class ProductProtobuf {
+
+    static final MediaType MEDIA_TYPE = new MediaType("application", "x-protobuf");
+
+    private static final String SCHEMA_LOCATION = "proto/product.proto";
+
+    private final Map<Class<?>, ProtobufSchema> schemas;
+
+    private final ObjectMapper mapper;
+
+    ProductProtobuf(Jackson2ObjectMapperBuilder builder) {
+        NativeProtobufSchema schema = load();
+        this.schemas = Map.of(
+                Product.class, schema.forType("Product"),
+                ProductPage.class, schema.forType("ProductPage"));
+        this.mapper = builder.factory(new ProtobufFactory()).build();
+        // The schema carries prices as decimal strings, which keeps them exact, and timestamps as ISO-8601 strings
+        mapper.configOverride(BigDecimal.class).setFormat(JsonFormat.Value.forShape(JsonFormat.Shape.STRING));
+        mapper.disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+        // Derived properties such as hasMore on a request body are not part of every message
+        mapper.enable(JsonGenerator.Feature.IGNORE_UNKNOWN);
+    }
+
+    boolean supports(Class<?> type) {
+        return schemas.containsKey(type);
+    }
+
+    ProtobufSchema schemaFor(Class<?> type) {
+        return schemas.get(type);
+    }
+
+    ObjectMapper getMapper() {
+        return mapper;
+    }
+
+    private static NativeProtobufSchema load() {
+        try (InputStream in = new ClassPathResource(SCHEMA_LOCATION).getInputStream()) {
+            return ProtobufSchemaLoader.std.loadNative(in, false);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot load " + SCHEMA_LOCATION, e);
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package com.example.springbootmongodbcrud.config;
+
+import com.fasterxml.jackson.databind.ObjectReader;
+import org.reactivestreams.Publisher;
+import org.springframework.core.ResolvableType;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.http.codec.json.AbstractJackson2Decoder;
+import org.springframework.util.MimeType;
+import reactor.core.publisher.Flux;
+
+import java.util.Map;
+
+/**
+ * Reactive counterpart of {@link ProtobufJacksonHttpMessageConverter} for reading. Protobuf has no
+ * non-blocking parser, so only whole bodies (a single message) can be decoded.
+ */
+class ProtobufJacksonDecoder extends AbstractJackson2Decoder {
+
+    private final ProductProtobuf protobuf;
+
+    ProtobufJacksonDecoder(ProductProtobuf protobuf) {
+        super(protobuf.getMapper(), ProductProtobuf.MEDIA_TYPE);
+        this.protobuf = protobuf;
+    }
+
+    @Override
+    public boolean canDecode(ResolvableType elementType, MimeType mimeType) {
+        return protobuf.supports(elementType.toClass()) && super.canDecode(elementType, mimeType);
+    }
+
+    @Override
+    public Flux<Object> decode(Publisher<DataBuffer> input, ResolvableType elementType, MimeType mimeType,
+                               Map<String, Object> hints) {
+        throw new UnsupportedOperationException("Protobuf supports single messages only");
+    }
+
+    @Override
+    protected ObjectReader customizeReader(ObjectReader reader, ResolvableType elementType, Map<String, Object> hints) {
+        return reader.with(protobuf.schemaFor(elementType.toClass()));
+    }
+}
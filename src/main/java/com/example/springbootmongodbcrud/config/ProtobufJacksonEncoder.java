@@ -0,0 +1,32 @@
+package com.example.springbootmongodbcrud.config;
+
+import com.fasterxml.jackson.databind.ObjectWriter;
+import org.springframework.core.ResolvableType;
+import org.springframework.http.codec.json.AbstractJackson2Encoder;
+import org.springframework.util.MimeType;
+
+import java.util.Map;
+
+/**
+ * Reactive counterpart of {@link ProtobufJacksonHttpMessageConverter} for writing.
+ */
+class ProtobufJacksonEncoder extends AbstractJackson2Encoder {
+
+    private final ProductProtobuf protobuf;
+
+    ProtobufJacksonEncoder(ProductProtobuf protobuf) {
+        super(protobuf.getMapper(), ProductProtobuf.MEDIA_TYPE);
+        this.protobuf = protobuf;
+    }
+
+    @Override
+    public boolean canEncode(ResolvableType elementType, MimeType mimeType) {
+        return protobuf.supports(elementType.toClass()) && super.canEncode(elementType, mimeType);
+    }
+
+    @Override
+    protected ObjectWriter customizeWriter(ObjectWriter writer, MimeType mimeType, ResolvableType elementType,
+                                           Map<String, Object> hints) {
+        return writer.with(protobuf.schemaFor(elementType.toClass()));
+    }
+}
@@ -0,0 +1,54 @@
+package com.example.springbootmongodbcrud.config;
+
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.HttpMessageNotWritableException;
+import org.springframework.http.converter.json.AbstractJackson2HttpMessageConverter;
+
+import java.io.IOException;
+import java.lang.reflect.Type;
+
+/**
+ * Reads and writes products and product pages as {@code application/x-protobuf}, using the schema in
+ * {@link ProductProtobuf}.
+ */
+class ProtobufJacksonHttpMessageConverter extends AbstractJackson2HttpMessageConverter {
+
+    private final ProductProtobuf protobuf;
+
+    ProtobufJacksonHttpMessageConverter(ProductProtobuf protobuf) {
+        super(protobuf.getMapper(), ProductProtobuf.MEDIA_TYPE);
+        this.protobuf = protobuf;
+    }
+
+    @Override
+    public boolean canRead(Type type, Class<?> contextClass, MediaType mediaType) {
+        return protobuf.supports(getJavaType(type, contextClass).getRawClass())
+                && super.canRead(type, contextClass, mediaType);
+    }
+
+    @Override
+    public boolean canWrite(Class<?> clazz, MediaType mediaType) {
+        return protobuf.supports(clazz) && super.canWrite(clazz, mediaType);
+    }
+
+    // Always pass the concrete type on, since the schema is chosen from it
+    @Override
+    protected void writeInternal(Object object, Type type, HttpOutputMessage outputMessage)
+            throws IOException, HttpMessageNotWritableException {
+        super.writeInternal(object, object.getClass(), outputMessage);
+    }
+
+    @Override
+    protected ObjectReader customizeReader(ObjectReader reader, JavaType javaType) {
+        return reader.with(protobuf.schemaFor(javaType.getRawClass()));
+    }
+
+    @Override
+    protected ObjectWriter customizeWriter(ObjectWriter writer, JavaType javaType, MediaType contentType) {
+        return writer.with(protobuf.schemaFor(javaType.getRawClass()));
+    }
+}
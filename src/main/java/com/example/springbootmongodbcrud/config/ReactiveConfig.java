@@ -0,0 +1,46 @@
+package com.example.springbootmongodbcrud.config;
+
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.web.codec.CodecCustomizer;
+import org.springframework.boot.web.embedded.netty.NettyReactiveWebServerFactory;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.codec.cbor.Jackson2CborDecoder;
+import org.springframework.http.codec.cbor.Jackson2CborEncoder;
+import org.springframework.http.codec.json.Jackson2SmileDecoder;
+import org.springframework.http.codec.json.Jackson2SmileEncoder;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+@Configuration
+@Profile("reactive")
+public class ReactiveConfig {
+    
+    // Tomcat is on the classpath for the servlet mode and would otherwise be picked for WebFlux too;
+    // serve reactive mode from Netty's event loops instead
+    @Bean
+    public NettyReactiveWebServerFactory nettyReactiveWebServerFactory() {
+        return new NettyReactiveWebServerFactory();
+    }
+    
+    // The reactive equivalent of BinaryFormatsConfig: CBOR, Smile and Protobuf codecs with the same Jackson
+    // settings as JSON, registered after it so JSON stays the default
+    @Bean
+    public CodecCustomizer binaryFormatsCodecCustomizer(ObjectProvider<Jackson2ObjectMapperBuilder> builders) {
+        return configurer -> {
+            configurer.defaultCodecs().jackson2SmileEncoder(
+                    new Jackson2SmileEncoder(builders.getObject().factory(new SmileFactory()).build()));
+            configurer.defaultCodecs().jackson2SmileDecoder(
+                    new Jackson2SmileDecoder(builders.getObject().factory(new SmileFactory()).build()));
+            configurer.customCodecs().register(
+                    new Jackson2CborEncoder(builders.getObject().factory(new CBORFactory()).build()));
+            configurer.customCodecs().register(
+                    new Jackson2CborDecoder(builders.getObject().factory(new CBORFactory()).build()));
+            ProductProtobuf protobuf = new ProductProtobuf(builders.getObject());
+            configurer.customCodecs().register(new ProtobufJacksonEncoder(protobuf));
+            configurer.customCodecs().register(new ProtobufJacksonDecoder(protobuf));
+        };
+    }
+}
@@ -0,0 +1,45 @@
+package com.example.springbootmongodbcrud.controller;
+
+import com.example.springbootmongodbcrud.model.HotKeyReport;
+import com.example.springbootmongodbcrud.model.ProductCacheStats;
+import com.example.springbootmongodbcrud.service.HotKeyTracker;
+import com.example.springbootmongodbcrud.service.ProductCache;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@RequestMapping("/api/admin")
+public class AdminController {
+    
+    private static final int MAX_HOT_KEYS = 100;
+    
+    private final ProductCache productCache;
+    
+    private final HotKeyTracker hotKeys;
+    
+    @Autowired
+    public AdminController(ProductCache productCache, HotKeyTracker hotKeys) {
+        this.productCache = productCache;
+        this.hotKeys = hotKeys;
+    }
+    
+    // Get product cache hit, miss and eviction counters
+    @GetMapping("/cache")
+    public ResponseEntity<ProductCacheStats> getCacheStats() {
+        return new ResponseEntity<>(productCache.stats(), HttpStatus.OK);
+    }
+    
+    // Get the most requested products, categories and search terms over the recent window
+    @GetMapping("/hot-keys")
+    public ResponseEntity<HotKeyReport> getHotKeys(@RequestParam(defaultValue = "20") int top) {
+        if (top <= 0 || top > MAX_HOT_KEYS) {
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+        }
+        return new ResponseEntity<>(hotKeys.report(top), HttpStatus.OK);
+    }
+}
@@ -1,135 +1,370 @@
 package com.example.springbootmongodbcrud.controller;
 
+import com.example.springbootmongodbcrud.model.BatchGetRequest;
+import com.example.springbootmongodbcrud.model.BatchGetResult;
+import com.example.springbootmongodbcrud.model.BulkCreateResult;
+import com.example.springbootmongodbcrud.model.KeysetPageRequest;
+import com.example.springbootmongodbcrud.model.LowStockEvent;
 import com.example.springbootmongodbcrud.model.Product;
+import com.example.springbootmongodbcrud.model.ProductEvent;
+import com.example.springbootmongodbcrud.model.ProductFacets;
+import com.example.springbootmongodbcrud.model.ProductFacetsQuery;
+import com.example.springbootmongodbcrud.model.ProductFields;
+import com.example.springbootmongodbcrud.model.ProductFilter;
+import com.example.springbootmongodbcrud.model.ProductPage;
 import com.example.springbootmongodbcrud.service.ProductService;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SequenceWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.http.codec.ServerSentEvent;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.async.WebAsyncTask;
+import reactor.core.publisher.Flux;
 
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
+import java.io.OutputStream;
 import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 @RestController
+@Profile("!reactive")
 @RequestMapping("/api/products")
-@CrossOrigin(origins = "*")
+@CrossOrigin(origins = "*", exposedHeaders = HttpHeaders.ETAG)
 public class ProductController {
     
+    // Newline-delimited JSON, one product per line
+    public static final String APPLICATION_NDJSON_VALUE = "application/x-ndjson";
+    
+    // Products written between explicit flushes of the export stream
+    private static final int EXPORT_FLUSH_INTERVAL = 500;
+    
     private final ProductService productService;
     
+    private final ObjectMapper objectMapper;
+    
+    private final Duration heartbeatInterval;
+    
+    private final Duration exportTimeout;
+    
     @Autowired
-    public ProductController(ProductService productService) {
+    public ProductController(ProductService productService, ObjectMapper objectMapper,
+                             @Value("${app.events.heartbeat-interval:15s}") Duration heartbeatInterval,
+                             @Value("${app.export.timeout:1h}") Duration exportTimeout) {
         this.productService = productService;
+        this.objectMapper = objectMapper;
+        this.heartbeatInterval = heartbeatInterval;
+        this.exportTimeout = exportTimeout;
     }
     
-    // Create a new product
+    // Create a new product; a name that is already taken is answered with 409 by GlobalExceptionHandler
     @PostMapping
     public ResponseEntity<Product> createProduct(@Valid @RequestBody Product product) {
-        try {
-            Product createdProduct = productService.createProduct(product);
-            return new ResponseEntity<>(createdProduct, HttpStatus.CREATED);
-        } catch (RuntimeException e) {
-            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
-        }
+        Product createdProduct = productService.createProduct(product);
+        return tagged(createdProduct, HttpStatus.CREATED);
     }
     
-    // Get all products
+    // Create many products at once; each item reports its own status so one bad row does not fail the batch
+    @PostMapping("/bulk")
+    public ResponseEntity<BulkCreateResult> createProducts(@RequestBody List<Product> products) {
+        BulkCreateResult result = productService.createProducts(products);
+        return new ResponseEntity<>(result, HttpStatus.OK);
+    }
+    
+    // Resolve many ids in one call; items come back in request order and missing ids are marked NOT_FOUND
+    @PostMapping("/_batch-get")
+    public ResponseEntity<BatchGetResult> getProductsByIds(@RequestBody BatchGetRequest request) {
+        return new ResponseEntity<>(productService.getProductsByIds(request.getIds()), HttpStatus.OK);
+    }
+    
+    // Get all products, one keyset page at a time
     @GetMapping
-    public ResponseEntity<List<Product>> getAllProducts() {
-        List<Product> products = productService.getAllProducts();
-        return new ResponseEntity<>(products, HttpStatus.OK);
+    public ResponseEntity<ProductPage> getAllProducts(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit,
+            @RequestParam(required = false) String sort,
+            @RequestParam(required = false) String fields,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+            @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept) {
+        KeysetPageRequest page = KeysetPageRequest.of(sort, cursor, limit, fields);
+        ProductPage products = productService.getAllProducts(page);
+        return conditional(products, page.getFields(), ifNoneMatch, accept);
+    }
+    
+    // Export the whole catalog as NDJSON, streamed from a Mongo cursor. Writes block on the
+    // servlet output stream, so a slow client holds back the cursor instead of filling the heap.
+    // With ?fields= only the selected fields are read from Mongo and written out. The export runs
+    // as its own async task with app.export.timeout, so other async requests keep the default timeout.
+    @GetMapping(value = "/export", produces = APPLICATION_NDJSON_VALUE)
+    public WebAsyncTask<Void> exportProducts(@RequestParam(required = false) String fields,
+                                             HttpServletResponse response) {
+        ProductFields selected = ProductFields.parse(fields);
+        ObjectWriter productWriter = objectMapper.writerFor(Product.class)
+                .withRootValueSeparator("\n")
+                .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE)
+                .without(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        return new WebAsyncTask<>(exportTimeout.toMillis(), () -> {
+            response.setContentType(APPLICATION_NDJSON_VALUE);
+            OutputStream outputStream = response.getOutputStream();
+            try (Stream<Product> products = productService.streamAllProducts(selected);
+                 SequenceWriter writer = productWriter.writeValues(outputStream)) {
+                Iterator<Product> iterator = products.iterator();
+                int written = 0;
+                while (iterator.hasNext()) {
+                    writer.write(selected.apply(iterator.next()));
+                    if (++written % EXPORT_FLUSH_INTERVAL == 0) {
+                        writer.flush();
+                    }
+                }
+                writer.flush();
+                if (written > 0) {
+                    outputStream.write('\n');
+                }
+            }
+            return null;
+        });
+    }
+    
+    // Server-Sent Events of every create, update, stock write and delete as it happens. A client that
+    // reconnects with Last-Event-ID first receives what it missed, or a reset event if that is no longer known
+    @GetMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public Flux<ServerSentEvent<ProductEvent>> streamProductEvents(
+            @RequestHeader(value = "Last-Event-ID", required = false) String lastEventId) {
+        return ServerSentEvents.withHeartbeat(productService.productEvents(lastEventId).map(ServerSentEvents::product),
+                heartbeatInterval);
     }
     
-    // Get product by ID
+    // Get product by ID; 304 if the client's If-None-Match still names the current version
     @GetMapping("/{id}")
-    public ResponseEntity<Product> getProductById(@PathVariable String id) {
+    public ResponseEntity<Product> getProductById(
+            @PathVariable String id,
+            @RequestParam(required = false) String fields,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+            @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept) {
+        ProductFields selected = ProductFields.parse(fields);
         Optional<Product> product = productService.getProductById(id);
-        return product.map(value -> new ResponseEntity<>(value, HttpStatus.OK))
+        return product.map(value -> conditional(value, selected, ifNoneMatch, accept))
                 .orElseGet(() -> new ResponseEntity<>(HttpStatus.NOT_FOUND));
     }
     
-    // Get product by name
+    // Get product by name; 304 if the client's If-None-Match still names the current version
     @GetMapping("/name/{name}")
-    public ResponseEntity<Product> getProductByName(@PathVariable String name) {
+    public ResponseEntity<Product> getProductByName(
+            @PathVariable String name,
+            @RequestParam(required = false) String fields,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+            @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept) {
+        ProductFields selected = ProductFields.parse(fields);
         Optional<Product> product = productService.getProductByName(name);
-        return product.map(value -> new ResponseEntity<>(value, HttpStatus.OK))
+        return product.map(value -> conditional(value, selected, ifNoneMatch, accept))
                 .orElseGet(() -> new ResponseEntity<>(HttpStatus.NOT_FOUND));
     }
     
-    // Update product
+    // Update product. With If-Match the write only applies while the product is at the tagged version
+    // (412 otherwise); without it a concurrent update in between is reported as 409.
     @PutMapping("/{id}")
-    public ResponseEntity<Product> updateProduct(@PathVariable String id, @Valid @RequestBody Product productDetails) {
+    public ResponseEntity<Product> updateProduct(
+            @PathVariable String id,
+            @Valid @RequestBody Product productDetails,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
         try {
-            Product updatedProduct = productService.updateProduct(id, productDetails);
-            return new ResponseEntity<>(updatedProduct, HttpStatus.OK);
-        } catch (RuntimeException e) {
-            return new ResponseEntity<>(HttpStatus.NOT_FOUND);
+            Product updatedProduct;
+            if (ifMatch == null || ProductETags.isWildcard(ifMatch)) {
+                updatedProduct = productService.updateProduct(id, productDetails);
+            } else {
+                Long expectedVersion = ProductETags.expectedVersion(ifMatch, id);
+                if (expectedVersion == null) {
+                    return new ResponseEntity<>(HttpStatus.PRECONDITION_FAILED);
+                }
+                updatedProduct = productService.updateProduct(id, productDetails, expectedVersion);
+            }
+            return tagged(updatedProduct, HttpStatus.OK);
+        } catch (OptimisticLockingFailureException e) {
+            return new ResponseEntity<>(ifMatch != null ? HttpStatus.PRECONDITION_FAILED : HttpStatus.CONFLICT);
         }
     }
     
     // Delete product
     @DeleteMapping("/{id}")
     public ResponseEntity<Void> deleteProduct(@PathVariable String id) {
-        try {
-            productService.deleteProduct(id);
-            return new ResponseEntity<>(HttpStatus.NO_CONTENT);
-        } catch (RuntimeException e) {
-            return new ResponseEntity<>(HttpStatus.NOT_FOUND);
-        }
+        productService.deleteProduct(id);
+        return new ResponseEntity<>(HttpStatus.NO_CONTENT);
     }
     
     // Get products by category
     @GetMapping("/category/{category}")
-    public ResponseEntity<List<Product>> getProductsByCategory(@PathVariable String category) {
-        List<Product> products = productService.getProductsByCategory(category);
-        return new ResponseEntity<>(products, HttpStatus.OK);
+    public ResponseEntity<ProductPage> getProductsByCategory(
+            @PathVariable String category,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit,
+            @RequestParam(required = false) String sort,
+            @RequestParam(required = false) String fields,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+            @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept) {
+        KeysetPageRequest page = KeysetPageRequest.of(sort, cursor, limit, fields);
+        ProductPage products = productService.getProductsByCategory(category, page);
+        return conditional(products, page.getFields(), ifNoneMatch, accept);
     }
     
     // Get products by price range
     @GetMapping("/price-range")
-    public ResponseEntity<List<Product>> getProductsByPriceRange(
+    public ResponseEntity<ProductPage> getProductsByPriceRange(
             @RequestParam BigDecimal minPrice,
-            @RequestParam BigDecimal maxPrice) {
-        List<Product> products = productService.getProductsByPriceRange(minPrice, maxPrice);
-        return new ResponseEntity<>(products, HttpStatus.OK);
+            @RequestParam BigDecimal maxPrice,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit,
+            @RequestParam(required = false) String sort,
+            @RequestParam(required = false) String fields,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+            @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept) {
+        KeysetPageRequest page = KeysetPageRequest.of(sort, cursor, limit, fields);
+        ProductPage products = productService.getProductsByPriceRange(minPrice, maxPrice,
+                page);
+        return conditional(products, page.getFields(), ifNoneMatch, accept);
     }
     
     // Get products with low stock
     @GetMapping("/low-stock")
-    public ResponseEntity<List<Product>> getProductsWithLowStock(@RequestParam Integer quantity) {
-        List<Product> products = productService.getProductsWithLowStock(quantity);
-        return new ResponseEntity<>(products, HttpStatus.OK);
+    public ResponseEntity<ProductPage> getProductsWithLowStock(
+            @RequestParam Integer quantity,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit,
+            @RequestParam(required = false) String sort,
+            @RequestParam(required = false) String fields,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+            @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept) {
+        KeysetPageRequest page = KeysetPageRequest.of(sort, cursor, limit, fields);
+        ProductPage products = productService.getProductsWithLowStock(quantity, page);
+        return conditional(products, page.getFields(), ifNoneMatch, accept);
+    }
+    
+    // Products below their reorder threshold, read from the incrementally maintained set instead of a scan
+    @GetMapping("/low-stock/current")
+    public ResponseEntity<LowStockEvent> getLowStockSnapshot() {
+        return ResponseEntity.ok().varyBy(HttpHeaders.ACCEPT).body(productService.getLowStockSnapshot());
+    }
+    
+    // Server-Sent Events: a snapshot of the low-stock set, then one event per product entering, changing
+    // within or leaving it, so dashboards subscribe once instead of polling
+    @GetMapping(value = "/low-stock/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public Flux<ServerSentEvent<LowStockEvent>> streamLowStock() {
+        return ServerSentEvents.withHeartbeat(productService.lowStockEvents().map(ServerSentEvents::lowStock),
+                heartbeatInterval);
     }
     
     // Search products by name
     @GetMapping("/search")
-    public ResponseEntity<List<Product>> searchProductsByName(@RequestParam String name) {
-        List<Product> products = productService.searchProductsByName(name);
-        return new ResponseEntity<>(products, HttpStatus.OK);
+    public ResponseEntity<ProductPage> searchProductsByName(
+            @RequestParam String name,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit,
+            @RequestParam(required = false) String sort,
+            @RequestParam(required = false) String fields,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+            @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept) {
+        KeysetPageRequest page = KeysetPageRequest.of(sort, cursor, limit, fields);
+        ProductPage products = productService.searchProductsByName(name, page);
+        return conditional(products, page.getFields(), ifNoneMatch, accept);
+    }
+    
+    // Category counts, a price histogram and stock availability for the products matching the filters,
+    // which take the same parameters as the list endpoints; replaces fetching the lists to count them
+    @GetMapping("/facets")
+    public ResponseEntity<ProductFacets> getFacets(
+            @RequestParam(required = false) String category,
+            @RequestParam(required = false) BigDecimal minPrice,
+            @RequestParam(required = false) BigDecimal maxPrice,
+            @RequestParam(required = false) Integer stockBelow,
+            @RequestParam(required = false) String name,
+            @RequestParam(required = false) String priceBuckets,
+            @RequestParam(required = false) Integer lowStock) {
+        ProductFilter filter = new ProductFilter(category, minPrice, maxPrice, stockBelow, name);
+        ProductFacets facets = productService.getFacets(ProductFacetsQuery.of(filter, priceBuckets, lowStock));
+        return ResponseEntity.ok().varyBy(HttpHeaders.ACCEPT).body(facets);
     }
     
     // Get products by category and price range
     @GetMapping("/category/{category}/price-range")
-    public ResponseEntity<List<Product>> getProductsByCategoryAndPriceRange(
+    public ResponseEntity<ProductPage> getProductsByCategoryAndPriceRange(
             @PathVariable String category,
             @RequestParam BigDecimal minPrice,
-            @RequestParam BigDecimal maxPrice) {
-        List<Product> products = productService.getProductsByCategoryAndPriceRange(category, minPrice, maxPrice);
-        return new ResponseEntity<>(products, HttpStatus.OK);
+            @RequestParam BigDecimal maxPrice,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit,
+            @RequestParam(required = false) String sort,
+            @RequestParam(required = false) String fields,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+            @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept) {
+        KeysetPageRequest page = KeysetPageRequest.of(sort, cursor, limit, fields);
+        ProductPage products = productService.getProductsByCategoryAndPriceRange(category, minPrice, maxPrice,
+                page);
+        return conditional(products, page.getFields(), ifNoneMatch, accept);
     }
     
-    // Update stock quantity
+    // Update stock quantity: either set it (quantity) or atomically change it by a signed delta
     @PatchMapping("/{id}/stock")
     public ResponseEntity<Product> updateStockQuantity(
+            @PathVariable String id,
+            @RequestParam(required = false) Integer quantity,
+            @RequestParam(required = false) Integer delta) {
+        if ((quantity == null) == (delta == null)) {
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+        }
+        Product updatedProduct = quantity != null
+                ? productService.updateStockQuantity(id, quantity)
+                : productService.adjustStockQuantity(id, delta);
+        return tagged(updatedProduct, HttpStatus.OK);
+    }
+    
+    // Reserve stock; succeeds only if enough units remain (409 otherwise)
+    @PostMapping("/{id}/stock/reserve")
+    public ResponseEntity<Product> reserveStock(
             @PathVariable String id,
             @RequestParam Integer quantity) {
-        try {
-            Product updatedProduct = productService.updateStockQuantity(id, quantity);
-            return new ResponseEntity<>(updatedProduct, HttpStatus.OK);
-        } catch (RuntimeException e) {
-            return new ResponseEntity<>(HttpStatus.NOT_FOUND);
+        if (quantity <= 0) {
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+        }
+        Product updatedProduct = productService.reserveStock(id, quantity);
+        return tagged(updatedProduct, HttpStatus.OK);
+    }
+    
+    // A single product with its strong ETag
+    private static ResponseEntity<Product> tagged(Product product, HttpStatus status) {
+        return ResponseEntity.status(status).eTag(ProductETags.of(product)).body(product);
+    }
+    
+    // 304 without a body when If-None-Match names the product's current ETag; otherwise only the selected fields.
+    // The representation depends on Accept, so the tag names the negotiated format and caches are told to vary.
+    private static ResponseEntity<Product> conditional(Product product, ProductFields fields, String ifNoneMatch,
+                                                       String accept) {
+        String etag = ProductETags.of(product, fields, ProductETags.format(accept));
+        if (ProductETags.matchesNoneMatch(ifNoneMatch, etag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).varyBy(HttpHeaders.ACCEPT).build();
+        }
+        return ResponseEntity.ok().eTag(etag).varyBy(HttpHeaders.ACCEPT).body(fields.apply(product));
+    }
+    
+    // 304 without a body when If-None-Match names the page's current (weak) ETag; otherwise only the selected fields
+    private static ResponseEntity<ProductPage> conditional(ProductPage page, ProductFields fields, String ifNoneMatch,
+                                                           String accept) {
+        String etag = ProductETags.of(page, fields, ProductETags.format(accept));
+        if (ProductETags.matchesNoneMatch(ifNoneMatch, etag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).varyBy(HttpHeaders.ACCEPT).build();
         }
+        return ResponseEntity.ok().eTag(etag).varyBy(HttpHeaders.ACCEPT).body(fields.apply(page));
     }
-} 
\ No newline at end of file
+}
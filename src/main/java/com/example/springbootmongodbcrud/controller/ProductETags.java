@@ -0,0 +1,158 @@
+package com.example.springbootmongodbcrud.controller;
+
+import com.example.springbootmongodbcrud.model.Product;
+import com.example.springbootmongodbcrud.model.ProductFields;
+import com.example.springbootmongodbcrud.model.ProductPage;
+import org.springframework.http.InvalidMediaTypeException;
+import org.springframework.http.MediaType;
+import org.springframework.util.MimeTypeUtils;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Entity tags for product responses, shared by the blocking and reactive controllers. A product's tag is
+ * strong and names its id and version, so it changes with every write. A page's tag is weak: it is a hash of
+ * the ids and versions on the page and the next cursor, which covers what a client can observe of the list.
+ * A sparse ({@code ?fields=}) response is a different representation, so its tag also names the selection,
+ * and so is each binary format the {@code Accept} header negotiates, so its tag names the format too.
+ */
+final class ProductETags {
+
+    private static final long FNV_OFFSET_BASIS = 0xcbf29ce484222325L;
+
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    // Formats in the order their converters are registered, so the first compatible one is what is written
+    private static final MediaType[] FORMATS = {
+            MediaType.APPLICATION_JSON,
+            MediaType.APPLICATION_CBOR,
+            new MediaType("application", "x-jackson-smile"),
+            new MediaType("application", "x-protobuf")};
+
+    // How each format is named in a tag; JSON, the default, is unnamed
+    private static final String[] FORMAT_NAMES = {"", "cbor", "smile", "protobuf"};
+
+    private ProductETags() {
+    }
+
+    static String of(Product product) {
+        return of(product, ProductFields.ALL);
+    }
+
+    static String of(Product product, ProductFields fields) {
+        return of(product, fields, "");
+    }
+
+    static String of(Product product, ProductFields fields, String format) {
+        String selection = fields.isAll() ? "" : ";" + fields;
+        String representation = format.isEmpty() ? "" : ";" + format;
+        return "\"" + product.getId() + "-" + version(product) + selection + representation + "\"";
+    }
+
+    static String of(ProductPage page) {
+        return of(page, ProductFields.ALL);
+    }
+
+    static String of(ProductPage page, ProductFields fields) {
+        return of(page, fields, "");
+    }
+
+    static String of(ProductPage page, ProductFields fields, String format) {
+        long hash = fields.isAll() ? FNV_OFFSET_BASIS : hash(FNV_OFFSET_BASIS, fields.toString());
+        if (!format.isEmpty()) {
+            hash = hash(hash, format);
+        }
+        for (Product product : page.getItems()) {
+            hash = hash(hash, product.getId());
+            hash = hash(hash, Long.toString(version(product)));
+        }
+        hash = hash(hash, page.getNextCursor());
+        return "W/\"" + Long.toHexString(hash) + "\"";
+    }
+
+    // The name of the format an Accept header negotiates, picking the most preferred acceptable type the way
+    // content negotiation does; empty for JSON, which is also what a missing or malformed header gets
+    static String format(String accept) {
+        if (accept == null || accept.isBlank()) {
+            return "";
+        }
+        List<MediaType> acceptable;
+        try {
+            acceptable = new ArrayList<>(MediaType.parseMediaTypes(accept));
+        } catch (InvalidMediaTypeException e) {
+            return "";
+        }
+        MimeTypeUtils.sortBySpecificity(acceptable);
+        acceptable.sort(Comparator.comparingDouble(MediaType::getQualityValue).reversed());
+        for (MediaType type : acceptable) {
+            if (type.getQualityValue() == 0) {
+                continue;
+            }
+            for (int i = 0; i < FORMATS.length; i++) {
+                if (type.isCompatibleWith(FORMATS[i])) {
+                    return FORMAT_NAMES[i];
+                }
+            }
+        }
+        return "";
+    }
+
+    // True if an If-None-Match header lists etag, using the weak comparison RFC 9110 prescribes for it
+    static boolean matchesNoneMatch(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null) {
+            return false;
+        }
+        String opaque = opaque(etag);
+        for (String candidate : ifNoneMatch.split(",")) {
+            candidate = candidate.trim();
+            if (candidate.equals("*") || opaque(candidate).equals(opaque)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // The version named by a strong If-Match tag for this product, or null if the header names none.
+    // If-Match uses strong comparison, so weak tags (such as a list's) never match; a sparse or binary
+    // tag's field selection and format are ignored, since they name the same version.
+    static Long expectedVersion(String ifMatch, String id) {
+        String prefix = "\"" + id + "-";
+        for (String candidate : ifMatch.split(",")) {
+            candidate = candidate.trim();
+            if (candidate.startsWith(prefix) && candidate.endsWith("\"") && candidate.length() > prefix.length() + 1) {
+                String version = candidate.substring(prefix.length(), candidate.length() - 1);
+                int selection = version.indexOf(';');
+                try {
+                    return Long.parseLong(selection < 0 ? version : version.substring(0, selection));
+                } catch (NumberFormatException e) {
+                    return null;
+                }
+            }
+        }
+        return null;
+    }
+
+    static boolean isWildcard(String ifMatch) {
+        return ifMatch.trim().equals("*");
+    }
+
+    private static String opaque(String etag) {
+        return etag.startsWith("W/") ? etag.substring(2) : etag;
+    }
+
+    private static long version(Product product) {
+        return product.getVersion() == null ? 0 : product.getVersion();
+    }
+
+    // 64-bit FNV-1a over the characters of value, with a separator so adjacent values cannot run together
+    private static long hash(long hash, String value) {
+        if (value != null) {
+            for (int i = 0; i < value.length(); i++) {
+                hash = (hash ^ value.charAt(i)) * FNV_PRIME;
+            }
+        }
+        return (hash ^ 0x1f) * FNV_PRIME;
+    }
+}
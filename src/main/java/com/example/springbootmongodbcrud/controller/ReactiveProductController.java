@@ -0,0 +1,325 @@
+package com.example.springbootmongodbcrud.controller;
+
+import com.example.springbootmongodbcrud.model.BatchGetRequest;
+import com.example.springbootmongodbcrud.model.BatchGetResult;
+import com.example.springbootmongodbcrud.model.BulkCreateResult;
+import com.example.springbootmongodbcrud.model.KeysetPageRequest;
+import com.example.springbootmongodbcrud.model.LowStockEvent;
+import com.example.springbootmongodbcrud.model.Product;
+import com.example.springbootmongodbcrud.model.ProductEvent;
+import com.example.springbootmongodbcrud.model.ProductFacets;
+import com.example.springbootmongodbcrud.model.ProductFacetsQuery;
+import com.example.springbootmongodbcrud.model.ProductFields;
+import com.example.springbootmongodbcrud.model.ProductFilter;
+import com.example.springbootmongodbcrud.model.ProductPage;
+import com.example.springbootmongodbcrud.service.ReactiveProductService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.codec.ServerSentEvent;
+import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import jakarta.validation.Valid;
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * WebFlux implementation of the {@code /api/products} contract served by {@link ProductController},
+ * active under the {@code reactive} profile. Paths, parameters and status codes are the same in both modes.
+ */
+@RestController
+@Profile("reactive")
+@RequestMapping("/api/products")
+@CrossOrigin(origins = "*", exposedHeaders = HttpHeaders.ETAG)
+public class ReactiveProductController {
+    
+    private final ReactiveProductService productService;
+    
+    private final Duration heartbeatInterval;
+    
+    @Autowired
+    public ReactiveProductController(ReactiveProductService productService,
+                                     @Value("${app.events.heartbeat-interval:15s}") Duration heartbeatInterval) {
+        this.productService = productService;
+        this.heartbeatInterval = heartbeatInterval;
+    }
+    
+    // Create a new product; a name that is already taken is answered with 409 by GlobalExceptionHandler
+    @PostMapping
+    public Mono<ResponseEntity<Product>> createProduct(@Valid @RequestBody Product product) {
+        return productService.createProduct(product)
+                .map(createdProduct -> tagged(createdProduct, HttpStatus.CREATED));
+    }
+    
+    // Create many products at once; each item reports its own status so one bad row does not fail the batch
+    @PostMapping("/bulk")
+    public Mono<ResponseEntity<BulkCreateResult>> createProducts(@RequestBody List<Product> products) {
+        return productService.createProducts(products)
+                .map(result -> new ResponseEntity<>(result, HttpStatus.OK));
+    }
+    
+    // Resolve many ids in one call; items come back in request order and missing ids are marked NOT_FOUND
+    @PostMapping("/_batch-get")
+    public Mono<ResponseEntity<BatchGetResult>> getProductsByIds(@RequestBody BatchGetRequest request) {
+        return productService.getProductsByIds(request.getIds())
+                .map(result -> new ResponseEntity<>(result, HttpStatus.OK));
+    }
+    
+    // Get all products, one keyset page at a time
+    @GetMapping
+    public Mono<ResponseEntity<ProductPage>> getAllProducts(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit,
+            @RequestParam(required = false) String sort,
+            @RequestParam(required = false) String fields,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+            @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept) {
+        KeysetPageRequest page = KeysetPageRequest.of(sort, cursor, limit, fields);
+        return conditional(productService.getAllProducts(page), page.getFields(), ifNoneMatch, accept);
+    }
+    
+    // Export the whole catalog as NDJSON. Demand from the connection drives reads from the Mongo cursor,
+    // so a slow client slows the export down instead of buffering the catalog in memory.
+    // With ?fields= only the selected fields are read from Mongo and written out.
+    @GetMapping(value = "/export", produces = ProductController.APPLICATION_NDJSON_VALUE)
+    public Flux<Product> exportProducts(@RequestParam(required = false) String fields) {
+        ProductFields selected = ProductFields.parse(fields);
+        return productService.streamAllProducts(selected).map(selected::apply);
+    }
+    
+    // Server-Sent Events of every create, update, stock write and delete as it happens. A client that
+    // reconnects with Last-Event-ID first receives what it missed, or a reset event if that is no longer known
+    @GetMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public Flux<ServerSentEvent<ProductEvent>> streamProductEvents(
+            @RequestHeader(value = "Last-Event-ID", required = false) String lastEventId) {
+        return ServerSentEvents.withHeartbeat(productService.productEvents(lastEventId).map(ServerSentEvents::product),
+                heartbeatInterval);
+    }
+    
+    // Get product by ID; 304 if the client's If-None-Match still names the current version
+    @GetMapping("/{id}")
+    public Mono<ResponseEntity<Product>> getProductById(
+            @PathVariable String id,
+            @RequestParam(required = false) String fields,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+            @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept) {
+        ProductFields selected = ProductFields.parse(fields);
+        return productService.getProductById(id)
+                .map(value -> conditional(value, selected, ifNoneMatch, accept))
+                .defaultIfEmpty(new ResponseEntity<>(HttpStatus.NOT_FOUND));
+    }
+    
+    // Get product by name; 304 if the client's If-None-Match still names the current version
+    @GetMapping("/name/{name}")
+    public Mono<ResponseEntity<Product>> getProductByName(
+            @PathVariable String name,
+            @RequestParam(required = false) String fields,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+            @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept) {
+        ProductFields selected = ProductFields.parse(fields);
+        return productService.getProductByName(name)
+                .map(value -> conditional(value, selected, ifNoneMatch, accept))
+                .defaultIfEmpty(new ResponseEntity<>(HttpStatus.NOT_FOUND));
+    }
+    
+    // Update product. With If-Match the write only applies while the product is at the tagged version
+    // (412 otherwise); without it a concurrent update in between is reported as 409.
+    @PutMapping("/{id}")
+    public Mono<ResponseEntity<Product>> updateProduct(
+            @PathVariable String id,
+            @Valid @RequestBody Product productDetails,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        Mono<Product> update;
+        if (ifMatch == null || ProductETags.isWildcard(ifMatch)) {
+            update = productService.updateProduct(id, productDetails);
+        } else {
+            Long expectedVersion = ProductETags.expectedVersion(ifMatch, id);
+            if (expectedVersion == null) {
+                return Mono.just(new ResponseEntity<>(HttpStatus.PRECONDITION_FAILED));
+            }
+            update = productService.updateProduct(id, productDetails, expectedVersion);
+        }
+        HttpStatus conflict = ifMatch != null ? HttpStatus.PRECONDITION_FAILED : HttpStatus.CONFLICT;
+        return update
+                .map(updatedProduct -> tagged(updatedProduct, HttpStatus.OK))
+                .onErrorResume(OptimisticLockingFailureException.class, e -> Mono.just(new ResponseEntity<>(conflict)));
+    }
+    
+    // Delete product
+    @DeleteMapping("/{id}")
+    public Mono<ResponseEntity<Void>> deleteProduct(@PathVariable String id) {
+        return productService.deleteProduct(id)
+                .then(Mono.just(new ResponseEntity<Void>(HttpStatus.NO_CONTENT)));
+    }
+    
+    // Get products by category
+    @GetMapping("/category/{category}")
+    public Mono<ResponseEntity<ProductPage>> getProductsByCategory(
+            @PathVariable String category,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit,
+            @RequestParam(required = false) String sort,
+            @RequestParam(required = false) String fields,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+            @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept) {
+        KeysetPageRequest page = KeysetPageRequest.of(sort, cursor, limit, fields);
+        return conditional(productService.getProductsByCategory(category, page), page.getFields(), ifNoneMatch, accept);
+    }
+    
+    // Get products by price range
+    @GetMapping("/price-range")
+    public Mono<ResponseEntity<ProductPage>> getProductsByPriceRange(
+            @RequestParam BigDecimal minPrice,
+            @RequestParam BigDecimal maxPrice,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit,
+            @RequestParam(required = false) String sort,
+            @RequestParam(required = false) String fields,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+            @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept) {
+        KeysetPageRequest page = KeysetPageRequest.of(sort, cursor, limit, fields);
+        return conditional(productService.getProductsByPriceRange(minPrice, maxPrice, page),
+                page.getFields(), ifNoneMatch, accept);
+    }
+    
+    // Get products with low stock
+    @GetMapping("/low-stock")
+    public Mono<ResponseEntity<ProductPage>> getProductsWithLowStock(
+            @RequestParam Integer quantity,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit,
+            @RequestParam(required = false) String sort,
+            @RequestParam(required = false) String fields,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+            @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept) {
+        KeysetPageRequest page = KeysetPageRequest.of(sort, cursor, limit, fields);
+        return conditional(productService.getProductsWithLowStock(quantity, page),
+                page.getFields(), ifNoneMatch, accept);
+    }
+    
+    // Products below their reorder threshold, read from the incrementally maintained set instead of a scan
+    @GetMapping("/low-stock/current")
+    public Mono<ResponseEntity<LowStockEvent>> getLowStockSnapshot() {
+        return productService.getLowStockSnapshot()
+                .map(snapshot -> ResponseEntity.ok().varyBy(HttpHeaders.ACCEPT).body(snapshot));
+    }
+    
+    // Server-Sent Events: a snapshot of the low-stock set, then one event per product entering, changing
+    // within or leaving it, so dashboards subscribe once instead of polling
+    @GetMapping(value = "/low-stock/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public Flux<ServerSentEvent<LowStockEvent>> streamLowStock() {
+        return ServerSentEvents.withHeartbeat(productService.lowStockEvents().map(ServerSentEvents::lowStock),
+                heartbeatInterval);
+    }
+    
+    // Search products by name
+    @GetMapping("/search")
+    public Mono<ResponseEntity<ProductPage>> searchProductsByName(
+            @RequestParam String name,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit,
+            @RequestParam(required = false) String sort,
+            @RequestParam(required = false) String fields,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+            @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept) {
+        KeysetPageRequest page = KeysetPageRequest.of(sort, cursor, limit, fields);
+        return conditional(productService.searchProductsByName(name, page), page.getFields(), ifNoneMatch, accept);
+    }
+    
+    // Category counts, a price histogram and stock availability for the products matching the filters,
+    // which take the same parameters as the list endpoints; replaces fetching the lists to count them
+    @GetMapping("/facets")
+    public Mono<ResponseEntity<ProductFacets>> getFacets(
+            @RequestParam(required = false) String category,
+            @RequestParam(required = false) BigDecimal minPrice,
+            @RequestParam(required = false) BigDecimal maxPrice,
+            @RequestParam(required = false) Integer stockBelow,
+            @RequestParam(required = false) String name,
+            @RequestParam(required = false) String priceBuckets,
+            @RequestParam(required = false) Integer lowStock) {
+        ProductFilter filter = new ProductFilter(category, minPrice, maxPrice, stockBelow, name);
+        return productService.getFacets(ProductFacetsQuery.of(filter, priceBuckets, lowStock))
+                .map(facets -> ResponseEntity.ok().varyBy(HttpHeaders.ACCEPT).body(facets));
+    }
+    
+    // Get products by category and price range
+    @GetMapping("/category/{category}/price-range")
+    public Mono<ResponseEntity<ProductPage>> getProductsByCategoryAndPriceRange(
+            @PathVariable String category,
+            @RequestParam BigDecimal minPrice,
+            @RequestParam BigDecimal maxPrice,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit,
+            @RequestParam(required = false) String sort,
+            @RequestParam(required = false) String fields,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+            @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept) {
+        KeysetPageRequest page = KeysetPageRequest.of(sort, cursor, limit, fields);
+        return conditional(productService.getProductsByCategoryAndPriceRange(category, minPrice, maxPrice,
+                page), page.getFields(), ifNoneMatch, accept);
+    }
+    
+    // Update stock quantity: either set it (quantity) or atomically change it by a signed delta
+    @PatchMapping("/{id}/stock")
+    public Mono<ResponseEntity<Product>> updateStockQuantity(
+            @PathVariable String id,
+            @RequestParam(required = false) Integer quantity,
+            @RequestParam(required = false) Integer delta) {
+        if ((quantity == null) == (delta == null)) {
+            return Mono.just(new ResponseEntity<>(HttpStatus.BAD_REQUEST));
+        }
+        Mono<Product> update = quantity != null
+                ? productService.updateStockQuantity(id, quantity)
+                : productService.adjustStockQuantity(id, delta);
+        return update.map(updatedProduct -> tagged(updatedProduct, HttpStatus.OK));
+    }
+    
+    // Reserve stock; succeeds only if enough units remain (409 otherwise)
+    @PostMapping("/{id}/stock/reserve")
+    public Mono<ResponseEntity<Product>> reserveStock(
+            @PathVariable String id,
+            @RequestParam Integer quantity) {
+        if (quantity <= 0) {
+            return Mono.just(new ResponseEntity<>(HttpStatus.BAD_REQUEST));
+        }
+        return productService.reserveStock(id, quantity).map(updatedProduct -> tagged(updatedProduct, HttpStatus.OK));
+    }
+    
+    // A single product with its strong ETag
+    private static ResponseEntity<Product> tagged(Product product, HttpStatus status) {
+        return ResponseEntity.status(status).eTag(ProductETags.of(product)).body(product);
+    }
+    
+    // 304 without a body when If-None-Match names the product's current ETag; otherwise only the selected fields.
+    // The representation depends on Accept, so the tag names the negotiated format and caches are told to vary.
+    private static ResponseEntity<Product> conditional(Product product, ProductFields fields, String ifNoneMatch,
+                                                       String accept) {
+        String etag = ProductETags.of(product, fields, ProductETags.format(accept));
+        if (ProductETags.matchesNoneMatch(ifNoneMatch, etag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).varyBy(HttpHeaders.ACCEPT).build();
+        }
+        return ResponseEntity.ok().eTag(etag).varyBy(HttpHeaders.ACCEPT).body(fields.apply(product));
+    }
+    
+    // 304 without a body when If-None-Match names the page's current (weak) ETag; otherwise only the selected fields
+    private static Mono<ResponseEntity<ProductPage>> conditional(Mono<ProductPage> page, ProductFields fields,
+                                                                 String ifNoneMatch, String accept) {
+        String format = ProductETags.format(accept);
+        return page.map(products -> {
+            String etag = ProductETags.of(products, fields, format);
+            if (ProductETags.matchesNoneMatch(ifNoneMatch, etag)) {
+                return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).varyBy(HttpHeaders.ACCEPT)
+                        .<ProductPage>build();
+            }
+            return ResponseEntity.ok().eTag(etag).varyBy(HttpHeaders.ACCEPT).body(fields.apply(products));
+        });
+    }
+}
@@ -0,0 +1,41 @@
+package com.example.springbootmongodbcrud.controller;
+
+import com.example.springbootmongodbcrud.model.LowStockEvent;
+import com.example.springbootmongodbcrud.model.ProductEvent;
+import org.springframework.http.codec.ServerSentEvent;
+import reactor.core.publisher.Flux;
+
+import java.time.Duration;
+import java.util.Locale;
+
+/**
+ * Framing of the event feeds as Server-Sent Events, shared by the servlet and reactive controllers.
+ */
+final class ServerSentEvents {
+
+    private ServerSentEvents() {
+    }
+
+    // The event name is the lower-cased type (snapshot, entered, changed, left) and the id its sequence
+    static ServerSentEvent<LowStockEvent> lowStock(LowStockEvent event) {
+        return ServerSentEvent.builder(event)
+                .id(Long.toString(event.getSequence()))
+                .event(event.getType().name().toLowerCase(Locale.ROOT))
+                .build();
+    }
+
+    // The event name is the lower-cased type (created, updated, stock, deleted, reset) and the id resumes after it
+    static ServerSentEvent<ProductEvent> product(ProductEvent event) {
+        return ServerSentEvent.builder(event)
+                .id(event.getId())
+                .event(event.getType().name().toLowerCase(Locale.ROOT))
+                .build();
+    }
+
+    // Interleave comment lines so proxies do not close a quiet stream; they end when the events do
+    static <T> Flux<ServerSentEvent<T>> withHeartbeat(Flux<ServerSentEvent<T>> events, Duration interval) {
+        return events.publish(shared -> shared.mergeWith(Flux.interval(interval)
+                .map(tick -> ServerSentEvent.<T>builder().comment("heartbeat").build())
+                .takeUntilOther(shared.ignoreElements())));
+    }
+}
@@ -0,0 +1,13 @@
+package com.example.springbootmongodbcrud.exception;
+
+/**
+ * Thrown when a stock decrement or reservation would take a product's stock below zero.
+ */
+public class InsufficientStockException extends ProductConflictException {
+
+    private static final long serialVersionUID = 1L;
+
+    public InsufficientStockException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,19 @@
+package com.example.springbootmongodbcrud.exception;
+
+/**
+ * Thrown when a write conflicts with the current state of the catalog, such as a name that is already taken.
+ * Answered with 409.
+ */
+public class ProductConflictException extends ProductException {
+
+    private static final long serialVersionUID = 1L;
+
+    public ProductConflictException(String message) {
+        super(message);
+    }
+
+    // A create or rename to a name another product already has
+    public static ProductConflictException duplicateName(String name) {
+        return new ProductConflictException("Product with name '" + name + "' already exists");
+    }
+}
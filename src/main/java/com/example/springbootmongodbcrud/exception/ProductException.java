@@ -0,0 +1,20 @@
+package com.example.springbootmongodbcrud.exception;
+
+/**
+ * Base of the exceptions for expected request outcomes (a missing product, a conflicting write, invalid input),
+ * which {@link GlobalExceptionHandler} turns into problem responses. They are part of normal traffic, so they
+ * skip capturing a stack trace: filling one in walks every frame of a deep request stack and is most of the
+ * cost of throwing.
+ */
+public abstract class ProductException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    protected ProductException(String message) {
+        this(message, null);
+    }
+
+    protected ProductException(String message, Throwable cause) {
+        super(message, cause, false, false);
+    }
+}
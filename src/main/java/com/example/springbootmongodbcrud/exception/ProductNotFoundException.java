@@ -0,0 +1,13 @@
+package com.example.springbootmongodbcrud.exception;
+
+/**
+ * Thrown when an operation names a product id that does not exist. Answered with 404.
+ */
+public class ProductNotFoundException extends ProductException {
+
+    private static final long serialVersionUID = 1L;
+
+    public ProductNotFoundException(String id) {
+        super("Product not found with id: " + id);
+    }
+}
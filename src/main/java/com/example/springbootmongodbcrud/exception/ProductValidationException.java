@@ -0,0 +1,18 @@
+package com.example.springbootmongodbcrud.exception;
+
+/**
+ * Thrown when request input is invalid: a malformed cursor, an unknown sort key or field, an oversized batch.
+ * Answered with 400.
+ */
+public class ProductValidationException extends ProductException {
+
+    private static final long serialVersionUID = 1L;
+
+    public ProductValidationException(String message) {
+        super(message);
+    }
+
+    public ProductValidationException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
@@ -0,0 +1,164 @@
+package com.example.springbootmongodbcrud.limit;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * A concurrency limit that adapts to measured latency, in the style of the gradient algorithm: the limit
+ * shrinks when recent latency rises above the long-run baseline (requests are queueing somewhere downstream)
+ * and grows by roughly its square root while latency stays flat.
+ *
+ * <p>Latency samples are summed per window of {@code sampleWindow}; the first request to finish after a window
+ * closes folds it into the limit. Acquiring and releasing are a few atomic operations, with no locks.
+ */
+public final class AdaptiveConcurrencyLimit {
+
+    // Recent latency may exceed the baseline by this factor before the limit starts to shrink
+    private static final double TOLERANCE = 1.5;
+
+    // Floor on the gradient, which bounds how fast the limit can shrink
+    private static final double MIN_GRADIENT = 0.5;
+
+    // Weight of each new window in the limit, so a single noisy window cannot swing it
+    private static final double SMOOTHING = 0.2;
+
+    // Weight of each window in the baseline latency; about the last 50 windows count
+    private static final double BASELINE_SMOOTHING = 2.0 / 51;
+
+    private final int minLimit;
+
+    private final int maxLimit;
+
+    private final long sampleWindowNanos;
+
+    private final LongSupplier nanoClock;
+
+    private final AtomicInteger inflight = new AtomicInteger();
+
+    private final AtomicInteger peakInflight = new AtomicInteger();
+
+    private final LongAdder latencySum = new LongAdder();
+
+    private final LongAdder samples = new LongAdder();
+
+    private final AtomicBoolean updating = new AtomicBoolean();
+
+    private volatile int limit;
+
+    private volatile long windowEnd;
+
+    // Only touched by the thread holding updating
+    private double estimate;
+
+    private double baselineNanos;
+
+    public AdaptiveConcurrencyLimit(int initialLimit, int minLimit, int maxLimit, long sampleWindowNanos,
+                                    LongSupplier nanoClock) {
+        if (minLimit <= 0 || minLimit > initialLimit || initialLimit > maxLimit) {
+            throw new IllegalArgumentException("Concurrency limits must satisfy 0 < min <= initial <= max");
+        }
+        if (sampleWindowNanos <= 0) {
+            throw new IllegalArgumentException("Sample window must be positive");
+        }
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.sampleWindowNanos = sampleWindowNanos;
+        this.nanoClock = nanoClock;
+        this.limit = initialLimit;
+        this.estimate = initialLimit;
+        this.windowEnd = nanoClock.getAsLong() + sampleWindowNanos;
+    }
+
+    // A permit if fewer than limit requests are in flight, otherwise null
+    public Permit tryAcquire() {
+        int current;
+        do {
+            current = inflight.get();
+            if (current >= limit) {
+                return null;
+            }
+        } while (!inflight.compareAndSet(current, current + 1));
+        peakInflight.accumulateAndGet(current + 1, Math::max);
+        return new Admitted(nanoClock.getAsLong());
+    }
+
+    public int getLimit() {
+        return limit;
+    }
+
+    public int getInflight() {
+        return inflight.get();
+    }
+
+    private void release(long startNanos) {
+        inflight.decrementAndGet();
+        long now = nanoClock.getAsLong();
+        latencySum.add(now - startNanos);
+        samples.increment();
+        if (now - windowEnd >= 0 && updating.compareAndSet(false, true)) {
+            try {
+                update(now);
+            } finally {
+                updating.set(false);
+            }
+        }
+    }
+
+    private void update(long now) {
+        windowEnd = now + sampleWindowNanos;
+        long count = samples.sumThenReset();
+        long sum = latencySum.sumThenReset();
+        int peak = peakInflight.getAndSet(inflight.get());
+        if (count == 0) {
+            return;
+        }
+        double recentNanos = Math.max(1, (double) sum / count);
+        if (baselineNanos == 0) {
+            baselineNanos = recentNanos;
+        } else {
+            baselineNanos += (recentNanos - baselineNanos) * BASELINE_SMOOTHING;
+        }
+        // After a slow spell the baseline lags far above recent latency; let it catch up faster
+        if (baselineNanos > 2 * recentNanos) {
+            baselineNanos = (baselineNanos + recentNanos) / 2;
+        }
+        double gradient = Math.max(MIN_GRADIENT, Math.min(1.0, TOLERANCE * baselineNanos / recentNanos));
+        // While callers use less than half the limit, flat latency says nothing about whether it should grow
+        if (gradient == 1.0 && peak < estimate / 2) {
+            return;
+        }
+        double target = estimate * gradient + Math.sqrt(estimate);
+        estimate = Math.max(minLimit, Math.min(maxLimit, estimate * (1 - SMOOTHING) + target * SMOOTHING));
+        limit = (int) estimate;
+    }
+
+    // One admitted request; release it when the response is complete (releasing again has no effect)
+    public interface Permit {
+
+        // For requests that are not subject to any limit
+        Permit UNLIMITED = () -> {
+        };
+
+        void release();
+    }
+
+    private final class Admitted implements Permit {
+
+        private final long startNanos;
+
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        private Admitted(long startNanos) {
+            this.startNanos = startNanos;
+        }
+
+        @Override
+        public void release() {
+            if (released.compareAndSet(false, true)) {
+                AdaptiveConcurrencyLimit.this.release(startNanos);
+            }
+        }
+    }
+}
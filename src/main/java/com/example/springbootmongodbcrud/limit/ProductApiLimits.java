@@ -0,0 +1,127 @@
+package com.example.springbootmongodbcrud.limit;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Adaptive concurrency limits for {@code /api/products}, one for list-style requests (pages, searches, facets,
+ * bulk and batch operations) and one for single-product requests, so a burst of expensive list queries cannot
+ * starve cheap point reads. Requests over a limit are turned away at once with 503 and {@code Retry-After}
+ * rather than queueing on a worker thread behind a slow database.
+ *
+ * <p>Long-lived streams (export and the SSE feeds) are not limited: they would hold a slot for minutes and
+ * their duration says nothing about database latency. Other requests are sampled until their response is
+ * written, so slow readers count as slow requests; limiting is opt-in with
+ * {@code app.concurrency.enabled=true}.
+ */
+@Component
+public class ProductApiLimits {
+
+    static final String PREFIX = "/api/products";
+
+    static final String REJECTED_MESSAGE = "Too many concurrent requests, retry later";
+
+    private static final Set<String> LIST_ROUTES = Set.of(
+            "category", "price-range", "search", "facets", "low-stock", "bulk", "_batch-get");
+
+    private static final Set<String> STREAMING_ROUTES = Set.of("export", "stream", "low-stock/stream");
+
+    public enum Kind {
+        LIST,
+        POINT
+    }
+
+    private final boolean enabled;
+
+    private final Duration retryAfter;
+
+    private final Map<Kind, AdaptiveConcurrencyLimit> limits = new EnumMap<>(Kind.class);
+
+    private final Map<Kind, Counter> rejected = new EnumMap<>(Kind.class);
+
+    public ProductApiLimits(
+            MeterRegistry registry,
+            @Value("${app.concurrency.enabled:false}") boolean enabled,
+            @Value("${app.concurrency.list.initial-limit:20}") int listInitialLimit,
+            @Value("${app.concurrency.list.max-limit:200}") int listMaxLimit,
+            @Value("${app.concurrency.point.initial-limit:100}") int pointInitialLimit,
+            @Value("${app.concurrency.point.max-limit:1000}") int pointMaxLimit,
+            @Value("${app.concurrency.min-limit:4}") int minLimit,
+            @Value("${app.concurrency.sample-window:100ms}") Duration sampleWindow,
+            @Value("${app.concurrency.retry-after:1s}") Duration retryAfter) {
+        this.enabled = enabled;
+        this.retryAfter = retryAfter;
+        long windowNanos = sampleWindow.toNanos();
+        limits.put(Kind.LIST, new AdaptiveConcurrencyLimit(listInitialLimit, minLimit, listMaxLimit, windowNanos,
+                System::nanoTime));
+        limits.put(Kind.POINT, new AdaptiveConcurrencyLimit(pointInitialLimit, minLimit, pointMaxLimit, windowNanos,
+                System::nanoTime));
+        for (Kind kind : Kind.values()) {
+            String tag = kind.name().toLowerCase(Locale.ROOT);
+            AdaptiveConcurrencyLimit limit = limits.get(kind);
+            Gauge.builder("product.concurrency.limit", limit, AdaptiveConcurrencyLimit::getLimit)
+                    .description("Current adaptive concurrency limit")
+                    .tag("kind", tag)
+                    .register(registry);
+            Gauge.builder("product.concurrency.inflight", limit, AdaptiveConcurrencyLimit::getInflight)
+                    .description("Requests currently admitted under the concurrency limit")
+                    .tag("kind", tag)
+                    .register(registry);
+            rejected.put(kind, Counter.builder("product.concurrency.rejected")
+                    .description("Requests rejected with 503 because the concurrency limit was reached")
+                    .tag("kind", tag)
+                    .register(registry));
+        }
+    }
+
+    // Which limit a request counts against, or null if it is not limited
+    public static Kind classify(String method, String path) {
+        if (!path.startsWith(PREFIX) || (path.length() > PREFIX.length() && path.charAt(PREFIX.length()) != '/')) {
+            return null;
+        }
+        String route = path.substring(PREFIX.length());
+        route = route.startsWith("/") ? route.substring(1) : route;
+        if (route.endsWith("/")) {
+            route = route.substring(0, route.length() - 1);
+        }
+        if (STREAMING_ROUTES.contains(route)) {
+            return null;
+        }
+        if (route.isEmpty()) {
+            return "POST".equals(method) ? Kind.POINT : Kind.LIST;
+        }
+        int slash = route.indexOf('/');
+        return LIST_ROUTES.contains(slash < 0 ? route : route.substring(0, slash)) ? Kind.LIST : Kind.POINT;
+    }
+
+    // A permit for the request, or null if it was rejected
+    public AdaptiveConcurrencyLimit.Permit tryAcquire(String method, String path) {
+        Kind kind = enabled ? classify(method, path) : null;
+        if (kind == null) {
+            return AdaptiveConcurrencyLimit.Permit.UNLIMITED;
+        }
+        AdaptiveConcurrencyLimit.Permit permit = limits.get(kind).tryAcquire();
+        if (permit == null) {
+            rejected.get(kind).increment();
+        }
+        return permit;
+    }
+
+    public AdaptiveConcurrencyLimit getLimit(Kind kind) {
+        return limits.get(kind);
+    }
+
+    // Whole seconds, as the Retry-After header requires
+    public long getRetryAfterSeconds() {
+        return Math.max(1, retryAfter.toSeconds());
+    }
+}
@@ -0,0 +1,64 @@
+package com.example.springbootmongodbcrud.limit;
+
+import com.example.springbootmongodbcrud.exception.GlobalExceptionHandler.ErrorResponse;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.context.annotation.Profile;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebFilter;
+import org.springframework.web.server.WebFilterChain;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDateTime;
+
+/**
+ * Reactive-mode counterpart of {@link ConcurrencyLimitFilter}: an admitted exchange holds its permit until it
+ * completes, errors or is cancelled.
+ */
+@Component
+@Profile("reactive")
+@Order(Ordered.HIGHEST_PRECEDENCE + 10)
+public class ReactiveConcurrencyLimitFilter implements WebFilter {
+
+    private final ProductApiLimits limits;
+
+    private final ObjectMapper objectMapper;
+
+    public ReactiveConcurrencyLimitFilter(ProductApiLimits limits, ObjectMapper objectMapper) {
+        this.limits = limits;
+        this.objectMapper = objectMapper;
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, WebFilterChain chain) {
+        ServerHttpRequest request = exchange.getRequest();
+        AdaptiveConcurrencyLimit.Permit permit = limits.tryAcquire(request.getMethod().name(),
+                request.getPath().pathWithinApplication().value());
+        if (permit == null) {
+            return reject(exchange.getResponse());
+        }
+        return chain.filter(exchange).doFinally(signal -> permit.release());
+    }
+
+    private Mono<Void> reject(ServerHttpResponse response) {
+        response.setStatusCode(HttpStatus.SERVICE_UNAVAILABLE);
+        response.getHeaders().set(HttpHeaders.RETRY_AFTER, String.valueOf(limits.getRetryAfterSeconds()));
+        response.getHeaders().setContentType(MediaType.APPLICATION_JSON);
+        byte[] body;
+        try {
+            body = objectMapper.writeValueAsBytes(new ErrorResponse(
+                    HttpStatus.SERVICE_UNAVAILABLE.value(), ProductApiLimits.REJECTED_MESSAGE, LocalDateTime.now()));
+        } catch (JsonProcessingException e) {
+            return Mono.error(e);
+        }
+        return response.writeWith(Mono.just(response.bufferFactory().wrap(body)));
+    }
+}
@@ -0,0 +1,28 @@
+package com.example.springbootmongodbcrud.metrics;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Records response body sizes as {@code http.server.response.size}, tagged like {@code http.server.requests}
+ * so the two can be joined per route.
+ */
+final class ResponseSizeMetrics {
+
+    static final String METRIC = "http.server.response.size";
+
+    private ResponseSizeMetrics() {
+    }
+
+    // uri is the matched route template, or null when no handler matched
+    static void record(MeterRegistry registry, String method, String uri, int status, long bytes) {
+        DistributionSummary.builder(METRIC)
+                .description("Size of HTTP response bodies")
+                .baseUnit("bytes")
+                .tag("method", method)
+                .tag("uri", uri != null ? uri : status == 404 ? "NOT_FOUND" : "UNKNOWN")
+                .tag("status", String.valueOf(status))
+                .register(registry)
+                .record(bytes);
+    }
+}
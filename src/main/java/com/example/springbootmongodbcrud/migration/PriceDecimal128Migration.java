@@ -0,0 +1,140 @@
+package com.example.springbootmongodbcrud.migration;
+
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.model.BulkWriteOptions;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.Projections;
+import com.mongodb.client.model.Sorts;
+import com.mongodb.client.model.UpdateOneModel;
+import com.mongodb.client.model.Updates;
+import com.mongodb.client.model.WriteModel;
+import org.bson.BsonType;
+import org.bson.Document;
+import org.bson.conversions.Bson;
+import org.bson.types.Decimal128;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Online, batched rewrite of legacy {@code products.price} values (stored as strings or binary
+ * floating point) into Decimal128. Runs on a background thread once the application is ready, so the
+ * service keeps serving traffic while it works through the collection.
+ *
+ * <p>Documents are visited once in {@code _id} order and each batch is one unordered bulk write. Every
+ * update is conditioned on the price still holding the value that was read, so a concurrent application
+ * write always wins. The migration is idempotent and can be re-run at any time.
+ */
+@Component
+@ConditionalOnProperty(name = "app.migration.price-decimal128.enabled", havingValue = "true")
+public class PriceDecimal128Migration {
+
+    private static final Logger log = LoggerFactory.getLogger(PriceDecimal128Migration.class);
+
+    private static final String PRODUCTS_COLLECTION = "products";
+
+    private static final Bson LEGACY_PRICE = Filters.or(
+            Filters.type("price", BsonType.STRING),
+            Filters.type("price", BsonType.DOUBLE),
+            Filters.type("price", BsonType.INT32),
+            Filters.type("price", BsonType.INT64));
+
+    private final MongoTemplate mongoTemplate;
+
+    private final int batchSize;
+
+    private final Duration pause;
+
+    public PriceDecimal128Migration(
+            MongoTemplate mongoTemplate,
+            @Value("${app.migration.price-decimal128.batch-size:1000}") int batchSize,
+            @Value("${app.migration.price-decimal128.pause:100ms}") Duration pause) {
+        this.mongoTemplate = mongoTemplate;
+        this.batchSize = batchSize;
+        this.pause = pause;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void startInBackground() {
+        Thread thread = new Thread(this::migrate, "price-decimal128-migration");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    // Convert batches until no legacy prices remain; returns the number of documents converted
+    public long migrate() {
+        MongoCollection<Document> products = mongoTemplate.getCollection(PRODUCTS_COLLECTION);
+        long converted = 0;
+        try {
+            Object lastId = null;
+            while (true) {
+                Bson filter = lastId == null ? LEGACY_PRICE : Filters.and(LEGACY_PRICE, Filters.gt("_id", lastId));
+                List<WriteModel<Document>> updates = new ArrayList<>(batchSize);
+                int read = 0;
+                for (Document document : products.find(filter)
+                        .projection(Projections.include("price"))
+                        .sort(Sorts.ascending("_id"))
+                        .limit(batchSize)) {
+                    read++;
+                    lastId = document.get("_id");
+                    Object legacy = document.get("price");
+                    Decimal128 price = toDecimal128(legacy);
+                    if (price == null) {
+                        log.warn("Skipping product {} with unparseable price '{}'", document.get("_id"), legacy);
+                        continue;
+                    }
+                    updates.add(new UpdateOneModel<>(
+                            Filters.and(Filters.eq("_id", document.get("_id")), Filters.eq("price", legacy)),
+                            Updates.set("price", price)));
+                }
+                if (read == 0) {
+                    break;
+                }
+                if (!updates.isEmpty()) {
+                    converted += products.bulkWrite(updates, new BulkWriteOptions().ordered(false)).getModifiedCount();
+                }
+                log.info("Price migration converted {} documents so far", converted);
+                Thread.sleep(pause.toMillis());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            log.info("Price migration interrupted after {} documents", converted);
+            return converted;
+        } catch (RuntimeException e) {
+            log.error("Price migration stopped after {} documents", converted, e);
+            return converted;
+        }
+        log.info("Price migration complete: {} documents converted", converted);
+        return converted;
+    }
+
+    // The Decimal128 for a legacy price, or null when it is not a number or does not fit Decimal128 exactly
+    // (more than 34 significant digits or an exponent out of range), so one bad document is skipped rather
+    // than stopping the migration
+    public static Decimal128 toDecimal128(Object legacy) {
+        try {
+            if (legacy instanceof String) {
+                return new Decimal128(new BigDecimal(((String) legacy).trim()));
+            }
+            if (legacy instanceof Double) {
+                return new Decimal128(BigDecimal.valueOf((Double) legacy));
+            }
+            if (legacy instanceof Number) {
+                return new Decimal128(BigDecimal.valueOf(((Number) legacy).longValue()));
+            }
+        } catch (NumberFormatException e) {
+            return null;
+        }
+        return null;
+    }
+}
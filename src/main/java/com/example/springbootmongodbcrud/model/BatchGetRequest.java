@@ -0,0 +1,27 @@
+package com.example.springbootmongodbcrud.model;
+
+import java.util.List;
+
+/**
+ * Body of {@code POST /api/products/_batch-get}: the ids to resolve, in the order the caller wants them back.
+ */
+public class BatchGetRequest {
+
+    private List<String> ids;
+
+    public BatchGetRequest() {
+    }
+
+    public BatchGetRequest(List<String> ids) {
+        this.ids = ids;
+    }
+
+    // Getters and Setters
+    public List<String> getIds() {
+        return ids;
+    }
+
+    public void setIds(List<String> ids) {
+        this.ids = ids;
+    }
+}
@@ -0,0 +1,131 @@
+package com.example.springbootmongodbcrud.model;
+
+import com.example.springbootmongodbcrud.exception.ProductValidationException;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Outcome of a batch get. Items are reported in request order, one per requested id (a repeated id is
+ * reported each time), and ids with no product are marked NOT_FOUND rather than left out.
+ */
+public class BatchGetResult {
+
+    // Upper bound on the ids in one request, so a single call cannot pull an unbounded result into memory
+    public static final int MAX_IDS = 1000;
+
+    public enum Status {
+        FOUND,
+        NOT_FOUND
+    }
+
+    private int found;
+
+    private int missing;
+
+    private List<Item> items;
+
+    public BatchGetResult() {
+    }
+
+    public BatchGetResult(List<Item> items) {
+        this.items = items;
+        this.found = (int) items.stream().filter(item -> item.getStatus() == Status.FOUND).count();
+        this.missing = items.size() - found;
+    }
+
+    // The distinct ids of a request in first-seen order; rejects a missing list, null ids and oversized requests
+    public static List<String> distinctIds(List<String> ids) {
+        if (ids == null) {
+            throw new ProductValidationException("ids is required");
+        }
+        if (ids.size() > MAX_IDS) {
+            throw new ProductValidationException("A batch get may request at most " + MAX_IDS + " ids");
+        }
+        LinkedHashSet<String> distinct = new LinkedHashSet<>();
+        for (String id : ids) {
+            if (id == null) {
+                throw new ProductValidationException("ids must not contain null");
+            }
+            distinct.add(id);
+        }
+        return new ArrayList<>(distinct);
+    }
+
+    // One item per requested id, in request order, from the products found keyed by id
+    public static BatchGetResult of(List<String> ids, Map<String, Product> products) {
+        List<Item> items = new ArrayList<>(ids.size());
+        for (String id : ids) {
+            Product product = products.get(id);
+            items.add(new Item(id, product == null ? Status.NOT_FOUND : Status.FOUND, product));
+        }
+        return new BatchGetResult(items);
+    }
+
+    // Getters and Setters
+    public int getFound() {
+        return found;
+    }
+
+    public void setFound(int found) {
+        this.found = found;
+    }
+
+    public int getMissing() {
+        return missing;
+    }
+
+    public void setMissing(int missing) {
+        this.missing = missing;
+    }
+
+    public List<Item> getItems() {
+        return items;
+    }
+
+    public void setItems(List<Item> items) {
+        this.items = items;
+    }
+
+    public static class Item {
+        private String id;
+        private Status status;
+        private Product product;
+
+        public Item() {
+        }
+
+        public Item(String id, Status status, Product product) {
+            this.id = id;
+            this.status = status;
+            this.product = product;
+        }
+
+        // Getters and Setters
+        public String getId() {
+            return id;
+        }
+
+        public void setId(String id) {
+            this.id = id;
+        }
+
+        public Status getStatus() {
+            return status;
+        }
+
+        public void setStatus(Status status) {
+            this.status = status;
+        }
+
+        public Product getProduct() {
+            return product;
+        }
+
+        public void setProduct(Product product) {
+            this.product = product;
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package com.example.springbootmongodbcrud.model;
+
+import java.util.List;
+
+/**
+ * Per-item outcome of a bulk create. Items are reported in request order.
+ */
+public class BulkCreateResult {
+
+    public enum Status {
+        CREATED,
+        CONFLICT,
+        INVALID,
+        FAILED
+    }
+
+    private int created;
+
+    private int failed;
+
+    private List<Item> items;
+
+    public BulkCreateResult() {
+    }
+
+    public BulkCreateResult(List<Item> items) {
+        this.items = items;
+        this.created = (int) items.stream().filter(item -> item.getStatus() == Status.CREATED).count();
+        this.failed = items.size() - created;
+    }
+
+    // Getters and Setters
+    public int getCreated() {
+        return created;
+    }
+
+    public void setCreated(int created) {
+        this.created = created;
+    }
+
+    public int getFailed() {
+        return failed;
+    }
+
+    public void setFailed(int failed) {
+        this.failed = failed;
+    }
+
+    public List<Item> getItems() {
+        return items;
+    }
+
+    public void setItems(List<Item> items) {
+        this.items = items;
+    }
+
+    public static class Item {
+        private int index;
+        private Status status;
+        private String id;
+        private String message;
+
+        public Item() {
+        }
+
+        public Item(int index, Status status, String id, String message) {
+            this.index = index;
+            this.status = status;
+            this.id = id;
+            this.message = message;
+        }
+
+        // Getters and Setters
+        public int getIndex() {
+            return index;
+        }
+
+        public void setIndex(int index) {
+            this.index = index;
+        }
+
+        public Status getStatus() {
+            return status;
+        }
+
+        public void setStatus(Status status) {
+            this.status = status;
+        }
+
+        public String getId() {
+            return id;
+        }
+
+        public void setId(String id) {
+            this.id = id;
+        }
+
+        public String getMessage() {
+            return message;
+        }
+
+        public void setMessage(String message) {
+            this.message = message;
+        }
+    }
+}
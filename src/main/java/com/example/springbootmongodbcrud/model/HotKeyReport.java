@@ -0,0 +1,85 @@
+package com.example.springbootmongodbcrud.model;
+
+import java.util.List;
+
+/**
+ * The most requested products, categories and search terms over the recent window. Counts are count-min
+ * sketch estimates: they may overstate a key's traffic slightly but never understate it.
+ */
+public class HotKeyReport {
+
+    private final long windowSeconds;
+
+    private final Dimension products;
+
+    private final Dimension categories;
+
+    private final Dimension searchTerms;
+
+    public HotKeyReport(long windowSeconds, Dimension products, Dimension categories, Dimension searchTerms) {
+        this.windowSeconds = windowSeconds;
+        this.products = products;
+        this.categories = categories;
+        this.searchTerms = searchTerms;
+    }
+
+    // Getters
+    public long getWindowSeconds() {
+        return windowSeconds;
+    }
+
+    public Dimension getProducts() {
+        return products;
+    }
+
+    public Dimension getCategories() {
+        return categories;
+    }
+
+    public Dimension getSearchTerms() {
+        return searchTerms;
+    }
+
+    // The top keys of one kind, and the total requests of that kind in the window
+    public static class Dimension {
+
+        private final long total;
+
+        private final List<Entry> top;
+
+        public Dimension(long total, List<Entry> top) {
+            this.total = total;
+            this.top = top;
+        }
+
+        // Getters
+        public long getTotal() {
+            return total;
+        }
+
+        public List<Entry> getTop() {
+            return top;
+        }
+    }
+
+    public static class Entry {
+
+        private final String key;
+
+        private final long count;
+
+        public Entry(String key, long count) {
+            this.key = key;
+            this.count = count;
+        }
+
+        // Getters
+        public String getKey() {
+            return key;
+        }
+
+        public long getCount() {
+            return count;
+        }
+    }
+}
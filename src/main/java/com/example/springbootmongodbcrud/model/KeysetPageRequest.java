@@ -0,0 +1,68 @@
+package com.example.springbootmongodbcrud.model;
+
+import com.example.springbootmongodbcrud.exception.ProductValidationException;
+
+/**
+ * Validated paging parameters for a keyset query: sort key, optional cursor, page size and the fields to read.
+ */
+public final class KeysetPageRequest {
+
+    public static final int DEFAULT_LIMIT = 50;
+
+    public static final int MAX_LIMIT = 500;
+
+    private final ProductSort sort;
+
+    private final ProductCursor after;
+
+    private final int limit;
+
+    private final ProductFields fields;
+
+    public KeysetPageRequest(ProductSort sort, ProductCursor after, int limit) {
+        this(sort, after, limit, ProductFields.ALL);
+    }
+
+    public KeysetPageRequest(ProductSort sort, ProductCursor after, int limit, ProductFields fields) {
+        this.sort = sort;
+        this.after = after;
+        this.limit = limit;
+        this.fields = fields;
+    }
+
+    // Build a page request from raw request parameters, applying defaults and bounds
+    public static KeysetPageRequest of(String sort, String cursor, Integer limit) {
+        return of(sort, cursor, limit, null);
+    }
+
+    // As above, reading only the comma-separated fields (every field when null)
+    public static KeysetPageRequest of(String sort, String cursor, Integer limit, String fields) {
+        ProductSort productSort = ProductSort.parse(sort);
+        ProductCursor after = cursor == null || cursor.isBlank() ? null : ProductCursor.decode(cursor, productSort);
+        if (limit != null && limit < 1) {
+            throw new ProductValidationException("Limit must be positive");
+        }
+        int pageSize = limit == null ? DEFAULT_LIMIT : Math.min(limit, MAX_LIMIT);
+        return new KeysetPageRequest(productSort, after, pageSize, ProductFields.parse(fields));
+    }
+
+    public static KeysetPageRequest first() {
+        return new KeysetPageRequest(ProductSort.DEFAULT, null, DEFAULT_LIMIT);
+    }
+
+    public ProductSort getSort() {
+        return sort;
+    }
+
+    public ProductCursor getAfter() {
+        return after;
+    }
+
+    public int getLimit() {
+        return limit;
+    }
+
+    public ProductFields getFields() {
+        return fields;
+    }
+}
@@ -0,0 +1,160 @@
+package com.example.springbootmongodbcrud.model;
+
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * One message on the low-stock feed. A subscriber first receives a SNAPSHOT of every product currently below
+ * its reorder threshold, then an ENTERED, CHANGED or LEFT delta whenever a product joins, moves within or
+ * leaves that set. Sequence numbers grow by one per delta; the snapshot carries the sequence it is current as of.
+ */
+public class LowStockEvent {
+
+    public enum Type {
+        SNAPSHOT,
+        ENTERED,
+        CHANGED,
+        LEFT
+    }
+
+    private Type type;
+
+    private long sequence;
+
+    private Item item;
+
+    private List<Item> items;
+
+    public LowStockEvent() {
+    }
+
+    private LowStockEvent(Type type, long sequence, Item item, List<Item> items) {
+        this.type = type;
+        this.sequence = sequence;
+        this.item = item;
+        this.items = items;
+    }
+
+    public static LowStockEvent snapshot(long sequence, List<Item> items) {
+        return new LowStockEvent(Type.SNAPSHOT, sequence, null, items);
+    }
+
+    public static LowStockEvent delta(Type type, long sequence, Item item) {
+        return new LowStockEvent(type, sequence, item, null);
+    }
+
+    // Getters and Setters
+    public Type getType() {
+        return type;
+    }
+
+    public void setType(Type type) {
+        this.type = type;
+    }
+
+    public long getSequence() {
+        return sequence;
+    }
+
+    public void setSequence(long sequence) {
+        this.sequence = sequence;
+    }
+
+    public Item getItem() {
+        return item;
+    }
+
+    public void setItem(Item item) {
+        this.item = item;
+    }
+
+    public List<Item> getItems() {
+        return items;
+    }
+
+    public void setItems(List<Item> items) {
+        this.items = items;
+    }
+
+    // The fields a stock dashboard shows for one product
+    public static class Item {
+        private String id;
+        private String name;
+        private String category;
+        private int stockQuantity;
+        private int reorderThreshold;
+
+        public Item() {
+        }
+
+        public Item(String id, String name, String category, int stockQuantity, int reorderThreshold) {
+            this.id = id;
+            this.name = name;
+            this.category = category;
+            this.stockQuantity = stockQuantity;
+            this.reorderThreshold = reorderThreshold;
+        }
+
+        public String getId() {
+            return id;
+        }
+
+        public void setId(String id) {
+            this.id = id;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public void setName(String name) {
+            this.name = name;
+        }
+
+        public String getCategory() {
+            return category;
+        }
+
+        public void setCategory(String category) {
+            this.category = category;
+        }
+
+        public int getStockQuantity() {
+            return stockQuantity;
+        }
+
+        public void setStockQuantity(int stockQuantity) {
+            this.stockQuantity = stockQuantity;
+        }
+
+        // The threshold in effect: the product's own, or the default when it has none
+        public int getReorderThreshold() {
+            return reorderThreshold;
+        }
+
+        public void setReorderThreshold(int reorderThreshold) {
+            this.reorderThreshold = reorderThreshold;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Item)) {
+                return false;
+            }
+            Item other = (Item) o;
+            return stockQuantity == other.stockQuantity
+                    && reorderThreshold == other.reorderThreshold
+                    && Objects.equals(id, other.id)
+                    && Objects.equals(name, other.name)
+                    && Objects.equals(category, other.category);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(id, name, category, stockQuantity, reorderThreshold);
+        }
+    }
+}
@@ -1,15 +1,28 @@
 package com.example.springbootmongodbcrud.model;
 
 import org.springframework.data.annotation.Id;
+import org.springframework.data.annotation.Version;
 import org.springframework.data.mongodb.core.mapping.Document;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.CompoundIndexes;
 import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Field;
+import org.springframework.data.mongodb.core.mapping.FieldType;
 
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.Positive;
+import jakarta.validation.constraints.PositiveOrZero;
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
 
 @Document(collection = "products")
+@CompoundIndexes({
+        // Keyset pagination sorts on (key, _id)
+        @CompoundIndex(name = "price_id", def = "{'price': 1, '_id': 1}"),
+        @CompoundIndex(name = "updatedAt_id", def = "{'updatedAt': 1, '_id': 1}"),
+        // Category plus price range queries
+        @CompoundIndex(name = "category_price", def = "{'category': 1, 'price': 1}")
+})
 public class Product {
     
     @Id
@@ -22,16 +35,25 @@ public class Product {
     private String description;
     
     @Positive(message = "Price must be positive")
+    @Field(targetType = FieldType.DECIMAL128)
     private BigDecimal price;
     
     private String category;
     
     private Integer stockQuantity;
     
+    // The product counts as low on stock below this quantity; unset means the configured default
+    @PositiveOrZero(message = "Reorder threshold must not be negative")
+    private Integer reorderThreshold;
+    
     private LocalDateTime createdAt;
     
     private LocalDateTime updatedAt;
     
+    // Incremented by every write; documents stored before versioning was added have none
+    @Version
+    private Long version;
+    
     // Default constructor
     public Product() {
         this.createdAt = LocalDateTime.now();
@@ -48,6 +70,20 @@ public class Product {
         this.stockQuantity = stockQuantity;
     }
     
+    // Copy constructor
+    public Product(Product other) {
+        this.id = other.id;
+        this.name = other.name;
+        this.description = other.description;
+        this.price = other.price;
+        this.category = other.category;
+        this.stockQuantity = other.stockQuantity;
+        this.reorderThreshold = other.reorderThreshold;
+        this.createdAt = other.createdAt;
+        this.updatedAt = other.updatedAt;
+        this.version = other.version;
+    }
+    
     // Getters and Setters
     public String getId() {
         return id;
@@ -97,6 +133,14 @@ public class Product {
         this.stockQuantity = stockQuantity;
     }
     
+    public Integer getReorderThreshold() {
+        return reorderThreshold;
+    }
+    
+    public void setReorderThreshold(Integer reorderThreshold) {
+        this.reorderThreshold = reorderThreshold;
+    }
+    
     public LocalDateTime getCreatedAt() {
         return createdAt;
     }
@@ -113,6 +157,14 @@ public class Product {
         this.updatedAt = updatedAt;
     }
     
+    public Long getVersion() {
+        return version;
+    }
+    
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+    
     @Override
     public String toString() {
         return "Product{" +
@@ -122,8 +174,10 @@ public class Product {
                 ", price=" + price +
                 ", category='" + category + '\'' +
                 ", stockQuantity=" + stockQuantity +
+                ", reorderThreshold=" + reorderThreshold +
                 ", createdAt=" + createdAt +
                 ", updatedAt=" + updatedAt +
+                ", version=" + version +
                 '}';
     }
 } 
\ No newline at end of file
@@ -0,0 +1,80 @@
+package com.example.springbootmongodbcrud.model;
+
+/**
+ * Snapshot of the product cache counters, used to size the cache.
+ */
+public class ProductCacheStats {
+
+    private final long hits;
+
+    private final long misses;
+
+    private final long evictions;
+
+    private final long evictedWeight;
+
+    private final long entries;
+
+    private final long weightBytes;
+
+    private final long nameHits;
+
+    private final long nameMisses;
+
+    private final long nameEntries;
+
+    public ProductCacheStats(long hits, long misses, long evictions, long evictedWeight, long entries,
+                             long weightBytes, long nameHits, long nameMisses, long nameEntries) {
+        this.hits = hits;
+        this.misses = misses;
+        this.evictions = evictions;
+        this.evictedWeight = evictedWeight;
+        this.entries = entries;
+        this.weightBytes = weightBytes;
+        this.nameHits = nameHits;
+        this.nameMisses = nameMisses;
+        this.nameEntries = nameEntries;
+    }
+
+    // Getters
+    public long getHits() {
+        return hits;
+    }
+
+    public long getMisses() {
+        return misses;
+    }
+
+    public long getEvictions() {
+        return evictions;
+    }
+
+    public long getEvictedWeight() {
+        return evictedWeight;
+    }
+
+    public long getEntries() {
+        return entries;
+    }
+
+    public long getWeightBytes() {
+        return weightBytes;
+    }
+
+    public long getNameHits() {
+        return nameHits;
+    }
+
+    public long getNameMisses() {
+        return nameMisses;
+    }
+
+    public long getNameEntries() {
+        return nameEntries;
+    }
+
+    public double getHitRate() {
+        long requests = hits + misses;
+        return requests == 0 ? 0.0 : (double) hits / requests;
+    }
+}
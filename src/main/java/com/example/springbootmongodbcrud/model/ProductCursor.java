@@ -0,0 +1,95 @@
+package com.example.springbootmongodbcrud.model;
+
+import com.example.springbootmongodbcrud.exception.ProductValidationException;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Objects;
+
+/**
+ * Opaque keyset cursor: the sort key plus the (value, id) pair of the last row of a page.
+ * Encoded as URL-safe base64 so clients treat it as a token rather than a query language.
+ */
+public final class ProductCursor {
+
+    private static final String SEPARATOR = "\n";
+
+    private final ProductSort sort;
+
+    private final Object value;
+
+    private final String id;
+
+    public ProductCursor(ProductSort sort, Object value, String id) {
+        this.sort = sort;
+        this.value = value;
+        this.id = id;
+    }
+
+    // Build the cursor that continues after the given product
+    public static ProductCursor after(Product product, ProductSort sort) {
+        Object value = sort.isById() ? null : sort.getField().valueOf(product);
+        return new ProductCursor(sort, value, product.getId());
+    }
+
+    // Decode a cursor token, checking that it was issued for the requested sort
+    public static ProductCursor decode(String token, ProductSort expectedSort) {
+        String decoded;
+        try {
+            decoded = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+        } catch (IllegalArgumentException e) {
+            throw new ProductValidationException("Malformed cursor", e);
+        }
+        String[] parts = decoded.split(SEPARATOR, -1);
+        if (parts.length != 3 || parts[2].isEmpty()) {
+            throw new ProductValidationException("Malformed cursor");
+        }
+        ProductSort sort = ProductSort.parse(parts[0]);
+        if (!sort.equals(expectedSort)) {
+            throw new ProductValidationException(
+                    "Cursor was issued for sort '" + sort + "', not '" + expectedSort + "'");
+        }
+        Object value;
+        try {
+            value = parts[1].isEmpty() ? null : sort.getField().parse(parts[1]);
+        } catch (RuntimeException e) {
+            throw new ProductValidationException("Malformed cursor", e);
+        }
+        return new ProductCursor(sort, value, parts[2]);
+    }
+
+    public String encode() {
+        String valueText = value == null ? "" : sort.getField().format(value);
+        String raw = sort + SEPARATOR + valueText + SEPARATOR + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public ProductSort getSort() {
+        return sort;
+    }
+
+    public Object getValue() {
+        return value;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof ProductCursor)) {
+            return false;
+        }
+        ProductCursor other = (ProductCursor) o;
+        return sort.equals(other.sort) && Objects.equals(value, other.value) && id.equals(other.id);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(sort, value, id);
+    }
+}
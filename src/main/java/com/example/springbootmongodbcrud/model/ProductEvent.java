@@ -0,0 +1,69 @@
+package com.example.springbootmongodbcrud.model;
+
+/**
+ * One change on the product event stream. Creates, updates and stock writes carry the product as written;
+ * deletes carry only the id. RESET means the consumer may have missed events (its Last-Event-ID is no longer
+ * in the replay buffer, or the server lost track of changes) and must resynchronize from a full read before
+ * applying further events.
+ */
+public class ProductEvent {
+
+    public enum Type {
+        CREATED,
+        UPDATED,
+        STOCK,
+        DELETED,
+        RESET
+    }
+
+    private String id;
+
+    private Type type;
+
+    private String productId;
+
+    private Product product;
+
+    public ProductEvent() {
+    }
+
+    public ProductEvent(String id, Type type, String productId, Product product) {
+        this.id = id;
+        this.type = type;
+        this.productId = productId;
+        this.product = product;
+    }
+
+    // Getters and Setters
+    public String getId() {
+        return id;
+    }
+
+    public void setId(String id) {
+        this.id = id;
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    public void setType(Type type) {
+        this.type = type;
+    }
+
+    public String getProductId() {
+        return productId;
+    }
+
+    public void setProductId(String productId) {
+        this.productId = productId;
+    }
+
+    public Product getProduct() {
+        return product;
+    }
+
+    public void setProduct(Product product) {
+        this.product = product;
+    }
+}
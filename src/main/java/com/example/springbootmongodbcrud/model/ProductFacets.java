@@ -0,0 +1,201 @@
+package com.example.springbootmongodbcrud.model;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Counts for building filter sidebars over the products matching a filter: per category, per price
+ * bucket and per stock availability.
+ */
+public class ProductFacets {
+
+    private long total;
+
+    private List<CategoryCount> categories;
+
+    private List<PriceBucket> prices;
+
+    private long unpriced;
+
+    private StockCounts stock;
+
+    public ProductFacets() {
+    }
+
+    // Assemble facets from raw counts; every configured bucket is reported, empty ones with a zero count,
+    // so the sidebar layout does not shift as filters change
+    public static ProductFacets of(ProductFacetsQuery query, Map<String, Long> categoryCounts, long[] bucketCounts,
+                                   long unpriced, StockCounts stock) {
+        ProductFacets facets = new ProductFacets();
+        List<CategoryCount> categories = new ArrayList<>();
+        categoryCounts.forEach((category, count) -> categories.add(new CategoryCount(category, count)));
+        categories.sort(Comparator.comparingLong(CategoryCount::getCount).reversed()
+                .thenComparing(CategoryCount::getValue));
+        facets.setCategories(categories);
+
+        List<BigDecimal> boundaries = query.getPriceBoundaries();
+        List<PriceBucket> prices = new ArrayList<>(boundaries.size());
+        for (int i = 0; i < boundaries.size(); i++) {
+            BigDecimal max = i + 1 < boundaries.size() ? boundaries.get(i + 1) : null;
+            prices.add(new PriceBucket(boundaries.get(i), max, bucketCounts[i]));
+        }
+        facets.setPrices(prices);
+        facets.setUnpriced(unpriced);
+        facets.setStock(stock);
+        facets.setTotal(stock.getInStock() + stock.getLowStock() + stock.getOutOfStock());
+        return facets;
+    }
+
+    // Getters and Setters
+    public long getTotal() {
+        return total;
+    }
+
+    public void setTotal(long total) {
+        this.total = total;
+    }
+
+    public List<CategoryCount> getCategories() {
+        return categories;
+    }
+
+    public void setCategories(List<CategoryCount> categories) {
+        this.categories = categories;
+    }
+
+    public List<PriceBucket> getPrices() {
+        return prices;
+    }
+
+    public void setPrices(List<PriceBucket> prices) {
+        this.prices = prices;
+    }
+
+    public long getUnpriced() {
+        return unpriced;
+    }
+
+    public void setUnpriced(long unpriced) {
+        this.unpriced = unpriced;
+    }
+
+    public StockCounts getStock() {
+        return stock;
+    }
+
+    public void setStock(StockCounts stock) {
+        this.stock = stock;
+    }
+
+    public static class CategoryCount {
+        private String value;
+        private long count;
+
+        public CategoryCount() {
+        }
+
+        public CategoryCount(String value, long count) {
+            this.value = value;
+            this.count = count;
+        }
+
+        public String getValue() {
+            return value;
+        }
+
+        public void setValue(String value) {
+            this.value = value;
+        }
+
+        public long getCount() {
+            return count;
+        }
+
+        public void setCount(long count) {
+            this.count = count;
+        }
+    }
+
+    // Products priced in [min, max); the last bucket has no max
+    public static class PriceBucket {
+        private BigDecimal min;
+        private BigDecimal max;
+        private long count;
+
+        public PriceBucket() {
+        }
+
+        public PriceBucket(BigDecimal min, BigDecimal max, long count) {
+            this.min = min;
+            this.max = max;
+            this.count = count;
+        }
+
+        public BigDecimal getMin() {
+            return min;
+        }
+
+        public void setMin(BigDecimal min) {
+            this.min = min;
+        }
+
+        public BigDecimal getMax() {
+            return max;
+        }
+
+        public void setMax(BigDecimal max) {
+            this.max = max;
+        }
+
+        public long getCount() {
+            return count;
+        }
+
+        public void setCount(long count) {
+            this.count = count;
+        }
+    }
+
+    // In stock means at least the low-stock threshold; out of stock means zero or unknown
+    public static class StockCounts {
+        private long inStock;
+        private long lowStock;
+        private long outOfStock;
+
+        public StockCounts() {
+        }
+
+        public StockCounts(long inStock, long lowStock, long outOfStock) {
+            this.inStock = inStock;
+            this.lowStock = lowStock;
+            this.outOfStock = outOfStock;
+        }
+
+        public long getInStock() {
+            return inStock;
+        }
+
+        public void setInStock(long inStock) {
+            this.inStock = inStock;
+        }
+
+        public long getLowStock() {
+            return lowStock;
+        }
+
+        public void setLowStock(long lowStock) {
+            this.lowStock = lowStock;
+        }
+
+        public long getOutOfStock() {
+            return outOfStock;
+        }
+
+        public void setOutOfStock(long outOfStock) {
+            this.outOfStock = outOfStock;
+        }
+    }
+}
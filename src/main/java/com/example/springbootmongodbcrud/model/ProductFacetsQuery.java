@@ -0,0 +1,110 @@
+package com.example.springbootmongodbcrud.model;
+
+import com.example.springbootmongodbcrud.exception.ProductValidationException;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * What a facets request asks for: the filter the counts are taken over, the lower boundaries of the price
+ * buckets and the stock level below which a product counts as low. Also the key facets are cached under.
+ */
+public final class ProductFacetsQuery {
+
+    public static final List<BigDecimal> DEFAULT_PRICE_BOUNDARIES = List.of(
+            BigDecimal.ZERO, new BigDecimal("10"), new BigDecimal("25"), new BigDecimal("50"), new BigDecimal("100"),
+            new BigDecimal("250"), new BigDecimal("500"), new BigDecimal("1000"));
+
+    public static final int DEFAULT_LOW_STOCK_THRESHOLD = 10;
+
+    private static final int MAX_PRICE_BOUNDARIES = 50;
+
+    private final ProductFilter filter;
+
+    private final List<BigDecimal> priceBoundaries;
+
+    private final int lowStockThreshold;
+
+    public ProductFacetsQuery(ProductFilter filter, List<BigDecimal> priceBoundaries, int lowStockThreshold) {
+        this.filter = filter;
+        this.priceBoundaries = List.copyOf(priceBoundaries);
+        this.lowStockThreshold = lowStockThreshold;
+    }
+
+    public static ProductFacetsQuery of(ProductFilter filter) {
+        return new ProductFacetsQuery(filter, DEFAULT_PRICE_BOUNDARIES, DEFAULT_LOW_STOCK_THRESHOLD);
+    }
+
+    // Build a facets query from raw request parameters: comma-separated, strictly increasing bucket
+    // boundaries and a positive low-stock threshold, each defaulted when absent
+    public static ProductFacetsQuery of(ProductFilter filter, String priceBuckets, Integer lowStock) {
+        List<BigDecimal> boundaries = DEFAULT_PRICE_BOUNDARIES;
+        if (priceBuckets != null && !priceBuckets.isBlank()) {
+            boundaries = new ArrayList<>();
+            for (String value : priceBuckets.split(",")) {
+                BigDecimal boundary;
+                try {
+                    boundary = new BigDecimal(value.trim());
+                } catch (NumberFormatException e) {
+                    throw new ProductValidationException("Invalid price bucket boundary: " + value);
+                }
+                if (!boundaries.isEmpty() && boundary.compareTo(boundaries.get(boundaries.size() - 1)) <= 0) {
+                    throw new ProductValidationException("Price bucket boundaries must be strictly increasing");
+                }
+                boundaries.add(boundary);
+            }
+            if (boundaries.size() > MAX_PRICE_BOUNDARIES) {
+                throw new ProductValidationException("At most " + MAX_PRICE_BOUNDARIES + " price bucket boundaries");
+            }
+        }
+        if (lowStock != null && lowStock < 1) {
+            throw new ProductValidationException("Low-stock threshold must be positive");
+        }
+        return new ProductFacetsQuery(filter, boundaries, lowStock == null ? DEFAULT_LOW_STOCK_THRESHOLD : lowStock);
+    }
+
+    // Index of the bucket holding price, or -1 if it is missing or below the first boundary
+    public int bucketOf(BigDecimal price) {
+        if (price == null) {
+            return -1;
+        }
+        int bucket = -1;
+        for (int i = 0; i < priceBoundaries.size() && price.compareTo(priceBoundaries.get(i)) >= 0; i++) {
+            bucket = i;
+        }
+        return bucket;
+    }
+
+    public ProductFilter getFilter() {
+        return filter;
+    }
+
+    public List<BigDecimal> getPriceBoundaries() {
+        return priceBoundaries;
+    }
+
+    public int getLowStockThreshold() {
+        return lowStockThreshold;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof ProductFacetsQuery)) {
+            return false;
+        }
+        ProductFacetsQuery other = (ProductFacetsQuery) o;
+        return lowStockThreshold == other.lowStockThreshold
+                && filter.equals(other.filter)
+                && priceBoundaries.equals(other.priceBoundaries);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(filter, priceBoundaries, lowStockThreshold);
+    }
+}
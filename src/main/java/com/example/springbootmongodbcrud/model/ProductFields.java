@@ -0,0 +1,148 @@
+package com.example.springbootmongodbcrud.model;
+
+import com.example.springbootmongodbcrud.exception.ProductValidationException;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Sparse fieldset requested with {@code ?fields=}: the product properties a response should contain. Reads
+ * turn it into a Mongo projection, and the controllers drop everything else before serializing, relying on
+ * the non-null JSON inclusion this application is configured with.
+ */
+public final class ProductFields {
+
+    // Every selectable property, in the order used for the canonical form
+    private static final List<String> PROPERTIES = List.of(
+            "id", "name", "description", "price", "category", "stockQuantity", "reorderThreshold",
+            "createdAt", "updatedAt", "version");
+
+    public static final ProductFields ALL = new ProductFields(new LinkedHashSet<>(PROPERTIES));
+
+    private final Set<String> names;
+
+    private ProductFields(Set<String> names) {
+        this.names = Collections.unmodifiableSet(names);
+    }
+
+    // Parse a comma-separated list of property names; absent or blank means every property
+    public static ProductFields parse(String fields) {
+        if (fields == null || fields.isBlank()) {
+            return ALL;
+        }
+        Set<String> requested = new LinkedHashSet<>();
+        for (String name : fields.split(",")) {
+            name = name.trim();
+            if (!name.isEmpty()) {
+                if (!PROPERTIES.contains(name)) {
+                    throw new ProductValidationException("Unknown field: " + name);
+                }
+                requested.add(name);
+            }
+        }
+        return of(requested);
+    }
+
+    private static ProductFields of(Set<String> requested) {
+        if (requested.isEmpty() || requested.size() == PROPERTIES.size()) {
+            return ALL;
+        }
+        Set<String> canonical = new LinkedHashSet<>();
+        for (String property : PROPERTIES) {
+            if (requested.contains(property)) {
+                canonical.add(property);
+            }
+        }
+        return new ProductFields(canonical);
+    }
+
+    public boolean isAll() {
+        return names.size() == PROPERTIES.size();
+    }
+
+    public Set<String> getNames() {
+        return names;
+    }
+
+    // The fields a page query must read: the selection plus the id and version (for ETags) and the sort key
+    // (for the next cursor)
+    public ProductFields forPage(ProductSort sort) {
+        if (isAll()) {
+            return this;
+        }
+        Set<String> needed = new LinkedHashSet<>(names);
+        needed.add("id");
+        needed.add("version");
+        needed.add(sort.getField().getProperty());
+        return of(needed);
+    }
+
+    // A copy of product holding only the selected fields; the product itself when every field is selected
+    public Product apply(Product product) {
+        if (isAll()) {
+            return product;
+        }
+        Product trimmed = new Product(product);
+        if (!names.contains("id")) {
+            trimmed.setId(null);
+        }
+        if (!names.contains("name")) {
+            trimmed.setName(null);
+        }
+        if (!names.contains("description")) {
+            trimmed.setDescription(null);
+        }
+        if (!names.contains("price")) {
+            trimmed.setPrice(null);
+        }
+        if (!names.contains("category")) {
+            trimmed.setCategory(null);
+        }
+        if (!names.contains("stockQuantity")) {
+            trimmed.setStockQuantity(null);
+        }
+        if (!names.contains("reorderThreshold")) {
+            trimmed.setReorderThreshold(null);
+        }
+        if (!names.contains("createdAt")) {
+            trimmed.setCreatedAt(null);
+        }
+        if (!names.contains("updatedAt")) {
+            trimmed.setUpdatedAt(null);
+        }
+        if (!names.contains("version")) {
+            trimmed.setVersion(null);
+        }
+        return trimmed;
+    }
+
+    public ProductPage apply(ProductPage page) {
+        if (isAll()) {
+            return page;
+        }
+        List<Product> items = new ArrayList<>(page.getItems().size());
+        for (Product product : page.getItems()) {
+            items.add(apply(product));
+        }
+        return new ProductPage(items, page.getNextCursor(), page.getLimit());
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return this == o || (o instanceof ProductFields && names.equals(((ProductFields) o).names));
+    }
+
+    @Override
+    public int hashCode() {
+        return names.hashCode();
+    }
+
+    // Canonical comma-separated form, the same for any order the fields were requested in
+    @Override
+    public String toString() {
+        return String.join(",", names);
+    }
+}
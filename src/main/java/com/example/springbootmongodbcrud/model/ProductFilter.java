@@ -0,0 +1,126 @@
+package com.example.springbootmongodbcrud.model;
+
+import java.math.BigDecimal;
+import java.util.Objects;
+
+/**
+ * Immutable set of predicates shared by the list endpoints. Every field is optional;
+ * a filter with no fields set matches the whole collection.
+ */
+public final class ProductFilter {
+
+    private static final ProductFilter ALL = new ProductFilter(null, null, null, null, null);
+
+    private final String category;
+
+    private final BigDecimal minPrice;
+
+    private final BigDecimal maxPrice;
+
+    private final Integer stockBelow;
+
+    private final String nameContains;
+
+    public ProductFilter(String category, BigDecimal minPrice, BigDecimal maxPrice, Integer stockBelow,
+                         String nameContains) {
+        this.category = category;
+        this.minPrice = minPrice;
+        this.maxPrice = maxPrice;
+        this.stockBelow = stockBelow;
+        this.nameContains = nameContains;
+    }
+
+    public static ProductFilter all() {
+        return ALL;
+    }
+
+    public static ProductFilter byCategory(String category) {
+        return new ProductFilter(category, null, null, null, null);
+    }
+
+    public static ProductFilter byPriceRange(BigDecimal minPrice, BigDecimal maxPrice) {
+        return new ProductFilter(null, minPrice, maxPrice, null, null);
+    }
+
+    public static ProductFilter byCategoryAndPriceRange(String category, BigDecimal minPrice, BigDecimal maxPrice) {
+        return new ProductFilter(category, minPrice, maxPrice, null, null);
+    }
+
+    public static ProductFilter stockBelow(Integer quantity) {
+        return new ProductFilter(null, null, null, quantity, null);
+    }
+
+    public static ProductFilter nameContains(String name) {
+        return new ProductFilter(null, null, null, null, name);
+    }
+
+    // Check a product against this filter in memory
+    public boolean matches(Product product) {
+        if (category != null && !category.equals(product.getCategory())) {
+            return false;
+        }
+        if (minPrice != null && (product.getPrice() == null || product.getPrice().compareTo(minPrice) < 0)) {
+            return false;
+        }
+        if (maxPrice != null && (product.getPrice() == null || product.getPrice().compareTo(maxPrice) > 0)) {
+            return false;
+        }
+        if (stockBelow != null && (product.getStockQuantity() == null || product.getStockQuantity() >= stockBelow)) {
+            return false;
+        }
+        return nameContains == null || (product.getName() != null
+                && product.getName().toLowerCase().contains(nameContains.toLowerCase()));
+    }
+
+    public String getCategory() {
+        return category;
+    }
+
+    public BigDecimal getMinPrice() {
+        return minPrice;
+    }
+
+    public BigDecimal getMaxPrice() {
+        return maxPrice;
+    }
+
+    public Integer getStockBelow() {
+        return stockBelow;
+    }
+
+    public String getNameContains() {
+        return nameContains;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof ProductFilter)) {
+            return false;
+        }
+        ProductFilter other = (ProductFilter) o;
+        return Objects.equals(category, other.category)
+                && Objects.equals(minPrice, other.minPrice)
+                && Objects.equals(maxPrice, other.maxPrice)
+                && Objects.equals(stockBelow, other.stockBelow)
+                && Objects.equals(nameContains, other.nameContains);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(category, minPrice, maxPrice, stockBelow, nameContains);
+    }
+
+    @Override
+    public String toString() {
+        return "ProductFilter{" +
+                "category='" + category + '\'' +
+                ", minPrice=" + minPrice +
+                ", maxPrice=" + maxPrice +
+                ", stockBelow=" + stockBelow +
+                ", nameContains='" + nameContains + '\'' +
+                '}';
+    }
+}
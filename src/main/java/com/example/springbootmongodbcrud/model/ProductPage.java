@@ -0,0 +1,64 @@
+package com.example.springbootmongodbcrud.model;
+
+import java.util.List;
+
+/**
+ * One page of a keyset-paginated listing. {@code nextCursor} is absent on the last page.
+ */
+public class ProductPage {
+
+    private List<Product> items;
+
+    private String nextCursor;
+
+    private int limit;
+
+    public ProductPage() {
+    }
+
+    public ProductPage(List<Product> items, String nextCursor, int limit) {
+        this.items = items;
+        this.nextCursor = nextCursor;
+        this.limit = limit;
+    }
+
+    // Build a page from up to limit + 1 rows fetched for the request; the extra row only signals a next page
+    public static ProductPage fromRows(List<Product> rows, KeysetPageRequest page) {
+        int limit = page.getLimit();
+        if (rows.size() <= limit) {
+            return new ProductPage(rows, null, limit);
+        }
+        List<Product> items = rows.subList(0, limit);
+        String nextCursor = ProductCursor.after(items.get(limit - 1), page.getSort()).encode();
+        return new ProductPage(items, nextCursor, limit);
+    }
+
+    // Getters and Setters
+    public List<Product> getItems() {
+        return items;
+    }
+
+    public void setItems(List<Product> items) {
+        this.items = items;
+    }
+
+    public String getNextCursor() {
+        return nextCursor;
+    }
+
+    public void setNextCursor(String nextCursor) {
+        this.nextCursor = nextCursor;
+    }
+
+    public int getLimit() {
+        return limit;
+    }
+
+    public void setLimit(int limit) {
+        this.limit = limit;
+    }
+
+    public boolean isHasMore() {
+        return nextCursor != null;
+    }
+}
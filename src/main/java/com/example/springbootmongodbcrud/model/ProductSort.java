@@ -0,0 +1,152 @@
+package com.example.springbootmongodbcrud.model;
+
+import com.example.springbootmongodbcrud.exception.ProductValidationException;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Comparator;
+
+/**
+ * Sort key used for keyset pagination. Every sort is tie-broken on the document id
+ * so that the (value, id) pair of the last row uniquely positions the next page.
+ */
+public final class ProductSort {
+
+    public enum Field {
+        ID("id"),
+        PRICE("price"),
+        UPDATED_AT("updatedAt");
+
+        private final String property;
+
+        Field(String property) {
+            this.property = property;
+        }
+
+        public String getProperty() {
+            return property;
+        }
+
+        // Read this field's value from a product
+        public Object valueOf(Product product) {
+            switch (this) {
+                case PRICE:
+                    return product.getPrice();
+                case UPDATED_AT:
+                    return product.getUpdatedAt();
+                default:
+                    return product.getId();
+            }
+        }
+
+        // Render a value of this field as cursor text
+        String format(Object value) {
+            if (value instanceof BigDecimal) {
+                return ((BigDecimal) value).toPlainString();
+            }
+            return value.toString();
+        }
+
+        // Parse cursor text back into a value of this field
+        Object parse(String text) {
+            switch (this) {
+                case PRICE:
+                    return new BigDecimal(text);
+                case UPDATED_AT:
+                    return LocalDateTime.parse(text);
+                default:
+                    return text;
+            }
+        }
+
+        static Field fromProperty(String property) {
+            for (Field field : values()) {
+                if (field.property.equals(property)) {
+                    return field;
+                }
+            }
+            throw new ProductValidationException("Unsupported sort key: " + property);
+        }
+    }
+
+    public static final ProductSort DEFAULT = new ProductSort(Field.ID, true);
+
+    private final Field field;
+
+    private final boolean ascending;
+
+    public ProductSort(Field field, boolean ascending) {
+        this.field = field;
+        this.ascending = ascending;
+    }
+
+    // Parse a sort parameter such as "price" or "-updatedAt" (leading '-' means descending)
+    public static ProductSort parse(String value) {
+        if (value == null || value.isBlank()) {
+            return DEFAULT;
+        }
+        String trimmed = value.trim();
+        boolean descending = trimmed.startsWith("-");
+        String property = descending ? trimmed.substring(1) : trimmed;
+        return new ProductSort(Field.fromProperty(property), !descending);
+    }
+
+    // In-memory ordering equivalent to the Mongo sort: missing values first, then by value, then by id
+    public Comparator<Product> comparator() {
+        return (a, b) -> compare(field.valueOf(a), a.getId(), field.valueOf(b), b.getId());
+    }
+    
+    // True if the product sorts strictly after the cursor position
+    public boolean isAfter(Product product, ProductCursor cursor) {
+        Object cursorValue = isById() ? cursor.getId() : cursor.getValue();
+        return compare(field.valueOf(product), product.getId(), cursorValue, cursor.getId()) > 0;
+    }
+    
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private int compare(Object valueA, String idA, Object valueB, String idB) {
+        int result;
+        if (valueA == null || valueB == null) {
+            result = valueA == null ? (valueB == null ? 0 : -1) : 1;
+        } else {
+            result = ((Comparable) valueA).compareTo(valueB);
+        }
+        if (result == 0 && !isById()) {
+            result = idA.compareTo(idB);
+        }
+        return ascending ? result : -result;
+    }
+    
+    public Field getField() {
+        return field;
+    }
+
+    public boolean isAscending() {
+        return ascending;
+    }
+
+    public boolean isById() {
+        return field == Field.ID;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof ProductSort)) {
+            return false;
+        }
+        ProductSort other = (ProductSort) o;
+        return field == other.field && ascending == other.ascending;
+    }
+
+    @Override
+    public int hashCode() {
+        return field.hashCode() * 31 + (ascending ? 1 : 0);
+    }
+
+    @Override
+    public String toString() {
+        return (ascending ? "" : "-") + field.getProperty();
+    }
+}
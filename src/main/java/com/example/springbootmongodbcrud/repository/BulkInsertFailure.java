@@ -0,0 +1,31 @@
+package com.example.springbootmongodbcrud.repository;
+
+/**
+ * A single document rejected by an unordered bulk insert, identified by its position in the batch.
+ */
+public class BulkInsertFailure {
+
+    private final int index;
+
+    private final boolean duplicateKey;
+
+    private final String message;
+
+    public BulkInsertFailure(int index, boolean duplicateKey, String message) {
+        this.index = index;
+        this.duplicateKey = duplicateKey;
+        this.message = message;
+    }
+
+    public int getIndex() {
+        return index;
+    }
+
+    public boolean isDuplicateKey() {
+        return duplicateKey;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+}
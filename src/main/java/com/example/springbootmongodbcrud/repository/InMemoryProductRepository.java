@@ -0,0 +1,817 @@
+package com.example.springbootmongodbcrud.repository;
+
+import com.example.springbootmongodbcrud.model.Product;
+import com.example.springbootmongodbcrud.model.ProductCursor;
+import com.example.springbootmongodbcrud.model.ProductFacets;
+import com.example.springbootmongodbcrud.model.ProductFacetsQuery;
+import com.example.springbootmongodbcrud.model.ProductFields;
+import com.example.springbootmongodbcrud.model.ProductFilter;
+import com.example.springbootmongodbcrud.model.ProductSort;
+import org.bson.types.ObjectId;
+import org.springframework.context.annotation.Profile;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.Example;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.repository.query.FluentQuery;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
+
+/**
+ * {@link ProductRepository} kept entirely in memory, for load tests, benchmarks and deployments without a
+ * MongoDB server. Selected with the {@code inmemory} profile.
+ *
+ * <p>Besides the primary id map the engine keeps the secondary indexes the queries need: a hash index on the
+ * (unique) name, per-category postings sorted by id, sorted (value, id) indexes on price and stock, and a
+ * price index per category mirroring the {@code {category, price}} MongoDB index. Keyset pages sorted by id or
+ * price walk an index in order and stop after {@code limit} matches.
+ *
+ * <p>Reads take no locks. Stored products are never mutated: every write swaps in a fresh copy under a single
+ * writer lock and then updates the indexes, so a reader always sees a whole document. A query that races a
+ * write may or may not include that document, as with MongoDB. Products are copied on the way in and out, so
+ * callers can never change stored state behind the indexes. Versions follow Spring Data's {@code @Version}
+ * rules: saving a product without one inserts it, and saving one with a stale version fails.
+ */
+@Repository
+@Profile("inmemory")
+public class InMemoryProductRepository implements ProductRepository {
+
+    private static final String MIN_ID = "";
+
+    private static final String MAX_ID = "\uffff";
+
+    private final Map<String, Product> byId = new ConcurrentHashMap<>();
+
+    private final NavigableSet<String> ids = new ConcurrentSkipListSet<>();
+
+    private final Map<String, String> idByName = new ConcurrentHashMap<>();
+
+    private final Map<String, NavigableSet<String>> idsByCategory = new ConcurrentHashMap<>();
+
+    private final SortedIndex<BigDecimal> priceIndex = new SortedIndex<>();
+
+    private final Map<String, SortedIndex<BigDecimal>> priceIndexByCategory = new ConcurrentHashMap<>();
+
+    private final SortedIndex<Integer> stockIndex = new SortedIndex<>();
+
+    private final ReentrantLock writeLock = new ReentrantLock();
+
+    // Derived queries
+
+    @Override
+    public Optional<Product> findByName(String name) {
+        String id = name == null ? null : idByName.get(name);
+        return id == null ? Optional.empty() : findById(id);
+    }
+
+    @Override
+    public List<Product> findByCategory(String category) {
+        return load(postings(category));
+    }
+
+    @Override
+    public List<Product> findByPriceLessThan(BigDecimal price) {
+        return load(priceIndex.range(null, false, price, false));
+    }
+
+    @Override
+    public List<Product> findByPriceGreaterThan(BigDecimal price) {
+        return load(priceIndex.range(price, false, null, false));
+    }
+
+    @Override
+    public List<Product> findByStockQuantityLessThan(Integer quantity) {
+        return load(stockIndex.range(null, false, quantity, false));
+    }
+
+    @Override
+    public List<Product> findByNameContainingIgnoreCase(String name) {
+        return scan(product -> product.getName() != null && containsIgnoreCase(product.getName(), name));
+    }
+
+    @Override
+    public List<Product> findByPriceBetween(BigDecimal minPrice, BigDecimal maxPrice) {
+        return load(priceIndex.range(minPrice, true, maxPrice, true));
+    }
+
+    @Override
+    public List<Product> findByCategoryAndPriceBetween(String category, BigDecimal minPrice, BigDecimal maxPrice) {
+        return load(priceIndex(category).range(minPrice, true, maxPrice, true));
+    }
+
+    @Override
+    public boolean existsByName(String name) {
+        return name != null && idByName.containsKey(name);
+    }
+
+    // ProductRepositoryCustom
+
+    @Override
+    public List<Product> findPage(ProductFilter filter, ProductSort sort, ProductCursor after, int limit,
+                                  ProductFields fields) {
+        Iterable<String> ordered = orderedCandidates(filter, sort, after);
+        if (ordered != null) {
+            List<Product> page = new ArrayList<>(Math.min(limit, 64));
+            for (String id : ordered) {
+                Product product = byId.get(id);
+                if (product != null && filter.matches(product)) {
+                    page.add(copy(product, fields));
+                    if (page.size() == limit) {
+                        break;
+                    }
+                }
+            }
+            return page;
+        }
+        // No index yields this order: collect the matches from the narrowest index, then sort
+        List<Product> matches = new ArrayList<>();
+        for (String id : narrowestCandidates(filter)) {
+            Product product = byId.get(id);
+            if (product != null && filter.matches(product) && (after == null || sort.isAfter(product, after))) {
+                matches.add(product);
+            }
+        }
+        matches.sort(sort.comparator());
+        List<Product> page = new ArrayList<>(Math.min(limit, matches.size()));
+        for (int i = 0; i < matches.size() && i < limit; i++) {
+            page.add(copy(matches.get(i), fields));
+        }
+        return page;
+    }
+
+    @Override
+    public Stream<Product> streamAll(ProductFields fields) {
+        return ids.stream()
+                .map(byId::get)
+                .filter(product -> product != null)
+                .map(product -> copy(product, fields));
+    }
+
+    @Override
+    public List<BulkInsertFailure> insertUnordered(List<Product> products) {
+        List<BulkInsertFailure> failures = new ArrayList<>();
+        writeLock.lock();
+        try {
+            for (int i = 0; i < products.size(); i++) {
+                Product product = products.get(i);
+                if (product.getId() == null) {
+                    product.setId(new ObjectId().toHexString());
+                }
+                String conflict = insertConflict(product);
+                if (conflict != null) {
+                    failures.add(new BulkInsertFailure(i, true, conflict));
+                } else {
+                    initializeVersion(product);
+                    replace(null, new Product(product));
+                }
+            }
+        } finally {
+            writeLock.unlock();
+        }
+        return failures;
+    }
+
+    @Override
+    public Optional<Product> setStock(String id, int quantity) {
+        return modify(id, product -> true, product -> product.setStockQuantity(quantity));
+    }
+
+    @Override
+    public int setStocks(Map<String, StockWrite> writes) {
+        int matched = 0;
+        for (Map.Entry<String, StockWrite> entry : writes.entrySet()) {
+            StockWrite write = entry.getValue();
+            if (modify(entry.getKey(), product -> true, product -> product.setStockQuantity(write.getQuantity()),
+                    write.getUpdates()).isPresent()) {
+                matched++;
+            }
+        }
+        return matched;
+    }
+
+    @Override
+    public Optional<Product> adjustStock(String id, int delta) {
+        return modify(id,
+                product -> product.getStockQuantity() != null && (delta < 0
+                        ? product.getStockQuantity() >= -(long) delta
+                        : product.getStockQuantity() <= Integer.MAX_VALUE - delta),
+                product -> product.setStockQuantity(product.getStockQuantity() + delta));
+    }
+
+    @Override
+    public Optional<Product> updateIfVersion(Product product, long expectedVersion) {
+        return modify(product.getId(), existing -> version(existing) == expectedVersion, existing -> {
+            existing.setName(product.getName());
+            existing.setDescription(product.getDescription());
+            existing.setPrice(product.getPrice());
+            existing.setCategory(product.getCategory());
+            existing.setStockQuantity(product.getStockQuantity());
+            existing.setReorderThreshold(product.getReorderThreshold());
+        });
+    }
+
+    @Override
+    public List<Product> findBelowReorderThreshold(int defaultThreshold) {
+        return scan(product -> {
+            int stock = product.getStockQuantity() == null ? 0 : product.getStockQuantity();
+            return stock < (product.getReorderThreshold() == null ? defaultThreshold : product.getReorderThreshold());
+        });
+    }
+
+    // Counts are taken over the narrowest index for the filter, reading stored products without copying them
+    @Override
+    public ProductFacets facets(ProductFacetsQuery query) {
+        ProductFilter filter = query.getFilter();
+        Map<String, Long> categories = new HashMap<>();
+        long[] buckets = new long[query.getPriceBoundaries().size()];
+        long unpriced = 0;
+        long inStock = 0;
+        long lowStock = 0;
+        long outOfStock = 0;
+        for (String id : narrowestCandidates(filter)) {
+            Product product = byId.get(id);
+            if (product == null || !filter.matches(product)) {
+                continue;
+            }
+            if (product.getCategory() != null) {
+                categories.merge(product.getCategory(), 1L, Long::sum);
+            }
+            int bucket = query.bucketOf(product.getPrice());
+            if (bucket < 0) {
+                unpriced++;
+            } else {
+                buckets[bucket]++;
+            }
+            int stock = product.getStockQuantity() == null ? 0 : product.getStockQuantity();
+            if (stock <= 0) {
+                outOfStock++;
+            } else if (stock < query.getLowStockThreshold()) {
+                lowStock++;
+            } else {
+                inStock++;
+            }
+        }
+        return ProductFacets.of(query, categories, buckets, unpriced,
+                new ProductFacets.StockCounts(inStock, lowStock, outOfStock));
+    }
+
+    // CrudRepository
+
+    @Override
+    public <S extends Product> S save(S product) {
+        writeLock.lock();
+        try {
+            if (product.getId() == null) {
+                product.setId(new ObjectId().toHexString());
+            }
+            if (product.getVersion() == null) {
+                String conflict = insertConflict(product);
+                if (conflict != null) {
+                    throw new DuplicateKeyException(conflict);
+                }
+                initializeVersion(product);
+                replace(null, new Product(product));
+                return product;
+            }
+            Product existing = byId.get(product.getId());
+            if (existing == null || version(existing) != product.getVersion()) {
+                throw new OptimisticLockingFailureException("Product " + product.getId() + " was not at version "
+                        + product.getVersion());
+            }
+            String owner = product.getName() == null ? null : idByName.get(product.getName());
+            if (owner != null && !owner.equals(product.getId())) {
+                throw duplicateName(product.getName());
+            }
+            product.setVersion(product.getVersion() + 1);
+            replace(existing, new Product(product));
+            return product;
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    @Override
+    public <S extends Product> List<S> saveAll(Iterable<S> products) {
+        List<S> saved = new ArrayList<>();
+        for (S product : products) {
+            saved.add(save(product));
+        }
+        return saved;
+    }
+
+    @Override
+    public <S extends Product> S insert(S product) {
+        writeLock.lock();
+        try {
+            if (product.getId() == null) {
+                product.setId(new ObjectId().toHexString());
+            }
+            String conflict = insertConflict(product);
+            if (conflict != null) {
+                throw new DuplicateKeyException(conflict);
+            }
+            initializeVersion(product);
+            replace(null, new Product(product));
+            return product;
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    @Override
+    public <S extends Product> List<S> insert(Iterable<S> products) {
+        List<S> inserted = new ArrayList<>();
+        for (S product : products) {
+            inserted.add(insert(product));
+        }
+        return inserted;
+    }
+
+    @Override
+    public Optional<Product> findById(String id) {
+        Product product = byId.get(id);
+        return product == null ? Optional.empty() : Optional.of(new Product(product));
+    }
+
+    @Override
+    public boolean existsById(String id) {
+        return byId.containsKey(id);
+    }
+
+    @Override
+    public List<Product> findAll() {
+        return load(ids);
+    }
+
+    @Override
+    public List<Product> findAllById(Iterable<String> productIds) {
+        List<Product> result = new ArrayList<>();
+        for (String id : productIds) {
+            findById(id).ifPresent(result::add);
+        }
+        return result;
+    }
+
+    @Override
+    public long count() {
+        return byId.size();
+    }
+
+    @Override
+    public void deleteById(String id) {
+        writeLock.lock();
+        try {
+            Product existing = byId.get(id);
+            if (existing != null) {
+                replace(existing, null);
+            }
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    @Override
+    public void delete(Product product) {
+        deleteById(product.getId());
+    }
+
+    @Override
+    public void deleteAllById(Iterable<? extends String> productIds) {
+        productIds.forEach(this::deleteById);
+    }
+
+    @Override
+    public void deleteAll(Iterable<? extends Product> products) {
+        products.forEach(this::delete);
+    }
+
+    @Override
+    public void deleteAll() {
+        writeLock.lock();
+        try {
+            ids.clear();
+            idByName.clear();
+            idsByCategory.clear();
+            priceIndexByCategory.clear();
+            priceIndex.clear();
+            stockIndex.clear();
+            byId.clear();
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    // PagingAndSortingRepository
+
+    @Override
+    public List<Product> findAll(Sort sort) {
+        List<Product> all = findAll();
+        all.sort(comparator(sort));
+        return all;
+    }
+
+    @Override
+    public Page<Product> findAll(Pageable pageable) {
+        List<Product> all = findAll(pageable.getSort());
+        if (pageable.isUnpaged()) {
+            return new PageImpl<>(all);
+        }
+        int from = (int) Math.min(pageable.getOffset(), all.size());
+        int to = Math.min(from + pageable.getPageSize(), all.size());
+        return new PageImpl<>(new ArrayList<>(all.subList(from, to)), pageable, all.size());
+    }
+
+    // Query by example is not supported by this engine
+
+    @Override
+    public <S extends Product> Optional<S> findOne(Example<S> example) {
+        throw queryByExampleUnsupported();
+    }
+
+    @Override
+    public <S extends Product> List<S> findAll(Example<S> example) {
+        throw queryByExampleUnsupported();
+    }
+
+    @Override
+    public <S extends Product> List<S> findAll(Example<S> example, Sort sort) {
+        throw queryByExampleUnsupported();
+    }
+
+    @Override
+    public <S extends Product> Page<S> findAll(Example<S> example, Pageable pageable) {
+        throw queryByExampleUnsupported();
+    }
+
+    @Override
+    public <S extends Product> long count(Example<S> example) {
+        throw queryByExampleUnsupported();
+    }
+
+    @Override
+    public <S extends Product> boolean exists(Example<S> example) {
+        throw queryByExampleUnsupported();
+    }
+
+    @Override
+    public <S extends Product, R> R findBy(Example<S> example,
+                                          Function<FluentQuery.FetchableFluentQuery<S>, R> queryFunction) {
+        throw queryByExampleUnsupported();
+    }
+
+    // Index walk that yields ids already in the requested order, or null if no index matches the sort
+    private Iterable<String> orderedCandidates(ProductFilter filter, ProductSort sort, ProductCursor after) {
+        switch (sort.getField()) {
+            case ID:
+                NavigableSet<String> source = filter.getCategory() != null ? postings(filter.getCategory()) : ids;
+                if (after != null) {
+                    source = sort.isAscending()
+                            ? source.tailSet(after.getId(), false)
+                            : source.headSet(after.getId(), false);
+                }
+                return sort.isAscending() ? source : source.descendingSet();
+            case PRICE:
+                NavigableSet<SortedIndex.Key<BigDecimal>> range = priceIndex(filter.getCategory())
+                        .keyRange(filter.getMinPrice(), true, filter.getMaxPrice(), true);
+                if (after != null) {
+                    SortedIndex.Key<BigDecimal> position =
+                            new SortedIndex.Key<>((BigDecimal) after.getValue(), after.getId());
+                    range = sort.isAscending() ? range.tailSet(position, false) : range.headSet(position, false);
+                }
+                return SortedIndex.ids(sort.isAscending() ? range : range.descendingSet());
+            default:
+                return null;
+        }
+    }
+
+    private Iterable<String> narrowestCandidates(ProductFilter filter) {
+        if (filter.getCategory() != null && (filter.getMinPrice() != null || filter.getMaxPrice() != null)) {
+            return priceIndex(filter.getCategory()).range(filter.getMinPrice(), true, filter.getMaxPrice(), true);
+        }
+        if (filter.getCategory() != null) {
+            return postings(filter.getCategory());
+        }
+        if (filter.getMinPrice() != null || filter.getMaxPrice() != null) {
+            return priceIndex.range(filter.getMinPrice(), true, filter.getMaxPrice(), true);
+        }
+        if (filter.getStockBelow() != null) {
+            return stockIndex.range(null, false, filter.getStockBelow(), false);
+        }
+        return ids;
+    }
+
+    private NavigableSet<String> postings(String category) {
+        NavigableSet<String> postings = category == null ? null : idsByCategory.get(category);
+        return postings == null ? Collections.emptyNavigableSet() : postings;
+    }
+
+    // The (category, price) index for a category, or the price index when no category is given
+    private SortedIndex<BigDecimal> priceIndex(String category) {
+        if (category == null) {
+            return priceIndex;
+        }
+        SortedIndex<BigDecimal> index = priceIndexByCategory.get(category);
+        return index == null ? SortedIndex.empty() : index;
+    }
+
+    private List<Product> load(Iterable<String> productIds) {
+        List<Product> result = new ArrayList<>();
+        for (String id : productIds) {
+            Product product = byId.get(id);
+            if (product != null) {
+                result.add(new Product(product));
+            }
+        }
+        return result;
+    }
+
+    private List<Product> scan(Predicate<Product> predicate) {
+        List<Product> result = new ArrayList<>();
+        for (String id : ids) {
+            Product product = byId.get(id);
+            if (product != null && predicate.test(product)) {
+                result.add(new Product(product));
+            }
+        }
+        return result;
+    }
+
+    // Conditional single-document update, applied to a copy and swapped in atomically with respect to writers
+    private Optional<Product> modify(String id, Predicate<Product> condition, Consumer<Product> change) {
+        return modify(id, condition, change, 1);
+    }
+
+    // As above, advancing the version by versionIncrement
+    private Optional<Product> modify(String id, Predicate<Product> condition, Consumer<Product> change,
+                                     long versionIncrement) {
+        writeLock.lock();
+        try {
+            Product existing = byId.get(id);
+            if (existing == null || !condition.test(existing)) {
+                return Optional.empty();
+            }
+            Product updated = new Product(existing);
+            change.accept(updated);
+            updated.setUpdatedAt(LocalDateTime.now());
+            updated.setVersion(version(existing) + versionIncrement);
+            replace(existing, updated);
+            return Optional.of(new Product(updated));
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    // Swap one stored version for another (either may be null) and bring the indexes up to date; holds writeLock
+    private void replace(Product existing, Product updated) {
+        if (updated != null) {
+            byId.put(updated.getId(), updated);
+            ids.add(updated.getId());
+        }
+        if (existing != null) {
+            if (updated == null || !equal(existing.getName(), updated.getName())) {
+                if (existing.getName() != null) {
+                    idByName.remove(existing.getName(), existing.getId());
+                }
+            }
+            boolean categoryChanged = updated == null || !equal(existing.getCategory(), updated.getCategory());
+            boolean priceChanged = updated == null || !equal(existing.getPrice(), updated.getPrice());
+            if (categoryChanged && existing.getCategory() != null) {
+                NavigableSet<String> postings = idsByCategory.get(existing.getCategory());
+                if (postings != null) {
+                    postings.remove(existing.getId());
+                }
+            }
+            if ((categoryChanged || priceChanged) && existing.getCategory() != null) {
+                SortedIndex<BigDecimal> categoryPrices = priceIndexByCategory.get(existing.getCategory());
+                if (categoryPrices != null) {
+                    categoryPrices.remove(existing.getPrice(), existing.getId());
+                }
+            }
+            if (priceChanged) {
+                priceIndex.remove(existing.getPrice(), existing.getId());
+            }
+            if (updated == null || !equal(existing.getStockQuantity(), updated.getStockQuantity())) {
+                stockIndex.remove(existing.getStockQuantity(), existing.getId());
+            }
+        }
+        if (updated != null) {
+            if (updated.getName() != null) {
+                idByName.put(updated.getName(), updated.getId());
+            }
+            if (updated.getCategory() != null) {
+                idsByCategory.computeIfAbsent(updated.getCategory(), key -> new ConcurrentSkipListSet<>())
+                        .add(updated.getId());
+                priceIndexByCategory.computeIfAbsent(updated.getCategory(), key -> new SortedIndex<>())
+                        .add(updated.getPrice(), updated.getId());
+            }
+            priceIndex.add(updated.getPrice(), updated.getId());
+            stockIndex.add(updated.getStockQuantity(), updated.getId());
+        } else {
+            ids.remove(existing.getId());
+            byId.remove(existing.getId());
+        }
+    }
+
+    // Message of the duplicate key error a unique index would raise for this insert, or null
+    private String insertConflict(Product product) {
+        if (byId.containsKey(product.getId())) {
+            return "E11000 duplicate key error index: _id_ dup key: { _id: \"" + product.getId() + "\" }";
+        }
+        if (product.getName() != null && idByName.containsKey(product.getName())) {
+            return duplicateName(product.getName()).getMessage();
+        }
+        return null;
+    }
+
+    // Stored products must never escape, so every field selection still yields a copy
+    private static Product copy(Product product, ProductFields fields) {
+        return fields.isAll() ? new Product(product) : fields.apply(product);
+    }
+
+    private static void initializeVersion(Product product) {
+        if (product.getVersion() == null) {
+            product.setVersion(0L);
+        }
+    }
+
+    private static long version(Product product) {
+        return product.getVersion() == null ? 0 : product.getVersion();
+    }
+
+    private static DuplicateKeyException duplicateName(String name) {
+        return new DuplicateKeyException("E11000 duplicate key error index: name dup key: { name: \"" + name + "\" }");
+    }
+
+    private static UnsupportedOperationException queryByExampleUnsupported() {
+        return new UnsupportedOperationException("Query by example is not supported by the in-memory repository");
+    }
+
+    private static boolean containsIgnoreCase(String text, String part) {
+        int length = part.length();
+        for (int i = 0; i + length <= text.length(); i++) {
+            if (text.regionMatches(true, i, part, 0, length)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean equal(Object a, Object b) {
+        return a == null ? b == null : a.equals(b);
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static Comparator<Product> comparator(Sort sort) {
+        Comparator<Product> result = (a, b) -> 0;
+        for (Sort.Order order : sort) {
+            Function<Product, Comparable> property = sortProperty(order.getProperty());
+            Comparator<Product> next = Comparator.comparing(property, Comparator.nullsFirst(Comparator.naturalOrder()));
+            result = result.thenComparing(order.isAscending() ? next : next.reversed());
+        }
+        return result;
+    }
+
+    @SuppressWarnings("rawtypes")
+    private static Function<Product, Comparable> sortProperty(String property) {
+        switch (property) {
+            case "id":
+                return Product::getId;
+            case "name":
+                return Product::getName;
+            case "description":
+                return Product::getDescription;
+            case "price":
+                return Product::getPrice;
+            case "category":
+                return Product::getCategory;
+            case "stockQuantity":
+                return Product::getStockQuantity;
+            case "createdAt":
+                return Product::getCreatedAt;
+            case "updatedAt":
+                return Product::getUpdatedAt;
+            default:
+                throw new IllegalArgumentException("Unsupported sort property: " + property);
+        }
+    }
+
+    /**
+     * Sorted index of (value, id) pairs. Missing values sort first, matching MongoDB, and range queries
+     * never return them.
+     */
+    static final class SortedIndex<V extends Comparable<V>> {
+
+        private static final SortedIndex<?> EMPTY = new SortedIndex<>();
+
+        private final ConcurrentSkipListSet<Key<V>> keys = new ConcurrentSkipListSet<>();
+
+        @SuppressWarnings("unchecked")
+        static <V extends Comparable<V>> SortedIndex<V> empty() {
+            return (SortedIndex<V>) EMPTY;
+        }
+
+        void add(V value, String id) {
+            keys.add(new Key<>(value, id));
+        }
+
+        void remove(V value, String id) {
+            keys.remove(new Key<>(value, id));
+        }
+
+        void clear() {
+            keys.clear();
+        }
+
+        // Ids whose value lies between the bounds in ascending (value, id) order; a null bound is open
+        Iterable<String> range(V from, boolean fromInclusive, V to, boolean toInclusive) {
+            return ids(keyRange(from, fromInclusive, to, toInclusive));
+        }
+
+        NavigableSet<Key<V>> keyRange(V from, boolean fromInclusive, V to, boolean toInclusive) {
+            NavigableSet<Key<V>> range = keys;
+            if (from != null) {
+                range = range.tailSet(new Key<>(from, fromInclusive ? MIN_ID : MAX_ID), true);
+            } else if (to != null) {
+                // Comparison operators do not match missing values
+                range = range.tailSet(new Key<>(null, MAX_ID), false);
+            }
+            if (to != null) {
+                range = range.headSet(new Key<>(to, toInclusive ? MAX_ID : MIN_ID), true);
+            }
+            return range;
+        }
+
+        // Iterate directly: a spliterator over a skip list view would count the whole range up front
+        static <V extends Comparable<V>> Iterable<String> ids(Iterable<Key<V>> keys) {
+            return () -> {
+                Iterator<Key<V>> iterator = keys.iterator();
+                return new Iterator<String>() {
+                    @Override
+                    public boolean hasNext() {
+                        return iterator.hasNext();
+                    }
+
+                    @Override
+                    public String next() {
+                        return iterator.next().id;
+                    }
+                };
+            };
+        }
+
+        static final class Key<T extends Comparable<T>> implements Comparable<Key<T>> {
+
+            private final T value;
+
+            private final String id;
+
+            Key(T value, String id) {
+                this.value = value;
+                this.id = id;
+            }
+
+            @Override
+            public int compareTo(Key<T> other) {
+                int result;
+                if (value == null || other.value == null) {
+                    result = value == null ? (other.value == null ? 0 : -1) : 1;
+                } else {
+                    result = value.compareTo(other.value);
+                }
+                return result != 0 ? result : id.compareTo(other.id);
+            }
+
+            @Override
+            @SuppressWarnings("unchecked")
+            public boolean equals(Object o) {
+                return o instanceof Key && compareTo((Key<T>) o) == 0;
+            }
+
+            @Override
+            public int hashCode() {
+                return id.hashCode();
+            }
+        }
+    }
+}
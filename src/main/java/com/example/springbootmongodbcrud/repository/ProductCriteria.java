@@ -0,0 +1,131 @@
+package com.example.springbootmongodbcrud.repository;
+
+import com.example.springbootmongodbcrud.model.Product;
+import com.example.springbootmongodbcrud.model.ProductCursor;
+import com.example.springbootmongodbcrud.model.ProductFields;
+import com.example.springbootmongodbcrud.model.ProductFilter;
+import com.example.springbootmongodbcrud.model.ProductSort;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.aggregation.ComparisonOperators;
+import org.springframework.data.mongodb.core.aggregation.ConditionalOperators;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Pattern;
+
+/**
+ * Translates {@link ProductFilter}, {@link ProductSort} and {@link ProductCursor} into Mongo criteria.
+ */
+final class ProductCriteria {
+
+    private static final String ID = "id";
+
+    static final String VERSION = "version";
+
+    private ProductCriteria() {
+    }
+
+    // Combine the filter predicates with the keyset position into a single criteria
+    static Criteria matching(ProductFilter filter, ProductSort sort, ProductCursor after) {
+        List<Criteria> parts = filter(filter);
+        if (after != null) {
+            parts.add(after(sort, after));
+        }
+        if (parts.isEmpty()) {
+            return new Criteria();
+        }
+        return parts.size() == 1 ? parts.get(0) : new Criteria().andOperator(parts);
+    }
+
+    // The product with this id while its stored version is still expectedVersion; documents written
+    // before versioning have no version field and count as version 0
+    static Criteria idAndVersion(String id, long expectedVersion) {
+        Criteria version = expectedVersion == 0
+                ? new Criteria().orOperator(Criteria.where(VERSION).is(0L), Criteria.where(VERSION).exists(false))
+                : Criteria.where(VERSION).is(expectedVersion);
+        return new Criteria().andOperator(Criteria.where(ID).is(id), version);
+    }
+
+    // Stock below the product's own reorder threshold, or below defaultThreshold when it has none. Compares
+    // two fields of the same document, so it cannot use an index
+    static Criteria belowReorderThreshold(int defaultThreshold) {
+        return Criteria.expr(ComparisonOperators
+                .valueOf(ConditionalOperators.ifNull("stockQuantity").then(0))
+                .lessThan(ConditionalOperators.ifNull("reorderThreshold").then(defaultThreshold)));
+    }
+
+    // Overwrite the client-editable fields and bump the version
+    static Update replacement(Product product) {
+        return new Update()
+                .set("name", product.getName())
+                .set("description", product.getDescription())
+                .set("price", product.getPrice())
+                .set("category", product.getCategory())
+                .set("stockQuantity", product.getStockQuantity())
+                .set("reorderThreshold", product.getReorderThreshold())
+                .set("updatedAt", LocalDateTime.now())
+                .inc(VERSION, 1);
+    }
+
+    static List<Criteria> filter(ProductFilter filter) {
+        List<Criteria> parts = new ArrayList<>();
+        if (filter.getCategory() != null) {
+            parts.add(Criteria.where("category").is(filter.getCategory()));
+        }
+        if (filter.getMinPrice() != null || filter.getMaxPrice() != null) {
+            Criteria price = Criteria.where("price");
+            if (filter.getMinPrice() != null) {
+                price = price.gte(filter.getMinPrice());
+            }
+            if (filter.getMaxPrice() != null) {
+                price = price.lte(filter.getMaxPrice());
+            }
+            parts.add(price);
+        }
+        if (filter.getStockBelow() != null) {
+            parts.add(Criteria.where("stockQuantity").lt(filter.getStockBelow()));
+        }
+        if (filter.getNameContains() != null) {
+            parts.add(Criteria.where("name").regex(Pattern.quote(filter.getNameContains()), "i"));
+        }
+        return parts;
+    }
+
+    // Rows strictly after the cursor in (value, id) order; missing values sort first ascending, last descending
+    static Criteria after(ProductSort sort, ProductCursor cursor) {
+        boolean asc = sort.isAscending();
+        Criteria laterId = asc ? Criteria.where(ID).gt(cursor.getId()) : Criteria.where(ID).lt(cursor.getId());
+        if (sort.isById()) {
+            return laterId;
+        }
+        String field = sort.getField().getProperty();
+        Object value = cursor.getValue();
+        Criteria sameValue = new Criteria().andOperator(Criteria.where(field).is(value), laterId);
+        if (value == null) {
+            return asc ? new Criteria().orOperator(sameValue, Criteria.where(field).ne(null)) : sameValue;
+        }
+        Criteria beyond = asc ? Criteria.where(field).gt(value) : Criteria.where(field).lt(value);
+        return asc
+                ? new Criteria().orOperator(beyond, sameValue)
+                : new Criteria().orOperator(beyond, sameValue, Criteria.where(field).is(null));
+    }
+
+    // Read only the selected fields, so the server never sends (and the driver never decodes) the rest
+    static void project(Query query, ProductFields fields) {
+        if (!fields.isAll()) {
+            query.fields().include(fields.getNames().toArray(new String[0]));
+        }
+    }
+
+    static Sort order(ProductSort sort) {
+        Sort.Direction direction = sort.isAscending() ? Sort.Direction.ASC : Sort.Direction.DESC;
+        if (sort.isById()) {
+            return Sort.by(direction, ID);
+        }
+        return Sort.by(direction, sort.getField().getProperty()).and(Sort.by(direction, ID));
+    }
+}
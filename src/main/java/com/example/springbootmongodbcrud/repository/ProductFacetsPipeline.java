@@ -0,0 +1,112 @@
+package com.example.springbootmongodbcrud.repository;
+
+import com.example.springbootmongodbcrud.model.Product;
+import com.example.springbootmongodbcrud.model.ProductFacets;
+import com.example.springbootmongodbcrud.model.ProductFacetsQuery;
+import com.example.springbootmongodbcrud.model.ProductSort;
+import org.bson.Document;
+import org.bson.types.Decimal128;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.TypedAggregation;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Builds the single aggregation behind the facets endpoint and reads its result. One {@code $match} on the
+ * filter feeds a {@code $facet} whose branches count categories, price buckets and stock availability, so
+ * the matching documents are scanned once.
+ */
+final class ProductFacetsPipeline {
+
+    // $bucket id for prices that are missing or below the first boundary
+    private static final String UNPRICED = "unpriced";
+
+    private ProductFacetsPipeline() {
+    }
+
+    static TypedAggregation<Product> aggregation(ProductFacetsQuery query) {
+        return Aggregation.newAggregation(Product.class,
+                Aggregation.match(ProductCriteria.matching(query.getFilter(), ProductSort.DEFAULT, null)),
+                Aggregation.stage(new Document("$facet", new Document()
+                        .append("categories", List.of(new Document("$sortByCount", "$category")))
+                        .append("prices", List.of(priceBuckets(query)))
+                        .append("stock", List.of(stockCounts(query))))));
+    }
+
+    static ProductFacets read(ProductFacetsQuery query, Document result) {
+        Map<String, Long> categories = new LinkedHashMap<>();
+        for (Document category : result.getList("categories", Document.class)) {
+            if (category.get("_id") instanceof String) {
+                categories.put(category.getString("_id"), count(category, "count"));
+            }
+        }
+
+        List<BigDecimal> boundaries = query.getPriceBoundaries();
+        long[] buckets = new long[boundaries.size()];
+        long unpriced = 0;
+        for (Document bucket : result.getList("prices", Document.class)) {
+            Object id = bucket.get("_id");
+            if (UNPRICED.equals(id)) {
+                unpriced = count(bucket, "count");
+            } else {
+                int index = query.bucketOf(decimal(id));
+                if (index >= 0) {
+                    buckets[index] = count(bucket, "count");
+                }
+            }
+        }
+
+        List<Document> stock = result.getList("stock", Document.class);
+        ProductFacets.StockCounts stockCounts = stock.isEmpty()
+                ? new ProductFacets.StockCounts(0, 0, 0)
+                : new ProductFacets.StockCounts(count(stock.get(0), "inStock"), count(stock.get(0), "lowStock"),
+                        count(stock.get(0), "outOfStock"));
+        return ProductFacets.of(query, categories, buckets, unpriced, stockCounts);
+    }
+
+    // Buckets are [boundary, next boundary); an infinite last boundary leaves the top bucket open
+    private static Document priceBuckets(ProductFacetsQuery query) {
+        List<Object> boundaries = new ArrayList<>();
+        for (BigDecimal boundary : query.getPriceBoundaries()) {
+            boundaries.add(new Decimal128(boundary));
+        }
+        boundaries.add(Decimal128.POSITIVE_INFINITY);
+        return new Document("$bucket", new Document("groupBy", "$price")
+                .append("boundaries", boundaries)
+                .append("default", UNPRICED)
+                .append("output", new Document("count", new Document("$sum", 1))));
+    }
+
+    // A missing stock quantity counts as out of stock, matching the in-memory repository
+    private static Document stockCounts(ProductFacetsQuery query) {
+        int threshold = query.getLowStockThreshold();
+        Object stock = "$stockQuantity";
+        return new Document("$group", new Document("_id", null)
+                .append("outOfStock", countIf(new Document("$lte", List.of(
+                        new Document("$ifNull", List.of(stock, 0)), 0))))
+                .append("lowStock", countIf(new Document("$and", List.of(
+                        new Document("$gt", List.of(stock, 0)),
+                        new Document("$lt", List.of(stock, threshold))))))
+                .append("inStock", countIf(new Document("$gte", List.of(stock, threshold)))));
+    }
+
+    private static Document countIf(Document condition) {
+        return new Document("$sum", new Document("$cond", List.of(condition, 1, 0)));
+    }
+
+    private static long count(Document document, String key) {
+        Object value = document.get(key);
+        return value instanceof Number ? ((Number) value).longValue() : 0;
+    }
+
+    private static BigDecimal decimal(Object value) {
+        if (value instanceof Decimal128) {
+            return ((Decimal128) value).bigDecimalValue();
+        }
+        return value instanceof Number ? new BigDecimal(value.toString()) : null;
+    }
+}
@@ -0,0 +1,68 @@
+package com.example.springbootmongodbcrud.repository;
+
+import com.mongodb.ReadPreference;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Where each kind of heavy read is sent in a replica set. Every kind reads from the primary unless configured
+ * otherwise; setting one to {@code secondaryPreferred} opts list pages (including category, price-range and
+ * search queries), facet counts or the export into reading from secondaries that lag the primary by at most
+ * {@code app.mongodb.read-preference.max-staleness}, so a client that lists right after writing may not see
+ * its write until the secondary catches up.
+ *
+ * <p>Point reads (by id, by name, batch get) and the reads behind conditional updates are not routed here and
+ * stay on the primary, so a client always reads its own acknowledged writes back.
+ */
+@Component
+public class ProductReadPreferences {
+
+    // The smallest bound the server accepts; it must also exceed the heartbeat plus idle write periods
+    static final Duration MIN_MAX_STALENESS = Duration.ofSeconds(90);
+
+    private final ReadPreference list;
+
+    private final ReadPreference facets;
+
+    private final ReadPreference export;
+
+    public ProductReadPreferences(
+            @Value("${app.mongodb.read-preference.list:primary}") String list,
+            @Value("${app.mongodb.read-preference.facets:primary}") String facets,
+            @Value("${app.mongodb.read-preference.export:primary}") String export,
+            @Value("${app.mongodb.read-preference.max-staleness:90s}") Duration maxStaleness) {
+        if (maxStaleness.compareTo(MIN_MAX_STALENESS) < 0) {
+            throw new IllegalArgumentException("app.mongodb.read-preference.max-staleness must be at least "
+                    + MIN_MAX_STALENESS.toSeconds() + "s");
+        }
+        this.list = readPreference(list, maxStaleness);
+        this.facets = readPreference(facets, maxStaleness);
+        this.export = readPreference(export, maxStaleness);
+    }
+
+    // A mode name as in the connection string (primary, primaryPreferred, secondary, secondaryPreferred,
+    // nearest); the staleness bound applies to every mode but primary, which never reads stale data
+    static ReadPreference readPreference(String mode, Duration maxStaleness) {
+        if (ReadPreference.primary().getName().equalsIgnoreCase(mode)) {
+            return ReadPreference.primary();
+        }
+        return ReadPreference.valueOf(mode, List.of(), maxStaleness.toSeconds(), TimeUnit.SECONDS);
+    }
+
+    // Getters
+    public ReadPreference getList() {
+        return list;
+    }
+
+    public ReadPreference getFacets() {
+        return facets;
+    }
+
+    public ReadPreference getExport() {
+        return export;
+    }
+}
@@ -0,0 +1,62 @@
+package com.example.springbootmongodbcrud.repository;
+
+import com.example.springbootmongodbcrud.model.Product;
+import com.example.springbootmongodbcrud.model.ProductCursor;
+import com.example.springbootmongodbcrud.model.ProductFacets;
+import com.example.springbootmongodbcrud.model.ProductFacetsQuery;
+import com.example.springbootmongodbcrud.model.ProductFields;
+import com.example.springbootmongodbcrud.model.ProductFilter;
+import com.example.springbootmongodbcrud.model.ProductSort;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+/**
+ * Repository operations that cannot be expressed as derived queries.
+ */
+public interface ProductRepositoryCustom {
+
+    // Find up to limit products matching the filter, ordered by sort and starting after the cursor
+    default List<Product> findPage(ProductFilter filter, ProductSort sort, ProductCursor after, int limit) {
+        return findPage(filter, sort, after, limit, ProductFields.ALL);
+    }
+
+    // As above, reading only the given fields; the others are left null
+    List<Product> findPage(ProductFilter filter, ProductSort sort, ProductCursor after, int limit,
+                           ProductFields fields);
+
+    // Stream every product in _id order from a server-side cursor; the caller must close the stream
+    default Stream<Product> streamAll() {
+        return streamAll(ProductFields.ALL);
+    }
+
+    // As above, reading only the given fields; the others are left null
+    Stream<Product> streamAll(ProductFields fields);
+
+    // Insert all products in one unordered bulk write; returns the documents the server rejected
+    List<BulkInsertFailure> insertUnordered(List<Product> products);
+
+    // Atomically set the stock quantity and return the updated product
+    Optional<Product> setStock(String id, int quantity);
+
+    // Set the stock of many products in one unordered bulk write, advancing each version by the number of
+    // updates its write coalesces; ids that no longer exist are skipped. Returns the number of products matched.
+    int setStocks(Map<String, StockWrite> writes);
+
+    // Atomically add delta to the stock and return the updated product. It only applies while the stock is
+    // set and the result stays within 0..Integer.MAX_VALUE; otherwise nothing is written and empty is returned.
+    Optional<Product> adjustStock(String id, int delta);
+
+    // Replace the editable fields in one write that only applies while the stored version equals
+    // expectedVersion; returns the updated product, or empty if the id or version did not match
+    Optional<Product> updateIfVersion(Product product, long expectedVersion);
+
+    // Every product whose stock is below its reorder threshold, or below defaultThreshold when it has none;
+    // a missing stock counts as zero
+    List<Product> findBelowReorderThreshold(int defaultThreshold);
+
+    // Category, price-bucket and stock-availability counts over the products matching the query's filter
+    ProductFacets facets(ProductFacetsQuery query);
+}
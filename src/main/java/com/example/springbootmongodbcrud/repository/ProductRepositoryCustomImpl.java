@@ -0,0 +1,153 @@
+package com.example.springbootmongodbcrud.repository;
+
+import com.example.springbootmongodbcrud.model.Product;
+import com.example.springbootmongodbcrud.model.ProductCursor;
+import com.example.springbootmongodbcrud.model.ProductFacets;
+import com.example.springbootmongodbcrud.model.ProductFacetsQuery;
+import com.example.springbootmongodbcrud.model.ProductFields;
+import com.example.springbootmongodbcrud.model.ProductFilter;
+import com.example.springbootmongodbcrud.model.ProductSort;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.AggregationOptions;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+public class ProductRepositoryCustomImpl implements ProductRepositoryCustom {
+
+    private static final int DUPLICATE_KEY_ERROR = 11000;
+
+    // Documents fetched per getMore while streaming
+    private static final int STREAM_BATCH_SIZE = 1000;
+
+    private final MongoTemplate mongoTemplate;
+
+    private final ProductReadPreferences readPreferences;
+
+    public ProductRepositoryCustomImpl(MongoTemplate mongoTemplate, ProductReadPreferences readPreferences) {
+        this.mongoTemplate = mongoTemplate;
+        this.readPreferences = readPreferences;
+    }
+
+    @Override
+    public List<Product> findPage(ProductFilter filter, ProductSort sort, ProductCursor after, int limit,
+                                  ProductFields fields) {
+        Query query = new Query(ProductCriteria.matching(filter, sort, after))
+                .with(ProductCriteria.order(sort))
+                .limit(limit)
+                .withReadPreference(readPreferences.getList());
+        ProductCriteria.project(query, fields);
+        return mongoTemplate.find(query, Product.class);
+    }
+
+    @Override
+    public Stream<Product> streamAll(ProductFields fields) {
+        Query query = new Query()
+                .with(ProductCriteria.order(ProductSort.DEFAULT))
+                .cursorBatchSize(STREAM_BATCH_SIZE)
+                .withReadPreference(readPreferences.getExport());
+        ProductCriteria.project(query, fields);
+        return mongoTemplate.stream(query, Product.class);
+    }
+
+    @Override
+    public List<BulkInsertFailure> insertUnordered(List<Product> products) {
+        if (products.isEmpty()) {
+            return List.of();
+        }
+        // Bulk inserts neither write generated ids back to the entities nor initialize versions,
+        // so assign both up front
+        for (Product product : products) {
+            if (product.getId() == null) {
+                product.setId(new ObjectId().toHexString());
+            }
+            if (product.getVersion() == null) {
+                product.setVersion(0L);
+            }
+        }
+        try {
+            mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Product.class)
+                    .insert(products)
+                    .execute();
+            return List.of();
+        } catch (BulkOperationException e) {
+            return e.getErrors().stream()
+                    .map(error -> new BulkInsertFailure(error.getIndex(), error.getCode() == DUPLICATE_KEY_ERROR,
+                            error.getMessage()))
+                    .toList();
+        }
+    }
+
+    @Override
+    public Optional<Product> setStock(String id, int quantity) {
+        Update update = new Update()
+                .set("stockQuantity", quantity)
+                .set("updatedAt", LocalDateTime.now())
+                .inc(ProductCriteria.VERSION, 1);
+        return modify(new Query(Criteria.where("id").is(id)), update);
+    }
+
+    @Override
+    public int setStocks(Map<String, StockWrite> writes) {
+        if (writes.isEmpty()) {
+            return 0;
+        }
+        LocalDateTime now = LocalDateTime.now();
+        BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Product.class);
+        writes.forEach((id, write) -> bulk.updateOne(new Query(Criteria.where("id").is(id)), new Update()
+                .set("stockQuantity", write.getQuantity())
+                .set("updatedAt", now)
+                .inc(ProductCriteria.VERSION, write.getUpdates())));
+        return bulk.execute().getMatchedCount();
+    }
+
+    @Override
+    public Optional<Product> adjustStock(String id, int delta) {
+        // Keeps the stock within 0..Integer.MAX_VALUE; a missing or null stock matches neither bound
+        Criteria criteria = delta < 0
+                ? Criteria.where("id").is(id).and("stockQuantity").gte(-(long) delta)
+                : Criteria.where("id").is(id).and("stockQuantity").lte(Integer.MAX_VALUE - delta);
+        Update update = new Update()
+                .inc("stockQuantity", delta)
+                .set("updatedAt", LocalDateTime.now())
+                .inc(ProductCriteria.VERSION, 1);
+        return modify(new Query(criteria), update);
+    }
+
+    @Override
+    public Optional<Product> updateIfVersion(Product product, long expectedVersion) {
+        return modify(new Query(ProductCriteria.idAndVersion(product.getId(), expectedVersion)),
+                ProductCriteria.replacement(product));
+    }
+
+    @Override
+    public List<Product> findBelowReorderThreshold(int defaultThreshold) {
+        return mongoTemplate.find(new Query(ProductCriteria.belowReorderThreshold(defaultThreshold)), Product.class);
+    }
+
+    @Override
+    public ProductFacets facets(ProductFacetsQuery query) {
+        AggregationOptions options = AggregationOptions.builder().readPreference(readPreferences.getFacets()).build();
+        Document result = mongoTemplate.aggregate(ProductFacetsPipeline.aggregation(query).withOptions(options),
+                Document.class).getUniqueMappedResult();
+        return ProductFacetsPipeline.read(query, result);
+    }
+
+    // Single findAndModify round trip returning the post-update document
+    private Optional<Product> modify(Query query, Update update) {
+        Product updated = mongoTemplate.findAndModify(query, update,
+                FindAndModifyOptions.options().returnNew(true), Product.class);
+        return Optional.ofNullable(updated);
+    }
+}
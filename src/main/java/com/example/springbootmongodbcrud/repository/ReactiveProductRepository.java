@@ -0,0 +1,22 @@
+package com.example.springbootmongodbcrud.repository;
+
+import com.example.springbootmongodbcrud.model.Product;
+import org.springframework.context.annotation.Profile;
+import org.springframework.data.mongodb.repository.ReactiveMongoRepository;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Mono;
+
+/**
+ * Non-blocking counterpart of {@link ProductRepository}, used when the {@code reactive} profile is active.
+ */
+@Repository
+@Profile("reactive")
+public interface ReactiveProductRepository
+        extends ReactiveMongoRepository<Product, String>, ReactiveProductRepositoryCustom {
+    
+    // Find by name (exact match)
+    Mono<Product> findByName(String name);
+    
+    // Check if product exists by name
+    Mono<Boolean> existsByName(String name);
+}
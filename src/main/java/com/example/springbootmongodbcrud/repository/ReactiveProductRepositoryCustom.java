@@ -0,0 +1,53 @@
+package com.example.springbootmongodbcrud.repository;
+
+import com.example.springbootmongodbcrud.model.Product;
+import com.example.springbootmongodbcrud.model.ProductCursor;
+import com.example.springbootmongodbcrud.model.ProductFacets;
+import com.example.springbootmongodbcrud.model.ProductFacetsQuery;
+import com.example.springbootmongodbcrud.model.ProductFields;
+import com.example.springbootmongodbcrud.model.ProductFilter;
+import com.example.springbootmongodbcrud.model.ProductSort;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+
+/**
+ * Reactive versions of the {@link ProductRepositoryCustom} operations, built on the same criteria.
+ */
+public interface ReactiveProductRepositoryCustom {
+
+    // Find up to limit products matching the filter, ordered by sort and starting after the cursor
+    default Flux<Product> findPage(ProductFilter filter, ProductSort sort, ProductCursor after, int limit) {
+        return findPage(filter, sort, after, limit, ProductFields.ALL);
+    }
+
+    // As above, reading only the given fields; the others are left null
+    Flux<Product> findPage(ProductFilter filter, ProductSort sort, ProductCursor after, int limit,
+                           ProductFields fields);
+
+    // Emit every product in _id order; documents are requested from the cursor as the subscriber consumes them
+    default Flux<Product> streamAll() {
+        return streamAll(ProductFields.ALL);
+    }
+
+    // As above, reading only the given fields; the others are left null
+    Flux<Product> streamAll(ProductFields fields);
+
+    // Insert all products in one unordered bulk write; emits the documents the server rejected
+    Mono<List<BulkInsertFailure>> insertUnordered(List<Product> products);
+
+    // Atomically set the stock quantity and emit the updated product
+    Mono<Product> setStock(String id, int quantity);
+
+    // Atomically add delta to the stock and emit the updated product. A negative delta only
+    // applies while at least -delta units remain; otherwise nothing is written and the result is empty.
+    Mono<Product> adjustStock(String id, int delta);
+
+    // Replace the editable fields in one write that only applies while the stored version equals
+    // expectedVersion; emits the updated product, or completes empty if the id or version did not match
+    Mono<Product> updateIfVersion(Product product, long expectedVersion);
+
+    // Category, price-bucket and stock-availability counts over the products matching the query's filter
+    Mono<ProductFacets> facets(ProductFacetsQuery query);
+}
@@ -0,0 +1,141 @@
+package com.example.springbootmongodbcrud.repository;
+
+import com.example.springbootmongodbcrud.model.Product;
+import com.example.springbootmongodbcrud.model.ProductCursor;
+import com.example.springbootmongodbcrud.model.ProductFacets;
+import com.example.springbootmongodbcrud.model.ProductFacetsQuery;
+import com.example.springbootmongodbcrud.model.ProductFields;
+import com.example.springbootmongodbcrud.model.ProductFilter;
+import com.example.springbootmongodbcrud.model.ProductSort;
+import com.mongodb.MongoBulkWriteException;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.AggregationOptions;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+public class ReactiveProductRepositoryCustomImpl implements ReactiveProductRepositoryCustom {
+
+    private static final int DUPLICATE_KEY_ERROR = 11000;
+
+    // Documents fetched per getMore while streaming
+    private static final int STREAM_BATCH_SIZE = 1000;
+
+    private final ReactiveMongoTemplate mongoTemplate;
+
+    private final ProductReadPreferences readPreferences;
+
+    public ReactiveProductRepositoryCustomImpl(ReactiveMongoTemplate mongoTemplate,
+                                               ProductReadPreferences readPreferences) {
+        this.mongoTemplate = mongoTemplate;
+        this.readPreferences = readPreferences;
+    }
+
+    @Override
+    public Flux<Product> findPage(ProductFilter filter, ProductSort sort, ProductCursor after, int limit,
+                                  ProductFields fields) {
+        Query query = new Query(ProductCriteria.matching(filter, sort, after))
+                .with(ProductCriteria.order(sort))
+                .limit(limit)
+                .withReadPreference(readPreferences.getList());
+        ProductCriteria.project(query, fields);
+        return mongoTemplate.find(query, Product.class);
+    }
+
+    @Override
+    public Flux<Product> streamAll(ProductFields fields) {
+        Query query = new Query()
+                .with(ProductCriteria.order(ProductSort.DEFAULT))
+                .cursorBatchSize(STREAM_BATCH_SIZE)
+                .withReadPreference(readPreferences.getExport());
+        ProductCriteria.project(query, fields);
+        return mongoTemplate.find(query, Product.class);
+    }
+
+    @Override
+    public Mono<List<BulkInsertFailure>> insertUnordered(List<Product> products) {
+        if (products.isEmpty()) {
+            return Mono.just(List.of());
+        }
+        // Bulk inserts neither write generated ids back to the entities nor initialize versions,
+        // so assign both up front
+        for (Product product : products) {
+            if (product.getId() == null) {
+                product.setId(new ObjectId().toHexString());
+            }
+            if (product.getVersion() == null) {
+                product.setVersion(0L);
+            }
+        }
+        return mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Product.class)
+                .insert(products)
+                .execute()
+                .map(result -> List.<BulkInsertFailure>of())
+                .onErrorResume(e -> bulkWriteException(e) != null, e -> Mono.just(
+                        bulkWriteException(e).getWriteErrors().stream()
+                                .map(error -> new BulkInsertFailure(error.getIndex(),
+                                        error.getCode() == DUPLICATE_KEY_ERROR, error.getMessage()))
+                                .toList()));
+    }
+
+    @Override
+    public Mono<Product> setStock(String id, int quantity) {
+        Update update = new Update()
+                .set("stockQuantity", quantity)
+                .set("updatedAt", LocalDateTime.now())
+                .inc(ProductCriteria.VERSION, 1);
+        return modify(new Query(Criteria.where("id").is(id)), update);
+    }
+
+    @Override
+    public Mono<Product> adjustStock(String id, int delta) {
+        // Keeps the stock within 0..Integer.MAX_VALUE; a missing or null stock matches neither bound
+        Criteria criteria = delta < 0
+                ? Criteria.where("id").is(id).and("stockQuantity").gte(-(long) delta)
+                : Criteria.where("id").is(id).and("stockQuantity").lte(Integer.MAX_VALUE - delta);
+        Update update = new Update()
+                .inc("stockQuantity", delta)
+                .set("updatedAt", LocalDateTime.now())
+                .inc(ProductCriteria.VERSION, 1);
+        return modify(new Query(criteria), update);
+    }
+
+    @Override
+    public Mono<Product> updateIfVersion(Product product, long expectedVersion) {
+        return modify(new Query(ProductCriteria.idAndVersion(product.getId(), expectedVersion)),
+                ProductCriteria.replacement(product));
+    }
+
+    @Override
+    public Mono<ProductFacets> facets(ProductFacetsQuery query) {
+        AggregationOptions options = AggregationOptions.builder().readPreference(readPreferences.getFacets()).build();
+        return mongoTemplate.aggregate(ProductFacetsPipeline.aggregation(query).withOptions(options), Document.class)
+                .next()
+                .map(result -> ProductFacetsPipeline.read(query, result));
+    }
+
+    // Single findAndModify round trip emitting the post-update document
+    private Mono<Product> modify(Query query, Update update) {
+        return mongoTemplate.findAndModify(query, update, FindAndModifyOptions.options().returnNew(true),
+                Product.class);
+    }
+
+    // The reactive template translates driver errors, so the per-document failures sit in the cause chain
+    private static MongoBulkWriteException bulkWriteException(Throwable error) {
+        for (Throwable current = error; current != null; current = current.getCause()) {
+            if (current instanceof MongoBulkWriteException) {
+                return (MongoBulkWriteException) current;
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,54 @@
+package com.example.springbootmongodbcrud.repository;
+
+import java.util.Objects;
+
+/**
+ * The net effect of one or more stock updates to a product coalesced into a single write: the latest
+ * quantity, and how many updates it stands for, which is how far the product's version advances.
+ */
+public class StockWrite {
+
+    private final int quantity;
+
+    private final int updates;
+
+    public StockWrite(int quantity, int updates) {
+        this.quantity = quantity;
+        this.updates = updates;
+    }
+
+    public int getQuantity() {
+        return quantity;
+    }
+
+    public int getUpdates() {
+        return updates;
+    }
+
+    // A later update to the same product: its quantity wins and the counts add up
+    public StockWrite then(StockWrite later) {
+        return new StockWrite(later.quantity, updates + later.updates);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof StockWrite)) {
+            return false;
+        }
+        StockWrite that = (StockWrite) o;
+        return quantity == that.quantity && updates == that.updates;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(quantity, updates);
+    }
+
+    @Override
+    public String toString() {
+        return "StockWrite{quantity=" + quantity + ", updates=" + updates + "}";
+    }
+}
@@ -0,0 +1,111 @@
+package com.example.springbootmongodbcrud.service;
+
+import com.example.springbootmongodbcrud.exception.ProductValidationException;
+import com.example.springbootmongodbcrud.model.BulkCreateResult;
+import com.example.springbootmongodbcrud.model.Product;
+import com.example.springbootmongodbcrud.repository.BulkInsertFailure;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Validation and result bookkeeping for a bulk create, shared by the blocking and reactive services.
+ * {@link #prepare} validates every item in one pass; the caller inserts {@link #accepted()} and hands
+ * the server's rejections to {@link #complete} to get per-item statuses in request order.
+ */
+final class BulkCreatePlan {
+
+    // Largest number of products accepted by one bulk create
+    static final int MAX_BULK_SIZE = 10_000;
+
+    private final BulkCreateResult.Item[] items;
+
+    private final List<Product> accepted;
+
+    private final int[] acceptedIndex;
+
+    private final List<Product> created = new ArrayList<>();
+
+    private BulkCreatePlan(int size) {
+        this.items = new BulkCreateResult.Item[size];
+        this.accepted = new ArrayList<>(size);
+        this.acceptedIndex = new int[size];
+    }
+
+    static BulkCreatePlan prepare(List<Product> products, Validator validator) {
+        if (products.size() > MAX_BULK_SIZE) {
+            throw new ProductValidationException("A bulk request may contain at most " + MAX_BULK_SIZE + " products");
+        }
+        BulkCreatePlan plan = new BulkCreatePlan(products.size());
+        LocalDateTime now = LocalDateTime.now();
+        for (int i = 0; i < products.size(); i++) {
+            Product product = products.get(i);
+            String violation = product == null ? "Product is required" : describeViolations(product, validator);
+            if (violation != null) {
+                plan.items[i] = new BulkCreateResult.Item(i, BulkCreateResult.Status.INVALID, null, violation);
+                continue;
+            }
+            // Ids and versions are assigned by the insert: a client-supplied id could collide with an existing
+            // product and be reported as a name conflict, and a version would not start at zero
+            product.setId(null);
+            product.setVersion(null);
+            product.setCreatedAt(now);
+            product.setUpdatedAt(now);
+            plan.acceptedIndex[plan.accepted.size()] = i;
+            plan.accepted.add(product);
+        }
+        return plan;
+    }
+
+    // Products that passed validation, in request order
+    List<Product> accepted() {
+        return accepted;
+    }
+
+    // Merge the insert failures (indexed within accepted()) into per-item results
+    BulkCreateResult complete(List<BulkInsertFailure> insertFailures) {
+        Map<Integer, BulkInsertFailure> failures = new HashMap<>();
+        for (BulkInsertFailure failure : insertFailures) {
+            failures.put(failure.getIndex(), failure);
+        }
+        for (int j = 0; j < accepted.size(); j++) {
+            int i = acceptedIndex[j];
+            Product product = accepted.get(j);
+            BulkInsertFailure failure = failures.get(j);
+            if (failure == null) {
+                created.add(product);
+                items[i] = new BulkCreateResult.Item(i, BulkCreateResult.Status.CREATED, product.getId(), null);
+            } else if (failure.isDuplicateKey()) {
+                items[i] = new BulkCreateResult.Item(i, BulkCreateResult.Status.CONFLICT, null,
+                        "Product with name '" + product.getName() + "' already exists");
+            } else {
+                items[i] = new BulkCreateResult.Item(i, BulkCreateResult.Status.FAILED, null, failure.getMessage());
+            }
+        }
+        return new BulkCreateResult(Arrays.asList(items));
+    }
+
+    // Products the insert stored; filled in by complete()
+    List<Product> created() {
+        return created;
+    }
+
+    private static String describeViolations(Product product, Validator validator) {
+        Set<ConstraintViolation<Product>> violations = validator.validate(product);
+        if (violations.isEmpty()) {
+            return null;
+        }
+        return violations.stream()
+                .map(violation -> violation.getPropertyPath() + ": " + violation.getMessage())
+                .sorted()
+                .collect(Collectors.joining("; "));
+    }
+}
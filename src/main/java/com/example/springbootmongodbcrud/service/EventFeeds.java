@@ -0,0 +1,41 @@
+package com.example.springbootmongodbcrud.service;
+
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Sinks;
+import reactor.util.concurrent.Queues;
+
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * Subscription plumbing shared by the event feeds ({@link LowStockTracker}, {@link ProductEventLog}).
+ */
+final class EventFeeds {
+
+    private EventFeeds() {
+    }
+
+    // On subscription, the backlog followed by everything later published to live. The backlog is taken and
+    // live joined while holding lock, which must be the lock publishers hold, so no event lands in between.
+    // A subscriber more than maxPending events behind gets an error rather than growing its buffer without bound.
+    static <T> Flux<T> backlogThenLive(Object lock, Supplier<List<T>> backlog, Sinks.Many<T> live, int maxPending) {
+        return Flux.defer(() -> {
+            Sinks.Many<T> pending = Sinks.many().unicast().onBackpressureBuffer(Queues.<T>get(maxPending).get());
+            List<T> replay;
+            Disposable subscription;
+            synchronized (lock) {
+                replay = backlog.get();
+                subscription = live.asFlux().subscribe(event -> {
+                    if (pending.tryEmitNext(event).isFailure()) {
+                        pending.tryEmitError(new IllegalStateException(
+                                "Event subscriber fell more than " + maxPending + " events behind"));
+                    }
+                });
+            }
+            return Flux.fromIterable(replay)
+                    .concatWith(pending.asFlux())
+                    .doFinally(signal -> subscription.dispose());
+        });
+    }
+}
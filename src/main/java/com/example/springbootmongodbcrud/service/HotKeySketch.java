@@ -0,0 +1,203 @@
+package com.example.springbootmongodbcrud.service;
+
+import com.example.springbootmongodbcrud.model.HotKeyReport;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * Approximate request counts per key over a sliding time window, in fixed memory and without locks.
+ *
+ * <p>The window is a ring of buckets, each covering {@code window / buckets} of time. A bucket holds a
+ * count-min sketch ({@code depth} rows of {@code width} counters; an estimate is the smallest of a key's
+ * counters, so it may overcount on collisions but never undercounts) and a small table of heavy-hitter
+ * candidates. A key lands in one of two candidate slots chosen by its hash and replaces the occupant with
+ * the lower estimate, so frequent keys stay and rare ones are displaced. Reports sum the sketch estimates
+ * of every candidate across the buckets still in the window.
+ *
+ * <p>Recording is a handful of atomic increments. When time moves into a new bucket, the first writer to
+ * notice swaps in an empty one; a writer racing the swap may land its count in the discarded bucket.
+ */
+public final class HotKeySketch {
+
+    private final int width;
+
+    private final int depth;
+
+    private final int candidates;
+
+    private final long bucketMillis;
+
+    private final LongSupplier clock;
+
+    private final AtomicReferenceArray<Bucket> ring;
+
+    public HotKeySketch(int width, int depth, int candidates, int buckets, long windowMillis, LongSupplier clock) {
+        if (Integer.bitCount(width) != 1 || Integer.bitCount(candidates) != 1) {
+            throw new IllegalArgumentException("Sketch width and candidate count must be powers of two");
+        }
+        if (depth <= 0 || buckets <= 0 || windowMillis < buckets) {
+            throw new IllegalArgumentException("Sketch depth, bucket count and window must be positive");
+        }
+        this.width = width;
+        this.depth = depth;
+        this.candidates = candidates;
+        this.bucketMillis = windowMillis / buckets;
+        this.clock = clock;
+        this.ring = new AtomicReferenceArray<>(buckets);
+    }
+
+    public void record(String key) {
+        long epoch = clock.getAsLong() / bucketMillis;
+        int slot = (int) (epoch % ring.length());
+        Bucket bucket = ring.get(slot);
+        if (bucket == null || bucket.epoch != epoch) {
+            Bucket fresh = new Bucket(epoch, width, depth, candidates);
+            bucket = ring.compareAndSet(slot, bucket, fresh) ? fresh : ring.get(slot);
+        }
+        bucket.record(key, spread(key.hashCode()));
+    }
+
+    // The top keys in the window, by estimated count, and the total count they are a share of
+    public HotKeyReport.Dimension top(int limit) {
+        long epoch = clock.getAsLong() / bucketMillis;
+        List<Bucket> live = new ArrayList<>(ring.length());
+        for (int i = 0; i < ring.length(); i++) {
+            Bucket bucket = ring.get(i);
+            if (bucket != null && bucket.epoch > epoch - ring.length() && bucket.epoch <= epoch) {
+                live.add(bucket);
+            }
+        }
+        long total = 0;
+        Set<String> keys = new HashSet<>();
+        for (Bucket bucket : live) {
+            total += bucket.total.sum();
+            bucket.collectCandidates(keys);
+        }
+        List<HotKeyReport.Entry> entries = new ArrayList<>(keys.size());
+        for (String key : keys) {
+            int hash = spread(key.hashCode());
+            long count = 0;
+            for (Bucket bucket : live) {
+                count += bucket.estimate(hash);
+            }
+            entries.add(new HotKeyReport.Entry(key, count));
+        }
+        entries.sort(Comparator.comparingLong(HotKeyReport.Entry::getCount).reversed()
+                .thenComparing(HotKeyReport.Entry::getKey));
+        return new HotKeyReport.Dimension(total, List.copyOf(entries.subList(0, Math.min(limit, entries.size()))));
+    }
+
+    // Murmur3 finalizer, so nearby hash codes land in unrelated counters
+    private static int spread(int hash) {
+        hash ^= hash >>> 16;
+        hash *= 0x85ebca6b;
+        hash ^= hash >>> 13;
+        hash *= 0xc2b2ae35;
+        hash ^= hash >>> 16;
+        return hash;
+    }
+
+    private static final class Bucket {
+
+        private final long epoch;
+
+        private final int width;
+
+        private final int depth;
+
+        private final AtomicLongArray counters;
+
+        private final AtomicReferenceArray<Candidate> candidates;
+
+        private final LongAdder total = new LongAdder();
+
+        Bucket(long epoch, int width, int depth, int candidates) {
+            this.epoch = epoch;
+            this.width = width;
+            this.depth = depth;
+            this.counters = new AtomicLongArray(width * depth);
+            this.candidates = new AtomicReferenceArray<>(candidates);
+        }
+
+        void record(String key, int hash) {
+            total.increment();
+            long estimate = Long.MAX_VALUE;
+            for (int row = 0; row < depth; row++) {
+                estimate = Math.min(estimate, counters.incrementAndGet(index(row, hash)));
+            }
+            offer(key, hash, estimate);
+        }
+
+        long estimate(int hash) {
+            long estimate = Long.MAX_VALUE;
+            for (int row = 0; row < depth; row++) {
+                estimate = Math.min(estimate, counters.get(index(row, hash)));
+            }
+            return estimate;
+        }
+
+        void collectCandidates(Set<String> keys) {
+            for (int i = 0; i < candidates.length(); i++) {
+                Candidate candidate = candidates.get(i);
+                if (candidate != null) {
+                    keys.add(candidate.key);
+                }
+            }
+        }
+
+        // Keep key in one of its two slots if it is there already, or if it beats an occupant
+        private void offer(String key, int hash, long estimate) {
+            int mask = candidates.length() - 1;
+            int first = hash & mask;
+            int second = (Integer.rotateLeft(hash, 16) * 0x9e3779b9 >>> 1) & mask;
+            Candidate a = candidates.get(first);
+            Candidate b = candidates.get(second);
+            if ((a != null && a.key.equals(key)) || (b != null && b.key.equals(key))) {
+                return;
+            }
+            int slot;
+            Candidate occupant;
+            if (a == null || (b != null && estimateOf(a) <= estimateOf(b))) {
+                slot = first;
+                occupant = a;
+            } else {
+                slot = second;
+                occupant = b;
+            }
+            if (occupant == null || estimateOf(occupant) < estimate) {
+                // Losing the race to another key is fine; it had a claim too
+                candidates.compareAndSet(slot, occupant, new Candidate(key, hash));
+            }
+        }
+
+        private long estimateOf(Candidate candidate) {
+            return estimate(candidate.hash);
+        }
+
+        // Each row hashes the key differently by rotating and re-mixing its spread hash
+        private int index(int row, int hash) {
+            int rowHash = spread(Integer.rotateLeft(hash, row * 8) + row);
+            return row * width + (rowHash & (width - 1));
+        }
+    }
+
+    private static final class Candidate {
+
+        private final String key;
+
+        private final int hash;
+
+        Candidate(String key, int hash) {
+            this.key = key;
+            this.hash = hash;
+        }
+    }
+}
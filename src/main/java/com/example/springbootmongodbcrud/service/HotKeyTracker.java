@@ -0,0 +1,67 @@
+package com.example.springbootmongodbcrud.service;
+
+import com.example.springbootmongodbcrud.model.HotKeyReport;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Locale;
+
+/**
+ * Which products, categories and search terms are requested most right now, for cache tuning and spotting
+ * abuse. The read paths of both services record into one {@link HotKeySketch} per kind of key, which keeps
+ * fixed memory however many distinct keys arrive. Reported at {@code GET /api/admin/hot-keys}.
+ *
+ * <p>Products are recorded by the requested id (so probes for ids that do not exist show up too), or by the
+ * resolved id for lookups by name. Search terms are lower-cased and trimmed.
+ */
+@Component
+public class HotKeyTracker {
+
+    private final boolean enabled;
+
+    private final Duration window;
+
+    private final HotKeySketch products;
+
+    private final HotKeySketch categories;
+
+    private final HotKeySketch searchTerms;
+
+    public HotKeyTracker(
+            @Value("${app.hot-keys.enabled:true}") boolean enabled,
+            @Value("${app.hot-keys.window:60s}") Duration window,
+            @Value("${app.hot-keys.buckets:6}") int buckets,
+            @Value("${app.hot-keys.sketch-width:2048}") int width,
+            @Value("${app.hot-keys.sketch-depth:4}") int depth,
+            @Value("${app.hot-keys.candidates:256}") int candidates) {
+        this.enabled = enabled;
+        this.window = window;
+        long windowMillis = window.toMillis();
+        this.products = new HotKeySketch(width, depth, candidates, buckets, windowMillis, System::currentTimeMillis);
+        this.categories = new HotKeySketch(width, depth, candidates, buckets, windowMillis, System::currentTimeMillis);
+        this.searchTerms = new HotKeySketch(width, depth, candidates, buckets, windowMillis, System::currentTimeMillis);
+    }
+
+    public void product(String id) {
+        if (enabled && id != null) {
+            products.record(id);
+        }
+    }
+
+    public void category(String category) {
+        if (enabled && category != null) {
+            categories.record(category);
+        }
+    }
+
+    public void search(String term) {
+        if (enabled && term != null) {
+            searchTerms.record(term.trim().toLowerCase(Locale.ROOT));
+        }
+    }
+
+    public HotKeyReport report(int limit) {
+        return new HotKeyReport(window.toSeconds(), products.top(limit), categories.top(limit), searchTerms.top(limit));
+    }
+}
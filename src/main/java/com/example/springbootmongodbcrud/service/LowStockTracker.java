@@ -0,0 +1,184 @@
+package com.example.springbootmongodbcrud.service;
+
+import com.example.springbootmongodbcrud.model.LowStockEvent;
+import com.example.springbootmongodbcrud.model.Product;
+import com.example.springbootmongodbcrud.repository.ProductRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Sinks;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * The set of products whose stock is below their reorder threshold, kept current by the services on every
+ * write instead of being recomputed by a collection scan. The set is loaded once at startup; each write that
+ * moves a product into, within or out of it publishes one delta to the subscribers of {@link #events()}.
+ *
+ * <p>Membership changes, snapshots and subscriptions all happen under one lock, so deltas are published in
+ * sequence order and a new subscriber sees every delta after its snapshot. Updates no newer than the last
+ * version seen for a product are ignored, since the change stream can deliver a node's own writes late or
+ * twice. Products outside the set keep their last version in a bounded map, so a late update cannot bring
+ * back a product that has since been restocked or deleted.
+ */
+@Component
+public class LowStockTracker {
+
+    private static final Logger log = LoggerFactory.getLogger(LowStockTracker.class);
+
+    // Products outside the set whose last version is remembered; the oldest are forgotten first
+    private static final int MAX_LAST_SEEN = 65_536;
+
+    // Stands in for the version of a deleted product; ids are not reused
+    private static final long DELETED = Long.MAX_VALUE;
+
+    private static final Comparator<LowStockEvent.Item> BY_STOCK =
+            Comparator.comparingInt(LowStockEvent.Item::getStockQuantity).thenComparing(LowStockEvent.Item::getId);
+
+    private final ProductRepository productRepository;
+
+    private final int defaultThreshold;
+
+    private final int maxPendingEvents;
+
+    // Guarded by this
+    private final Map<String, Tracked> tracked = new HashMap<>();
+
+    // The last version seen of products not in tracked; guarded by this
+    private final Map<String, Long> lastSeen = new LinkedHashMap<>() {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Long> eldest) {
+            return size() > MAX_LAST_SEEN;
+        }
+    };
+
+    // Guarded by this
+    private long sequence;
+
+    private final Sinks.Many<LowStockEvent> deltas = Sinks.many().multicast().directBestEffort();
+
+    public LowStockTracker(
+            ProductRepository productRepository,
+            @Value("${app.low-stock.default-threshold:10}") int defaultThreshold,
+            @Value("${app.low-stock.max-pending-events:1024}") int maxPendingEvents) {
+        this.productRepository = productRepository;
+        this.defaultThreshold = defaultThreshold;
+        this.maxPendingEvents = maxPendingEvents;
+    }
+
+    // Load the set from the database; also used to resynchronize after change stream events were missed
+    @EventListener(ApplicationReadyEvent.class)
+    public void reload() {
+        List<Product> lowStock = productRepository.findBelowReorderThreshold(defaultThreshold);
+        reset(lowStock);
+        log.debug("Tracking {} low-stock products", lowStock.size());
+    }
+
+    // Replace the set with the given products, publishing the difference as deltas
+    public synchronized void reset(List<Product> lowStock) {
+        Set<String> current = new HashSet<>();
+        for (Product product : lowStock) {
+            current.add(product.getId());
+            track(product, true);
+        }
+        for (String id : new ArrayList<>(tracked.keySet())) {
+            if (!current.contains(id)) {
+                Tracked left = tracked.remove(id);
+                lastSeen.put(id, left.version);
+                publish(LowStockEvent.Type.LEFT, left.item);
+            }
+        }
+    }
+
+    // Apply a product as just written: it joins, moves within or leaves the set
+    public synchronized void update(Product product) {
+        if (product.getId() != null) {
+            track(product, false);
+        }
+    }
+
+    public synchronized void remove(String id) {
+        lastSeen.put(id, DELETED);
+        Tracked removed = tracked.remove(id);
+        if (removed != null) {
+            publish(LowStockEvent.Type.LEFT, removed.item);
+        }
+    }
+
+    // Every product currently below its threshold, lowest stock first
+    public synchronized LowStockEvent snapshot() {
+        List<LowStockEvent.Item> items = new ArrayList<>(tracked.size());
+        for (Tracked entry : tracked.values()) {
+            items.add(entry.item);
+        }
+        items.sort(BY_STOCK);
+        return LowStockEvent.snapshot(sequence, items);
+    }
+
+    // A snapshot followed by every later delta. A subscriber that falls more than max-pending-events behind
+    // gets an error rather than growing its buffer without bound; it can resubscribe for a fresh snapshot.
+    public Flux<LowStockEvent> events() {
+        return EventFeeds.backlogThenLive(this, () -> List.of(snapshot()), deltas, maxPendingEvents);
+    }
+
+    public synchronized int size() {
+        return tracked.size();
+    }
+
+    private void track(Product product, boolean force) {
+        String id = product.getId();
+        long version = product.getVersion() == null ? 0 : product.getVersion();
+        Tracked previous = tracked.get(id);
+        Long seen = previous != null ? Long.valueOf(previous.version) : lastSeen.get(id);
+        // An unversioned product cannot be ordered against earlier updates, so it always applies
+        if (!force && seen != null && product.getVersion() != null && version <= seen) {
+            return;
+        }
+        int threshold = product.getReorderThreshold() == null ? defaultThreshold : product.getReorderThreshold();
+        int stock = product.getStockQuantity() == null ? 0 : product.getStockQuantity();
+        LowStockEvent.Item item =
+                new LowStockEvent.Item(id, product.getName(), product.getCategory(), stock, threshold);
+        if (stock >= threshold) {
+            lastSeen.put(id, version);
+            if (previous != null) {
+                // Reports the stock that took the product out of the set
+                tracked.remove(id);
+                publish(LowStockEvent.Type.LEFT, item);
+            }
+            return;
+        }
+        lastSeen.remove(id);
+        tracked.put(id, new Tracked(item, version));
+        if (previous == null) {
+            publish(LowStockEvent.Type.ENTERED, item);
+        } else if (!previous.item.equals(item)) {
+            publish(LowStockEvent.Type.CHANGED, item);
+        }
+    }
+
+    private void publish(LowStockEvent.Type type, LowStockEvent.Item item) {
+        // Fails only when nobody is subscribed
+        deltas.tryEmitNext(LowStockEvent.delta(type, ++sequence, item));
+    }
+
+    private static final class Tracked {
+        private final LowStockEvent.Item item;
+        private final long version;
+
+        private Tracked(LowStockEvent.Item item, long version) {
+            this.item = item;
+            this.version = version;
+        }
+    }
+}
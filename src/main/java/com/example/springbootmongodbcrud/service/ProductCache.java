@@ -0,0 +1,193 @@
+package com.example.springbootmongodbcrud.service;
+
+import com.example.springbootmongodbcrud.model.Product;
+import com.example.springbootmongodbcrud.model.ProductCacheStats;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * Read-through cache for product lookups. Products are held in an id-keyed cache bounded by
+ * estimated heap weight; a separate name-to-id map serves name lookups without duplicating documents.
+ *
+ * <p>Loads run outside any cache lock, so a load can finish after a write that overtook it. Such a load is
+ * never cached over the write: a cached product is only replaced by one of the same or a higher version, and
+ * a load that overlapped an invalidation is not cached at all.
+ */
+@Component
+public class ProductCache {
+
+    // Fixed per-entry overhead (object headers, boxed fields, timestamps) used by the weigher
+    private static final int BASE_ENTRY_WEIGHT = 256;
+
+    private final Cache<String, Product> byId;
+
+    private final Cache<String, String> idByName;
+
+    // Bumped by every invalidation; a load that saw it change may have read a product since updated or deleted
+    private final AtomicLong invalidations = new AtomicLong();
+
+    public ProductCache(
+            @Value("${app.cache.products.max-weight-bytes:67108864}") long maxWeightBytes,
+            @Value("${app.cache.products.max-names:200000}") long maxNames,
+            @Value("${app.cache.products.ttl:5m}") Duration ttl) {
+        this.byId = Caffeine.newBuilder()
+                .maximumWeight(maxWeightBytes)
+                .weigher((String id, Product product) -> estimateWeight(product))
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+        this.idByName = Caffeine.newBuilder()
+                .maximumSize(maxNames)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+    }
+
+    // Look up by id, loading and caching on a miss; absent products are not cached. The loader runs
+    // outside the cache's compute so a virtual thread waiting on Mongo never pins its carrier while
+    // holding a map lock; concurrent misses for the same id may each load.
+    public Optional<Product> getById(String id, Function<String, Optional<Product>> loader) {
+        Product cached = byId.getIfPresent(id);
+        if (cached != null) {
+            return Optional.of(cached);
+        }
+        long generation = invalidations.get();
+        Optional<Product> loaded = loader.apply(id);
+        loaded.ifPresent(product -> putLoaded(product, generation));
+        return loaded;
+    }
+
+    // Look up many ids at once: cached products are returned as they are and the rest are loaded with one
+    // call to loader and cached. Ids that do not exist are absent from the result.
+    public Map<String, Product> getAllById(Collection<String> ids, Function<List<String>, List<Product>> loader) {
+        Map<String, Product> found = new HashMap<>(byId.getAllPresent(ids));
+        List<String> missing = new ArrayList<>(ids.size() - found.size());
+        for (String id : ids) {
+            if (!found.containsKey(id)) {
+                missing.add(id);
+            }
+        }
+        if (!missing.isEmpty()) {
+            long generation = invalidations.get();
+            for (Product loaded : loader.apply(missing)) {
+                putLoaded(loaded, generation);
+                found.put(loaded.getId(), loaded);
+            }
+        }
+        return found;
+    }
+
+    // Look up by name through the name index, loading and caching on a miss
+    public Optional<Product> getByName(String name, Function<String, Optional<Product>> loader) {
+        String id = idByName.getIfPresent(name);
+        if (id != null) {
+            Product cached = byId.getIfPresent(id);
+            if (cached != null && name.equals(cached.getName())) {
+                return Optional.of(cached);
+            }
+        }
+        long generation = invalidations.get();
+        Optional<Product> loaded = loader.apply(name);
+        loaded.ifPresent(product -> putLoaded(product, generation));
+        return loaded;
+    }
+
+    // Cache a product unless a newer version of it is already cached; only the copy kept maps its name
+    public void put(Product product) {
+        if (product.getId() == null) {
+            return;
+        }
+        Product kept = byId.asMap().merge(product.getId(), product, ProductCache::newer);
+        if (kept == product && product.getName() != null) {
+            idByName.put(product.getName(), product.getId());
+        }
+    }
+
+    // Cache a product loaded when the invalidation count was generation, unless an invalidation has happened
+    // since: the load may have read the product before it was updated or deleted
+    private void putLoaded(Product product, long generation) {
+        if (invalidations.get() != generation) {
+            return;
+        }
+        put(product);
+        // An invalidation between the check and the put would otherwise leave this copy behind
+        if (invalidations.get() != generation) {
+            byId.asMap().remove(product.getId(), product);
+        }
+    }
+
+    // Replace a cached product with a newer version; products not already cached are left out
+    public void refreshIfPresent(Product product) {
+        if (product.getId() == null || byId.getIfPresent(product.getId()) == null) {
+            return;
+        }
+        invalidate(product.getId());
+        put(product);
+    }
+
+    // Drop a product and its name mapping
+    public void invalidate(String id) {
+        invalidations.incrementAndGet();
+        Product removed = byId.asMap().remove(id);
+        if (removed != null && removed.getName() != null) {
+            idByName.asMap().remove(removed.getName(), id);
+        }
+    }
+
+    public void invalidateAll() {
+        invalidations.incrementAndGet();
+        byId.invalidateAll();
+        idByName.invalidateAll();
+    }
+
+    public ProductCacheStats stats() {
+        // Apply pending evictions so entry counts and weight are current
+        byId.cleanUp();
+        idByName.cleanUp();
+        CacheStats idStats = byId.stats();
+        CacheStats nameStats = idByName.stats();
+        return new ProductCacheStats(
+                idStats.hitCount(),
+                idStats.missCount(),
+                idStats.evictionCount(),
+                idStats.evictionWeight(),
+                byId.estimatedSize(),
+                byId.policy().eviction().map(eviction -> eviction.weightedSize().orElse(0L)).orElse(0L),
+                nameStats.hitCount(),
+                nameStats.missCount(),
+                idByName.estimatedSize());
+    }
+
+    // The later of two copies of a product by version; documents without a version count as oldest
+    private static Product newer(Product cached, Product candidate) {
+        return version(candidate) >= version(cached) ? candidate : cached;
+    }
+
+    private static long version(Product product) {
+        return product.getVersion() == null ? -1 : product.getVersion();
+    }
+
+    // Rough retained size of a product: fixed overhead plus two bytes per string character
+    static int estimateWeight(Product product) {
+        return BASE_ENTRY_WEIGHT
+                + 2 * (length(product.getId()) + length(product.getName())
+                + length(product.getDescription()) + length(product.getCategory()));
+    }
+
+    private static int length(String value) {
+        return value == null ? 0 : value.length();
+    }
+}
@@ -0,0 +1,296 @@
+package com.example.springbootmongodbcrud.service;
+
+import com.example.springbootmongodbcrud.model.Product;
+import com.example.springbootmongodbcrud.model.ProductEvent;
+import com.mongodb.MongoCommandException;
+import com.mongodb.client.MongoChangeStreamCursor;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.ReplaceOptions;
+import com.mongodb.client.model.UpdateOptions;
+import com.mongodb.client.model.Updates;
+import com.mongodb.client.model.changestream.ChangeStreamDocument;
+import com.mongodb.client.model.changestream.FullDocument;
+import com.mongodb.client.model.changestream.OperationType;
+import com.mongodb.client.model.changestream.UpdateDescription;
+import org.bson.BsonDocument;
+import org.bson.BsonValue;
+import org.bson.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.stereotype.Component;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.time.Duration;
+import java.util.Set;
+
+/**
+ * Keeps this node's {@link ProductCache} and {@link LowStockTracker} coherent with writes made by other
+ * nodes by tailing a change stream on the products collection. Cached entries are refreshed from the
+ * post-image of inserts, updates and replaces, and dropped on deletes. Every change is also appended to the
+ * {@link ProductEventLog}, which then carries the whole cluster's writes rather than only this node's.
+ *
+ * <p>The resume token is checkpointed per node so the listener picks up where it left off after a
+ * reconnect or restart. Nodes are told apart by {@code app.cache.change-stream.node-id}, or by host name when
+ * it is unset, so the id must be stable across restarts for a restart to resume. If the token can no
+ * longer be resumed (the oplog has rolled past it) or the stream is invalidated, events may have been
+ * missed, so the whole cache is flushed, the low-stock set reloaded and event consumers told to
+ * resynchronize before watching again.
+ *
+ * <p>Change streams require a replica set; enable with {@code app.cache.change-stream.enabled=true}.
+ */
+@Component
+@ConditionalOnProperty(name = "app.cache.change-stream.enabled", havingValue = "true")
+public class ProductChangeStreamListener implements SmartLifecycle {
+
+    private static final Logger log = LoggerFactory.getLogger(ProductChangeStreamListener.class);
+
+    private static final String PRODUCTS_COLLECTION = "products";
+
+    private static final String TOKEN_COLLECTION = "changeStreamResumeTokens";
+
+    // Server error codes meaning the resume token is no longer usable
+    private static final Set<Integer> RESUME_FAILED_CODES = Set.of(260, 280, 286);
+
+    // An update touching only these fields is published as a stock change
+    private static final Set<String> STOCK_FIELDS = Set.of("stockQuantity", "updatedAt", "version");
+
+    private final MongoTemplate mongoTemplate;
+
+    private final ProductCache productCache;
+
+    private final LowStockTracker lowStockTracker;
+
+    private final ProductEventLog eventLog;
+
+    private final String tokenId;
+
+    private final Duration checkpointInterval;
+
+    private final Duration retryDelay;
+
+    private volatile boolean running;
+
+    // Set when events may have been missed; the low-stock set is reloaded once the next stream is open.
+    // Only touched by the worker thread
+    private boolean lowStockStale = true;
+
+    private volatile MongoChangeStreamCursor<ChangeStreamDocument<Document>> cursor;
+
+    private Thread worker;
+
+    public ProductChangeStreamListener(
+            MongoTemplate mongoTemplate,
+            ProductCache productCache,
+            LowStockTracker lowStockTracker,
+            ProductEventLog eventLog,
+            @Value("${app.cache.change-stream.node-id:}") String nodeId,
+            @Value("${app.cache.change-stream.checkpoint-interval:1s}") Duration checkpointInterval,
+            @Value("${app.cache.change-stream.retry-delay:5s}") Duration retryDelay) {
+        this.mongoTemplate = mongoTemplate;
+        this.productCache = productCache;
+        this.lowStockTracker = lowStockTracker;
+        this.eventLog = eventLog;
+        this.tokenId = "product-cache:" + (nodeId.isBlank() ? hostName() : nodeId);
+        this.checkpointInterval = checkpointInterval;
+        this.retryDelay = retryDelay;
+    }
+
+    @Override
+    public void start() {
+        running = true;
+        worker = new Thread(this::run, "product-change-stream");
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        MongoChangeStreamCursor<ChangeStreamDocument<Document>> current = cursor;
+        if (current != null) {
+            current.close();
+        }
+        if (worker != null) {
+            worker.interrupt();
+            try {
+                worker.join(retryDelay.toMillis());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    private void run() {
+        while (running) {
+            try {
+                watch();
+            } catch (MongoCommandException e) {
+                if (!running) {
+                    return;
+                }
+                if (RESUME_FAILED_CODES.contains(e.getErrorCode())) {
+                    log.warn("Change stream resume token is no longer valid, flushing product cache", e);
+                    clearToken();
+                } else {
+                    log.warn("Change stream failed, flushing product cache and retrying", e);
+                }
+                flush();
+                pause();
+            } catch (RuntimeException e) {
+                if (!running) {
+                    return;
+                }
+                log.warn("Change stream failed, flushing product cache and retrying", e);
+                flush();
+                pause();
+            }
+        }
+    }
+
+    // Watch until stopped or the stream ends; checkpoints the resume token at most once per interval
+    private void watch() {
+        BsonDocument token = loadToken();
+        var stream = products().watch().fullDocument(FullDocument.UPDATE_LOOKUP);
+        if (token == null) {
+            // Nothing to resume from: anything cached may predate changes we never saw
+            flush();
+        } else {
+            stream = stream.resumeAfter(token);
+        }
+        try (MongoChangeStreamCursor<ChangeStreamDocument<Document>> changes = stream.cursor()) {
+            cursor = changes;
+            if (lowStockStale) {
+                // Reloaded after the stream is open, so changes made during the reload are still seen
+                lowStockTracker.reload();
+                lowStockStale = false;
+            }
+            BsonDocument lastSaved = token;
+            long nextCheckpoint = System.nanoTime() + checkpointInterval.toNanos();
+            while (running) {
+                ChangeStreamDocument<Document> change = changes.tryNext();
+                if (change != null && !apply(change)) {
+                    clearToken();
+                    return;
+                }
+                BsonDocument current = changes.getResumeToken();
+                if (current != null && !current.equals(lastSaved) && System.nanoTime() >= nextCheckpoint) {
+                    saveToken(current);
+                    lastSaved = current;
+                    nextCheckpoint = System.nanoTime() + checkpointInterval.toNanos();
+                }
+            }
+        } finally {
+            cursor = null;
+        }
+    }
+
+    // Apply one event to the cache; returns false when the stream has been invalidated
+    private boolean apply(ChangeStreamDocument<Document> change) {
+        switch (change.getOperationType()) {
+            case INSERT:
+            case UPDATE:
+            case REPLACE:
+                String id = documentId(change.getDocumentKey());
+                Document fullDocument = change.getFullDocument();
+                if (fullDocument == null) {
+                    // The document was deleted before the lookup; its delete event follows
+                    productCache.invalidate(id);
+                } else {
+                    Product product = mongoTemplate.getConverter().read(Product.class, fullDocument);
+                    productCache.refreshIfPresent(product);
+                    lowStockTracker.update(product);
+                    eventLog.append(eventType(change), id, product);
+                }
+                return true;
+            case DELETE:
+                String deletedId = documentId(change.getDocumentKey());
+                productCache.invalidate(deletedId);
+                lowStockTracker.remove(deletedId);
+                eventLog.append(ProductEvent.Type.DELETED, deletedId, null);
+                return true;
+            case INVALIDATE:
+                flush();
+                return false;
+            default:
+                // drop, rename, dropDatabase: the collection we cache no longer matches
+                flush();
+                return true;
+        }
+    }
+
+    // Forget everything that may have missed a change
+    private void flush() {
+        productCache.invalidateAll();
+        lowStockStale = true;
+        eventLog.reset();
+    }
+
+    private static ProductEvent.Type eventType(ChangeStreamDocument<Document> change) {
+        if (change.getOperationType() == OperationType.INSERT) {
+            return ProductEvent.Type.CREATED;
+        }
+        UpdateDescription update = change.getUpdateDescription();
+        boolean stockOnly = change.getOperationType() == OperationType.UPDATE && update != null
+                && update.getUpdatedFields() != null
+                && (update.getRemovedFields() == null || update.getRemovedFields().isEmpty())
+                && STOCK_FIELDS.containsAll(update.getUpdatedFields().keySet());
+        return stockOnly ? ProductEvent.Type.STOCK : ProductEvent.Type.UPDATED;
+    }
+
+    private static String documentId(BsonDocument documentKey) {
+        BsonValue id = documentKey.get("_id");
+        return id.isObjectId() ? id.asObjectId().getValue().toHexString() : id.asString().getValue();
+    }
+
+    private MongoCollection<Document> products() {
+        return mongoTemplate.getCollection(PRODUCTS_COLLECTION);
+    }
+
+    private BsonDocument loadToken() {
+        Document stored = mongoTemplate.getCollection(TOKEN_COLLECTION).find(Filters.eq("_id", tokenId)).first();
+        if (stored == null || stored.get("token") == null) {
+            return null;
+        }
+        return BsonDocument.parse(stored.getString("token"));
+    }
+
+    private void saveToken(BsonDocument token) {
+        mongoTemplate.getCollection(TOKEN_COLLECTION).updateOne(
+                Filters.eq("_id", tokenId),
+                Updates.set("token", token.toJson()),
+                new UpdateOptions().upsert(true));
+    }
+
+    private void clearToken() {
+        mongoTemplate.getCollection(TOKEN_COLLECTION).replaceOne(
+                Filters.eq("_id", tokenId), new Document("_id", tokenId), new ReplaceOptions().upsert(true));
+    }
+
+    private void pause() {
+        try {
+            Thread.sleep(retryDelay.toMillis());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            running = false;
+        }
+    }
+
+    private static String hostName() {
+        try {
+            return InetAddress.getLocalHost().getHostName();
+        } catch (UnknownHostException e) {
+            return "unknown-host";
+        }
+    }
+}
@@ -0,0 +1,136 @@
+package com.example.springbootmongodbcrud.service;
+
+import com.example.springbootmongodbcrud.model.Product;
+import com.example.springbootmongodbcrud.model.ProductEvent;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Sinks;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Ordered log of product changes behind {@code GET /api/products/stream}, so downstream replicas can follow
+ * the catalog instead of polling it. The most recent {@code app.events.replay-size} events are kept in memory
+ * so a consumer that reconnects with {@code Last-Event-ID} receives what it missed.
+ *
+ * <p>Event ids are {@code <epoch>-<sequence>}, where the epoch is chosen at random when the application
+ * starts. An id from another epoch (a restart, or a different node) or one older than the replay buffer
+ * cannot be resumed from; the consumer gets a RESET event instead of a silent gap.
+ *
+ * <p>The services record their own writes. When the change stream listener is enabled it records every
+ * node's writes instead, so the log covers the whole cluster and the services' calls are ignored.
+ */
+@Component
+public class ProductEventLog {
+
+    private final String epoch = Long.toString(ThreadLocalRandom.current().nextLong() & Long.MAX_VALUE, 36);
+
+    private final int replaySize;
+
+    private final int maxPendingEvents;
+
+    private final boolean fedByChangeStream;
+
+    // Guarded by this
+    private final ArrayDeque<ProductEvent> replay;
+
+    // Guarded by this
+    private long sequence;
+
+    private final Sinks.Many<ProductEvent> live = Sinks.many().multicast().directBestEffort();
+
+    public ProductEventLog(
+            @Value("${app.events.replay-size:4096}") int replaySize,
+            @Value("${app.events.max-pending-events:1024}") int maxPendingEvents,
+            @Value("${app.cache.change-stream.enabled:false}") boolean fedByChangeStream) {
+        if (replaySize <= 0) {
+            throw new IllegalArgumentException("app.events.replay-size must be positive");
+        }
+        this.replaySize = replaySize;
+        this.maxPendingEvents = maxPendingEvents;
+        this.fedByChangeStream = fedByChangeStream;
+        this.replay = new ArrayDeque<>(replaySize);
+    }
+
+    public void created(Product product) {
+        recordLocal(ProductEvent.Type.CREATED, product.getId(), product);
+    }
+
+    public void updated(Product product) {
+        recordLocal(ProductEvent.Type.UPDATED, product.getId(), product);
+    }
+
+    public void stockChanged(Product product) {
+        recordLocal(ProductEvent.Type.STOCK, product.getId(), product);
+    }
+
+    public void deleted(String id) {
+        recordLocal(ProductEvent.Type.DELETED, id, null);
+    }
+
+    // Tell consumers that changes may have been missed and they must resynchronize
+    public void reset() {
+        append(ProductEvent.Type.RESET, null, null);
+    }
+
+    // Record a change regardless of where it was made; used by the change stream listener
+    public synchronized void append(ProductEvent.Type type, String productId, Product product) {
+        ProductEvent event = new ProductEvent(epoch + "-" + (++sequence), type, productId,
+                product == null ? null : new Product(product));
+        if (replay.size() == replaySize) {
+            replay.removeFirst();
+        }
+        replay.addLast(event);
+        // Fails only when nobody is subscribed
+        live.tryEmitNext(event);
+    }
+
+    // Events after lastEventId followed by every later one; only later ones when lastEventId is null
+    public Flux<ProductEvent> events(String lastEventId) {
+        return EventFeeds.backlogThenLive(this, () -> missedSince(lastEventId), live, maxPendingEvents);
+    }
+
+    // Called holding the lock
+    private List<ProductEvent> missedSince(String lastEventId) {
+        if (lastEventId == null || lastEventId.isBlank()) {
+            return List.of();
+        }
+        long after = sequenceOf(lastEventId);
+        long oldest = replay.isEmpty() ? sequence + 1 : sequence - replay.size() + 1;
+        if (after < oldest - 1 || after > sequence) {
+            return List.of(new ProductEvent(epoch + "-" + sequence, ProductEvent.Type.RESET, null, null));
+        }
+        List<ProductEvent> missed = new ArrayList<>((int) (sequence - after));
+        Iterator<ProductEvent> events = replay.descendingIterator();
+        for (long next = sequence; next > after; next--) {
+            missed.add(events.next());
+        }
+        Collections.reverse(missed);
+        return missed;
+    }
+
+    // The sequence number in an id from this epoch, or -1 for anything else
+    private long sequenceOf(String eventId) {
+        String prefix = epoch + "-";
+        if (!eventId.startsWith(prefix)) {
+            return -1;
+        }
+        try {
+            return Long.parseLong(eventId.substring(prefix.length()));
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    private void recordLocal(ProductEvent.Type type, String productId, Product product) {
+        if (!fedByChangeStream) {
+            append(type, productId, product);
+        }
+    }
+}
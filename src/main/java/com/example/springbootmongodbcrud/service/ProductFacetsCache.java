@@ -0,0 +1,56 @@
+package com.example.springbootmongodbcrud.service;
+
+import com.example.springbootmongodbcrud.model.ProductFacets;
+import com.example.springbootmongodbcrud.model.ProductFacetsQuery;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.function.Function;
+
+/**
+ * Short-lived cache of facet counts keyed by the whole query. Writes do not invalidate it: a storefront
+ * sidebar may lag the catalog by up to the TTL, and in exchange repeated identical requests skip the
+ * aggregation entirely.
+ */
+@Component
+public class ProductFacetsCache {
+
+    private final Cache<ProductFacetsQuery, ProductFacets> cache;
+
+    public ProductFacetsCache(
+            @Value("${app.cache.facets.max-size:10000}") long maxSize,
+            @Value("${app.cache.facets.ttl:10s}") Duration ttl) {
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .build();
+    }
+
+    // Look up the facets for query, loading and caching on a miss. As in ProductCache the loader runs
+    // outside the cache's compute, so concurrent misses for the same query may each load.
+    public ProductFacets get(ProductFacetsQuery query, Function<ProductFacetsQuery, ProductFacets> loader) {
+        ProductFacets cached = cache.getIfPresent(query);
+        if (cached != null) {
+            return cached;
+        }
+        ProductFacets loaded = loader.apply(query);
+        cache.put(query, loaded);
+        return loaded;
+    }
+
+    // Reactive variant: subscribes to loader only on a miss
+    public Mono<ProductFacets> get(ProductFacetsQuery query, Mono<ProductFacets> loader) {
+        return Mono.defer(() -> {
+            ProductFacets cached = cache.getIfPresent(query);
+            return cached != null ? Mono.just(cached) : loader.doOnNext(loaded -> cache.put(query, loaded));
+        });
+    }
+
+    public void invalidateAll() {
+        cache.invalidateAll();
+    }
+}
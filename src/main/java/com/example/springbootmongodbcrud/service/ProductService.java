@@ -1,58 +1,172 @@
 package com.example.springbootmongodbcrud.service;
 
+import com.example.springbootmongodbcrud.exception.InsufficientStockException;
+import com.example.springbootmongodbcrud.exception.ProductConflictException;
+import com.example.springbootmongodbcrud.exception.ProductException;
+import com.example.springbootmongodbcrud.exception.ProductNotFoundException;
+import com.example.springbootmongodbcrud.exception.ProductValidationException;
+import com.example.springbootmongodbcrud.model.BatchGetResult;
+import com.example.springbootmongodbcrud.model.BulkCreateResult;
+import com.example.springbootmongodbcrud.model.KeysetPageRequest;
+import com.example.springbootmongodbcrud.model.LowStockEvent;
 import com.example.springbootmongodbcrud.model.Product;
+import com.example.springbootmongodbcrud.model.ProductEvent;
+import com.example.springbootmongodbcrud.model.ProductFacets;
+import com.example.springbootmongodbcrud.model.ProductFacetsQuery;
+import com.example.springbootmongodbcrud.model.ProductFields;
+import com.example.springbootmongodbcrud.model.ProductFilter;
+import com.example.springbootmongodbcrud.model.ProductPage;
 import com.example.springbootmongodbcrud.repository.ProductRepository;
+import com.example.springbootmongodbcrud.repository.StockWrite;
+import io.micrometer.core.annotation.Timed;
+import jakarta.validation.Validator;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.stream.Stream;
 
+// Every public method is timed as product.service{class, method, exception}
 @Service
+@Timed("product.service")
 public class ProductService {
     
+    // Ids per $in query when a batch get misses the cache for many products
+    static final int BATCH_GET_CHUNK_SIZE = 500;
+    
     private final ProductRepository productRepository;
     
+    private final Validator validator;
+    
+    private final ProductCache productCache;
+    
+    private final ProductFacetsCache facetsCache;
+    
+    private final LowStockTracker lowStockTracker;
+    
+    private final ProductEventLog eventLog;
+    
+    private final StockWriteBehind stockWriteBehind;
+    
+    private final ReadCoalescer reads;
+    
+    private final HotKeyTracker hotKeys;
+    
     @Autowired
-    public ProductService(ProductRepository productRepository) {
+    public ProductService(ProductRepository productRepository, Validator validator, ProductCache productCache,
+                          ProductFacetsCache facetsCache, LowStockTracker lowStockTracker, ProductEventLog eventLog,
+                          StockWriteBehind stockWriteBehind, ReadCoalescer reads,
+                          HotKeyTracker hotKeys) {
         this.productRepository = productRepository;
+        this.validator = validator;
+        this.productCache = productCache;
+        this.facetsCache = facetsCache;
+        this.lowStockTracker = lowStockTracker;
+        this.eventLog = eventLog;
+        this.stockWriteBehind = stockWriteBehind;
+        this.reads = reads;
+        this.hotKeys = hotKeys;
     }
     
     // Create a new product
     public Product createProduct(Product product) {
         if (productRepository.existsByName(product.getName())) {
-            throw new RuntimeException("Product with name '" + product.getName() + "' already exists");
+            throw ProductConflictException.duplicateName(product.getName());
         }
         product.setCreatedAt(LocalDateTime.now());
         product.setUpdatedAt(LocalDateTime.now());
-        return productRepository.save(product);
+        // A client-supplied version would turn the insert into a versioned update
+        product.setVersion(null);
+        Product savedProduct = productRepository.save(product);
+        reads.writeCompleted();
+        productCache.put(savedProduct);
+        lowStockTracker.update(savedProduct);
+        eventLog.created(savedProduct);
+        return savedProduct;
+    }
+    
+    // Create many products in one unordered bulk write. Each item is validated and reported on its own,
+    // and name conflicts come from the unique index rather than a per-item existence check.
+    public BulkCreateResult createProducts(List<Product> products) {
+        BulkCreatePlan plan = BulkCreatePlan.prepare(products, validator);
+        BulkCreateResult result = plan.complete(productRepository.insertUnordered(plan.accepted()));
+        reads.writeCompleted();
+        for (Product created : plan.created()) {
+            lowStockTracker.update(created);
+            eventLog.created(created);
+        }
+        return result;
+    }
+    
+    // Get one page of all products
+    public ProductPage getAllProducts(KeysetPageRequest page) {
+        return getProducts(ProductFilter.all(), page);
+    }
+    
+    // Stream the whole catalog without materializing it; the caller must close the stream
+    public Stream<Product> streamAllProducts() {
+        return streamAllProducts(ProductFields.ALL);
     }
     
-    // Get all products
-    public List<Product> getAllProducts() {
-        return productRepository.findAll();
+    // Stream the whole catalog reading only the selected fields
+    public Stream<Product> streamAllProducts(ProductFields fields) {
+        return productRepository.streamAll(fields);
     }
     
-    // Get product by ID
+    // Get product by ID (read-through cache), with any buffered stock update applied. Concurrent misses
+    // for the same id share one query.
     public Optional<Product> getProductById(String id) {
-        return productRepository.findById(id);
+        hotKeys.product(id);
+        return productCache.getById(id, this::findById).map(this::withPendingStock);
     }
     
-    // Get product by name
+    // Get product by name (read-through cache), with any buffered stock update applied. Concurrent misses
+    // for the same name share one query.
     public Optional<Product> getProductByName(String name) {
-        return productRepository.findByName(name);
+        Optional<Product> product = productCache.getByName(name,
+                key -> reads.read("findByName", key, () -> productRepository.findByName(key)));
+        product.ifPresent(found -> hotKeys.product(found.getId()));
+        return product.map(this::withPendingStock);
+    }
+    
+    // Get many products by id in request order, marking ids that do not exist. Cached products are served from
+    // the cache and the rest are read with one $in query per chunk.
+    public BatchGetResult getProductsByIds(List<String> ids) {
+        List<String> distinct = BatchGetResult.distinctIds(ids);
+        distinct.forEach(hotKeys::product);
+        Map<String, Product> found = productCache.getAllById(distinct, this::findAllById);
+        found.replaceAll((id, product) -> withPendingStock(product));
+        return BatchGetResult.of(ids, found);
     }
     
-    // Update product
+    // Update product. The write only applies while the product is still at the version read here, so a
+    // concurrent update is reported as OptimisticLockingFailureException instead of being overwritten
     public Product updateProduct(String id, Product productDetails) {
+        return updateProduct(id, productDetails, null);
+    }
+    
+    // Update product only if it is at expectedVersion (If-Match); null means the version read here
+    public Product updateProduct(String id, Product productDetails, Long expectedVersion) {
+        // The replacement sets the stock, so a buffered update must not land after it
+        stockWriteBehind.flushIfPending(id);
         return productRepository.findById(id)
                 .map(existingProduct -> {
+                    long currentVersion = existingProduct.getVersion() == null ? 0 : existingProduct.getVersion();
+                    if (expectedVersion != null && expectedVersion != currentVersion) {
+                        throw versionConflict(id, expectedVersion);
+                    }
                     // Check if the new name conflicts with another product
                     if (!existingProduct.getName().equals(productDetails.getName()) && 
                         productRepository.existsByName(productDetails.getName())) {
-                        throw new RuntimeException("Product with name '" + productDetails.getName() + "' already exists");
+                        throw ProductConflictException.duplicateName(productDetails.getName());
                     }
                     
                     existingProduct.setName(productDetails.getName());
@@ -60,54 +174,191 @@ public class ProductService {
                     existingProduct.setPrice(productDetails.getPrice());
                     existingProduct.setCategory(productDetails.getCategory());
                     existingProduct.setStockQuantity(productDetails.getStockQuantity());
-                    existingProduct.setUpdatedAt(LocalDateTime.now());
+                    existingProduct.setReorderThreshold(productDetails.getReorderThreshold());
                     
-                    return productRepository.save(existingProduct);
+                    Product savedProduct = productRepository.updateIfVersion(existingProduct, currentVersion)
+                            .orElseThrow(() -> versionConflict(id, currentVersion));
+                    reads.writeCompleted();
+                    // Invalidate first so a renamed product does not leave its old name mapped
+                    productCache.invalidate(id);
+                    productCache.put(savedProduct);
+                    lowStockTracker.update(savedProduct);
+                    eventLog.updated(savedProduct);
+                    return savedProduct;
                 })
-                .orElseThrow(() -> new RuntimeException("Product not found with id: " + id));
+                .orElseThrow(() -> new ProductNotFoundException(id));
     }
     
     // Delete product
     public void deleteProduct(String id) {
         if (!productRepository.existsById(id)) {
-            throw new RuntimeException("Product not found with id: " + id);
+            throw new ProductNotFoundException(id);
         }
         productRepository.deleteById(id);
+        reads.writeCompleted();
+        stockWriteBehind.discard(id);
+        productCache.invalidate(id);
+        lowStockTracker.remove(id);
+        eventLog.deleted(id);
     }
     
     // Get products by category
-    public List<Product> getProductsByCategory(String category) {
-        return productRepository.findByCategory(category);
+    public ProductPage getProductsByCategory(String category, KeysetPageRequest page) {
+        hotKeys.category(category);
+        return getProducts(ProductFilter.byCategory(category), page);
     }
     
     // Get products by price range
-    public List<Product> getProductsByPriceRange(BigDecimal minPrice, BigDecimal maxPrice) {
-        return productRepository.findByPriceBetween(minPrice, maxPrice);
+    public ProductPage getProductsByPriceRange(BigDecimal minPrice, BigDecimal maxPrice, KeysetPageRequest page) {
+        return getProducts(ProductFilter.byPriceRange(minPrice, maxPrice), page);
     }
     
     // Get products with low stock (less than given quantity)
-    public List<Product> getProductsWithLowStock(Integer quantity) {
-        return productRepository.findByStockQuantityLessThan(quantity);
+    public ProductPage getProductsWithLowStock(Integer quantity, KeysetPageRequest page) {
+        return getProducts(ProductFilter.stockBelow(quantity), page);
     }
     
     // Search products by name (case-insensitive)
-    public List<Product> searchProductsByName(String name) {
-        return productRepository.findByNameContainingIgnoreCase(name);
+    public ProductPage searchProductsByName(String name, KeysetPageRequest page) {
+        hotKeys.search(name);
+        return getProducts(ProductFilter.nameContains(name), page);
     }
     
     // Get products by category and price range
-    public List<Product> getProductsByCategoryAndPriceRange(String category, BigDecimal minPrice, BigDecimal maxPrice) {
-        return productRepository.findByCategoryAndPriceBetween(category, minPrice, maxPrice);
+    public ProductPage getProductsByCategoryAndPriceRange(String category, BigDecimal minPrice, BigDecimal maxPrice,
+                                                          KeysetPageRequest page) {
+        hotKeys.category(category);
+        return getProducts(ProductFilter.byCategoryAndPriceRange(category, minPrice, maxPrice), page);
+    }
+    
+    // Get one keyset page of products matching the filter; fetches one extra row to detect a next page and
+    // reads only the requested fields plus those the cursor and ETag need. Identical concurrent page queries
+    // share one query.
+    public ProductPage getProducts(ProductFilter filter, KeysetPageRequest page) {
+        ProductFields fields = page.getFields().forPage(page.getSort());
+        List<Object> key = Arrays.asList(filter, page.getSort(), page.getAfter(), page.getLimit(), fields);
+        List<Product> rows = reads.read("findPage", key, () -> productRepository.findPage(filter, page.getSort(),
+                page.getAfter(), page.getLimit() + 1, fields));
+        return ProductPage.fromRows(rows, page);
     }
     
-    // Update stock quantity
+    // Category, price-bucket and stock counts over the products matching the query's filter, from one
+    // aggregation; identical queries are answered from a short-lived cache
+    public ProductFacets getFacets(ProductFacetsQuery query) {
+        return facetsCache.get(query, key -> reads.read("facets", key, () -> productRepository.facets(key)));
+    }
+    
+    // Update stock quantity in a single atomic write, or through the write-behind buffer when it is enabled
     public Product updateStockQuantity(String id, Integer newQuantity) {
+        if (stockWriteBehind.accepts(id)) {
+            Product product = productCache.getById(id, this::findById)
+                    .orElseThrow(() -> new ProductNotFoundException(id));
+            // The stored product plus every update buffered for it, this one included
+            Product buffered = withPendingStock(product, stockWriteBehind.set(id, newQuantity));
+            buffered.setUpdatedAt(LocalDateTime.now());
+            lowStockTracker.update(buffered);
+            eventLog.stockChanged(buffered);
+            return buffered;
+        }
+        return productRepository.setStock(id, newQuantity)
+                .map(this::stockWritten)
+                .orElseThrow(() -> new ProductNotFoundException(id));
+    }
+    
+    // Add delta (which may be negative) to the stock in a single atomic write; never goes below zero
+    public Product adjustStockQuantity(String id, int delta) {
+        if (delta == Integer.MIN_VALUE) {
+            throw new ProductValidationException("Stock adjustment is out of range");
+        }
+        // The increment applies to the stored stock, so a buffered quantity must be written first
+        stockWriteBehind.flushIfPending(id);
+        return productRepository.adjustStock(id, delta)
+                .map(this::stockWritten)
+                .orElseThrow(() -> stockUpdateFailure(id, delta));
+    }
+    
+    // Reserve quantity units, succeeding only if at least that many are in stock
+    public Product reserveStock(String id, int quantity) {
+        if (quantity <= 0) {
+            throw new ProductValidationException("Reservation quantity must be positive");
+        }
+        return adjustStockQuantity(id, -quantity);
+    }
+    
+    // Products currently below their reorder threshold, from the incrementally maintained set
+    public LowStockEvent getLowStockSnapshot() {
+        return lowStockTracker.snapshot();
+    }
+    
+    // The low-stock set as a snapshot followed by deltas
+    public Flux<LowStockEvent> lowStockEvents() {
+        return lowStockTracker.events();
+    }
+    
+    // Product changes as they happen; resumes after lastEventId when it is still in the replay buffer
+    public Flux<ProductEvent> productEvents(String lastEventId) {
+        return eventLog.events(lastEventId);
+    }
+    
+    // Refresh the cache and the low-stock set with a document just returned by a stock write, and publish it
+    private Product stockWritten(Product product) {
+        reads.writeCompleted();
+        productCache.put(product);
+        lowStockTracker.update(product);
+        eventLog.stockChanged(product);
+        return product;
+    }
+    
+    // Lookup of many ids from the database, one $in query per chunk
+    private List<Product> findAllById(List<String> ids) {
+        List<Product> products = new ArrayList<>(ids.size());
+        for (int from = 0; from < ids.size(); from += BATCH_GET_CHUNK_SIZE) {
+            int to = Math.min(ids.size(), from + BATCH_GET_CHUNK_SIZE);
+            products.addAll(productRepository.findAllById(ids.subList(from, to)));
+        }
+        return products;
+    }
+    
+    // Lookup by id from the database, shared with an identical lookup already in flight
+    private Optional<Product> findById(String id) {
+        return reads.read("findById", id, () -> productRepository.findById(id));
+    }
+    
+    // A copy of product with its buffered stock update applied, or product itself when nothing is buffered
+    private Product withPendingStock(Product product) {
+        StockWrite pending = stockWriteBehind.pending(product.getId());
+        return pending == null ? product : withPendingStock(product, pending);
+    }
+    
+    // The version advances as it will when the buffer is flushed, so ETags change with the stock
+    private static Product withPendingStock(Product stored, StockWrite pending) {
+        Product buffered = new Product(stored);
+        buffered.setStockQuantity(pending.getQuantity());
+        buffered.setVersion((stored.getVersion() == null ? 0 : stored.getVersion()) + pending.getUpdates());
+        return buffered;
+    }
+    
+    private static OptimisticLockingFailureException versionConflict(String id, long expectedVersion) {
+        return new OptimisticLockingFailureException("Product " + id + " is no longer at version " + expectedVersion);
+    }
+    
+    // A conditional stock write matched nothing: the product is missing, has no stock, or delta is out of range
+    private ProductException stockUpdateFailure(String id, int delta) {
         return productRepository.findById(id)
-                .map(existingProduct -> {
-                    existingProduct.setStockQuantity(newQuantity);
-                    existingProduct.setUpdatedAt(LocalDateTime.now());
-                    return productRepository.save(existingProduct);
-                })
-                .orElseThrow(() -> new RuntimeException("Product not found with id: " + id));
+                .map(product -> adjustmentRejected(product, delta))
+                .orElseGet(() -> new ProductNotFoundException(id));
+    }
+
+    // Why adjustStock left product alone: it has no stock to adjust, or delta would take it out of range
+    static ProductException adjustmentRejected(Product product, int delta) {
+        if (product.getStockQuantity() == null) {
+            return new ProductValidationException("Product " + product.getId() + " has no stock quantity to adjust");
+        }
+        if (delta > 0) {
+            return new ProductValidationException(
+                    "Stock for product " + product.getId() + " cannot exceed " + Integer.MAX_VALUE);
+        }
+        return new InsufficientStockException(
+                "Insufficient stock for product " + product.getId() + ": requested " + -delta);
     }
-} 
\ No newline at end of file
+}
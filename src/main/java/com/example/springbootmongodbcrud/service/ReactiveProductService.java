@@ -0,0 +1,281 @@
+package com.example.springbootmongodbcrud.service;
+
+import com.example.springbootmongodbcrud.exception.ProductConflictException;
+import com.example.springbootmongodbcrud.exception.ProductNotFoundException;
+import com.example.springbootmongodbcrud.exception.ProductValidationException;
+import com.example.springbootmongodbcrud.model.BatchGetResult;
+import com.example.springbootmongodbcrud.model.BulkCreateResult;
+import com.example.springbootmongodbcrud.model.KeysetPageRequest;
+import com.example.springbootmongodbcrud.model.LowStockEvent;
+import com.example.springbootmongodbcrud.model.Product;
+import com.example.springbootmongodbcrud.model.ProductEvent;
+import com.example.springbootmongodbcrud.model.ProductFacets;
+import com.example.springbootmongodbcrud.model.ProductFacetsQuery;
+import com.example.springbootmongodbcrud.model.ProductFields;
+import com.example.springbootmongodbcrud.model.ProductFilter;
+import com.example.springbootmongodbcrud.model.ProductPage;
+import com.example.springbootmongodbcrud.repository.ReactiveProductRepository;
+import jakarta.validation.Validator;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Profile;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Non-blocking counterpart of {@link ProductService} for the {@code reactive} profile. Validation, paging
+ * and error semantics match the blocking service; the node-local product cache is not used in this mode,
+ * but facet counts are cached the same way.
+ */
+@Service
+@Profile("reactive")
+public class ReactiveProductService {
+    
+    private final ReactiveProductRepository productRepository;
+    
+    private final Validator validator;
+    
+    private final ProductFacetsCache facetsCache;
+    
+    private final LowStockTracker lowStockTracker;
+    
+    private final ProductEventLog eventLog;
+    
+    private final HotKeyTracker hotKeys;
+    
+    @Autowired
+    public ReactiveProductService(ReactiveProductRepository productRepository, Validator validator,
+                                  ProductFacetsCache facetsCache, LowStockTracker lowStockTracker,
+                                  ProductEventLog eventLog, HotKeyTracker hotKeys) {
+        this.productRepository = productRepository;
+        this.validator = validator;
+        this.facetsCache = facetsCache;
+        this.lowStockTracker = lowStockTracker;
+        this.eventLog = eventLog;
+        this.hotKeys = hotKeys;
+    }
+    
+    // Create a new product
+    public Mono<Product> createProduct(Product product) {
+        return productRepository.existsByName(product.getName())
+                .flatMap(exists -> {
+                    if (exists) {
+                        return Mono.error(ProductConflictException.duplicateName(product.getName()));
+                    }
+                    product.setCreatedAt(LocalDateTime.now());
+                    product.setUpdatedAt(LocalDateTime.now());
+                    // A client-supplied version would turn the insert into a versioned update
+                    product.setVersion(null);
+                    return productRepository.save(product).doOnNext(saved -> {
+                        lowStockTracker.update(saved);
+                        eventLog.created(saved);
+                    });
+                });
+    }
+    
+    // Create many products in one unordered bulk write, reporting each item on its own
+    public Mono<BulkCreateResult> createProducts(List<Product> products) {
+        return Mono.fromCallable(() -> BulkCreatePlan.prepare(products, validator))
+                .flatMap(plan -> productRepository.insertUnordered(plan.accepted())
+                        .map(plan::complete)
+                        .doOnNext(result -> {
+                            for (Product created : plan.created()) {
+                                lowStockTracker.update(created);
+                                eventLog.created(created);
+                            }
+                        }));
+    }
+    
+    // Get one page of all products
+    public Mono<ProductPage> getAllProducts(KeysetPageRequest page) {
+        return getProducts(ProductFilter.all(), page);
+    }
+    
+    // Emit the whole catalog in _id order at the pace the subscriber requests
+    public Flux<Product> streamAllProducts() {
+        return streamAllProducts(ProductFields.ALL);
+    }
+    
+    // Stream the whole catalog reading only the selected fields
+    public Flux<Product> streamAllProducts(ProductFields fields) {
+        return productRepository.streamAll(fields);
+    }
+    
+    // Get product by ID
+    public Mono<Product> getProductById(String id) {
+        hotKeys.product(id);
+        return productRepository.findById(id);
+    }
+    
+    // Get product by name
+    public Mono<Product> getProductByName(String name) {
+        return productRepository.findByName(name)
+                .doOnNext(found -> hotKeys.product(found.getId()));
+    }
+    
+    // Get many products by id in request order, marking ids that do not exist; one $in query per chunk of ids
+    public Mono<BatchGetResult> getProductsByIds(List<String> ids) {
+        return Mono.fromCallable(() -> BatchGetResult.distinctIds(ids))
+                .doOnNext(distinct -> distinct.forEach(hotKeys::product))
+                .flatMapMany(distinct -> Flux.fromIterable(distinct).buffer(ProductService.BATCH_GET_CHUNK_SIZE))
+                .concatMap(productRepository::findAllById)
+                .collectMap(Product::getId)
+                .map(found -> BatchGetResult.of(ids, found));
+    }
+    
+    // Update product. The write only applies while the product is still at the version read here, so a
+    // concurrent update fails with OptimisticLockingFailureException instead of being overwritten
+    public Mono<Product> updateProduct(String id, Product productDetails) {
+        return updateProduct(id, productDetails, null);
+    }
+    
+    // Update product only if it is at expectedVersion (If-Match); null means the version read here
+    public Mono<Product> updateProduct(String id, Product productDetails, Long expectedVersion) {
+        return productRepository.findById(id)
+                .switchIfEmpty(Mono.error(() -> new ProductNotFoundException(id)))
+                .flatMap(existingProduct -> {
+                    long currentVersion = existingProduct.getVersion() == null ? 0 : existingProduct.getVersion();
+                    if (expectedVersion != null && expectedVersion != currentVersion) {
+                        return Mono.error(versionConflict(id, expectedVersion));
+                    }
+                    // Check if the new name conflicts with another product
+                    Mono<Boolean> conflict = existingProduct.getName().equals(productDetails.getName())
+                            ? Mono.just(false)
+                            : productRepository.existsByName(productDetails.getName());
+                    return conflict.flatMap(exists -> {
+                        if (exists) {
+                            return Mono.error(ProductConflictException.duplicateName(productDetails.getName()));
+                        }
+                        existingProduct.setName(productDetails.getName());
+                        existingProduct.setDescription(productDetails.getDescription());
+                        existingProduct.setPrice(productDetails.getPrice());
+                        existingProduct.setCategory(productDetails.getCategory());
+                        existingProduct.setStockQuantity(productDetails.getStockQuantity());
+                        existingProduct.setReorderThreshold(productDetails.getReorderThreshold());
+                        return productRepository.updateIfVersion(existingProduct, currentVersion)
+                                .switchIfEmpty(Mono.error(() -> versionConflict(id, currentVersion)))
+                                .doOnNext(saved -> {
+                                    lowStockTracker.update(saved);
+                                    eventLog.updated(saved);
+                                });
+                    });
+                });
+    }
+    
+    // Delete product
+    public Mono<Void> deleteProduct(String id) {
+        return productRepository.existsById(id)
+                .flatMap(exists -> exists
+                        ? productRepository.deleteById(id).then(Mono.fromRunnable(() -> {
+                            lowStockTracker.remove(id);
+                            eventLog.deleted(id);
+                        }))
+                        : Mono.error(new ProductNotFoundException(id)));
+    }
+    
+    // Get products by category
+    public Mono<ProductPage> getProductsByCategory(String category, KeysetPageRequest page) {
+        hotKeys.category(category);
+        return getProducts(ProductFilter.byCategory(category), page);
+    }
+    
+    // Get products by price range
+    public Mono<ProductPage> getProductsByPriceRange(BigDecimal minPrice, BigDecimal maxPrice, KeysetPageRequest page) {
+        return getProducts(ProductFilter.byPriceRange(minPrice, maxPrice), page);
+    }
+    
+    // Get products with low stock (less than given quantity)
+    public Mono<ProductPage> getProductsWithLowStock(Integer quantity, KeysetPageRequest page) {
+        return getProducts(ProductFilter.stockBelow(quantity), page);
+    }
+    
+    // Search products by name (case-insensitive)
+    public Mono<ProductPage> searchProductsByName(String name, KeysetPageRequest page) {
+        hotKeys.search(name);
+        return getProducts(ProductFilter.nameContains(name), page);
+    }
+    
+    // Get products by category and price range
+    public Mono<ProductPage> getProductsByCategoryAndPriceRange(String category, BigDecimal minPrice,
+                                                                BigDecimal maxPrice, KeysetPageRequest page) {
+        hotKeys.category(category);
+        return getProducts(ProductFilter.byCategoryAndPriceRange(category, minPrice, maxPrice), page);
+    }
+    
+    // Get one keyset page of products matching the filter; fetches one extra row to detect a next page and
+    // reads only the requested fields plus those the cursor and ETag need
+    public Mono<ProductPage> getProducts(ProductFilter filter, KeysetPageRequest page) {
+        return productRepository.findPage(filter, page.getSort(), page.getAfter(), page.getLimit() + 1,
+                page.getFields().forPage(page.getSort()))
+                .collectList()
+                .map(rows -> ProductPage.fromRows(rows, page));
+    }
+    
+    // Category, price-bucket and stock counts over the products matching the query's filter, from one
+    // aggregation; identical queries are answered from a short-lived cache
+    public Mono<ProductFacets> getFacets(ProductFacetsQuery query) {
+        return facetsCache.get(query, Mono.defer(() -> productRepository.facets(query)));
+    }
+    
+    // Update stock quantity in a single atomic write
+    public Mono<Product> updateStockQuantity(String id, Integer newQuantity) {
+        return productRepository.setStock(id, newQuantity)
+                .switchIfEmpty(Mono.error(() -> new ProductNotFoundException(id)))
+                .doOnNext(this::stockWritten);
+    }
+    
+    // Add delta (which may be negative) to the stock in a single atomic write; never goes below zero
+    public Mono<Product> adjustStockQuantity(String id, int delta) {
+        if (delta == Integer.MIN_VALUE) {
+            return Mono.error(new ProductValidationException("Stock adjustment is out of range"));
+        }
+        return productRepository.adjustStock(id, delta)
+                .switchIfEmpty(Mono.defer(() -> stockUpdateFailure(id, delta)))
+                .doOnNext(this::stockWritten);
+    }
+    
+    // Reserve quantity units, succeeding only if at least that many are in stock
+    public Mono<Product> reserveStock(String id, int quantity) {
+        if (quantity <= 0) {
+            return Mono.error(new ProductValidationException("Reservation quantity must be positive"));
+        }
+        return adjustStockQuantity(id, -quantity);
+    }
+    
+    // Products currently below their reorder threshold, from the incrementally maintained set
+    public Mono<LowStockEvent> getLowStockSnapshot() {
+        return Mono.fromSupplier(lowStockTracker::snapshot);
+    }
+    
+    // The low-stock set as a snapshot followed by deltas
+    public Flux<LowStockEvent> lowStockEvents() {
+        return lowStockTracker.events();
+    }
+    
+    // Product changes as they happen; resumes after lastEventId when it is still in the replay buffer
+    public Flux<ProductEvent> productEvents(String lastEventId) {
+        return eventLog.events(lastEventId);
+    }
+    
+    // Update the low-stock set with a document just returned by a stock write, and publish it
+    private void stockWritten(Product product) {
+        lowStockTracker.update(product);
+        eventLog.stockChanged(product);
+    }
+    
+    // A conditional stock write matched nothing: the product is missing, has no stock, or delta is out of range
+    private Mono<Product> stockUpdateFailure(String id, int delta) {
+        return productRepository.findById(id)
+                .<Product>flatMap(product -> Mono.error(ProductService.adjustmentRejected(product, delta)))
+                .switchIfEmpty(Mono.error(() -> new ProductNotFoundException(id)));
+    }
+    
+    private static OptimisticLockingFailureException versionConflict(String id, long expectedVersion) {
+        return new OptimisticLockingFailureException("Product " + id + " is no longer at version " + expectedVersion);
+    }
+}
@@ -0,0 +1,149 @@
+package com.example.springbootmongodbcrud.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Single-flight coalescing of identical reads. The first caller for a key runs the backend call; callers
+ * arriving with the same key while it is in flight wait for it and share its result (or its exception)
+ * instead of issuing their own. Nothing is kept once the call completes, so this only collapses concurrent
+ * misses, such as a burst of requests for one product.
+ *
+ * <p>A caller may be handed a result read just before it arrived, but never one read before a write that
+ * completed before it arrived: writers call {@link #writeCompleted()}, and a caller only joins reads started
+ * since the last write. That guarantees a backend call issued after the write, not a result that includes
+ * it: point reads ({@code findById}, {@code findByName}) go to the primary, so a client reads its own writes
+ * back, while list and facet reads are only as consistent as the {@code ProductReadPreferences} they run
+ * with.
+ *
+ * <p>Waiters block on a {@link CompletableFuture}, not a monitor, so virtual threads park without pinning.
+ * Results are shared between callers and must not be mutated. Each read is counted as
+ * {@code product.reads{operation, result}} with result {@code executed} or {@code collapsed}.
+ *
+ * <p>Disable with {@code app.reads.coalesce.enabled=false}.
+ */
+@Component
+public class ReadCoalescer {
+
+    private final boolean enabled;
+
+    private final MeterRegistry registry;
+
+    // Bumped by every completed write; reads only collapse within one generation
+    private final AtomicLong writes = new AtomicLong();
+
+    private final ConcurrentHashMap<Key, CompletableFuture<Object>> inFlight = new ConcurrentHashMap<>();
+
+    private final ConcurrentHashMap<String, Counter> executed = new ConcurrentHashMap<>();
+
+    private final ConcurrentHashMap<String, Counter> collapsed = new ConcurrentHashMap<>();
+
+    public ReadCoalescer(MeterRegistry registry, @Value("${app.reads.coalesce.enabled:true}") boolean enabled) {
+        this.registry = registry;
+        this.enabled = enabled;
+    }
+
+    // The result of loader, or of an identical read (same operation and key) already in flight
+    @SuppressWarnings("unchecked")
+    public <T> T read(String operation, Object key, Supplier<T> loader) {
+        if (!enabled) {
+            return loader.get();
+        }
+        Key flight = new Key(operation, key, writes.get());
+        CompletableFuture<Object> mine = new CompletableFuture<>();
+        CompletableFuture<Object> leader = inFlight.putIfAbsent(flight, mine);
+        if (leader != null) {
+            counter(collapsed, operation, "collapsed").increment();
+            return (T) await(leader);
+        }
+        counter(executed, operation, "executed").increment();
+        try {
+            T result = loader.get();
+            mine.complete(result);
+            return result;
+        } catch (RuntimeException | Error e) {
+            mine.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(flight, mine);
+        }
+    }
+
+    // Call once a write is applied and before it is acknowledged, so callers arriving afterwards do not join
+    // reads that may have missed it
+    public void writeCompleted() {
+        writes.incrementAndGet();
+    }
+
+    // Reads collapsed into another caller's for operation, for tests and diagnostics
+    public long collapsedCount(String operation) {
+        Counter counter = collapsed.get(operation);
+        return counter == null ? 0 : (long) counter.count();
+    }
+
+    private Counter counter(ConcurrentHashMap<String, Counter> counters, String operation, String result) {
+        return counters.computeIfAbsent(operation, name -> Counter.builder("product.reads")
+                .description("Product reads by whether they ran a backend call or shared one in flight")
+                .tag("operation", name)
+                .tag("result", result)
+                .register(registry));
+    }
+
+    // Rethrow the leader's exception as is, rather than wrapped in CompletionException
+    private static Object await(CompletableFuture<Object> leader) {
+        try {
+            return leader.join();
+        } catch (CompletionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw e;
+        }
+    }
+
+    private static final class Key {
+
+        private final String operation;
+
+        private final Object key;
+
+        private final long generation;
+
+        Key(String operation, Object key, long generation) {
+            this.operation = operation;
+            this.key = key;
+            this.generation = generation;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key other = (Key) o;
+            return generation == other.generation && operation.equals(other.operation)
+                    && Objects.equals(key, other.key);
+        }
+
+        @Override
+        public int hashCode() {
+            return (operation.hashCode() * 31 + Objects.hashCode(key)) * 31 + Long.hashCode(generation);
+        }
+    }
+}
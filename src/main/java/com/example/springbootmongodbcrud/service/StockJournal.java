@@ -0,0 +1,217 @@
+package com.example.springbootmongodbcrud.service;
+
+import com.example.springbootmongodbcrud.repository.StockWrite;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only journal of buffered stock updates, split into numbered segment files. Each record is one line,
+ * {@code <quantity>\t<crc32>\t<id>}, so a line torn by a crash fails its checksum and is skipped on replay.
+ *
+ * <p>{@link #sync} makes records durable with group commit: one caller's {@code fsync} covers every record
+ * appended before it, and callers whose record is already covered return without syncing. {@link #rotate}
+ * starts a new segment so the previous ones can be deleted once their updates are stored elsewhere.
+ */
+final class StockJournal implements AutoCloseable {
+
+    private static final Pattern SEGMENT = Pattern.compile("stock-journal-(\\d+)\\.log");
+
+    private final Path directory;
+
+    private final Object syncLock = new Object();
+
+    // Guarded by this
+    private FileChannel channel;
+
+    // Guarded by this
+    private long segment;
+
+    // Guarded by this
+    private long appended;
+
+    private final AtomicLong synced = new AtomicLong();
+
+    private StockJournal(Path directory, long segment) throws IOException {
+        this.directory = directory;
+        this.segment = segment;
+        this.channel = open(segment);
+    }
+
+    // Open the journal in directory, appending to a new segment after any existing ones
+    static StockJournal open(Path directory) {
+        try {
+            Files.createDirectories(directory);
+            List<Long> segments = segments(directory);
+            return new StockJournal(directory, segments.isEmpty() ? 1 : segments.get(segments.size() - 1) + 1);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot open stock journal in " + directory, e);
+        }
+    }
+
+    // The journaled updates to each product coalesced into one write, across every segment still on disk
+    static Map<String, StockWrite> replay(Path directory) {
+        Map<String, StockWrite> writes = new LinkedHashMap<>();
+        if (!Files.isDirectory(directory)) {
+            return writes;
+        }
+        try {
+            for (long segment : segments(directory)) {
+                Path file = directory.resolve(name(segment));
+                try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+                    String line;
+                    while ((line = reader.readLine()) != null) {
+                        readRecord(line, writes);
+                    }
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot replay stock journal in " + directory, e);
+        }
+        return writes;
+    }
+
+    // Write one record; returns its position for sync()
+    synchronized long append(String id, int quantity) {
+        String body = quantity + "\t" + Long.toHexString(checksum(id, quantity)) + "\t" + id + "\n";
+        ByteBuffer buffer = ByteBuffer.wrap(body.getBytes(StandardCharsets.UTF_8));
+        try {
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot write stock journal", e);
+        }
+        return ++appended;
+    }
+
+    // Return once the record at position, and every one before it, is on stable storage
+    void sync(long position) {
+        if (synced.get() >= position) {
+            return;
+        }
+        synchronized (syncLock) {
+            if (synced.get() >= position) {
+                return;
+            }
+            long target;
+            FileChannel current;
+            synchronized (this) {
+                target = appended;
+                current = channel;
+            }
+            try {
+                current.force(false);
+            } catch (ClosedChannelException e) {
+                // rotate() forced and closed this segment after target was read, so target is durable
+            } catch (IOException e) {
+                throw new UncheckedIOException("Cannot sync stock journal", e);
+            }
+            synced.accumulateAndGet(target, Math::max);
+        }
+    }
+
+    // Start a new segment; returns the number of the last closed one
+    synchronized long rotate() {
+        try {
+            channel.force(false);
+            synced.accumulateAndGet(appended, Math::max);
+            channel.close();
+            channel = open(segment + 1);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot rotate stock journal", e);
+        }
+        return segment++;
+    }
+
+    // The number of the segment being appended to
+    synchronized long currentSegment() {
+        return segment;
+    }
+
+    // Delete every segment up to and including lastSegment
+    void deleteThrough(long lastSegment) {
+        try {
+            for (long old : segments(directory)) {
+                if (old <= lastSegment) {
+                    Files.deleteIfExists(directory.resolve(name(old)));
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot delete stock journal segments", e);
+        }
+    }
+
+    @Override
+    public synchronized void close() {
+        try {
+            channel.force(false);
+            channel.close();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot close stock journal", e);
+        }
+    }
+
+    private FileChannel open(long number) throws IOException {
+        return FileChannel.open(directory.resolve(name(number)),
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+    }
+
+    private static List<Long> segments(Path directory) throws IOException {
+        List<Long> segments = new ArrayList<>();
+        try (Stream<Path> files = Files.list(directory)) {
+            files.forEach(file -> {
+                Matcher matcher = SEGMENT.matcher(file.getFileName().toString());
+                if (matcher.matches()) {
+                    segments.add(Long.parseLong(matcher.group(1)));
+                }
+            });
+        }
+        segments.sort(null);
+        return segments;
+    }
+
+    private static String name(long segment) {
+        return "stock-journal-" + segment + ".log";
+    }
+
+    private static void readRecord(String line, Map<String, StockWrite> writes) {
+        int first = line.indexOf('\t');
+        int second = first < 0 ? -1 : line.indexOf('\t', first + 1);
+        if (second < 0) {
+            return;
+        }
+        try {
+            int quantity = Integer.parseInt(line.substring(0, first));
+            String id = line.substring(second + 1);
+            if (Long.parseLong(line.substring(first + 1, second), 16) == checksum(id, quantity)) {
+                writes.merge(id, new StockWrite(quantity, 1), StockWrite::then);
+            }
+        } catch (NumberFormatException e) {
+            // Torn or corrupt record
+        }
+    }
+
+    private static long checksum(String id, int quantity) {
+        CRC32 crc = new CRC32();
+        crc.update((quantity + "\t" + id).getBytes(StandardCharsets.UTF_8));
+        return crc.getValue();
+    }
+}
@@ -0,0 +1,290 @@
+package com.example.springbootmongodbcrud.service;
+
+import com.example.springbootmongodbcrud.repository.ProductRepository;
+import com.example.springbootmongodbcrud.repository.StockWrite;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.web.context.WebServerGracefulShutdownLifecycle;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Opt-in write-behind buffer for absolute stock updates ({@code PATCH /api/products/{id}/stock?quantity=}).
+ * Each update is appended to a local {@link StockJournal} and acknowledged once the journal is synced; updates
+ * to the same product are coalesced in memory so only the latest quantity is written, advancing the version
+ * once per update. The buffer is flushed to the database in one bulk write every {@code flush-interval}, or as
+ * soon as {@code flush-size} products are pending, and the journal segments it covered are then deleted.
+ *
+ * <p>On startup the journal left by a previous run is replayed and flushed, so an acknowledged update
+ * survives a crash. This runs in a lifecycle phase before the web server starts and stops after it, so no
+ * request writes stock around the buffer while the journal is replayed or drained. A failed flush puts its
+ * updates back (unless newer ones arrived) and keeps their segments for the next attempt.
+ *
+ * <p>Journal records hold absolute quantities and no version, and segments are deleted only after the bulk
+ * write returns. A crash between the two replays those quantities on the next start, over any adjustment,
+ * reservation or full update made to the same products in between; keep such writes off products whose
+ * stock is set through the buffer if that window matters.
+ *
+ * <p>Point reads overlay the pending quantity; list and search reads see it once flushed. Writes that read
+ * or replace the stored stock (adjustments, reservations, full updates) flush the product first.
+ *
+ * <p>Enable with {@code app.stock.write-behind.enabled=true}.
+ */
+@Component
+public class StockWriteBehind implements SmartLifecycle {
+
+    private static final Logger log = LoggerFactory.getLogger(StockWriteBehind.class);
+
+    private final ProductRepository productRepository;
+
+    private final ProductCache productCache;
+
+    private final MeterRegistry registry;
+
+    private final boolean enabled;
+
+    private final Path journalDirectory;
+
+    private final boolean fsync;
+
+    private final int flushSize;
+
+    private final Duration flushInterval;
+
+    private final Counter acceptedUpdates;
+
+    private final Counter flushedWrites;
+
+    // Guarded by this
+    private Map<String, StockWrite> pending = new HashMap<>();
+
+    // Taken from pending by the flush in progress and still readable until it is written; guarded by this
+    private Map<String, StockWrite> flushing = Map.of();
+
+    // Held for the whole of a flush, so flushes never overlap
+    private final Object flushLock = new Object();
+
+    private volatile StockJournal journal;
+
+    private volatile boolean running;
+
+    private Thread worker;
+
+    public StockWriteBehind(
+            ProductRepository productRepository,
+            ProductCache productCache,
+            MeterRegistry registry,
+            @Value("${app.stock.write-behind.enabled:false}") boolean enabled,
+            @Value("${app.stock.write-behind.journal-dir:data/stock-journal}") String journalDirectory,
+            @Value("${app.stock.write-behind.fsync:true}") boolean fsync,
+            @Value("${app.stock.write-behind.flush-size:1000}") int flushSize,
+            @Value("${app.stock.write-behind.flush-interval:200ms}") Duration flushInterval) {
+        if (flushSize <= 0) {
+            throw new IllegalArgumentException("app.stock.write-behind.flush-size must be positive");
+        }
+        this.productRepository = productRepository;
+        this.productCache = productCache;
+        this.registry = registry;
+        this.enabled = enabled;
+        this.journalDirectory = Path.of(journalDirectory);
+        this.fsync = fsync;
+        this.flushSize = flushSize;
+        this.flushInterval = flushInterval;
+        this.acceptedUpdates = Counter.builder("product.stock.write-behind.accepted")
+                .description("Stock updates acknowledged from the journal")
+                .register(registry);
+        this.flushedWrites = Counter.builder("product.stock.write-behind.flushed")
+                .description("Coalesced stock writes sent to the database")
+                .register(registry);
+    }
+
+    // Registered once constructed, since the gauge reads this buffer
+    @PostConstruct
+    void registerPendingGauge() {
+        Gauge.builder("product.stock.write-behind.pending", this, StockWriteBehind::pendingCount)
+                .description("Products with a stock update not yet written to the database")
+                .register(registry);
+    }
+
+    @Override
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        Map<String, StockWrite> replayed = StockJournal.replay(journalDirectory);
+        journal = StockJournal.open(journalDirectory);
+        if (replayed.isEmpty()) {
+            // Nothing in the old segments but torn records
+            journal.deleteThrough(journal.currentSegment() - 1);
+        } else {
+            log.info("Replaying {} journaled stock updates", replayed.size());
+            synchronized (this) {
+                pending.putAll(replayed);
+            }
+            // A failure leaves them pending, and their segments on disk, for the worker to retry
+            tryFlush();
+        }
+        running = true;
+        worker = new Thread(this::run, "stock-write-behind");
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    @Override
+    public void stop() {
+        if (!running) {
+            return;
+        }
+        running = false;
+        synchronized (this) {
+            notifyAll();
+        }
+        try {
+            worker.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        tryFlush();
+        journal.close();
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    // Start before, and stop after, the web server and its graceful shutdown, so requests never bypass the
+    // buffer while the journal is replayed and are drained before the last flush
+    @Override
+    public int getPhase() {
+        return WebServerGracefulShutdownLifecycle.SMART_LIFECYCLE_PHASE - 1;
+    }
+
+    // Whether a stock update for id should go through the buffer rather than straight to the database
+    public boolean accepts(String id) {
+        // Line breaks would split the journal record
+        return running && id.indexOf('\n') < 0 && id.indexOf('\r') < 0;
+    }
+
+    // Journal and buffer a stock update; returns, once it is durable in the journal, everything now buffered
+    // for id (including updates still being flushed)
+    public StockWrite set(String id, int quantity) {
+        long position;
+        StockWrite buffered;
+        synchronized (this) {
+            position = journal.append(id, quantity);
+            StockWrite write = pending.merge(id, new StockWrite(quantity, 1), StockWrite::then);
+            StockWrite beingFlushed = flushing.get(id);
+            buffered = beingFlushed == null ? write : beingFlushed.then(write);
+            if (pending.size() >= flushSize) {
+                notifyAll();
+            }
+        }
+        if (fsync) {
+            journal.sync(position);
+        }
+        acceptedUpdates.increment();
+        return buffered;
+    }
+
+    // The updates to id not yet visible in the database, coalesced, or null if there are none
+    public StockWrite pending(String id) {
+        if (!running) {
+            return null;
+        }
+        synchronized (this) {
+            StockWrite write = pending.get(id);
+            StockWrite beingFlushed = flushing.get(id);
+            if (beingFlushed == null) {
+                return write;
+            }
+            return write == null ? beingFlushed : beingFlushed.then(write);
+        }
+    }
+
+    // Write id's buffered update, if any, before a write that reads or replaces the stored stock
+    public void flushIfPending(String id) {
+        if (pending(id) != null) {
+            flush();
+        }
+    }
+
+    // Drop id's buffered update; used when the product is deleted
+    public synchronized void discard(String id) {
+        pending.remove(id);
+    }
+
+    // Write everything buffered in one bulk write. Throws if the write fails; the updates stay buffered.
+    public void flush() {
+        synchronized (flushLock) {
+            Map<String, StockWrite> batch;
+            long lastSegment;
+            synchronized (this) {
+                if (pending.isEmpty()) {
+                    return;
+                }
+                batch = pending;
+                flushing = batch;
+                pending = new HashMap<>();
+                // Every record of the batch is in the segments closed here
+                lastSegment = journal.rotate();
+            }
+            try {
+                productRepository.setStocks(batch);
+            } catch (RuntimeException e) {
+                synchronized (this) {
+                    // Updates that arrived meanwhile are newer
+                    batch.forEach((id, failed) -> pending.merge(id, failed, (newer, older) -> older.then(newer)));
+                    flushing = Map.of();
+                }
+                throw e;
+            }
+            batch.keySet().forEach(productCache::invalidate);
+            synchronized (this) {
+                flushing = Map.of();
+            }
+            flushedWrites.increment(batch.size());
+            journal.deleteThrough(lastSegment);
+        }
+    }
+
+    public synchronized int pendingCount() {
+        return pending.size() + flushing.size();
+    }
+
+    private void run() {
+        while (running) {
+            synchronized (this) {
+                long deadline = System.nanoTime() + flushInterval.toNanos();
+                long remaining;
+                while (running && pending.size() < flushSize && (remaining = deadline - System.nanoTime()) > 0) {
+                    try {
+                        wait(Math.max(1, remaining / 1_000_000));
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        return;
+                    }
+                }
+            }
+            tryFlush();
+        }
+    }
+
+    private void tryFlush() {
+        try {
+            flush();
+        } catch (RuntimeException e) {
+            log.warn("Stock write-behind flush failed; {} updates stay buffered", pendingCount(), e);
+        }
+    }
+}
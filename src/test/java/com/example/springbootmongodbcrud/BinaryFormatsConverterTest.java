@@ -0,0 +1,107 @@
+package com.example.springbootmongodbcrud;
+
+import com.example.springbootmongodbcrud.config.BinaryFormatsConfig;
+import com.example.springbootmongodbcrud.model.BulkCreateResult;
+import com.example.springbootmongodbcrud.model.Product;
+import com.example.springbootmongodbcrud.model.ProductPage;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.support.DefaultListableBeanFactory;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import org.springframework.mock.http.MockHttpInputMessage;
+import org.springframework.mock.http.MockHttpOutputMessage;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BinaryFormatsConverterTest {
+
+    private static final MediaType PROTOBUF = MediaType.parseMediaType("application/x-protobuf");
+
+    private List<HttpMessageConverter<?>> converters;
+
+    private Product product;
+
+    @BeforeEach
+    void setUp() {
+        DefaultListableBeanFactory beanFactory = new DefaultListableBeanFactory();
+        beanFactory.registerSingleton("builder", Jackson2ObjectMapperBuilder.json());
+        converters = new ArrayList<>(List.of(new MappingJackson2HttpMessageConverter()));
+        new BinaryFormatsConfig(beanFactory.getBeanProvider(Jackson2ObjectMapperBuilder.class))
+                .extendMessageConverters(converters);
+
+        product = new Product("Laptop", "High-performance laptop", new BigDecimal("999.990"), "Electronics", 10);
+        product.setId("1");
+        product.setVersion(4L);
+        product.setCreatedAt(LocalDateTime.of(2024, 1, 2, 3, 4, 5));
+    }
+
+    @Test
+    void testJsonStaysFirst() {
+        assertInstanceOf(MappingJackson2HttpMessageConverter.class, converters.get(0));
+        assertEquals(4, converters.size());
+    }
+
+    @Test
+    void testProtobufRoundTripKeepsDecimalsAndTimestamps() throws Exception {
+        byte[] encoded = write(product, PROTOBUF);
+        Product decoded = (Product) read(Product.class, encoded, PROTOBUF);
+
+        assertEquals(product.toString(), decoded.toString());
+        assertEquals(new BigDecimal("999.990"), decoded.getPrice());
+        assertEquals(product.getCreatedAt(), decoded.getCreatedAt());
+        assertEquals(4L, decoded.getVersion());
+        assertTrue(encoded.length < write(product, MediaType.APPLICATION_JSON).length);
+
+        ProductPage page = new ProductPage(List.of(product), "next", 1);
+        ProductPage decodedPage = (ProductPage) read(ProductPage.class, write(page, PROTOBUF), PROTOBUF);
+        assertEquals("next", decodedPage.getNextCursor());
+        assertEquals(product.toString(), decodedPage.getItems().get(0).toString());
+    }
+
+    @Test
+    void testCborAndSmileRoundTrip() throws Exception {
+        for (MediaType mediaType : List.of(MediaType.APPLICATION_CBOR,
+                MediaType.parseMediaType("application/x-jackson-smile"))) {
+            Product decoded = (Product) read(Product.class, write(product, mediaType), mediaType);
+            assertEquals(new BigDecimal("999.990"), decoded.getPrice(), mediaType.toString());
+            assertEquals(product.getUpdatedAt(), decoded.getUpdatedAt(), mediaType.toString());
+        }
+    }
+
+    @Test
+    void testProtobufOnlyWritesTypesInTheSchema() {
+        assertTrue(converters.stream().noneMatch(converter -> converter.canWrite(BulkCreateResult.class, PROTOBUF)));
+    }
+
+    @SuppressWarnings("unchecked")
+    private byte[] write(Object value, MediaType mediaType) throws Exception {
+        MockHttpOutputMessage output = new MockHttpOutputMessage();
+        for (HttpMessageConverter<?> converter : converters) {
+            if (converter.canWrite(value.getClass(), mediaType)) {
+                ((HttpMessageConverter<Object>) converter).write(value, mediaType, output);
+                return output.getBodyAsBytes();
+            }
+        }
+        throw new AssertionError("No converter writes " + mediaType);
+    }
+
+    @SuppressWarnings("unchecked")
+    private Object read(Class<?> type, byte[] body, MediaType mediaType) throws Exception {
+        MockHttpInputMessage input = new MockHttpInputMessage(body);
+        input.getHeaders().setContentType(mediaType);
+        for (HttpMessageConverter<?> converter : converters) {
+            if (converter.canRead(type, mediaType)) {
+                return ((HttpMessageConverter<Object>) converter).read((Class<Object>) type, input);
+            }
+        }
+        throw new AssertionError("No converter reads " + mediaType);
+    }
+}
@@ -0,0 +1,130 @@
+package com.example.springbootmongodbcrud;
+
+import com.example.springbootmongodbcrud.limit.AdaptiveConcurrencyLimit;
+import com.example.springbootmongodbcrud.limit.ConcurrencyLimitFilter;
+import com.example.springbootmongodbcrud.limit.ProductApiLimits;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ConcurrencyLimitTest {
+
+    private static final long WINDOW = TimeUnit.MILLISECONDS.toNanos(100);
+
+    private final AtomicLong now = new AtomicLong();
+
+    @Test
+    void testRejectsOnceLimitIsReachedUntilAPermitIsReleased() {
+        AdaptiveConcurrencyLimit limit = new AdaptiveConcurrencyLimit(2, 1, 10, WINDOW, now::get);
+        AdaptiveConcurrencyLimit.Permit first = limit.tryAcquire();
+        assertNotNull(first);
+        assertNotNull(limit.tryAcquire());
+        assertNull(limit.tryAcquire());
+
+        first.release();
+        first.release();
+        assertEquals(1, limit.getInflight());
+        assertNotNull(limit.tryAcquire());
+    }
+
+    @Test
+    void testLimitShrinksWhenLatencyRisesAndRecoversWhenItFalls() {
+        AdaptiveConcurrencyLimit limit = new AdaptiveConcurrencyLimit(50, 4, 200, WINDOW, now::get);
+        runWindows(limit, 30, 40, 5);
+        int settled = limit.getLimit();
+        assertTrue(settled > 50, "flat latency under load should raise the limit, was " + settled);
+
+        // The database slows down tenfold: the limit backs off well below where it was
+        runWindows(limit, 10, 40, 50);
+        int throttled = limit.getLimit();
+        assertTrue(throttled < settled * 2 / 3, "limit should shrink from " + settled + ", was " + throttled);
+        assertTrue(throttled >= 4);
+
+        runWindows(limit, 30, throttled, 5);
+        assertTrue(limit.getLimit() > throttled, "limit should recover from " + throttled);
+    }
+
+    @Test
+    void testLimitDoesNotGrowWhileMostlyIdle() {
+        AdaptiveConcurrencyLimit limit = new AdaptiveConcurrencyLimit(50, 4, 200, WINDOW, now::get);
+        runWindows(limit, 30, 5, 5);
+        assertEquals(50, limit.getLimit());
+    }
+
+    @Test
+    void testClassifiesListAndPointRoutes() {
+        assertEquals(ProductApiLimits.Kind.LIST, ProductApiLimits.classify("GET", "/api/products"));
+        assertEquals(ProductApiLimits.Kind.LIST, ProductApiLimits.classify("GET", "/api/products/category/Books"));
+        assertEquals(ProductApiLimits.Kind.LIST, ProductApiLimits.classify("GET", "/api/products/search"));
+        assertEquals(ProductApiLimits.Kind.LIST, ProductApiLimits.classify("GET", "/api/products/low-stock/current"));
+        assertEquals(ProductApiLimits.Kind.LIST, ProductApiLimits.classify("POST", "/api/products/_batch-get"));
+        assertEquals(ProductApiLimits.Kind.POINT, ProductApiLimits.classify("GET", "/api/products/abc123"));
+        assertEquals(ProductApiLimits.Kind.POINT, ProductApiLimits.classify("GET", "/api/products/name/Laptop"));
+        assertEquals(ProductApiLimits.Kind.POINT, ProductApiLimits.classify("PATCH", "/api/products/abc123/stock"));
+        assertEquals(ProductApiLimits.Kind.POINT, ProductApiLimits.classify("POST", "/api/products"));
+        assertNull(ProductApiLimits.classify("GET", "/api/products/export"));
+        assertNull(ProductApiLimits.classify("GET", "/api/products/stream"));
+        assertNull(ProductApiLimits.classify("GET", "/api/products/low-stock/stream"));
+        assertNull(ProductApiLimits.classify("GET", "/api/admin/cache"));
+        assertNull(ProductApiLimits.classify("GET", "/api/productsx"));
+    }
+
+    @Test
+    void testFilterAnswers503WithRetryAfterWhenOverLimit() throws Exception {
+        ProductApiLimits limits = new ProductApiLimits(new SimpleMeterRegistry(), true, 4, 10, 4, 10, 4,
+                Duration.ofMillis(100), Duration.ofSeconds(2));
+        ConcurrencyLimitFilter filter = new ConcurrencyLimitFilter(limits,
+                new ObjectMapper().registerModule(new JavaTimeModule()));
+        List<AdaptiveConcurrencyLimit.Permit> held = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            held.add(limits.getLimit(ProductApiLimits.Kind.LIST).tryAcquire());
+        }
+
+        MockHttpServletResponse rejected = new MockHttpServletResponse();
+        MockFilterChain listChain = new MockFilterChain();
+        filter.doFilter(new MockHttpServletRequest("GET", "/api/products/search"), rejected, listChain);
+        assertEquals(503, rejected.getStatus());
+        assertEquals("2", rejected.getHeader("Retry-After"));
+        assertTrue(rejected.getContentAsString().contains("\"status\":503"));
+        assertNull(listChain.getRequest());
+
+        // Point reads have their own limit and still get through
+        MockHttpServletResponse admitted = new MockHttpServletResponse();
+        MockFilterChain pointChain = new MockFilterChain();
+        filter.doFilter(new MockHttpServletRequest("GET", "/api/products/abc123"), admitted, pointChain);
+        assertEquals(200, admitted.getStatus());
+        assertNotNull(pointChain.getRequest());
+        assertEquals(0, limits.getLimit(ProductApiLimits.Kind.POINT).getInflight());
+
+        held.forEach(AdaptiveConcurrencyLimit.Permit::release);
+        assertEquals(0, limits.getLimit(ProductApiLimits.Kind.LIST).getInflight());
+    }
+
+    // Each window: admit up to concurrency requests, let latencyMillis pass, then release them all
+    private void runWindows(AdaptiveConcurrencyLimit limit, int windows, int concurrency, long latencyMillis) {
+        for (int w = 0; w < windows; w++) {
+            now.addAndGet(WINDOW);
+            List<AdaptiveConcurrencyLimit.Permit> permits = new ArrayList<>();
+            for (int i = 0; i < concurrency; i++) {
+                AdaptiveConcurrencyLimit.Permit permit = limit.tryAcquire();
+                if (permit != null) {
+                    permits.add(permit);
+                }
+            }
+            now.addAndGet(TimeUnit.MILLISECONDS.toNanos(latencyMillis));
+            permits.forEach(AdaptiveConcurrencyLimit.Permit::release);
+        }
+    }
+}
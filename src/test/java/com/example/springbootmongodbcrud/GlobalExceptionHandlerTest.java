@@ -1,13 +1,22 @@
 package com.example.springbootmongodbcrud;
 
 import com.example.springbootmongodbcrud.exception.GlobalExceptionHandler;
+import com.example.springbootmongodbcrud.exception.InsufficientStockException;
+import com.example.springbootmongodbcrud.exception.ProductConflictException;
+import com.example.springbootmongodbcrud.exception.ProductNotFoundException;
+import com.example.springbootmongodbcrud.exception.ProductValidationException;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.springframework.beans.TypeMismatchException;
+import org.springframework.dao.DuplicateKeyException;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.ProblemDetail;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.BindingResult;
 import org.springframework.validation.FieldError;
 import org.springframework.web.bind.MethodArgumentNotValidException;
+import org.springframework.web.bind.support.WebExchangeBindException;
+import org.springframework.web.server.ResponseStatusException;
 
 import java.time.LocalDateTime;
 import java.util.Collections;
@@ -33,10 +42,10 @@ class GlobalExceptionHandlerTest {
         ResponseEntity<GlobalExceptionHandler.ErrorResponse> response = 
             exceptionHandler.handleRuntimeException(exception);
         
-        assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
+        assertEquals(HttpStatus.INTERNAL_SERVER_ERROR, response.getStatusCode());
         assertNotNull(response.getBody());
         assertEquals("Test runtime exception", response.getBody().getMessage());
-        assertEquals(400, response.getBody().getStatus());
+        assertEquals(500, response.getBody().getStatus());
         assertNotNull(response.getBody().getTimestamp());
     }
 
@@ -125,9 +134,83 @@ class GlobalExceptionHandlerTest {
         ResponseEntity<GlobalExceptionHandler.ErrorResponse> response = 
             exceptionHandler.handleRuntimeException(exception);
         
-        assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
+        assertEquals(HttpStatus.INTERNAL_SERVER_ERROR, response.getStatusCode());
         assertNotNull(response.getBody());
         assertNull(response.getBody().getMessage());
+        assertEquals(500, response.getBody().getStatus());
+    }
+
+    @Test
+    void testHandleWebExchangeBindExceptionUsesSameFieldMap() {
+        WebExchangeBindException exception = mock(WebExchangeBindException.class);
+        when(exception.getFieldErrors())
+            .thenReturn(Collections.singletonList(new FieldError("product", "name", "Name is required")));
+        
+        ResponseEntity<Map<String, String>> response = 
+            exceptionHandler.handleWebExchangeBindException(exception);
+        
+        assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
+        assertNotNull(response.getBody());
+        assertEquals("Name is required", response.getBody().get("name"));
+    }
+
+    @Test
+    void testHandleResponseStatusExceptionKeepsStatus() {
+        ResponseStatusException exception = 
+            new ResponseStatusException(HttpStatus.UNSUPPORTED_MEDIA_TYPE, "Unsupported media type");
+        
+        ResponseEntity<GlobalExceptionHandler.ErrorResponse> response = 
+            exceptionHandler.handleResponseStatusException(exception);
+        
+        assertEquals(HttpStatus.UNSUPPORTED_MEDIA_TYPE, response.getStatusCode());
+        assertNotNull(response.getBody());
+        assertEquals(415, response.getBody().getStatus());
+        assertEquals("Unsupported media type", response.getBody().getMessage());
+    }
+
+    @Test
+    void testProductExceptionsMapToProblemDetails() {
+        ProblemDetail notFound = exceptionHandler.handleNotFound(new ProductNotFoundException("42"));
+        assertEquals(404, notFound.getStatus());
+        assertEquals("Not Found", notFound.getTitle());
+        assertEquals("Product not found with id: 42", notFound.getDetail());
+        
+        ProblemDetail conflict = exceptionHandler.handleConflict(ProductConflictException.duplicateName("Laptop"));
+        assertEquals(409, conflict.getStatus());
+        assertEquals("Product with name 'Laptop' already exists", conflict.getDetail());
+        
+        ProblemDetail stock = exceptionHandler.handleConflict(new InsufficientStockException("Insufficient stock"));
+        assertEquals(409, stock.getStatus());
+        
+        ProblemDetail invalid = exceptionHandler.handleValidation(new ProductValidationException("Malformed cursor"));
+        assertEquals(400, invalid.getStatus());
+        assertEquals("Malformed cursor", invalid.getDetail());
+    }
+
+    @Test
+    void testDuplicateKeyIsAConflict() {
+        ProblemDetail conflict = exceptionHandler.handleDuplicateKey(
+            new DuplicateKeyException("E11000 duplicate key error collection: productdb.products index: name"));
+        
+        assertEquals(409, conflict.getStatus());
+        assertEquals("Conflict", conflict.getTitle());
+        assertEquals("A product with the same name or id already exists", conflict.getDetail());
+    }
+
+    @Test
+    void testClientInputErrorsStayBadRequests() {
+        ResponseEntity<GlobalExceptionHandler.ErrorResponse> response = 
+            exceptionHandler.handleBadRequest(new TypeMismatchException("many", Integer.class));
+        
+        assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
+        assertNotNull(response.getBody());
         assertEquals(400, response.getBody().getStatus());
     }
-} 
\ No newline at end of file
+
+    @Test
+    void testProductExceptionsDoNotCaptureStackTraces() {
+        assertEquals(0, new ProductNotFoundException("42").getStackTrace().length);
+        assertEquals(0, ProductConflictException.duplicateName("Laptop").getStackTrace().length);
+        assertEquals(0, new ProductValidationException("Malformed cursor", new NumberFormatException()).getStackTrace().length);
+    }
+}
@@ -0,0 +1,114 @@
+package com.example.springbootmongodbcrud;
+
+import com.example.springbootmongodbcrud.model.HotKeyReport;
+import com.example.springbootmongodbcrud.service.HotKeySketch;
+import com.example.springbootmongodbcrud.service.HotKeyTracker;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class HotKeySketchTest {
+
+    private final AtomicLong now = new AtomicLong(1_000_000);
+
+    @Test
+    void testHeavyHittersStandOutFromALongTail() {
+        // Far more distinct keys than counters or candidate slots
+        HotKeySketch sketch = new HotKeySketch(256, 4, 16, 6, 60_000, now::get);
+        for (int i = 0; i < 20_000; i++) {
+            sketch.record("tail-" + i);
+            if (i % 10 == 0) {
+                sketch.record("hot-a");
+            }
+            if (i % 20 == 0) {
+                sketch.record("hot-b");
+            }
+        }
+
+        HotKeyReport.Dimension top = sketch.top(2);
+        assertEquals(List.of("hot-a", "hot-b"), keys(top));
+        // Estimates never undercount
+        assertTrue(top.getTop().get(0).getCount() >= 2_000);
+        assertTrue(top.getTop().get(1).getCount() >= 1_000);
+        assertEquals(23_000, top.getTotal());
+    }
+
+    @Test
+    void testCountsLeaveTheWindowAsItSlides() {
+        HotKeySketch sketch = new HotKeySketch(256, 4, 16, 6, 60_000, now::get);
+        for (int i = 0; i < 5; i++) {
+            sketch.record("old");
+        }
+        now.addAndGet(30_000);
+        for (int i = 0; i < 3; i++) {
+            sketch.record("new");
+        }
+
+        HotKeyReport.Dimension both = sketch.top(10);
+        assertEquals(List.of("old", "new"), keys(both));
+        assertEquals(5, both.getTop().get(0).getCount());
+
+        // 40s later the first bucket has left the one-minute window
+        now.addAndGet(40_000);
+        HotKeyReport.Dimension recent = sketch.top(10);
+        assertEquals(List.of("new"), keys(recent));
+        assertEquals(3, recent.getTotal());
+
+        now.addAndGet(60_000);
+        assertTrue(sketch.top(10).getTop().isEmpty());
+    }
+
+    @Test
+    void testConcurrentRecordingLosesNothing() throws Exception {
+        HotKeySketch sketch = new HotKeySketch(1024, 4, 64, 6, 60_000, now::get);
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<?>> writers = new ArrayList<>();
+            for (int t = 0; t < 8; t++) {
+                writers.add(executor.submit(() -> {
+                    for (int i = 0; i < 10_000; i++) {
+                        sketch.record(i % 2 == 0 ? "hot" : "key-" + (i % 500));
+                    }
+                }));
+            }
+            for (Future<?> writer : writers) {
+                writer.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        HotKeyReport.Dimension top = sketch.top(1);
+        assertEquals(80_000, top.getTotal());
+        assertEquals("hot", top.getTop().get(0).getKey());
+        assertTrue(top.getTop().get(0).getCount() >= 40_000);
+    }
+
+    @Test
+    void testTrackerNormalizesSearchTerms() {
+        HotKeyTracker tracker = new HotKeyTracker(true, Duration.ofMinutes(1), 6, 256, 4, 16);
+        tracker.search("Laptop ");
+        tracker.search("laptop");
+        tracker.category("Books");
+
+        HotKeyReport report = tracker.report(5);
+        assertEquals(60, report.getWindowSeconds());
+        assertEquals("laptop", report.getSearchTerms().getTop().get(0).getKey());
+        assertEquals(2, report.getSearchTerms().getTop().get(0).getCount());
+        assertEquals(1, report.getCategories().getTotal());
+        assertEquals(0, report.getProducts().getTotal());
+    }
+
+    private static List<String> keys(HotKeyReport.Dimension dimension) {
+        return dimension.getTop().stream().map(HotKeyReport.Entry::getKey).collect(Collectors.toList());
+    }
+}
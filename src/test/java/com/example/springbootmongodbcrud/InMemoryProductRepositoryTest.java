@@ -0,0 +1,281 @@
+package com.example.springbootmongodbcrud;
+
+import com.example.springbootmongodbcrud.model.Product;
+import com.example.springbootmongodbcrud.model.ProductCursor;
+import com.example.springbootmongodbcrud.model.ProductFacets;
+import com.example.springbootmongodbcrud.model.ProductFacetsQuery;
+import com.example.springbootmongodbcrud.model.ProductFields;
+import com.example.springbootmongodbcrud.model.ProductFilter;
+import com.example.springbootmongodbcrud.model.ProductSort;
+import com.example.springbootmongodbcrud.repository.BulkInsertFailure;
+import com.example.springbootmongodbcrud.repository.InMemoryProductRepository;
+import com.example.springbootmongodbcrud.repository.StockWrite;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.dao.OptimisticLockingFailureException;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class InMemoryProductRepositoryTest {
+
+    private InMemoryProductRepository repository;
+
+    @BeforeEach
+    void setUp() {
+        repository = new InMemoryProductRepository();
+        repository.save(new Product("Laptop", "High-performance laptop", new BigDecimal("999.99"), "Electronics", 10));
+        repository.save(new Product("Mouse", "Wireless mouse", new BigDecimal("29.99"), "Electronics", 50));
+        repository.save(new Product("Desk", "Standing desk", new BigDecimal("299.99"), "Furniture", 3));
+    }
+
+    @Test
+    void testDerivedQueriesUseIndexes() {
+        assertEquals("Mouse", repository.findByName("Mouse").orElseThrow().getName());
+        assertTrue(repository.existsByName("Desk"));
+        assertFalse(repository.existsByName("Chair"));
+        assertEquals(2, repository.findByCategory("Electronics").size());
+        assertEquals(List.of("Mouse", "Desk"), names(repository.findByPriceBetween(new BigDecimal("29.99"), new BigDecimal("299.99"))));
+        assertEquals(List.of("Laptop"), names(repository.findByPriceGreaterThan(new BigDecimal("299.99"))));
+        assertEquals(List.of("Desk"), names(repository.findByStockQuantityLessThan(10)));
+        assertEquals(List.of("Mouse"), names(repository.findByCategoryAndPriceBetween("Electronics", BigDecimal.ONE, new BigDecimal("100"))));
+        assertEquals(List.of("Mouse"), names(repository.findByNameContainingIgnoreCase("OUS")));
+    }
+
+    @Test
+    void testUpdateMovesIndexEntries() {
+        Product mouse = repository.findByName("Mouse").orElseThrow();
+        mouse.setName("Trackball");
+        mouse.setCategory("Accessories");
+        mouse.setPrice(new BigDecimal("49.99"));
+        repository.save(mouse);
+
+        assertTrue(repository.findByName("Mouse").isEmpty());
+        assertEquals(mouse.getId(), repository.findByName("Trackball").orElseThrow().getId());
+        assertEquals(List.of("Laptop"), names(repository.findByCategory("Electronics")));
+        assertEquals(List.of("Trackball"), names(repository.findByPriceBetween(new BigDecimal("40"), new BigDecimal("50"))));
+        assertEquals(List.of("Trackball"), names(repository.findByCategoryAndPriceBetween("Accessories", BigDecimal.ONE, BigDecimal.TEN.pow(3))));
+        assertTrue(repository.findByCategoryAndPriceBetween("Electronics", BigDecimal.ONE, new BigDecimal("100")).isEmpty());
+
+        repository.deleteById(mouse.getId());
+        assertTrue(repository.findByCategory("Accessories").isEmpty());
+        assertTrue(repository.findByCategoryAndPriceBetween("Accessories", BigDecimal.ONE, BigDecimal.TEN.pow(3)).isEmpty());
+        assertEquals(2, repository.count());
+    }
+
+    @Test
+    void testStoredProductsAreIsolatedFromCallers() {
+        Product laptop = repository.findByName("Laptop").orElseThrow();
+        laptop.setPrice(BigDecimal.ONE);
+        assertEquals(new BigDecimal("999.99"), repository.findById(laptop.getId()).orElseThrow().getPrice());
+    }
+
+    @Test
+    void testSetStocksAdvancesVersionPerCoalescedUpdate() {
+        Product desk = repository.findByName("Desk").orElseThrow();
+
+        assertEquals(1, repository.setStocks(Map.of(desk.getId(), new StockWrite(40, 3), "missing", new StockWrite(1, 1))));
+
+        Product updated = repository.findById(desk.getId()).orElseThrow();
+        assertEquals(40, updated.getStockQuantity());
+        assertEquals(desk.getVersion() + 3, updated.getVersion());
+        assertTrue(repository.findByStockQuantityLessThan(10).isEmpty());
+    }
+
+    @Test
+    void testUniqueName() {
+        assertThrows(DuplicateKeyException.class,
+                () -> repository.save(new Product("Laptop", "Another laptop", BigDecimal.TEN, "Electronics", 1)));
+        List<BulkInsertFailure> failures = repository.insertUnordered(List.of(
+                new Product("Chair", "Office chair", BigDecimal.TEN, "Furniture", 1),
+                new Product("Desk", "Second desk", BigDecimal.TEN, "Furniture", 1)));
+        assertEquals(1, failures.size());
+        assertEquals(1, failures.get(0).getIndex());
+        assertTrue(failures.get(0).isDuplicateKey());
+        assertTrue(repository.existsByName("Chair"));
+    }
+
+    @Test
+    void testEveryWriteBumpsTheVersion() {
+        Product desk = repository.findByName("Desk").orElseThrow();
+        assertEquals(0L, desk.getVersion());
+        assertEquals(1L, repository.adjustStock(desk.getId(), 1).orElseThrow().getVersion());
+
+        desk.setPrice(BigDecimal.ONE);
+        assertThrows(OptimisticLockingFailureException.class, () -> repository.save(desk));
+        assertTrue(repository.updateIfVersion(desk, 0L).isEmpty());
+
+        Product updated = repository.updateIfVersion(desk, 1L).orElseThrow();
+        assertEquals(2L, updated.getVersion());
+        assertEquals(BigDecimal.ONE, updated.getPrice());
+        assertEquals(3, updated.getStockQuantity());
+    }
+
+    @Test
+    void testAdjustStockNeverGoesNegative() {
+        String id = repository.findByName("Desk").orElseThrow().getId();
+        assertTrue(repository.adjustStock(id, -4).isEmpty());
+        assertEquals(0, repository.adjustStock(id, -3).orElseThrow().getStockQuantity());
+        assertEquals(List.of("Desk"), names(repository.findByStockQuantityLessThan(1)));
+        assertEquals(7, repository.setStock(id, 7).orElseThrow().getStockQuantity());
+    }
+
+    @Test
+    void testAdjustStockStaysWithinRangeAndNeedsAStock() {
+        Product desk = repository.findByName("Desk").orElseThrow();
+        assertTrue(repository.adjustStock(desk.getId(), Integer.MIN_VALUE).isEmpty());
+        assertTrue(repository.adjustStock(desk.getId(), Integer.MAX_VALUE - 2).isEmpty());
+        assertEquals(Integer.MAX_VALUE,
+                repository.adjustStock(desk.getId(), Integer.MAX_VALUE - 3).orElseThrow().getStockQuantity());
+
+        Product unstocked = new Product("Lamp", "Desk lamp", new BigDecimal("19.99"), "Furniture", null);
+        String id = repository.save(unstocked).getId();
+        assertTrue(repository.adjustStock(id, 1).isEmpty());
+        assertNull(repository.findById(id).orElseThrow().getStockQuantity());
+    }
+
+    @Test
+    void testProjectionLeavesStoredProductsWhole() {
+        ProductFields fields = ProductFields.parse("name");
+        Product mouse = repository.findPage(ProductFilter.byCategory("Electronics"), ProductSort.DEFAULT, null, 10, fields)
+                .stream().filter(product -> "Mouse".equals(product.getName())).findFirst().orElseThrow();
+        assertNull(mouse.getPrice());
+        assertNull(mouse.getId());
+        assertTrue(repository.streamAll(fields).allMatch(product -> product.getName() != null && product.getDescription() == null));
+        assertEquals(new BigDecimal("29.99"), repository.findByName("Mouse").orElseThrow().getPrice());
+    }
+
+    @Test
+    void testFacetsCountMatchingProducts() {
+        repository.save(new Product("Gift card", "No fixed price", null, "Furniture", 0));
+
+        ProductFacets facets = repository.facets(ProductFacetsQuery.of(ProductFilter.all(), "0,50,500", 5));
+        assertEquals(4, facets.getTotal());
+        assertEquals(List.of("Electronics", "Furniture"),
+                facets.getCategories().stream().map(ProductFacets.CategoryCount::getValue).collect(Collectors.toList()));
+        assertEquals(List.of(1L, 1L, 1L), facets.getPrices().stream().map(ProductFacets.PriceBucket::getCount).collect(Collectors.toList()));
+        assertNull(facets.getPrices().get(2).getMax());
+        assertEquals(1, facets.getUnpriced());
+        assertEquals(2, facets.getStock().getInStock());
+        assertEquals(1, facets.getStock().getLowStock());
+        assertEquals(1, facets.getStock().getOutOfStock());
+
+        ProductFacets cheap = repository.facets(ProductFacetsQuery.of(ProductFilter.byPriceRange(BigDecimal.ONE, new BigDecimal("500"))));
+        assertEquals(2, cheap.getTotal());
+        assertEquals(0, cheap.getUnpriced());
+    }
+
+    @Test
+    void testBelowReorderThresholdUsesEachProductsOwnThreshold() {
+        Product laptop = repository.findByName("Laptop").orElseThrow();
+        laptop.setReorderThreshold(12);
+        repository.save(laptop);
+        Product desk = repository.findByName("Desk").orElseThrow();
+        desk.setReorderThreshold(0);
+        repository.save(desk);
+
+        assertEquals(List.of("Laptop"), names(repository.findBelowReorderThreshold(5)));
+        assertEquals(List.of("Laptop"), names(repository.findBelowReorderThreshold(50)));
+        assertEquals(List.of("Laptop", "Mouse"), names(repository.findBelowReorderThreshold(51)));
+    }
+
+    @Test
+    void testPagesMatchFullSortForEverySortAndFilter() {
+        Random random = new Random(42);
+        repository.deleteAll();
+        for (int i = 0; i < 300; i++) {
+            BigDecimal price = i % 17 == 0 ? null : new BigDecimal(random.nextInt(20) + ".50");
+            repository.save(new Product("Item " + i, "Description", price, "C" + (i % 3), random.nextInt(10)));
+        }
+        List<ProductFilter> filters = List.of(ProductFilter.all(), ProductFilter.byCategory("C1"),
+                ProductFilter.byPriceRange(new BigDecimal("5"), new BigDecimal("12")), ProductFilter.stockBelow(4),
+                ProductFilter.byCategoryAndPriceRange("C2", new BigDecimal("3"), new BigDecimal("15")));
+        for (String sortParam : List.of("id", "-id", "price", "-price", "updatedAt", "-updatedAt")) {
+            ProductSort sort = ProductSort.parse(sortParam);
+            for (ProductFilter filter : filters) {
+                List<String> expected = repository.findAll().stream()
+                        .filter(filter::matches)
+                        .sorted(sort.comparator())
+                        .map(Product::getId)
+                        .collect(Collectors.toList());
+                assertEquals(expected, walk(filter, sort, 7), sortParam + " " + filter);
+            }
+        }
+    }
+
+    @Test
+    void testConcurrentWritersKeepIndexesConsistent() throws Exception {
+        repository.deleteAll();
+        List<String> ids = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            ids.add(repository.save(new Product("Item " + i, "Description", BigDecimal.TEN, "C", 100)).getId());
+        }
+        AtomicInteger net = new AtomicInteger();
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> tasks = new ArrayList<>();
+        for (int t = 0; t < 8; t++) {
+            int seed = t;
+            tasks.add(pool.submit(() -> {
+                start.await();
+                Random random = new Random(seed);
+                for (int i = 0; i < 2_000; i++) {
+                    String id = ids.get(random.nextInt(ids.size()));
+                    if (random.nextBoolean()) {
+                        int delta = random.nextBoolean() ? 1 : -1;
+                        if (repository.adjustStock(id, delta).isPresent()) {
+                            net.addAndGet(delta);
+                        }
+                    } else {
+                        repository.findPage(ProductFilter.stockBelow(100), ProductSort.parse("price"), null, 10);
+                    }
+                }
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> task : tasks) {
+            task.get(30, TimeUnit.SECONDS);
+        }
+        pool.shutdown();
+
+        int total = repository.findAll().stream().mapToInt(Product::getStockQuantity).sum();
+        assertEquals(50 * 100 + net.get(), total);
+        for (Product product : repository.findAll()) {
+            List<String> stockMatches = names(repository.findByStockQuantityLessThan(product.getStockQuantity() + 1));
+            assertTrue(stockMatches.contains(product.getName()));
+            assertFalse(names(repository.findByStockQuantityLessThan(product.getStockQuantity())).contains(product.getName()));
+        }
+    }
+
+    // Page through the whole result with keyset cursors and return the ids in order
+    private List<String> walk(ProductFilter filter, ProductSort sort, int limit) {
+        List<String> seen = new ArrayList<>();
+        ProductCursor after = null;
+        while (true) {
+            List<Product> page = repository.findPage(filter, sort, after, limit);
+            page.forEach(product -> seen.add(product.getId()));
+            if (page.size() < limit) {
+                return seen;
+            }
+            after = ProductCursor.after(page.get(page.size() - 1), sort);
+        }
+    }
+
+    private static List<String> names(List<Product> products) {
+        return products.stream().map(Product::getName).collect(Collectors.toList());
+    }
+}
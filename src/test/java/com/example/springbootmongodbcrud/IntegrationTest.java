@@ -1,5 +1,6 @@
 package com.example.springbootmongodbcrud;
 
+import com.example.springbootmongodbcrud.model.KeysetPageRequest;
 import com.example.springbootmongodbcrud.model.Product;
 import com.example.springbootmongodbcrud.repository.ProductRepository;
 import com.example.springbootmongodbcrud.service.ProductService;
@@ -109,33 +110,33 @@ class IntegrationTest {
         mockMvc.perform(get("/api/products/search")
                 .param("name", "laptop"))
                 .andExpect(status().isOk())
-                .andExpect(jsonPath("$[0].name").value("Laptop"));
+                .andExpect(jsonPath("$.items[0].name").value("Laptop"));
         
         // Test filter by category
         mockMvc.perform(get("/api/products/category/Electronics"))
                 .andExpect(status().isOk())
-                .andExpect(jsonPath("$", org.hamcrest.Matchers.hasSize(2)));
+                .andExpect(jsonPath("$.items", org.hamcrest.Matchers.hasSize(2)));
         
         // Test filter by price range
         mockMvc.perform(get("/api/products/price-range")
                 .param("minPrice", "20")
                 .param("maxPrice", "100"))
                 .andExpect(status().isOk())
-                .andExpect(jsonPath("$", org.hamcrest.Matchers.hasSize(2)));
+                .andExpect(jsonPath("$.items", org.hamcrest.Matchers.hasSize(2)));
         
         // Test filter by low stock
         mockMvc.perform(get("/api/products/low-stock")
                 .param("quantity", "30"))
                 .andExpect(status().isOk())
-                .andExpect(jsonPath("$", org.hamcrest.Matchers.hasSize(2)));
+                .andExpect(jsonPath("$.items", org.hamcrest.Matchers.hasSize(2)));
         
         // Test combined filter
         mockMvc.perform(get("/api/products/category/Electronics/price-range")
                 .param("minPrice", "20")
                 .param("maxPrice", "100"))
                 .andExpect(status().isOk())
-                .andExpect(jsonPath("$", org.hamcrest.Matchers.hasSize(1)))
-                .andExpect(jsonPath("$[0].name").value("Mouse"));
+                .andExpect(jsonPath("$.items", org.hamcrest.Matchers.hasSize(1)))
+                .andExpect(jsonPath("$.items[0].name").value("Mouse"));
     }
 
     @Test
@@ -173,7 +174,7 @@ class IntegrationTest {
         mockMvc.perform(post("/api/products")
                 .contentType(MediaType.APPLICATION_JSON)
                 .content(objectMapper.writeValueAsString(product2)))
-                .andExpect(status().isBadRequest());
+                .andExpect(status().isConflict());
     }
 
     @Test
@@ -187,7 +188,7 @@ class IntegrationTest {
         assertEquals("Service Test", created.getName());
         
         // Read
-        List<Product> allProducts = productService.getAllProducts();
+        List<Product> allProducts = productService.getAllProducts(KeysetPageRequest.first()).getItems();
         assertFalse(allProducts.isEmpty());
         assertTrue(allProducts.stream().anyMatch(p -> "Service Test".equals(p.getName())));
         
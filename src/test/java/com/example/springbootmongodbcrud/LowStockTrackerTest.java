@@ -0,0 +1,146 @@
+package com.example.springbootmongodbcrud;
+
+import com.example.springbootmongodbcrud.model.LowStockEvent;
+import com.example.springbootmongodbcrud.model.Product;
+import com.example.springbootmongodbcrud.repository.ProductRepository;
+import com.example.springbootmongodbcrud.service.LowStockTracker;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import reactor.test.StepVerifier;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class LowStockTrackerTest {
+
+    private ProductRepository productRepository;
+
+    private LowStockTracker tracker;
+
+    @BeforeEach
+    void setUp() {
+        productRepository = mock(ProductRepository.class);
+        tracker = new LowStockTracker(productRepository, 10, 1024);
+    }
+
+    @Test
+    void testSubscriberGetsSnapshotThenDeltas() {
+        tracker.update(product("1", 4, null, 1));
+
+        StepVerifier.create(tracker.events())
+                .expectNextMatches(event -> event.getType() == LowStockEvent.Type.SNAPSHOT
+                        && event.getSequence() == 1 && ids(event.getItems()).equals(List.of("1")))
+                .then(() -> tracker.update(product("2", 3, null, 1)))
+                .expectNextMatches(event -> event.getType() == LowStockEvent.Type.ENTERED
+                        && event.getSequence() == 2 && "2".equals(event.getItem().getId()))
+                .then(() -> tracker.update(product("2", 1, null, 2)))
+                .expectNextMatches(event -> event.getType() == LowStockEvent.Type.CHANGED && event.getItem().getStockQuantity() == 1)
+                .then(() -> {
+                    // Unchanged dashboard fields publish nothing
+                    tracker.update(product("2", 1, null, 3));
+                    tracker.update(product("1", 40, null, 2));
+                })
+                .expectNextMatches(event -> event.getType() == LowStockEvent.Type.LEFT
+                        && "1".equals(event.getItem().getId()) && event.getItem().getStockQuantity() == 40)
+                .then(() -> tracker.remove("2"))
+                .expectNextMatches(event -> event.getType() == LowStockEvent.Type.LEFT && event.getSequence() == 5)
+                .thenCancel()
+                .verify();
+    }
+
+    @Test
+    void testProductThresholdOverridesDefault() {
+        tracker.update(product("1", 15, 20, 1));
+        tracker.update(product("2", 5, 5, 1));
+        tracker.update(product("3", 0, 0, 1));
+        tracker.update(product("4", null, null, 1));
+
+        LowStockEvent snapshot = tracker.snapshot();
+        assertEquals(List.of("4", "1"), ids(snapshot.getItems()));
+        assertEquals(20, snapshot.getItems().get(1).getReorderThreshold());
+        assertEquals(10, snapshot.getItems().get(0).getReorderThreshold());
+    }
+
+    @Test
+    void testOlderVersionIsIgnored() {
+        tracker.update(product("1", 2, null, 5));
+        tracker.update(product("1", 50, null, 4));
+        assertEquals(1, tracker.size());
+        tracker.update(product("1", 50, null, 6));
+        assertEquals(0, tracker.size());
+    }
+
+    @Test
+    void testLateEventDoesNotBringBackARestockedOrDeletedProduct() {
+        tracker.update(product("1", 2, null, 5));
+        tracker.update(product("1", 50, null, 6));
+        tracker.update(product("2", 3, null, 1));
+        tracker.remove("2");
+
+        StepVerifier.create(tracker.events())
+                .expectNextMatches(event -> event.getType() == LowStockEvent.Type.SNAPSHOT && event.getItems().isEmpty())
+                .then(() -> {
+                    // Redelivered or late change-stream events
+                    tracker.update(product("1", 2, null, 5));
+                    tracker.update(product("1", 50, null, 6));
+                    tracker.update(product("2", 3, null, 1));
+                    tracker.update(product("1", 1, null, 7));
+                })
+                .expectNextMatches(event -> event.getType() == LowStockEvent.Type.ENTERED
+                        && "1".equals(event.getItem().getId()) && event.getItem().getStockQuantity() == 1)
+                .thenCancel()
+                .verify();
+        assertEquals(List.of("1"), ids(tracker.snapshot().getItems()));
+    }
+
+    @Test
+    void testReloadPublishesTheDifference() {
+        tracker.update(product("1", 2, null, 1));
+        tracker.update(product("2", 2, null, 1));
+        when(productRepository.findBelowReorderThreshold(10)).thenReturn(List.of(product("2", 1, null, 2), product("3", 0, null, 1)));
+
+        StepVerifier.create(tracker.events())
+                .expectNextMatches(event -> event.getType() == LowStockEvent.Type.SNAPSHOT)
+                .then(tracker::reload)
+                .expectNextMatches(event -> event.getType() == LowStockEvent.Type.CHANGED && "2".equals(event.getItem().getId()))
+                .expectNextMatches(event -> event.getType() == LowStockEvent.Type.ENTERED && "3".equals(event.getItem().getId()))
+                .expectNextMatches(event -> event.getType() == LowStockEvent.Type.LEFT && "1".equals(event.getItem().getId()))
+                .thenCancel()
+                .verify();
+        assertEquals(List.of("3", "2"), ids(tracker.snapshot().getItems()));
+    }
+
+    @Test
+    void testSlowSubscriberIsCutOffInsteadOfBufferingWithoutBound() {
+        LowStockTracker small = new LowStockTracker(productRepository, 10, 8);
+
+        StepVerifier.create(small.events(), 1)
+                .expectNextCount(1)
+                .then(() -> {
+                    for (int i = 0; i < 100; i++) {
+                        small.update(product(Integer.toString(i), 1, null, 1));
+                    }
+                })
+                .thenRequest(Long.MAX_VALUE)
+                .thenConsumeWhile(event -> true)
+                .expectError(IllegalStateException.class)
+                .verify();
+        assertEquals(100, small.size());
+    }
+
+    private static Product product(String id, Integer stock, Integer threshold, long version) {
+        Product product = new Product("Product " + id, "Description", BigDecimal.TEN, "Category", stock);
+        product.setId(id);
+        product.setReorderThreshold(threshold);
+        product.setVersion(version);
+        return product;
+    }
+
+    private static List<String> ids(List<LowStockEvent.Item> items) {
+        return items.stream().map(LowStockEvent.Item::getId).collect(Collectors.toList());
+    }
+}
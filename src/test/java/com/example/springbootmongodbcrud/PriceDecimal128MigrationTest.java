@@ -0,0 +1,88 @@
+package com.example.springbootmongodbcrud;
+
+import com.example.springbootmongodbcrud.migration.PriceDecimal128Migration;
+import com.mongodb.bulk.BulkWriteResult;
+import com.mongodb.client.FindIterable;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.MongoCursor;
+import com.mongodb.client.model.BulkWriteOptions;
+import com.mongodb.client.model.UpdateOneModel;
+import com.mongodb.client.model.WriteModel;
+import org.bson.Document;
+import org.bson.conversions.Bson;
+import org.bson.types.Decimal128;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.data.mongodb.core.MongoTemplate;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class PriceDecimal128MigrationTest {
+
+    // 38 significant digits, more than Decimal128 holds exactly
+    private static final String TOO_PRECISE = "1.2345678901234567890123456789012345678";
+
+    @Test
+    void testConvertsLegacyPrices() {
+        assertEquals(new Decimal128(new BigDecimal("12.50")), PriceDecimal128Migration.toDecimal128(" 12.50 "));
+        assertEquals(new Decimal128(new BigDecimal("9.99")), PriceDecimal128Migration.toDecimal128(9.99));
+        assertEquals(new Decimal128(new BigDecimal("42")), PriceDecimal128Migration.toDecimal128(42L));
+    }
+
+    @Test
+    void testUnrepresentablePricesAreNull() {
+        assertNull(PriceDecimal128Migration.toDecimal128("twelve"));
+        assertNull(PriceDecimal128Migration.toDecimal128(Double.NaN));
+        assertNull(PriceDecimal128Migration.toDecimal128(TOO_PRECISE));
+        assertNull(PriceDecimal128Migration.toDecimal128("1E7000"));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testSkipsBadDocumentsAndConvertsTheRest() {
+        MongoTemplate template = mock(MongoTemplate.class);
+        MongoCollection<Document> products = mock(MongoCollection.class);
+        FindIterable<Document> firstBatch = batch(List.of(
+                new Document("_id", 1).append("price", TOO_PRECISE),
+                new Document("_id", 2).append("price", "12.50"),
+                new Document("_id", 3).append("price", "1E7000")));
+        FindIterable<Document> done = batch(List.of());
+        BulkWriteResult result = mock(BulkWriteResult.class);
+        when(template.getCollection("products")).thenReturn(products);
+        when(products.find(any(Bson.class))).thenReturn(firstBatch, done);
+        when(result.getModifiedCount()).thenReturn(1);
+        when(products.bulkWrite(anyList(), any(BulkWriteOptions.class))).thenReturn(result);
+
+        long converted = new PriceDecimal128Migration(template, 10, Duration.ZERO).migrate();
+
+        assertEquals(1, converted);
+        ArgumentCaptor<List<WriteModel<Document>>> updates = ArgumentCaptor.forClass(List.class);
+        verify(products).bulkWrite(updates.capture(), any(BulkWriteOptions.class));
+        assertEquals(1, updates.getValue().size());
+        UpdateOneModel<Document> update = (UpdateOneModel<Document>) updates.getValue().get(0);
+        assertTrue(update.getFilter().toString().contains("12.50"));
+        // The scan went past the bad documents rather than stopping at them
+        verify(products, times(2)).find(any(Bson.class));
+    }
+
+    @SuppressWarnings("unchecked")
+    private static FindIterable<Document> batch(List<Document> documents) {
+        FindIterable<Document> iterable = mock(FindIterable.class);
+        MongoCursor<Document> cursor = mock(MongoCursor.class);
+        Iterator<Document> iterator = documents.iterator();
+        when(iterable.projection(any())).thenReturn(iterable);
+        when(iterable.sort(any())).thenReturn(iterable);
+        when(iterable.limit(anyInt())).thenReturn(iterable);
+        when(iterable.iterator()).thenReturn(cursor);
+        when(cursor.hasNext()).thenAnswer(invocation -> iterator.hasNext());
+        when(cursor.next()).thenAnswer(invocation -> iterator.next());
+        return iterable;
+    }
+}
@@ -0,0 +1,196 @@
+package com.example.springbootmongodbcrud;
+
+import com.example.springbootmongodbcrud.model.Product;
+import com.example.springbootmongodbcrud.model.ProductCacheStats;
+import com.example.springbootmongodbcrud.service.ProductCache;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ProductCacheTest {
+
+    private ProductCache cache;
+
+    private Product product;
+
+    @BeforeEach
+    void setUp() {
+        cache = new ProductCache(1_000_000, 1_000, Duration.ofMinutes(5));
+        product = new Product("Laptop", "High-performance laptop", new BigDecimal("999.99"), "Electronics", 10);
+        product.setId("1");
+    }
+
+    @Test
+    void testReadThroughById() {
+        AtomicInteger loads = new AtomicInteger();
+        for (int i = 0; i < 3; i++) {
+            Optional<Product> found = cache.getById("1", id -> {
+                loads.incrementAndGet();
+                return Optional.of(product);
+            });
+            assertTrue(found.isPresent());
+        }
+        assertEquals(1, loads.get());
+        ProductCacheStats stats = cache.stats();
+        assertEquals(2, stats.getHits());
+        assertEquals(1, stats.getMisses());
+        assertEquals(1, stats.getEntries());
+    }
+
+    @Test
+    void testMissingProductIsNotCached() {
+        AtomicInteger loads = new AtomicInteger();
+        cache.getById("404", id -> {
+            loads.incrementAndGet();
+            return Optional.empty();
+        });
+        cache.getById("404", id -> {
+            loads.incrementAndGet();
+            return Optional.empty();
+        });
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    void testNameLookupUsesIdEntry() {
+        cache.put(product);
+        Optional<Product> found = cache.getByName("Laptop", name -> fail("should not load"));
+        assertSame(product, found.orElseThrow());
+    }
+
+    @Test
+    void testRenameInvalidatesOldName() {
+        cache.put(product);
+        cache.invalidate("1");
+        Product renamed = new Product("Notebook", "High-performance laptop", new BigDecimal("999.99"), "Electronics", 10);
+        renamed.setId("1");
+        cache.put(renamed);
+
+        AtomicInteger loads = new AtomicInteger();
+        Optional<Product> oldName = cache.getByName("Laptop", name -> {
+            loads.incrementAndGet();
+            return Optional.empty();
+        });
+        assertTrue(oldName.isEmpty());
+        assertEquals(1, loads.get());
+        assertEquals("Notebook", cache.getByName("Notebook", name -> fail("should not load")).orElseThrow().getName());
+    }
+
+    @Test
+    void testWeightBoundEvicts() {
+        ProductCache small = new ProductCache(2_000, 1_000, Duration.ofMinutes(5));
+        for (int i = 0; i < 50; i++) {
+            Product p = new Product("Product " + i, "Description", new BigDecimal("1.00"), "Category", 1);
+            p.setId(String.valueOf(i));
+            small.put(p);
+        }
+        small.getById("0", id -> Optional.empty());
+        ProductCacheStats stats = small.stats();
+        assertTrue(stats.getWeightBytes() <= 2_000);
+        assertTrue(stats.getEntries() < 50);
+    }
+
+    @Test
+    void testRefreshIfPresentOnlyTouchesCachedProducts() {
+        Product other = new Product("Mouse", "Wireless mouse", new BigDecimal("29.99"), "Electronics", 50);
+        other.setId("2");
+        cache.refreshIfPresent(other);
+        assertEquals(0, cache.stats().getEntries());
+
+        cache.put(product);
+        Product repriced = new Product("Laptop", "High-performance laptop", new BigDecimal("899.99"), "Electronics", 10);
+        repriced.setId("1");
+        cache.refreshIfPresent(repriced);
+        assertEquals(new BigDecimal("899.99"),
+                cache.getById("1", id -> fail("should not load")).orElseThrow().getPrice());
+    }
+
+    @Test
+    void testLoadOverlappingAnUpdateDoesNotOverwriteIt() {
+        Product stale = versioned(product, 1L);
+        Product updated = versioned(product, 2L);
+        updated.setPrice(new BigDecimal("899.99"));
+
+        // The update is saved and cached while the read of the old document is still in flight
+        Optional<Product> loaded = cache.getById("1", id -> {
+            cache.invalidate("1");
+            cache.put(updated);
+            return Optional.of(stale);
+        });
+
+        assertSame(stale, loaded.orElseThrow());
+        assertSame(updated, cache.getById("1", id -> fail("should not load")).orElseThrow());
+    }
+
+    @Test
+    void testLoadOverlappingADeleteIsNotCached() {
+        AtomicInteger loads = new AtomicInteger();
+        cache.getById("1", id -> {
+            loads.incrementAndGet();
+            cache.invalidate("1");
+            return Optional.of(product);
+        });
+        cache.getById("1", id -> {
+            loads.incrementAndGet();
+            return Optional.empty();
+        });
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    void testOlderVersionDoesNotReplaceNewer() {
+        Product newer = versioned(product, 5L);
+        cache.put(newer);
+        cache.put(versioned(product, 4L));
+        assertSame(newer, cache.getById("1", id -> fail("should not load")).orElseThrow());
+
+        Product newest = versioned(product, 6L);
+        cache.put(newest);
+        assertSame(newest, cache.getById("1", id -> fail("should not load")).orElseThrow());
+    }
+
+    @Test
+    void testNameLoadOverlappingARenameDoesNotRestoreTheOldName() {
+        Product stale = versioned(product, 1L);
+        Product renamed = versioned(product, 2L);
+        renamed.setName("Notebook");
+
+        cache.getByName("Laptop", name -> {
+            cache.invalidate("1");
+            cache.put(renamed);
+            return Optional.of(stale);
+        });
+
+        AtomicInteger loads = new AtomicInteger();
+        cache.getByName("Laptop", name -> {
+            loads.incrementAndGet();
+            return Optional.empty();
+        });
+        assertEquals(1, loads.get());
+        assertSame(renamed, cache.getByName("Notebook", name -> fail("should not load")).orElseThrow());
+    }
+
+    @Test
+    void testOlderVersionDoesNotTakeOverTheNameMapping() {
+        Product renamed = versioned(product, 2L);
+        renamed.setName("Notebook");
+        cache.put(renamed);
+        cache.put(versioned(product, 1L));
+
+        assertSame(renamed, cache.getByName("Notebook", name -> fail("should not load")).orElseThrow());
+        // The rejected copy's name is not mapped either
+        assertEquals(1, cache.stats().getNameEntries());
+    }
+
+    private static Product versioned(Product product, Long version) {
+        Product copy = new Product(product);
+        copy.setVersion(version);
+        return copy;
+    }
+}
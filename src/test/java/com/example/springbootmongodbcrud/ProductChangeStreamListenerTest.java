@@ -0,0 +1,186 @@
+package com.example.springbootmongodbcrud;
+
+import com.example.springbootmongodbcrud.model.ProductEvent;
+import com.example.springbootmongodbcrud.service.LowStockTracker;
+import com.example.springbootmongodbcrud.service.ProductCache;
+import com.example.springbootmongodbcrud.service.ProductChangeStreamListener;
+import com.example.springbootmongodbcrud.service.ProductEventLog;
+import com.mongodb.MongoCommandException;
+import com.mongodb.ServerAddress;
+import com.mongodb.client.ChangeStreamIterable;
+import com.mongodb.client.FindIterable;
+import com.mongodb.client.MongoChangeStreamCursor;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.model.ReplaceOptions;
+import com.mongodb.client.model.UpdateOptions;
+import com.mongodb.client.model.changestream.ChangeStreamDocument;
+import com.mongodb.client.model.changestream.FullDocument;
+import com.mongodb.client.model.changestream.OperationType;
+import org.bson.BsonDocument;
+import org.bson.BsonInt32;
+import org.bson.BsonString;
+import org.bson.Document;
+import org.bson.conversions.Bson;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.data.mongodb.core.MongoTemplate;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class ProductChangeStreamListenerTest {
+
+    private static final long WAIT_MILLIS = 5_000;
+
+    private static final BsonDocument SAVED_TOKEN = new BsonDocument("_data", new BsonString("8200000001"));
+
+    private static final BsonDocument NEXT_TOKEN = new BsonDocument("_data", new BsonString("8200000002"));
+
+    private MongoTemplate mongoTemplate;
+
+    private MongoCollection<Document> tokens;
+
+    private FindIterable<Document> storedToken;
+
+    private ChangeStreamIterable<Document> stream;
+
+    private MongoChangeStreamCursor<ChangeStreamDocument<Document>> cursor;
+
+    private ProductCache productCache;
+
+    private LowStockTracker lowStockTracker;
+
+    private ProductEventLog eventLog;
+
+    private ProductChangeStreamListener listener;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        mongoTemplate = mock(MongoTemplate.class);
+        MongoCollection<Document> products = mock(MongoCollection.class);
+        tokens = mock(MongoCollection.class);
+        storedToken = mock(FindIterable.class);
+        stream = mock(ChangeStreamIterable.class);
+        cursor = mock(MongoChangeStreamCursor.class);
+        when(mongoTemplate.getCollection("products")).thenReturn(products);
+        when(mongoTemplate.getCollection("changeStreamResumeTokens")).thenReturn(tokens);
+        when(tokens.find(any(Bson.class))).thenReturn(storedToken);
+        when(products.watch()).thenReturn(stream);
+        when(stream.fullDocument(FullDocument.UPDATE_LOOKUP)).thenReturn(stream);
+        when(stream.resumeAfter(any(BsonDocument.class))).thenReturn(stream);
+        when(stream.cursor()).thenReturn(cursor);
+
+        productCache = mock(ProductCache.class);
+        lowStockTracker = mock(LowStockTracker.class);
+        eventLog = mock(ProductEventLog.class);
+        listener = new ProductChangeStreamListener(mongoTemplate, productCache, lowStockTracker, eventLog, "node-a",
+                Duration.ZERO, Duration.ofMillis(10));
+    }
+
+    @AfterEach
+    void tearDown() {
+        listener.stop();
+    }
+
+    @Test
+    void testResumesFromTheSavedTokenAndCheckpointsNewOnes() {
+        when(storedToken.first()).thenReturn(tokenDocument(SAVED_TOKEN));
+        when(cursor.getResumeToken()).thenReturn(NEXT_TOKEN);
+
+        listener.start();
+
+        verify(tokens, timeout(WAIT_MILLIS)).updateOne(any(Bson.class), any(Bson.class), any(UpdateOptions.class));
+        verify(stream).resumeAfter(SAVED_TOKEN);
+        ArgumentCaptor<Bson> update = ArgumentCaptor.forClass(Bson.class);
+        verify(tokens, atLeastOnce()).updateOne(any(Bson.class), update.capture(), any(UpdateOptions.class));
+        assertTrue(update.getValue().toBsonDocument().toJson().contains("8200000002"));
+        // A resumed stream has missed nothing, so the cache is kept; the low-stock set is loaded once
+        verify(productCache, never()).invalidateAll();
+        verify(lowStockTracker).reload();
+    }
+
+    @Test
+    void testUnchangedTokenIsNotRewritten() {
+        when(storedToken.first()).thenReturn(tokenDocument(SAVED_TOKEN));
+        when(cursor.getResumeToken()).thenReturn(SAVED_TOKEN);
+
+        listener.start();
+
+        verify(cursor, timeout(WAIT_MILLIS).atLeast(10)).tryNext();
+        verify(tokens, never()).updateOne(any(Bson.class), any(Bson.class), any(UpdateOptions.class));
+    }
+
+    @Test
+    void testStartsFreshWithoutASavedToken() {
+        listener.start();
+
+        verify(productCache, timeout(WAIT_MILLIS)).invalidateAll();
+        verify(eventLog).reset();
+        verify(lowStockTracker, timeout(WAIT_MILLIS)).reload();
+        verify(stream, never()).resumeAfter(any(BsonDocument.class));
+    }
+
+    @Test
+    void testResumeFailureClearsTheTokenAndFlushes() {
+        when(storedToken.first()).thenReturn(tokenDocument(SAVED_TOKEN), (Document) null);
+        when(stream.cursor()).thenThrow(commandFailure(286)).thenReturn(cursor);
+
+        listener.start();
+
+        verify(tokens, timeout(WAIT_MILLIS)).replaceOne(any(Bson.class),
+                eq(new Document("_id", "product-cache:node-a")), any(ReplaceOptions.class));
+        verify(productCache, timeout(WAIT_MILLIS).atLeastOnce()).invalidateAll();
+        verify(eventLog, atLeastOnce()).reset();
+        // The retry opens a fresh stream and reloads the low-stock set it could no longer trust
+        verify(lowStockTracker, timeout(WAIT_MILLIS)).reload();
+    }
+
+    @Test
+    void testOtherFailuresKeepTheToken() {
+        when(storedToken.first()).thenReturn(tokenDocument(SAVED_TOKEN));
+        when(stream.cursor()).thenThrow(commandFailure(6)).thenReturn(cursor);
+
+        listener.start();
+
+        verify(productCache, timeout(WAIT_MILLIS)).invalidateAll();
+        verify(lowStockTracker, timeout(WAIT_MILLIS)).reload();
+        verify(stream, atLeast(2)).resumeAfter(SAVED_TOKEN);
+        verify(tokens, never()).replaceOne(any(Bson.class), any(Document.class), any(ReplaceOptions.class));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testDeleteDropsTheProductAndInvalidateRestarts() {
+        when(storedToken.first()).thenReturn(tokenDocument(SAVED_TOKEN));
+        ChangeStreamDocument<Document> delete = mock(ChangeStreamDocument.class);
+        when(delete.getOperationType()).thenReturn(OperationType.DELETE);
+        when(delete.getDocumentKey()).thenReturn(new BsonDocument("_id", new BsonString("p1")));
+        ChangeStreamDocument<Document> invalidate = mock(ChangeStreamDocument.class);
+        when(invalidate.getOperationType()).thenReturn(OperationType.INVALIDATE);
+        when(cursor.tryNext()).thenReturn(delete, invalidate, null);
+
+        listener.start();
+
+        verify(tokens, timeout(WAIT_MILLIS)).replaceOne(any(Bson.class), any(Document.class),
+                any(ReplaceOptions.class));
+        verify(productCache).invalidate("p1");
+        verify(lowStockTracker).remove("p1");
+        verify(eventLog).append(ProductEvent.Type.DELETED, "p1", null);
+        verify(productCache, atLeastOnce()).invalidateAll();
+    }
+
+    private static Document tokenDocument(BsonDocument token) {
+        return new Document("_id", "product-cache:node-a").append("token", token.toJson());
+    }
+
+    private static MongoCommandException commandFailure(int code) {
+        return new MongoCommandException(new BsonDocument("ok", new BsonInt32(0))
+                .append("code", new BsonInt32(code))
+                .append("errmsg", new BsonString("failed")), new ServerAddress());
+    }
+}
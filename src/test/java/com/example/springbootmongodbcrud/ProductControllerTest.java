@@ -1,6 +1,18 @@
 package com.example.springbootmongodbcrud;
 
+import com.example.springbootmongodbcrud.exception.InsufficientStockException;
+import com.example.springbootmongodbcrud.exception.ProductConflictException;
+import com.example.springbootmongodbcrud.exception.ProductNotFoundException;
+import com.example.springbootmongodbcrud.model.BatchGetResult;
+import com.example.springbootmongodbcrud.model.KeysetPageRequest;
+import com.example.springbootmongodbcrud.model.LowStockEvent;
 import com.example.springbootmongodbcrud.model.Product;
+import com.example.springbootmongodbcrud.model.ProductEvent;
+import com.example.springbootmongodbcrud.model.ProductFacets;
+import com.example.springbootmongodbcrud.model.ProductFacetsQuery;
+import com.example.springbootmongodbcrud.model.ProductFields;
+import com.example.springbootmongodbcrud.model.ProductFilter;
+import com.example.springbootmongodbcrud.model.ProductPage;
 import com.example.springbootmongodbcrud.service.ProductService;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.jupiter.api.BeforeEach;
@@ -8,14 +20,19 @@ import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.boot.test.context.SpringBootTest;
+import reactor.core.publisher.Flux;
 
 import java.math.BigDecimal;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 import static org.mockito.ArgumentMatchers.*;
 import static org.mockito.Mockito.*;
@@ -57,6 +74,21 @@ class ProductControllerTest {
         verify(productService, times(1)).createProduct(any(Product.class));
     }
 
+    @Test
+    void testCreateProductWithDuplicateNameIsConflict() throws Exception {
+        when(productService.createProduct(any(Product.class)))
+                .thenThrow(ProductConflictException.duplicateName("Test Product"));
+
+        mockMvc.perform(post("/api/products")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(product)))
+                .andExpect(status().isConflict())
+                .andExpect(content().contentType(MediaType.APPLICATION_PROBLEM_JSON))
+                .andExpect(jsonPath("$.title").value("Conflict"))
+                .andExpect(jsonPath("$.detail").value("Product with name 'Test Product' already exists"))
+                .andExpect(jsonPath("$.instance").value("/api/products"));
+    }
+
     @Test
     void testCreateProductWithInvalidData() throws Exception {
         Product invalidProduct = new Product("", "", new BigDecimal("-10"), "", -5);
@@ -72,17 +104,42 @@ class ProductControllerTest {
 
     @Test
     void testGetAllProducts() throws Exception {
-        List<Product> products = Arrays.asList(product);
-        when(productService.getAllProducts()).thenReturn(products);
+        ProductPage products = new ProductPage(Arrays.asList(product), null, 50);
+        when(productService.getAllProducts(any(KeysetPageRequest.class))).thenReturn(products);
 
         mockMvc.perform(get("/api/products"))
                 .andExpect(status().isOk())
-                .andExpect(jsonPath("$[0].id").value("1"))
-                .andExpect(jsonPath("$[0].name").value("Test Product"))
-                .andExpect(jsonPath("$").isArray())
-                .andExpect(jsonPath("$", org.hamcrest.Matchers.hasSize(1)));
+                .andExpect(jsonPath("$.items[0].id").value("1"))
+                .andExpect(jsonPath("$.items[0].name").value("Test Product"))
+                .andExpect(jsonPath("$.items").isArray())
+                .andExpect(jsonPath("$.items", org.hamcrest.Matchers.hasSize(1)))
+                .andExpect(jsonPath("$.hasMore").value(false));
+
+        verify(productService, times(1)).getAllProducts(any(KeysetPageRequest.class));
+    }
 
-        verify(productService, times(1)).getAllProducts();
+    @Test
+    void testExportProductsAsNdjson() throws Exception {
+        Product second = new Product("Second Product", "Second Description", new BigDecimal("5.00"), "Books", 3);
+        second.setId("2");
+        when(productService.streamAllProducts(ProductFields.ALL)).thenReturn(Stream.of(product, second));
+
+        MvcResult result = mockMvc.perform(get("/api/products/export"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        // The export's own timeout (app.export.timeout), not the global async default
+        org.junit.jupiter.api.Assertions.assertEquals(3_600_000L, result.getRequest().getAsyncContext().getTimeout());
+
+        String body = mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType("application/x-ndjson"))
+                .andReturn().getResponse().getContentAsString();
+
+        String[] lines = body.split("\n");
+        org.junit.jupiter.api.Assertions.assertEquals(2, lines.length);
+        org.junit.jupiter.api.Assertions.assertEquals("1", objectMapper.readTree(lines[0]).get("id").asText());
+        org.junit.jupiter.api.Assertions.assertEquals("2", objectMapper.readTree(lines[1]).get("id").asText());
+        verify(productService, times(1)).streamAllProducts(ProductFields.ALL);
     }
 
     @Test
@@ -107,6 +164,23 @@ class ProductControllerTest {
         verify(productService, times(1)).getProductById("999");
     }
 
+    @Test
+    void testBatchGetProducts() throws Exception {
+        when(productService.getProductsByIds(List.of("9", "1"))).thenReturn(BatchGetResult.of(List.of("9", "1"),
+                Map.of("1", product)));
+
+        mockMvc.perform(post("/api/products/_batch-get")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"ids\":[\"9\",\"1\"]}"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.found").value(1))
+                .andExpect(jsonPath("$.missing").value(1))
+                .andExpect(jsonPath("$.items[0].id").value("9"))
+                .andExpect(jsonPath("$.items[0].status").value("NOT_FOUND"))
+                .andExpect(jsonPath("$.items[1].status").value("FOUND"))
+                .andExpect(jsonPath("$.items[1].product.name").value("Test Product"));
+    }
+
     @Test
     void testGetProductByName() throws Exception {
         when(productService.getProductByName("Test Product")).thenReturn(Optional.of(product));
@@ -134,15 +208,114 @@ class ProductControllerTest {
         verify(productService, times(1)).updateProduct(eq("1"), any(Product.class));
     }
 
+    @Test
+    void testGetProductByIdNotModified() throws Exception {
+        product.setVersion(2L);
+        when(productService.getProductById("1")).thenReturn(Optional.of(product));
+
+        mockMvc.perform(get("/api/products/1"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"1-2\""));
+
+        mockMvc.perform(get("/api/products/1").header("If-None-Match", "\"1-2\""))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string("ETag", "\"1-2\""))
+                .andExpect(content().string(""));
+    }
+
+    @Test
+    void testBinaryRepresentationsHaveTheirOwnETag() throws Exception {
+        product.setVersion(2L);
+        when(productService.getProductById("1")).thenReturn(Optional.of(product));
+
+        mockMvc.perform(get("/api/products/1").accept(MediaType.APPLICATION_CBOR))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_CBOR))
+                .andExpect(header().string("ETag", "\"1-2;cbor\""))
+                .andExpect(header().stringValues("Vary", org.hamcrest.Matchers.hasItem("Accept")));
+
+        // The JSON tag does not validate a cached CBOR body, nor the other way round
+        mockMvc.perform(get("/api/products/1").accept(MediaType.APPLICATION_CBOR).header("If-None-Match", "\"1-2\""))
+                .andExpect(status().isOk());
+        mockMvc.perform(get("/api/products/1").header("If-None-Match", "\"1-2;cbor\""))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"1-2\""))
+                .andExpect(header().stringValues("Vary", org.hamcrest.Matchers.hasItem("Accept")));
+        mockMvc.perform(get("/api/products/1").header("Accept", "application/json;q=0.5, application/x-protobuf")
+                        .header("If-None-Match", "\"1-2;protobuf\""))
+                .andExpect(status().isNotModified());
+    }
+
+    @Test
+    void testGetProductsByCategoryNotModified() throws Exception {
+        ProductPage products = new ProductPage(Arrays.asList(product), null, 50);
+        when(productService.getProductsByCategory(eq("Electronics"), any(KeysetPageRequest.class))).thenReturn(products);
+
+        String etag = mockMvc.perform(get("/api/products/category/Electronics"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", org.hamcrest.Matchers.startsWith("W/\"")))
+                .andReturn().getResponse().getHeader("ETag");
+
+        mockMvc.perform(get("/api/products/category/Electronics").header("If-None-Match", etag))
+                .andExpect(status().isNotModified());
+    }
+
+    @Test
+    void testGetProductsWithSparseFields() throws Exception {
+        product.setVersion(2L);
+        ProductPage products = new ProductPage(Arrays.asList(product), null, 50);
+        when(productService.getProductsByCategory(eq("Electronics"), any(KeysetPageRequest.class))).thenReturn(products);
+        when(productService.getProductById("1")).thenReturn(Optional.of(product));
+
+        mockMvc.perform(get("/api/products/category/Electronics").param("fields", "price,name"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items[0].name").value("Test Product"))
+                .andExpect(jsonPath("$.items[0].description").doesNotExist())
+                .andExpect(jsonPath("$.items[0].id").doesNotExist());
+        verify(productService).getProductsByCategory(eq("Electronics"),
+                argThat(page -> page.getFields().equals(ProductFields.parse("name,price"))));
+
+        mockMvc.perform(get("/api/products/1").param("fields", "name"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"1-2;name\""))
+                .andExpect(jsonPath("$.price").doesNotExist());
+
+        mockMvc.perform(get("/api/products/1").param("fields", "secret"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void testUpdateProductWithStaleIfMatch() throws Exception {
+        when(productService.updateProduct(eq("1"), any(Product.class), eq(1L)))
+                .thenThrow(new OptimisticLockingFailureException("Product 1 is no longer at version 1"));
+
+        mockMvc.perform(put("/api/products/1")
+                .header("If-Match", "\"1-1\"")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(product)))
+                .andExpect(status().isPreconditionFailed());
+
+        mockMvc.perform(put("/api/products/1")
+                .header("If-Match", "\"2-1\"")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(product)))
+                .andExpect(status().isPreconditionFailed());
+
+        verify(productService, never()).updateProduct(eq("1"), any(Product.class));
+    }
+
     @Test
     void testUpdateProductNotFound() throws Exception {
         when(productService.updateProduct(eq("999"), any(Product.class)))
-                .thenThrow(new RuntimeException("Product not found"));
+                .thenThrow(new ProductNotFoundException("999"));
 
         mockMvc.perform(put("/api/products/999")
                 .contentType(MediaType.APPLICATION_JSON)
                 .content(objectMapper.writeValueAsString(product)))
-                .andExpect(status().isNotFound());
+                .andExpect(status().isNotFound())
+                .andExpect(content().contentType(MediaType.APPLICATION_PROBLEM_JSON))
+                .andExpect(jsonPath("$.status").value(404))
+                .andExpect(jsonPath("$.detail").value("Product not found with id: 999"));
 
         verify(productService, times(1)).updateProduct(eq("999"), any(Product.class));
     }
@@ -159,7 +332,7 @@ class ProductControllerTest {
 
     @Test
     void testDeleteProductNotFound() throws Exception {
-        doThrow(new RuntimeException("Product not found")).when(productService).deleteProduct("999");
+        doThrow(new ProductNotFoundException("999")).when(productService).deleteProduct("999");
 
         mockMvc.perform(delete("/api/products/999"))
                 .andExpect(status().isNotFound());
@@ -169,71 +342,125 @@ class ProductControllerTest {
 
     @Test
     void testGetProductsByCategory() throws Exception {
-        List<Product> products = Arrays.asList(product);
-        when(productService.getProductsByCategory("Electronics")).thenReturn(products);
+        ProductPage products = new ProductPage(Arrays.asList(product), null, 50);
+        when(productService.getProductsByCategory(eq("Electronics"), any(KeysetPageRequest.class))).thenReturn(products);
 
         mockMvc.perform(get("/api/products/category/Electronics"))
                 .andExpect(status().isOk())
-                .andExpect(jsonPath("$[0].category").value("Electronics"))
-                .andExpect(jsonPath("$", org.hamcrest.Matchers.hasSize(1)));
+                .andExpect(jsonPath("$.items[0].category").value("Electronics"))
+                .andExpect(jsonPath("$.items", org.hamcrest.Matchers.hasSize(1)));
 
-        verify(productService, times(1)).getProductsByCategory("Electronics");
+        verify(productService, times(1)).getProductsByCategory(eq("Electronics"), any(KeysetPageRequest.class));
     }
 
     @Test
     void testGetProductsByPriceRange() throws Exception {
-        List<Product> products = Arrays.asList(product);
-        when(productService.getProductsByPriceRange(any(BigDecimal.class), any(BigDecimal.class))).thenReturn(products);
+        ProductPage products = new ProductPage(Arrays.asList(product), null, 50);
+        when(productService.getProductsByPriceRange(any(BigDecimal.class), any(BigDecimal.class), any(KeysetPageRequest.class))).thenReturn(products);
 
         mockMvc.perform(get("/api/products/price-range")
                 .param("minPrice", "50")
                 .param("maxPrice", "150"))
                 .andExpect(status().isOk())
-                .andExpect(jsonPath("$", org.hamcrest.Matchers.hasSize(1)));
+                .andExpect(jsonPath("$.items", org.hamcrest.Matchers.hasSize(1)));
 
-        verify(productService, times(1)).getProductsByPriceRange(new BigDecimal("50"), new BigDecimal("150"));
+        verify(productService, times(1)).getProductsByPriceRange(eq(new BigDecimal("50")), eq(new BigDecimal("150")), any(KeysetPageRequest.class));
     }
 
     @Test
     void testGetProductsWithLowStock() throws Exception {
-        List<Product> products = Arrays.asList(product);
-        when(productService.getProductsWithLowStock(5)).thenReturn(products);
+        ProductPage products = new ProductPage(Arrays.asList(product), null, 50);
+        when(productService.getProductsWithLowStock(eq(5), any(KeysetPageRequest.class))).thenReturn(products);
 
         mockMvc.perform(get("/api/products/low-stock")
                 .param("quantity", "5"))
                 .andExpect(status().isOk())
-                .andExpect(jsonPath("$", org.hamcrest.Matchers.hasSize(1)));
+                .andExpect(jsonPath("$.items", org.hamcrest.Matchers.hasSize(1)));
 
-        verify(productService, times(1)).getProductsWithLowStock(5);
+        verify(productService, times(1)).getProductsWithLowStock(eq(5), any(KeysetPageRequest.class));
     }
 
     @Test
     void testSearchProductsByName() throws Exception {
-        List<Product> products = Arrays.asList(product);
-        when(productService.searchProductsByName("Test")).thenReturn(products);
+        ProductPage products = new ProductPage(Arrays.asList(product), null, 50);
+        when(productService.searchProductsByName(eq("Test"), any(KeysetPageRequest.class))).thenReturn(products);
 
         mockMvc.perform(get("/api/products/search")
                 .param("name", "Test"))
                 .andExpect(status().isOk())
-                .andExpect(jsonPath("$[0].name").value("Test Product"))
-                .andExpect(jsonPath("$", org.hamcrest.Matchers.hasSize(1)));
+                .andExpect(jsonPath("$.items[0].name").value("Test Product"))
+                .andExpect(jsonPath("$.items", org.hamcrest.Matchers.hasSize(1)));
 
-        verify(productService, times(1)).searchProductsByName("Test");
+        verify(productService, times(1)).searchProductsByName(eq("Test"), any(KeysetPageRequest.class));
+    }
+
+    @Test
+    void testGetFacets() throws Exception {
+        ProductFacets facets = new ProductFacets();
+        facets.setTotal(3);
+        when(productService.getFacets(any(ProductFacetsQuery.class))).thenReturn(facets);
+
+        mockMvc.perform(get("/api/products/facets")
+                .param("category", "Electronics")
+                .param("maxPrice", "150")
+                .param("priceBuckets", "0,100"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.total").value(3));
+
+        verify(productService).getFacets(eq(new ProductFacetsQuery(
+                new ProductFilter("Electronics", null, new BigDecimal("150"), null, null),
+                List.of(BigDecimal.ZERO, new BigDecimal("100")), ProductFacetsQuery.DEFAULT_LOW_STOCK_THRESHOLD)));
+
+        mockMvc.perform(get("/api/products/facets").param("priceBuckets", "10,5"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void testStreamLowStockAsServerSentEvents() throws Exception {
+        LowStockEvent.Item item = new LowStockEvent.Item("1", "Test Product", "Electronics", 2, 10);
+        when(productService.lowStockEvents()).thenReturn(Flux.just(
+                LowStockEvent.snapshot(6, List.of()),
+                LowStockEvent.delta(LowStockEvent.Type.ENTERED, 7, item)));
+
+        MvcResult result = mockMvc.perform(get("/api/products/low-stock/stream"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        result.getAsyncResult();
+
+        String body = result.getResponse().getContentAsString();
+        org.junit.jupiter.api.Assertions.assertTrue(body.contains("id:6\nevent:snapshot\n"), body);
+        org.junit.jupiter.api.Assertions.assertTrue(body.contains("id:7\nevent:entered\ndata:{\"type\":\"ENTERED\""), body);
+    }
+
+    @Test
+    void testStreamProductEventsResumesFromLastEventId() throws Exception {
+        when(productService.productEvents("a-4")).thenReturn(Flux.just(
+                new ProductEvent("a-5", ProductEvent.Type.STOCK, "1", product),
+                new ProductEvent("a-6", ProductEvent.Type.DELETED, "1", null)));
+
+        MvcResult result = mockMvc.perform(get("/api/products/stream").header("Last-Event-ID", "a-4"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        result.getAsyncResult();
+
+        String body = result.getResponse().getContentAsString();
+        org.junit.jupiter.api.Assertions.assertTrue(body.contains("id:a-5\nevent:stock\n"), body);
+        org.junit.jupiter.api.Assertions.assertTrue(body.contains("id:a-6\nevent:deleted\ndata:{\"id\":\"a-6\",\"type\":\"DELETED\",\"productId\":\"1\"}"), body);
     }
 
     @Test
     void testGetProductsByCategoryAndPriceRange() throws Exception {
-        List<Product> products = Arrays.asList(product);
-        when(productService.getProductsByCategoryAndPriceRange(anyString(), any(BigDecimal.class), any(BigDecimal.class)))
+        ProductPage products = new ProductPage(Arrays.asList(product), null, 50);
+        when(productService.getProductsByCategoryAndPriceRange(anyString(), any(BigDecimal.class), any(BigDecimal.class), any(KeysetPageRequest.class)))
                 .thenReturn(products);
 
         mockMvc.perform(get("/api/products/category/Electronics/price-range")
                 .param("minPrice", "50")
                 .param("maxPrice", "150"))
                 .andExpect(status().isOk())
-                .andExpect(jsonPath("$", org.hamcrest.Matchers.hasSize(1)));
+                .andExpect(jsonPath("$.items", org.hamcrest.Matchers.hasSize(1)));
 
-        verify(productService, times(1)).getProductsByCategoryAndPriceRange("Electronics", new BigDecimal("50"), new BigDecimal("150"));
+        verify(productService, times(1)).getProductsByCategoryAndPriceRange(eq("Electronics"), eq(new BigDecimal("50")), eq(new BigDecimal("150")), any(KeysetPageRequest.class));
     }
 
     @Test
@@ -253,7 +480,7 @@ class ProductControllerTest {
     @Test
     void testUpdateStockQuantityNotFound() throws Exception {
         when(productService.updateStockQuantity("999", 20))
-                .thenThrow(new RuntimeException("Product not found"));
+                .thenThrow(new ProductNotFoundException("999"));
 
         mockMvc.perform(patch("/api/products/999/stock")
                 .param("quantity", "20"))
@@ -261,4 +488,29 @@ class ProductControllerTest {
 
         verify(productService, times(1)).updateStockQuantity("999", 20);
     }
-} 
\ No newline at end of file
+
+    @Test
+    void testAdjustStockQuantityByDelta() throws Exception {
+        product.setStockQuantity(7);
+        when(productService.adjustStockQuantity("1", -3)).thenReturn(product);
+
+        mockMvc.perform(patch("/api/products/1/stock")
+                .param("delta", "-3"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.stockQuantity").value(7));
+
+        verify(productService, times(1)).adjustStockQuantity("1", -3);
+    }
+
+    @Test
+    void testReserveStockConflict() throws Exception {
+        when(productService.reserveStock("1", 50)).thenThrow(new InsufficientStockException("Insufficient stock"));
+
+        mockMvc.perform(post("/api/products/1/stock/reserve")
+                .param("quantity", "50"))
+                .andExpect(status().isConflict())
+                .andExpect(jsonPath("$.detail").value("Insufficient stock"));
+
+        verify(productService, times(1)).reserveStock("1", 50);
+    }
+}
@@ -0,0 +1,110 @@
+package com.example.springbootmongodbcrud;
+
+import com.example.springbootmongodbcrud.exception.ProductValidationException;
+import com.example.springbootmongodbcrud.model.KeysetPageRequest;
+import com.example.springbootmongodbcrud.model.Product;
+import com.example.springbootmongodbcrud.model.ProductCursor;
+import com.example.springbootmongodbcrud.model.ProductSort;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ProductCursorTest {
+
+    @Test
+    void testCursorRoundTripByPrice() {
+        Product product = new Product("Laptop", "Description", new BigDecimal("999.90"), "Electronics", 10);
+        product.setId("65a1b2c3d4e5f60718293a4b");
+        ProductSort sort = ProductSort.parse("-price");
+
+        String token = ProductCursor.after(product, sort).encode();
+        ProductCursor decoded = ProductCursor.decode(token, sort);
+
+        assertEquals(new BigDecimal("999.90"), decoded.getValue());
+        assertEquals("65a1b2c3d4e5f60718293a4b", decoded.getId());
+        assertFalse(decoded.getSort().isAscending());
+    }
+
+    @Test
+    void testCursorRoundTripByUpdatedAt() {
+        Product product = new Product("Laptop", "Description", new BigDecimal("10.00"), "Electronics", 10);
+        product.setId("1");
+        LocalDateTime updatedAt = LocalDateTime.of(2024, 1, 15, 10, 30, 0, 123_000_000);
+        product.setUpdatedAt(updatedAt);
+        ProductSort sort = ProductSort.parse("updatedAt");
+
+        ProductCursor decoded = ProductCursor.decode(ProductCursor.after(product, sort).encode(), sort);
+
+        assertEquals(updatedAt, decoded.getValue());
+    }
+
+    @Test
+    void testCursorWithMissingSortValue() {
+        Product product = new Product("Laptop", "Description", null, "Electronics", 10);
+        product.setId("1");
+        ProductSort sort = ProductSort.parse("price");
+
+        ProductCursor decoded = ProductCursor.decode(ProductCursor.after(product, sort).encode(), sort);
+
+        assertNull(decoded.getValue());
+        assertEquals("1", decoded.getId());
+    }
+
+    @Test
+    void testCursorRejectedForDifferentSort() {
+        Product product = new Product("Laptop", "Description", new BigDecimal("10.00"), "Electronics", 10);
+        product.setId("1");
+        String token = ProductCursor.after(product, ProductSort.parse("price")).encode();
+
+        assertThrows(ProductValidationException.class, () -> ProductCursor.decode(token, ProductSort.parse("-price")));
+    }
+
+    @Test
+    void testMalformedCursorRejected() {
+        assertThrows(ProductValidationException.class, () -> ProductCursor.decode("not a cursor!", ProductSort.DEFAULT));
+        assertThrows(ProductValidationException.class, () -> ProductCursor.decode("Zm9v", ProductSort.DEFAULT));
+    }
+
+    @Test
+    void testUnknownSortKeyRejected() {
+        assertThrows(ProductValidationException.class, () -> ProductSort.parse("description"));
+    }
+
+    @Test
+    void testPageRequestLimits() {
+        assertEquals(KeysetPageRequest.DEFAULT_LIMIT, KeysetPageRequest.of(null, null, null).getLimit());
+        assertEquals(KeysetPageRequest.MAX_LIMIT, KeysetPageRequest.of(null, null, 100_000).getLimit());
+        assertThrows(ProductValidationException.class, () -> KeysetPageRequest.of(null, null, 0));
+    }
+
+    @Test
+    void testInMemoryOrderMatchesCursorPosition() {
+        Product cheap = new Product("Cheap", "Description", new BigDecimal("1.00"), "Books", 1);
+        cheap.setId("b");
+        Product unpriced = new Product("Unpriced", "Description", null, "Books", 1);
+        unpriced.setId("c");
+        Product sameA = new Product("Same A", "Description", new BigDecimal("5.00"), "Books", 1);
+        sameA.setId("a");
+        Product sameD = new Product("Same D", "Description", new BigDecimal("5.00"), "Books", 1);
+        sameD.setId("d");
+        ProductSort ascending = ProductSort.parse("price");
+        ProductSort descending = ProductSort.parse("-price");
+
+        List<Product> products = new ArrayList<>(List.of(sameD, cheap, sameA, unpriced));
+        products.sort(ascending.comparator());
+        assertEquals(List.of(unpriced, cheap, sameA, sameD), products);
+        products.sort(descending.comparator());
+        assertEquals(List.of(sameD, sameA, cheap, unpriced), products);
+
+        ProductCursor afterSameA = ProductCursor.after(sameA, ascending);
+        assertTrue(ascending.isAfter(sameD, afterSameA));
+        assertFalse(ascending.isAfter(sameA, afterSameA));
+        assertFalse(ascending.isAfter(unpriced, afterSameA));
+        assertTrue(descending.isAfter(unpriced, ProductCursor.after(cheap, descending)));
+    }
+}
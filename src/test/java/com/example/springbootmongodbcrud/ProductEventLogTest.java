@@ -0,0 +1,105 @@
+package com.example.springbootmongodbcrud;
+
+import com.example.springbootmongodbcrud.model.Product;
+import com.example.springbootmongodbcrud.model.ProductEvent;
+import com.example.springbootmongodbcrud.service.ProductEventLog;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import reactor.test.StepVerifier;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ProductEventLogTest {
+
+    private ProductEventLog eventLog;
+
+    private List<String> ids;
+
+    @BeforeEach
+    void setUp() {
+        eventLog = new ProductEventLog(3, 1024, false);
+        ids = new ArrayList<>();
+        // Record the ids the log assigns by following it from the start
+        eventLog.events(null).subscribe(event -> ids.add(event.getId()));
+    }
+
+    @Test
+    void testResumeReplaysOnlyMissedEvents() {
+        eventLog.created(product("1", 5));
+        eventLog.stockChanged(product("1", 4));
+        eventLog.deleted("1");
+
+        StepVerifier.create(eventLog.events(ids.get(0)))
+                .expectNextMatches(event -> event.getType() == ProductEvent.Type.STOCK
+                        && event.getProduct().getStockQuantity() == 4 && event.getId().equals(ids.get(1)))
+                .expectNextMatches(event -> event.getType() == ProductEvent.Type.DELETED
+                        && "1".equals(event.getProductId()) && event.getProduct() == null)
+                .then(() -> eventLog.updated(product("2", 1)))
+                .expectNextMatches(event -> event.getType() == ProductEvent.Type.UPDATED && "2".equals(event.getProductId()))
+                .thenCancel()
+                .verify();
+
+        StepVerifier.create(eventLog.events(ids.get(3)))
+                .expectSubscription()
+                .expectNoEvent(Duration.ofMillis(50))
+                .thenCancel()
+                .verify();
+    }
+
+    @Test
+    void testUnresumableIdGetsReset() {
+        for (int i = 0; i < 5; i++) {
+            eventLog.stockChanged(product("1", i));
+        }
+
+        // Evicted from the three-event buffer, from another epoch, and from the future
+        for (String lastEventId : List.of(ids.get(0), "other-4", ids.get(4) + "0")) {
+            StepVerifier.create(eventLog.events(lastEventId))
+                    .expectNextMatches(event -> event.getType() == ProductEvent.Type.RESET && event.getId().equals(ids.get(4)))
+                    .thenCancel()
+                    .verify();
+        }
+        // The oldest buffered event's predecessor is still resumable
+        StepVerifier.create(eventLog.events(ids.get(1)))
+                .expectNextCount(3)
+                .thenCancel()
+                .verify();
+    }
+
+    @Test
+    void testEventsHoldACopyOfTheProduct() {
+        Product product = product("1", 5);
+        eventLog.created(product);
+        product.setStockQuantity(0);
+
+        String epoch = ids.get(0).substring(0, ids.get(0).lastIndexOf('-'));
+        StepVerifier.create(eventLog.events(epoch + "-0"))
+                .expectNextMatches(event -> event.getType() == ProductEvent.Type.CREATED
+                        && event.getProduct().getStockQuantity() == 5)
+                .thenCancel()
+                .verify();
+    }
+
+    @Test
+    void testLocalWritesAreIgnoredWhenTheChangeStreamFeedsTheLog() {
+        ProductEventLog fed = new ProductEventLog(10, 1024, true);
+        List<ProductEvent> events = new ArrayList<>();
+        fed.events(null).subscribe(events::add);
+
+        fed.created(product("1", 5));
+        fed.append(ProductEvent.Type.CREATED, "1", product("1", 5));
+
+        assertEquals(1, events.size());
+    }
+
+    private static Product product(String id, int stock) {
+        Product product = new Product("Product " + id, "Description", BigDecimal.TEN, "Category", stock);
+        product.setId(id);
+        return product;
+    }
+}
@@ -1,7 +1,17 @@
 package com.example.springbootmongodbcrud;
 
+import com.example.springbootmongodbcrud.config.MongoConfig;
+import com.example.springbootmongodbcrud.exception.ProductValidationException;
 import com.example.springbootmongodbcrud.model.Product;
+import com.example.springbootmongodbcrud.model.ProductFields;
+import com.example.springbootmongodbcrud.model.ProductSort;
+import org.bson.Document;
+import org.bson.types.Decimal128;
 import org.junit.jupiter.api.Test;
+import org.springframework.data.mongodb.core.convert.MappingMongoConverter;
+import org.springframework.data.mongodb.core.convert.MongoCustomConversions;
+import org.springframework.data.mongodb.core.convert.NoOpDbRefResolver;
+import org.springframework.data.mongodb.core.mapping.MongoMappingContext;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
@@ -174,4 +184,44 @@ class ProductModelTest {
         assertTrue(product.getUpdatedAt().isBefore(now.plusSeconds(1)));
         assertTrue(product.getUpdatedAt().isAfter(now.minusSeconds(1)));
     }
-} 
\ No newline at end of file
+
+    @Test
+    void testPriceIsMappedAsDecimal128() {
+        MongoMappingContext mappingContext = new MongoMappingContext();
+        MongoCustomConversions conversions = new MongoConfig().mongoCustomConversions();
+        mappingContext.setSimpleTypeHolder(conversions.getSimpleTypeHolder());
+        MappingMongoConverter converter = new MappingMongoConverter(NoOpDbRefResolver.INSTANCE, mappingContext);
+        converter.setCustomConversions(conversions);
+        converter.afterPropertiesSet();
+
+        Product product = new Product("Test Product", "Test Description", new BigDecimal("99.99"), "Electronics", 10);
+        Document document = new Document();
+        converter.write(product, document);
+
+        assertEquals(new Decimal128(new BigDecimal("99.99")), document.get("price"));
+        assertEquals(new Decimal128(new BigDecimal("10.5")), converter.convertToMongoType(new BigDecimal("10.5")));
+        assertEquals(new BigDecimal("99.99"), converter.read(Product.class, document).getPrice());
+    }
+
+    @Test
+    void testSparseFieldsTrimACopy() {
+        Product product = new Product("Test Product", "Test Description", new BigDecimal("99.99"), "Electronics", 10);
+        product.setId("1");
+        ProductFields fields = ProductFields.parse(" price , name,price");
+
+        assertEquals("name,price", fields.toString());
+        assertEquals(ProductFields.ALL, ProductFields.parse(null));
+        assertEquals(ProductFields.ALL, ProductFields.parse(String.join(",", ProductFields.ALL.getNames())));
+        assertThrows(ProductValidationException.class, () -> ProductFields.parse("name,secret"));
+        assertEquals("id,name,price,version", fields.forPage(ProductSort.DEFAULT).toString());
+
+        Product trimmed = fields.apply(product);
+        assertEquals("Test Product", trimmed.getName());
+        assertEquals(new BigDecimal("99.99"), trimmed.getPrice());
+        assertNull(trimmed.getId());
+        assertNull(trimmed.getDescription());
+        assertNull(trimmed.getCreatedAt());
+        assertEquals("Test Description", product.getDescription());
+        assertSame(product, ProductFields.ALL.apply(product));
+    }
+}
@@ -0,0 +1,60 @@
+package com.example.springbootmongodbcrud;
+
+import com.example.springbootmongodbcrud.model.Product;
+import com.example.springbootmongodbcrud.model.ProductFields;
+import com.example.springbootmongodbcrud.model.ProductFilter;
+import com.example.springbootmongodbcrud.model.ProductSort;
+import com.example.springbootmongodbcrud.repository.ProductReadPreferences;
+import com.example.springbootmongodbcrud.repository.ProductRepositoryCustomImpl;
+import com.mongodb.ReadPreference;
+import com.mongodb.TaggableReadPreference;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class ProductReadPreferencesTest {
+
+    @Test
+    void testSecondaryModesCarryTheStalenessBound() {
+        ProductReadPreferences preferences = new ProductReadPreferences("secondaryPreferred", "nearest", "primary",
+                Duration.ofMinutes(2));
+
+        TaggableReadPreference list = (TaggableReadPreference) preferences.getList();
+        assertEquals("secondaryPreferred", list.getName());
+        assertEquals(120, list.getMaxStaleness(TimeUnit.SECONDS));
+        assertEquals("nearest", preferences.getFacets().getName());
+        assertEquals(ReadPreference.primary(), preferences.getExport());
+    }
+
+    @Test
+    void testRejectsBoundsTheServerWouldRefuseAndUnknownModes() {
+        assertThrows(IllegalArgumentException.class, () -> new ProductReadPreferences(
+                "secondaryPreferred", "secondaryPreferred", "secondaryPreferred", Duration.ofSeconds(30)));
+        assertThrows(IllegalArgumentException.class, () -> new ProductReadPreferences(
+                "secondaryish", "primary", "primary", Duration.ofSeconds(90)));
+    }
+
+    @Test
+    void testListPagesAreRoutedWithTheListPreference() {
+        MongoTemplate template = mock(MongoTemplate.class);
+        ProductReadPreferences preferences = new ProductReadPreferences("secondary", "primary", "primary",
+                Duration.ofSeconds(90));
+        when(template.find(any(Query.class), eq(Product.class))).thenReturn(List.of());
+
+        new ProductRepositoryCustomImpl(template, preferences)
+                .findPage(ProductFilter.all(), ProductSort.DEFAULT, null, 10, ProductFields.ALL);
+
+        ArgumentCaptor<Query> query = ArgumentCaptor.forClass(Query.class);
+        verify(template).find(query.capture(), eq(Product.class));
+        assertEquals(preferences.getList(), query.getValue().getReadPreference());
+    }
+}
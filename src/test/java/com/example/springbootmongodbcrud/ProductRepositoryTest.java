@@ -1,20 +1,28 @@
 package com.example.springbootmongodbcrud;
 
 import com.example.springbootmongodbcrud.model.Product;
+import com.example.springbootmongodbcrud.model.ProductFacets;
+import com.example.springbootmongodbcrud.model.ProductFacetsQuery;
+import com.example.springbootmongodbcrud.model.ProductFilter;
+import com.example.springbootmongodbcrud.repository.ProductReadPreferences;
 import com.example.springbootmongodbcrud.repository.ProductRepository;
+import com.example.springbootmongodbcrud.repository.StockWrite;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.data.mongo.DataMongoTest;
+import org.springframework.context.annotation.Import;
 import org.springframework.test.context.ActiveProfiles;
 
 import java.math.BigDecimal;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
 
 @DataMongoTest
+@Import(ProductReadPreferences.class)
 @ActiveProfiles("test")
 class ProductRepositoryTest {
 
@@ -159,4 +167,53 @@ class ProductRepositoryTest {
         assertTrue(names.contains("Mouse"));
         assertTrue(names.contains("Book"));
     }
+
+    @Test
+    void testFindBelowReorderThreshold() {
+        product3.setReorderThreshold(30);
+        productRepository.save(product3);
+        productRepository.save(new Product("Cable", "No stock recorded", BigDecimal.ONE, "Electronics", null));
+
+        List<String> names = productRepository.findBelowReorderThreshold(20).stream().map(Product::getName).toList();
+        assertEquals(2, names.size());
+        assertTrue(names.containsAll(List.of("Book", "Cable")));
+    }
+
+    @Test
+    void testSetStocksInOneBulkWrite() {
+        long laptopVersion = product1.getVersion();
+
+        int matched = productRepository.setStocks(Map.of(
+                product1.getId(), new StockWrite(3, 2),
+                product2.getId(), new StockWrite(0, 1),
+                "missing", new StockWrite(1, 1)));
+
+        assertEquals(2, matched);
+        Product laptop = productRepository.findById(product1.getId()).orElseThrow();
+        assertEquals(3, laptop.getStockQuantity());
+        assertEquals(laptopVersion + 2, laptop.getVersion());
+        assertEquals(0, productRepository.findById(product2.getId()).orElseThrow().getStockQuantity());
+    }
+
+    @Test
+    void testFacetsFromOneAggregation() {
+        productRepository.save(new Product("Gift card", "No fixed price", null, "Books", 0));
+
+        ProductFacets facets = productRepository.facets(ProductFacetsQuery.of(ProductFilter.all(), null, 30));
+
+        assertEquals(4, facets.getTotal());
+        assertEquals("Books", facets.getCategories().get(0).getValue());
+        assertEquals(2, facets.getCategories().get(0).getCount());
+        assertEquals(2, facets.getCategories().get(1).getCount());
+        assertEquals(2, facets.getPrices().get(2).getCount());
+        assertEquals(1, facets.getPrices().get(6).getCount());
+        assertEquals(1, facets.getUnpriced());
+        assertEquals(1, facets.getStock().getInStock());
+        assertEquals(2, facets.getStock().getLowStock());
+        assertEquals(1, facets.getStock().getOutOfStock());
+
+        ProductFacets electronics = productRepository.facets(ProductFacetsQuery.of(ProductFilter.byCategory("Electronics")));
+        assertEquals(2, electronics.getTotal());
+        assertEquals(1, electronics.getCategories().size());
+    }
 } 
\ No newline at end of file
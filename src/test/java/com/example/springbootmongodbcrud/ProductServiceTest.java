@@ -1,21 +1,64 @@
 package com.example.springbootmongodbcrud;
 
+import com.example.springbootmongodbcrud.exception.InsufficientStockException;
+import com.example.springbootmongodbcrud.exception.ProductNotFoundException;
+import com.example.springbootmongodbcrud.exception.ProductValidationException;
+import com.example.springbootmongodbcrud.model.BatchGetResult;
+import com.example.springbootmongodbcrud.model.BulkCreateResult;
+import com.example.springbootmongodbcrud.model.HotKeyReport;
+import com.example.springbootmongodbcrud.model.KeysetPageRequest;
 import com.example.springbootmongodbcrud.model.Product;
+import com.example.springbootmongodbcrud.model.ProductEvent;
+import com.example.springbootmongodbcrud.model.ProductFacets;
+import com.example.springbootmongodbcrud.model.ProductFacetsQuery;
+import com.example.springbootmongodbcrud.model.ProductFields;
+import com.example.springbootmongodbcrud.model.ProductCursor;
+import com.example.springbootmongodbcrud.model.ProductFilter;
+import com.example.springbootmongodbcrud.model.ProductPage;
+import com.example.springbootmongodbcrud.model.ProductSort;
+import com.example.springbootmongodbcrud.repository.BulkInsertFailure;
 import com.example.springbootmongodbcrud.repository.ProductRepository;
+import com.example.springbootmongodbcrud.repository.StockWrite;
+import com.example.springbootmongodbcrud.service.ProductCache;
+import com.example.springbootmongodbcrud.service.HotKeyTracker;
+import com.example.springbootmongodbcrud.service.LowStockTracker;
+import com.example.springbootmongodbcrud.service.ProductEventLog;
+import com.example.springbootmongodbcrud.service.ProductFacetsCache;
 import com.example.springbootmongodbcrud.service.ProductService;
+import com.example.springbootmongodbcrud.service.ReadCoalescer;
+import com.example.springbootmongodbcrud.service.StockWriteBehind;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.validation.Validation;
+import jakarta.validation.Validator;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.mockito.Spy;
+import org.springframework.dao.OptimisticLockingFailureException;
+import reactor.test.StepVerifier;
 
 import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.time.Duration;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyIterable;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
 import static org.mockito.Mockito.*;
 
 class ProductServiceTest {
@@ -23,6 +66,30 @@ class ProductServiceTest {
     @Mock
     private ProductRepository productRepository;
 
+    @Mock
+    private Validator validator;
+
+    @Spy
+    private ProductCache productCache = new ProductCache(1_000_000, 1_000, Duration.ofMinutes(5));
+
+    @Spy
+    private ProductFacetsCache facetsCache = new ProductFacetsCache(100, Duration.ofMinutes(5));
+
+    @Spy
+    private LowStockTracker lowStockTracker = new LowStockTracker(mock(ProductRepository.class), 10, 1024);
+
+    @Spy
+    private ProductEventLog eventLog = new ProductEventLog(100, 1024, false);
+
+    @Spy
+    private StockWriteBehind stockWriteBehind = disabledWriteBehind();
+
+    @Spy
+    private ReadCoalescer reads = new ReadCoalescer(new SimpleMeterRegistry(), true);
+
+    @Spy
+    private HotKeyTracker hotKeys = new HotKeyTracker(true, Duration.ofMinutes(1), 6, 1024, 4, 64);
+
     @InjectMocks
     private ProductService productService;
 
@@ -44,11 +111,104 @@ class ProductServiceTest {
         assertEquals(product.getName(), created.getName());
     }
 
+    @Test
+    void testCreateProductsReportsPerItemStatus() {
+        Validator realValidator = Validation.buildDefaultValidatorFactory().getValidator();
+        ProductService bulkService = new ProductService(productRepository, realValidator, productCache, facetsCache,
+                lowStockTracker, eventLog, stockWriteBehind, reads, hotKeys);
+        Product valid = new Product("Valid", "Description", new BigDecimal("10.00"), "Category", 5);
+        Product invalid = new Product("", "Description", new BigDecimal("-1.00"), "Category", 5);
+        Product duplicate = new Product("Duplicate", "Description", new BigDecimal("10.00"), "Category", 5);
+        when(productRepository.insertUnordered(anyList())).thenAnswer(invocation -> {
+            List<Product> batch = invocation.getArgument(0);
+            assertEquals(2, batch.size());
+            batch.get(0).setId("a1");
+            return List.of(new BulkInsertFailure(1, true, "E11000 duplicate key error"));
+        });
+
+        BulkCreateResult result = bulkService.createProducts(Arrays.asList(valid, invalid, duplicate));
+
+        assertEquals(1, result.getCreated());
+        assertEquals(2, result.getFailed());
+        assertEquals(BulkCreateResult.Status.CREATED, result.getItems().get(0).getStatus());
+        assertEquals("a1", result.getItems().get(0).getId());
+        assertEquals(BulkCreateResult.Status.INVALID, result.getItems().get(1).getStatus());
+        assertEquals(BulkCreateResult.Status.CONFLICT, result.getItems().get(2).getStatus());
+        verify(productRepository, never()).existsByName(anyString());
+    }
+
+    @Test
+    void testCreateProductsIgnoresClientIdsAndVersions() {
+        Product supplied = new Product("Supplied", "Description", new BigDecimal("10.00"), "Category", 5);
+        supplied.setId("existing-id");
+        supplied.setVersion(7L);
+        when(productRepository.insertUnordered(anyList())).thenAnswer(invocation -> {
+            Product inserted = invocation.<List<Product>>getArgument(0).get(0);
+            assertNull(inserted.getId());
+            assertNull(inserted.getVersion());
+            return List.of();
+        });
+
+        assertEquals(1, productService.createProducts(List.of(supplied)).getCreated());
+    }
+
     @Test
     void testGetAllProducts() {
-        when(productRepository.findAll()).thenReturn(Arrays.asList(product));
-        List<Product> products = productService.getAllProducts();
-        assertEquals(1, products.size());
+        when(productRepository.findPage(eq(ProductFilter.all()), eq(ProductSort.DEFAULT), isNull(), eq(51), eq(ProductFields.ALL)))
+                .thenReturn(Arrays.asList(product));
+        ProductPage page = productService.getAllProducts(KeysetPageRequest.first());
+        assertEquals(1, page.getItems().size());
+        assertNull(page.getNextCursor());
+    }
+
+    @Test
+    void testGetProductsReturnsCursorWhenMoreRowsExist() {
+        Product second = new Product("Second", "Description", new BigDecimal("12.00"), "Category", 3);
+        second.setId("2");
+        Product third = new Product("Third", "Description", new BigDecimal("14.00"), "Category", 3);
+        third.setId("3");
+        KeysetPageRequest page = KeysetPageRequest.of("price", null, 2);
+        when(productRepository.findPage(any(ProductFilter.class), eq(page.getSort()), isNull(), eq(3), eq(ProductFields.ALL)))
+                .thenReturn(Arrays.asList(product, second, third));
+
+        ProductPage result = productService.getProductsByCategory("Category", page);
+
+        assertEquals(2, result.getItems().size());
+        assertTrue(result.isHasMore());
+        ProductCursor cursor = ProductCursor.decode(result.getNextCursor(), page.getSort());
+        assertEquals("2", cursor.getId());
+        assertEquals(new BigDecimal("12.00"), cursor.getValue());
+    }
+
+    @Test
+    void testSparsePageReadsSelectionPlusCursorFields() {
+        KeysetPageRequest page = KeysetPageRequest.of("-price", null, 10, "name");
+        when(productRepository.findPage(any(ProductFilter.class), eq(page.getSort()), isNull(), eq(11),
+                eq(ProductFields.parse("name,price,id,version"))))
+                .thenReturn(Arrays.asList(product));
+
+        assertEquals(1, productService.getAllProducts(page).getItems().size());
+    }
+
+    @Test
+    void testIdenticalFacetQueriesRunOneAggregation() {
+        ProductFacets facets = new ProductFacets();
+        when(productRepository.facets(any(ProductFacetsQuery.class))).thenReturn(facets);
+
+        assertSame(facets, productService.getFacets(ProductFacetsQuery.of(ProductFilter.byCategory("Category"))));
+        assertSame(facets, productService.getFacets(ProductFacetsQuery.of(ProductFilter.byCategory("Category"))));
+        productService.getFacets(ProductFacetsQuery.of(ProductFilter.byCategory("Other")));
+
+        verify(productRepository, times(2)).facets(any(ProductFacetsQuery.class));
+    }
+
+    @Test
+    void testStreamAllProducts() {
+        when(productRepository.streamAll(ProductFields.ALL)).thenReturn(Stream.of(product));
+        try (Stream<Product> products = productService.streamAllProducts()) {
+            assertEquals(1, products.count());
+        }
+        verify(productRepository, never()).findAll();
     }
 
     @Test
@@ -59,16 +219,67 @@ class ProductServiceTest {
         assertEquals(product.getName(), found.get().getName());
     }
 
+    @Test
+    void testGetProductByIdIsServedFromCache() {
+        when(productRepository.findById("1")).thenReturn(Optional.of(product));
+        productService.getProductById("1");
+        productService.getProductById("1");
+        productService.getProductByName("Test Product");
+        verify(productRepository, times(1)).findById("1");
+        verify(productRepository, never()).findByName(anyString());
+    }
+
+    @Test
+    void testPointReadsAreCountedAsHotKeys() {
+        when(productRepository.findById("1")).thenReturn(Optional.of(product));
+        productService.getProductById("1");
+        productService.getProductById("1");
+        productService.getProductByName("Test Product");
+        productService.getProductById("missing");
+
+        HotKeyReport.Dimension products = hotKeys.report(10).getProducts();
+        assertEquals(4, products.getTotal());
+        assertEquals("1", products.getTop().get(0).getKey());
+        assertEquals(3, products.getTop().get(0).getCount());
+    }
+
+    @Test
+    void testDeleteProductInvalidatesCache() {
+        when(productRepository.findById("1")).thenReturn(Optional.of(product));
+        when(productRepository.existsById("1")).thenReturn(true);
+        productService.getProductById("1");
+        productService.deleteProduct("1");
+        when(productRepository.findById("1")).thenReturn(Optional.empty());
+        assertTrue(productService.getProductById("1").isEmpty());
+    }
+
     @Test
     void testUpdateProduct() {
         Product updated = new Product("Updated", "Desc", new BigDecimal("20.00"), "Category", 10);
         updated.setId("1");
         when(productRepository.findById("1")).thenReturn(Optional.of(product));
         when(productRepository.existsByName(updated.getName())).thenReturn(false);
-        when(productRepository.save(any(Product.class))).thenReturn(updated);
+        when(productRepository.updateIfVersion(any(Product.class), eq(0L))).thenReturn(Optional.of(updated));
         Product result = productService.updateProduct("1", updated);
         assertEquals("Updated", result.getName());
         assertEquals(new BigDecimal("20.00"), result.getPrice());
+        verify(productRepository, never()).save(any(Product.class));
+    }
+
+    @Test
+    void testUpdateProductWithStaleVersionDoesNotWrite() {
+        product.setVersion(3L);
+        when(productRepository.findById("1")).thenReturn(Optional.of(product));
+        assertThrows(OptimisticLockingFailureException.class, () -> productService.updateProduct("1", product, 2L));
+        verify(productRepository, never()).updateIfVersion(any(Product.class), anyLong());
+    }
+
+    @Test
+    void testUpdateProductLosingConcurrentWriteIsConflict() {
+        product.setVersion(3L);
+        when(productRepository.findById("1")).thenReturn(Optional.of(product));
+        when(productRepository.updateIfVersion(any(Product.class), eq(3L))).thenReturn(Optional.empty());
+        assertThrows(OptimisticLockingFailureException.class, () -> productService.updateProduct("1", product, 3L));
     }
 
     @Test
@@ -78,4 +289,170 @@ class ProductServiceTest {
         assertDoesNotThrow(() -> productService.deleteProduct("1"));
         verify(productRepository, times(1)).deleteById("1");
     }
-} 
\ No newline at end of file
+
+    @Test
+    void testUpdateStockQuantityIsSingleAtomicWrite() {
+        product.setStockQuantity(20);
+        when(productRepository.setStock("1", 20)).thenReturn(Optional.of(product));
+        Product result = productService.updateStockQuantity("1", 20);
+        assertEquals(20, result.getStockQuantity());
+        verify(productRepository, never()).findById(anyString());
+        verify(productRepository, never()).save(any(Product.class));
+    }
+
+    @Test
+    void testAdjustStockQuantity() {
+        product.setStockQuantity(2);
+        when(productRepository.adjustStock("1", -3)).thenReturn(Optional.of(product));
+        assertEquals(2, productService.adjustStockQuantity("1", -3).getStockQuantity());
+    }
+
+    @Test
+    void testStockWritesMoveProductThroughLowStockSet() {
+        product.setStockQuantity(20);
+        product.setVersion(1L);
+        when(productRepository.setStock("1", 20)).thenReturn(Optional.of(product));
+        productService.updateStockQuantity("1", 20);
+        assertTrue(productService.getLowStockSnapshot().getItems().isEmpty());
+
+        Product depleted = new Product(product);
+        depleted.setStockQuantity(2);
+        depleted.setVersion(2L);
+        when(productRepository.adjustStock("1", -18)).thenReturn(Optional.of(depleted));
+        productService.adjustStockQuantity("1", -18);
+        assertEquals(2, productService.getLowStockSnapshot().getItems().get(0).getStockQuantity());
+
+        when(productRepository.existsById("1")).thenReturn(true);
+        productService.deleteProduct("1");
+        assertTrue(productService.getLowStockSnapshot().getItems().isEmpty());
+        verify(lowStockTracker).remove("1");
+    }
+
+    @Test
+    void testWritesArePublishedAsEvents() {
+        when(productRepository.existsByName(product.getName())).thenReturn(false);
+        when(productRepository.save(any(Product.class))).thenReturn(product);
+        when(productRepository.setStock("1", 7)).thenReturn(Optional.of(product));
+        when(productRepository.existsById("1")).thenReturn(true);
+
+        StepVerifier.create(productService.productEvents(null))
+                .then(() -> productService.createProduct(product))
+                .expectNextMatches(event -> event.getType() == ProductEvent.Type.CREATED && "1".equals(event.getProductId()))
+                .then(() -> productService.updateStockQuantity("1", 7))
+                .expectNextMatches(event -> event.getType() == ProductEvent.Type.STOCK && event.getProduct() != null)
+                .then(() -> productService.deleteProduct("1"))
+                .expectNextMatches(event -> event.getType() == ProductEvent.Type.DELETED && event.getProduct() == null)
+                .thenCancel()
+                .verify();
+    }
+
+    @Test
+    void testReserveStockWithInsufficientStock() {
+        when(productRepository.adjustStock("1", -10)).thenReturn(Optional.empty());
+        when(productRepository.findById("1")).thenReturn(Optional.of(product));
+        assertThrows(InsufficientStockException.class, () -> productService.reserveStock("1", 10));
+    }
+
+    @Test
+    void testReserveStockForMissingProduct() {
+        when(productRepository.adjustStock("999", -1)).thenReturn(Optional.empty());
+        when(productRepository.findById("999")).thenReturn(Optional.empty());
+        assertThrows(ProductNotFoundException.class, () -> productService.reserveStock("999", 1));
+    }
+
+    @Test
+    void testAdjustStockRejectsTheMinimumDelta() {
+        // -Integer.MIN_VALUE overflows back to itself, so the stock guard could not hold
+        assertThrows(ProductValidationException.class,
+                () -> productService.adjustStockQuantity("1", Integer.MIN_VALUE));
+        verify(productRepository, never()).adjustStock(anyString(), anyInt());
+    }
+
+    @Test
+    void testAdjustStockPastTheMaximumIsRejected() {
+        product.setStockQuantity(Integer.MAX_VALUE - 1);
+        when(productRepository.adjustStock("1", 2)).thenReturn(Optional.empty());
+        when(productRepository.findById("1")).thenReturn(Optional.of(product));
+        assertThrows(ProductValidationException.class, () -> productService.adjustStockQuantity("1", 2));
+    }
+
+    @Test
+    void testAdjustStockWithoutAStockQuantityIsRejected() {
+        product.setStockQuantity(null);
+        when(productRepository.adjustStock("1", 5)).thenReturn(Optional.empty());
+        when(productRepository.findById("1")).thenReturn(Optional.of(product));
+        assertThrows(ProductValidationException.class, () -> productService.adjustStockQuantity("1", 5));
+    }
+
+    @Test
+    void testWriteBehindBuffersStockUpdatesUntilFlushed(@TempDir Path journal) {
+        StockWriteBehind writeBehind = new StockWriteBehind(productRepository, productCache, new SimpleMeterRegistry(),
+                true, journal.toString(), true, 1000, Duration.ofHours(1));
+        ProductService bufferedService = new ProductService(productRepository, validator, productCache, facetsCache,
+                lowStockTracker, eventLog, writeBehind, reads, hotKeys);
+        product.setVersion(3L);
+        when(productRepository.findById("1")).thenReturn(Optional.of(product));
+        writeBehind.start();
+        try {
+            assertEquals(9, bufferedService.updateStockQuantity("1", 9).getStockQuantity());
+            Product acknowledged = bufferedService.updateStockQuantity("1", 2);
+            assertEquals(2, acknowledged.getStockQuantity());
+            assertEquals(5L, acknowledged.getVersion());
+            verify(productRepository, never()).setStock(anyString(), anyInt());
+            Product read = bufferedService.getProductById("1").orElseThrow();
+            assertEquals(2, read.getStockQuantity());
+            // The version it will have once flushed, so the ETag changes with the stock
+            assertEquals(5L, read.getVersion());
+            assertEquals(2, bufferedService.getLowStockSnapshot().getItems().get(0).getStockQuantity());
+            // The cached document keeps its stored stock
+            assertEquals(5, product.getStockQuantity());
+
+            // Adjustments apply to the stored stock, so the buffered quantity is written first
+            when(productRepository.adjustStock("1", -1)).thenReturn(Optional.of(product));
+            bufferedService.adjustStockQuantity("1", -1);
+            verify(productRepository).setStocks(Map.of("1", new StockWrite(2, 2)));
+            assertEquals(0, writeBehind.pendingCount());
+        } finally {
+            writeBehind.stop();
+        }
+    }
+
+    @Test
+    void testBatchGetPreservesRequestOrderAndMarksMissingIds() {
+        Product cached = new Product("Cached", "Description", new BigDecimal("10.00"), "Category", 5);
+        cached.setId("2");
+        productCache.put(cached);
+        when(productRepository.findAllById(List.of("3", "1"))).thenReturn(List.of(product));
+
+        BatchGetResult result = productService.getProductsByIds(List.of("3", "1", "2", "1"));
+
+        assertEquals(List.of("3", "1", "2", "1"), result.getItems().stream().map(BatchGetResult.Item::getId).toList());
+        assertEquals(BatchGetResult.Status.NOT_FOUND, result.getItems().get(0).getStatus());
+        assertNull(result.getItems().get(0).getProduct());
+        assertEquals("Cached", result.getItems().get(2).getProduct().getName());
+        assertSame(result.getItems().get(1).getProduct(), result.getItems().get(3).getProduct());
+        assertEquals(3, result.getFound());
+        assertEquals(1, result.getMissing());
+        // One query for the ids the cache did not have
+        verify(productRepository).findAllById(List.of("3", "1"));
+        verify(productRepository, never()).findById(anyString());
+    }
+
+    @Test
+    void testBatchGetQueriesLargeRequestsInChunks() {
+        List<String> ids = IntStream.range(0, BatchGetResult.MAX_IDS).mapToObj(Integer::toString).toList();
+        when(productRepository.findAllById(anyIterable())).thenReturn(List.of());
+
+        assertEquals(BatchGetResult.MAX_IDS, productService.getProductsByIds(ids).getMissing());
+        verify(productRepository, times(2)).findAllById(anyIterable());
+
+        List<String> tooMany = IntStream.rangeClosed(0, BatchGetResult.MAX_IDS).mapToObj(Integer::toString).toList();
+        assertThrows(ProductValidationException.class, () -> productService.getProductsByIds(tooMany));
+    }
+
+    // Stock updates go straight to the repository, as with app.stock.write-behind.enabled=false
+    private static StockWriteBehind disabledWriteBehind() {
+        return new StockWriteBehind(mock(ProductRepository.class), new ProductCache(1, 1, Duration.ZERO),
+                new SimpleMeterRegistry(), false, "", true, 1000, Duration.ofMillis(200));
+    }
+}
@@ -0,0 +1,194 @@
+package com.example.springbootmongodbcrud;
+
+import com.example.springbootmongodbcrud.exception.InsufficientStockException;
+import com.example.springbootmongodbcrud.exception.ProductValidationException;
+import com.example.springbootmongodbcrud.model.BatchGetResult;
+import com.example.springbootmongodbcrud.model.BulkCreateResult;
+import com.example.springbootmongodbcrud.model.KeysetPageRequest;
+import com.example.springbootmongodbcrud.model.Product;
+import com.example.springbootmongodbcrud.model.ProductFields;
+import com.example.springbootmongodbcrud.model.ProductFilter;
+import com.example.springbootmongodbcrud.model.ProductSort;
+import com.example.springbootmongodbcrud.repository.BulkInsertFailure;
+import com.example.springbootmongodbcrud.repository.ProductRepository;
+import com.example.springbootmongodbcrud.repository.ReactiveProductRepository;
+import com.example.springbootmongodbcrud.service.HotKeyTracker;
+import com.example.springbootmongodbcrud.service.LowStockTracker;
+import com.example.springbootmongodbcrud.service.ProductEventLog;
+import com.example.springbootmongodbcrud.service.ProductFacetsCache;
+import com.example.springbootmongodbcrud.service.ReactiveProductService;
+import jakarta.validation.Validation;
+import jakarta.validation.Validator;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.*;
+
+class ReactiveProductServiceTest {
+
+    @Mock
+    private ReactiveProductRepository productRepository;
+
+    private LowStockTracker lowStockTracker;
+
+    private ReactiveProductService productService;
+
+    private Product product;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        Validator validator = Validation.buildDefaultValidatorFactory().getValidator();
+        lowStockTracker = new LowStockTracker(mock(ProductRepository.class), 10, 1024);
+        productService = new ReactiveProductService(productRepository, validator,
+                new ProductFacetsCache(100, Duration.ofMinutes(5)), lowStockTracker, new ProductEventLog(100, 1024, false),
+                new HotKeyTracker(true, Duration.ofMinutes(1), 6, 1024, 4, 64));
+        product = new Product("Test Product", "Description", new BigDecimal("10.00"), "Category", 5);
+        product.setId("1");
+    }
+
+    @Test
+    void testCreateProduct() {
+        when(productRepository.existsByName(product.getName())).thenReturn(Mono.just(false));
+        when(productRepository.save(any(Product.class))).thenReturn(Mono.just(product));
+        StepVerifier.create(productService.createProduct(product))
+                .expectNext(product)
+                .verifyComplete();
+        assertNotNull(product.getCreatedAt());
+    }
+
+    @Test
+    void testCreateProductWithDuplicateName() {
+        when(productRepository.existsByName(product.getName())).thenReturn(Mono.just(true));
+        StepVerifier.create(productService.createProduct(product))
+                .expectErrorMessage("Product with name 'Test Product' already exists")
+                .verify();
+        verify(productRepository, never()).save(any(Product.class));
+    }
+
+    @Test
+    void testCreateProductsReportsPerItemStatus() {
+        Product valid = new Product("Valid", "Description", new BigDecimal("10.00"), "Category", 5);
+        Product invalid = new Product("", "Description", new BigDecimal("-1.00"), "Category", 5);
+        Product duplicate = new Product("Duplicate", "Description", new BigDecimal("10.00"), "Category", 5);
+        when(productRepository.insertUnordered(anyList())).thenAnswer(invocation -> {
+            List<Product> batch = invocation.getArgument(0);
+            assertEquals(2, batch.size());
+            batch.get(0).setId("new-id");
+            return Mono.just(List.of(new BulkInsertFailure(1, true, "E11000 duplicate key")));
+        });
+
+        BulkCreateResult result = productService.createProducts(List.of(valid, invalid, duplicate)).block();
+
+        assertNotNull(result);
+        assertEquals(BulkCreateResult.Status.CREATED, result.getItems().get(0).getStatus());
+        assertEquals("new-id", result.getItems().get(0).getId());
+        assertEquals(BulkCreateResult.Status.INVALID, result.getItems().get(1).getStatus());
+        assertEquals(BulkCreateResult.Status.CONFLICT, result.getItems().get(2).getStatus());
+    }
+
+    @Test
+    void testGetProductsReturnsCursorWhenMoreRowsExist() {
+        Product second = new Product("Second", "Description", new BigDecimal("20.00"), "Category", 5);
+        second.setId("2");
+        when(productRepository.findPage(eq(ProductFilter.all()), eq(ProductSort.DEFAULT), isNull(), eq(2), eq(ProductFields.ALL)))
+                .thenReturn(Flux.just(product, second));
+
+        StepVerifier.create(productService.getAllProducts(KeysetPageRequest.of(null, null, 1)))
+                .assertNext(page -> {
+                    assertEquals(List.of(product), page.getItems());
+                    assertTrue(page.isHasMore());
+                })
+                .verifyComplete();
+    }
+
+    @Test
+    void testUpdateProductNotFound() {
+        when(productRepository.findById("missing")).thenReturn(Mono.empty());
+        StepVerifier.create(productService.updateProduct("missing", product))
+                .expectErrorMessage("Product not found with id: missing")
+                .verify();
+    }
+
+    @Test
+    void testDeleteProduct() {
+        when(productRepository.existsById("1")).thenReturn(Mono.just(true));
+        when(productRepository.deleteById("1")).thenReturn(Mono.empty());
+        StepVerifier.create(productService.deleteProduct("1")).verifyComplete();
+        verify(productRepository).deleteById("1");
+    }
+
+    @Test
+    void testStockWritesUpdateLowStockSet() {
+        when(productRepository.setStock("1", 5)).thenReturn(Mono.just(product));
+        StepVerifier.create(productService.updateStockQuantity("1", 5)).expectNext(product).verifyComplete();
+        StepVerifier.create(productService.getLowStockSnapshot())
+                .expectNextMatches(snapshot -> snapshot.getItems().size() == 1 && "1".equals(snapshot.getItems().get(0).getId()))
+                .verifyComplete();
+
+        when(productRepository.existsById("1")).thenReturn(Mono.just(true));
+        when(productRepository.deleteById("1")).thenReturn(Mono.empty());
+        StepVerifier.create(productService.deleteProduct("1")).verifyComplete();
+        assertEquals(0, lowStockTracker.size());
+    }
+
+    @Test
+    void testReserveStockWithInsufficientStock() {
+        when(productRepository.adjustStock("1", -10)).thenReturn(Mono.empty());
+        when(productRepository.findById("1")).thenReturn(Mono.just(product));
+        StepVerifier.create(productService.reserveStock("1", 10))
+                .expectError(InsufficientStockException.class)
+                .verify();
+    }
+
+    @Test
+    void testAdjustStockOutOfRangeOrWithoutStockIsRejected() {
+        StepVerifier.create(productService.adjustStockQuantity("1", Integer.MIN_VALUE))
+                .expectError(ProductValidationException.class)
+                .verify();
+        product.setStockQuantity(null);
+        when(productRepository.adjustStock("1", 1)).thenReturn(Mono.empty());
+        when(productRepository.findById("1")).thenReturn(Mono.just(product));
+        StepVerifier.create(productService.adjustStockQuantity("1", 1))
+                .expectError(ProductValidationException.class)
+                .verify();
+    }
+
+    @Test
+    void testReserveStockForMissingProduct() {
+        when(productRepository.adjustStock("missing", -1)).thenReturn(Mono.empty());
+        when(productRepository.findById("missing")).thenReturn(Mono.empty());
+        StepVerifier.create(productService.reserveStock("missing", 1))
+                .expectErrorMatches(e -> !(e instanceof InsufficientStockException)
+                        && "Product not found with id: missing".equals(e.getMessage()))
+                .verify();
+    }
+    @Test
+    void testBatchGetPreservesRequestOrderAndMarksMissingIds() {
+        when(productRepository.findAllById(List.of("9", "1"))).thenReturn(Flux.just(product));
+
+        StepVerifier.create(productService.getProductsByIds(List.of("9", "1", "9")))
+                .assertNext(result -> {
+                    assertEquals(List.of(BatchGetResult.Status.NOT_FOUND, BatchGetResult.Status.FOUND,
+                            BatchGetResult.Status.NOT_FOUND), result.getItems().stream().map(BatchGetResult.Item::getStatus).toList());
+                    assertEquals(1, result.getFound());
+                    assertEquals(2, result.getMissing());
+                })
+                .verifyComplete();
+    }
+
+}
@@ -0,0 +1,162 @@
+package com.example.springbootmongodbcrud;
+
+import com.example.springbootmongodbcrud.service.ReadCoalescer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ReadCoalescerTest {
+
+    private static final int CALLERS = 16;
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+    private final ReadCoalescer reads = new ReadCoalescer(registry, true);
+
+    private final ExecutorService executor = Executors.newFixedThreadPool(CALLERS);
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void testConcurrentIdenticalReadsShareOneCall() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger calls = new AtomicInteger();
+        Supplier<String> slowQuery = () -> {
+            calls.incrementAndGet();
+            await(release);
+            return "product";
+        };
+
+        List<Future<String>> results = submit(() -> reads.read("findById", "1", slowQuery));
+        awaitCollapsed("findById", CALLERS - 1);
+        release.countDown();
+
+        for (Future<String> result : results) {
+            assertEquals("product", result.get(5, TimeUnit.SECONDS));
+        }
+        assertEquals(1, calls.get());
+        assertEquals(CALLERS - 1, registry.get("product.reads").tag("operation", "findById").tag("result", "collapsed")
+                .counter().count());
+        assertEquals(1, registry.get("product.reads").tag("result", "executed").counter().count());
+    }
+
+    @Test
+    void testWaitersGetTheLeadersException() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        List<Future<String>> results = submit(() -> reads.read("findPage", List.of("Books", 50), () -> {
+            await(release);
+            throw new IllegalStateException("timed out");
+        }));
+        awaitCollapsed("findPage", CALLERS - 1);
+        release.countDown();
+
+        for (Future<String> result : results) {
+            ExecutionException e = assertThrows(ExecutionException.class, () -> result.get(5, TimeUnit.SECONDS));
+            assertInstanceOf(IllegalStateException.class, e.getCause());
+        }
+    }
+
+    @Test
+    void testReadAfterWriteDoesNotJoinAnEarlierRead() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger calls = new AtomicInteger();
+        String[] stored = {"before"};
+        Supplier<String> slowQuery = () -> {
+            String seen = stored[0];
+            calls.incrementAndGet();
+            await(release);
+            return seen;
+        };
+
+        Future<String> earlier = executor.submit(() -> reads.read("findById", "1", slowQuery));
+        awaitCalls(calls, 1);
+        // The write lands and is acknowledged while the earlier read is still in flight
+        stored[0] = "after";
+        reads.writeCompleted();
+
+        Future<String> later = executor.submit(() -> reads.read("findById", "1", () -> {
+            calls.incrementAndGet();
+            return stored[0];
+        }));
+        assertEquals("after", later.get(5, TimeUnit.SECONDS));
+        release.countDown();
+        assertEquals("before", earlier.get(5, TimeUnit.SECONDS));
+        assertEquals(2, calls.get());
+        assertEquals(0, reads.collapsedCount("findById"));
+    }
+
+    @Test
+    void testCompletedReadsAreNotReused() {
+        AtomicInteger calls = new AtomicInteger();
+        reads.read("findByName", "Laptop", calls::incrementAndGet);
+        reads.read("findByName", "Laptop", calls::incrementAndGet);
+        // Same key under another operation is a different read
+        reads.read("findById", "Laptop", calls::incrementAndGet);
+        assertEquals(3, calls.get());
+        assertEquals(0, reads.collapsedCount("findByName"));
+    }
+
+    @Test
+    void testDisabledCoalescerRunsEveryRead() throws Exception {
+        ReadCoalescer disabled = new ReadCoalescer(registry, false);
+        CountDownLatch arrived = new CountDownLatch(CALLERS);
+        AtomicInteger calls = new AtomicInteger();
+        List<Future<Integer>> results = submit(() -> disabled.read("findById", "1", () -> {
+            arrived.countDown();
+            await(arrived);
+            return calls.incrementAndGet();
+        }));
+        for (Future<Integer> result : results) {
+            result.get(5, TimeUnit.SECONDS);
+        }
+        assertEquals(CALLERS, calls.get());
+    }
+
+    private <T> List<Future<T>> submit(Supplier<T> read) {
+        List<Future<T>> results = new ArrayList<>();
+        for (int i = 0; i < CALLERS; i++) {
+            results.add(executor.submit(read::get));
+        }
+        return results;
+    }
+
+    private void awaitCollapsed(String operation, long expected) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (reads.collapsedCount(operation) < expected) {
+            assertTrue(System.nanoTime() < deadline, "callers did not join the read in flight");
+            Thread.sleep(1);
+        }
+    }
+
+    private static void awaitCalls(AtomicInteger calls, int expected) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (calls.get() < expected) {
+            assertTrue(System.nanoTime() < deadline, "the read did not start");
+            Thread.sleep(1);
+        }
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            assertTrue(latch.await(5, TimeUnit.SECONDS));
+        } catch (InterruptedException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
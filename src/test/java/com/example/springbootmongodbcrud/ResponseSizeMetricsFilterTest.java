@@ -0,0 +1,82 @@
+package com.example.springbootmongodbcrud;
+
+import com.example.springbootmongodbcrud.metrics.ResponseSizeMetricsFilter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.AsyncContext;
+import jakarta.servlet.http.HttpServletResponse;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ResponseSizeMetricsFilterTest {
+
+    private SimpleMeterRegistry registry;
+
+    private ResponseSizeMetricsFilter filter;
+
+    @BeforeEach
+    void setUp() {
+        registry = new SimpleMeterRegistry();
+        filter = new ResponseSizeMetricsFilter(registry);
+    }
+
+    @Test
+    void testRecordsBytesPerRoute() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/products/42");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        filter.doFilter(request, response, (req, res) -> {
+            req.setAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE, "/api/products/{id}");
+            res.getOutputStream().write("{\"id\":\"42\"}".getBytes(StandardCharsets.UTF_8));
+            res.getWriter();
+        });
+
+        DistributionSummary summary = registry.get("http.server.response.size")
+                .tags("method", "GET", "uri", "/api/products/{id}", "status", "200").summary();
+        assertEquals(1, summary.count());
+        assertEquals(11, summary.totalAmount());
+        assertEquals("{\"id\":\"42\"}", response.getContentAsString());
+    }
+
+    @Test
+    void testCountsWriterOutputAndUnmatchedRoutes() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/nowhere");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        filter.doFilter(request, response, (req, res) -> {
+            ((HttpServletResponse) res).setStatus(404);
+            res.getWriter().print("missing");
+        });
+
+        DistributionSummary summary = registry.get("http.server.response.size").tags("uri", "NOT_FOUND", "status", "404").summary();
+        assertEquals(7, summary.totalAmount());
+        assertEquals("missing", response.getContentAsString());
+    }
+
+    @Test
+    void testAsyncResponseIsRecordedOnCompletion() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/products/export");
+        request.setAsyncSupported(true);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        AsyncContext[] async = new AsyncContext[1];
+
+        filter.doFilter(request, response, (req, res) -> {
+            req.setAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE, "/api/products/export");
+            async[0] = req.startAsync(req, res);
+        });
+        assertNull(registry.find("http.server.response.size").summary());
+
+        async[0].getResponse().getOutputStream().write(new byte[100]);
+        async[0].getResponse().getOutputStream().write(new byte[50]);
+        async[0].complete();
+
+        assertEquals(150, registry.get("http.server.response.size").tags("uri", "/api/products/export").summary().totalAmount());
+    }
+}
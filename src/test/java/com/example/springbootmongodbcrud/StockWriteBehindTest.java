@@ -0,0 +1,142 @@
+package com.example.springbootmongodbcrud;
+
+import com.example.springbootmongodbcrud.repository.ProductRepository;
+import com.example.springbootmongodbcrud.repository.StockWrite;
+import com.example.springbootmongodbcrud.service.ProductCache;
+import com.example.springbootmongodbcrud.service.StockWriteBehind;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.boot.web.context.WebServerGracefulShutdownLifecycle;
+import org.springframework.dao.DataAccessResourceFailureException;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.Mockito.*;
+
+class StockWriteBehindTest {
+
+    @TempDir
+    Path journal;
+
+    private final List<StockWriteBehind> started = new ArrayList<>();
+
+    @AfterEach
+    void tearDown() {
+        started.forEach(StockWriteBehind::stop);
+    }
+
+    @Test
+    void testUpdatesAreCoalescedIntoOneBulkWrite() throws IOException {
+        ProductRepository repository = mock(ProductRepository.class);
+        StockWriteBehind writeBehind = start(repository, 1000);
+
+        writeBehind.set("a", 1);
+        writeBehind.set("a", 2);
+        writeBehind.set("b", 4);
+        writeBehind.set("a", 3);
+        assertEquals(new StockWrite(3, 3), writeBehind.pending("a"));
+        assertEquals(2, writeBehind.pendingCount());
+
+        writeBehind.flush();
+        verify(repository).setStocks(Map.of("a", new StockWrite(3, 3), "b", new StockWrite(4, 1)));
+        assertNull(writeBehind.pending("a"));
+        // Only the fresh, empty segment is left
+        assertEquals(1, segments().size());
+    }
+
+    @Test
+    void testFlushesWhenFlushSizeIsReached() {
+        ProductRepository repository = mock(ProductRepository.class);
+        StockWriteBehind writeBehind = start(repository, 2);
+
+        writeBehind.set("a", 1);
+        writeBehind.set("b", 2);
+        verify(repository, timeout(5000)).setStocks(Map.of("a", new StockWrite(1, 1), "b", new StockWrite(2, 1)));
+    }
+
+    @Test
+    void testAcknowledgedUpdatesAreReplayedAfterCrash() throws IOException {
+        StockWriteBehind crashed = new StockWriteBehind(mock(ProductRepository.class), cache(),
+                new SimpleMeterRegistry(), true, journal.toString(), true, 1000, Duration.ofHours(1));
+        crashed.start();
+        crashed.set("a", 5);
+        crashed.set("b", 6);
+        crashed.set("a", 7);
+        // The process dies mid-write, leaving a torn record
+        Files.writeString(segments().get(0), "12\t3f", StandardCharsets.UTF_8, StandardOpenOption.APPEND);
+
+        ProductRepository repository = mock(ProductRepository.class);
+        start(repository, 1000);
+        verify(repository).setStocks(Map.of("a", new StockWrite(7, 2), "b", new StockWrite(6, 1)));
+        assertEquals(1, segments().size());
+    }
+
+    @Test
+    void testFailedFlushKeepsUpdatesForTheNextAttempt() {
+        ProductRepository repository = mock(ProductRepository.class);
+        when(repository.setStocks(anyMap()))
+                .thenThrow(new DataAccessResourceFailureException("down"))
+                .thenReturn(2);
+        StockWriteBehind writeBehind = start(repository, 1000);
+
+        writeBehind.set("a", 1);
+        writeBehind.set("b", 2);
+        assertThrows(DataAccessResourceFailureException.class, writeBehind::flush);
+        assertEquals(new StockWrite(1, 1), writeBehind.pending("a"));
+
+        // A newer update is not overwritten by the failed batch, and both count towards the version
+        assertEquals(new StockWrite(9, 2), writeBehind.set("a", 9));
+        writeBehind.flush();
+        verify(repository).setStocks(Map.of("a", new StockWrite(9, 2), "b", new StockWrite(2, 1)));
+        assertEquals(0, writeBehind.pendingCount());
+    }
+
+    @Test
+    void testDisabledBufferAcceptsNothing() {
+        StockWriteBehind writeBehind = new StockWriteBehind(mock(ProductRepository.class), cache(),
+                new SimpleMeterRegistry(), false, journal.toString(), true, 1000, Duration.ofMillis(200));
+        writeBehind.start();
+        assertFalse(writeBehind.accepts("a"));
+        assertNull(writeBehind.pending("a"));
+    }
+
+    @Test
+    void testStartsBeforeAndStopsAfterTheWebServer() {
+        StockWriteBehind writeBehind = new StockWriteBehind(mock(ProductRepository.class), cache(),
+                new SimpleMeterRegistry(), true, journal.toString(), true, 1000, Duration.ofMillis(200));
+        // Lower phases start first and stop last; the web server itself starts in a later phase still
+        assertTrue(writeBehind.getPhase() < WebServerGracefulShutdownLifecycle.SMART_LIFECYCLE_PHASE);
+    }
+
+    private StockWriteBehind start(ProductRepository repository, int flushSize) {
+        StockWriteBehind writeBehind = new StockWriteBehind(repository, cache(), new SimpleMeterRegistry(), true,
+                journal.toString(), true, flushSize, Duration.ofHours(1));
+        writeBehind.start();
+        started.add(writeBehind);
+        assertTrue(writeBehind.accepts("a"));
+        return writeBehind;
+    }
+
+    private List<Path> segments() throws IOException {
+        try (Stream<Path> files = Files.list(journal)) {
+            return files.sorted().toList();
+        }
+    }
+
+    private static ProductCache cache() {
+        return new ProductCache(1_000_000, 1_000, Duration.ofMinutes(5));
+    }
+}